@@ -0,0 +1,27 @@
+package com.tpximpact.shortenerservice.alias;
+
+/**
+ * Strategy for generating aliases when the user does not provide one. The strategy in use is
+ * chosen with the {@code alias.generator.strategy} property.
+ */
+public interface AliasGenerator {
+
+    /**
+     * Generates a new alias.
+     *
+     * @return the alias
+     */
+    String generate();
+
+    /**
+     * Whether the strategy guarantees it never hands out the same alias twice. When it does, callers
+     * can skip checking the persistence layer for collisions. Custom aliases are not covered by the
+     * guarantee, so an insert can still (rarely) clash with one chosen by a user.
+     *
+     * @return true if generated aliases never collide with each other.
+     */
+    default boolean isCollisionFree() {
+        return false;
+    }
+
+}
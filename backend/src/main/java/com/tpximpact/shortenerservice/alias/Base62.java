@@ -0,0 +1,68 @@
+package com.tpximpact.shortenerservice.alias;
+
+/**
+ * Encodes non-negative numbers using the characters 0-9, a-z and A-Z. All of these are valid in
+ * an alias.
+ */
+public final class Base62 {
+
+    private static final char[] ALPHABET =
+        "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private static final int MAX_LENGTH = 11; // Long.MAX_VALUE in base 62
+
+    private Base62() {
+    }
+
+    /**
+     * Encodes the value, left padding with zeros up to the minimum length. Padding keeps every
+     * encoded value unique as zero is the first digit.
+     *
+     * @param value non-negative value to encode
+     * @param minLength minimum length of the result
+     * @return the encoded value
+     */
+    public static String encode(long value, int minLength) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must not be negative: " + value);
+        }
+
+        final char[] buffer = new char[Math.max(MAX_LENGTH, minLength)];
+        int position = buffer.length;
+        do {
+            buffer[--position] = ALPHABET[(int) (value % 62)];
+            value /= 62;
+        } while (value > 0);
+
+        while (buffer.length - position < minLength) {
+            buffer[--position] = ALPHABET[0];
+        }
+
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    /**
+     * Decodes a value produced by {@link #encode(long, int)}.
+     *
+     * @param encoded the encoded value
+     * @return the value
+     */
+    public static long decode(String encoded) {
+        long value = 0;
+        for (int i = 0; i < encoded.length(); i++) {
+            final char c = encoded.charAt(i);
+            final int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'a' && c <= 'z') {
+                digit = c - 'a' + 10;
+            } else if (c >= 'A' && c <= 'Z') {
+                digit = c - 'A' + 36;
+            } else {
+                throw new IllegalArgumentException("not a base 62 value: " + encoded);
+            }
+            value = value * 62 + digit;
+        }
+        return value;
+    }
+}
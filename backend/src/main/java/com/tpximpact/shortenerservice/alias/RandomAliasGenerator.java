@@ -0,0 +1,33 @@
+package com.tpximpact.shortenerservice.alias;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates random alphanumeric aliases between 6 characters and the max alias size. Random
+ * aliases can collide, so callers have to check whether the alias is already in use.
+ */
+@Component
+@ConditionalOnProperty(name = "alias.generator.strategy", havingValue = "random", matchIfMissing = true)
+public class RandomAliasGenerator implements AliasGenerator {
+
+    private final int maxAliasSize;
+
+    /**
+     * Creates the generator.
+     *
+     * @param maxAliasSize max size of an alias.
+     */
+    public RandomAliasGenerator(@Value("${alias.maxSize}") int maxAliasSize) {
+        this.maxAliasSize = maxAliasSize;
+    }
+
+    @Override
+    public String generate() {
+        return RandomStringUtils.secure()
+                .nextAlphanumeric(6, maxAliasSize);
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.tpximpact.shortenerservice.alias;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.repository.AliasBlockDAO;
+import com.tpximpact.shortenerservice.repository.AliasBlockDAO.Block;
+
+/**
+ * Generates aliases by base 62 encoding ids handed out with the hi/lo algorithm. Each instance
+ * reserves a block of ids from a database sequence (the "hi" value) and then hands them out from
+ * memory (the "lo" value), so only one round trip is needed per block. Blocks are never shared
+ * between instances, so aliases never collide even when several instances are running, and the
+ * block size comes with each block so that changing it can't hand out the same ids again.
+ */
+@Component
+@ConditionalOnProperty(name = "alias.generator.strategy", havingValue = "sequence")
+public class SequenceAliasGenerator implements AliasGenerator {
+
+    private static final int MIN_LENGTH = 6;
+
+    private final AliasBlockDAO aliasBlockDAO;
+    private final Lock lock = new ReentrantLock();
+
+    private long next;
+    private long blockEnd;
+
+    /**
+     * Creates the generator. No block is reserved until the first alias is generated.
+     *
+     * @param aliasBlockDAO source of reserved blocks
+     */
+    public SequenceAliasGenerator(AliasBlockDAO aliasBlockDAO) {
+        this.aliasBlockDAO = aliasBlockDAO;
+    }
+
+    @Override
+    public String generate() {
+        return Base62.encode(nextId(), MIN_LENGTH);
+    }
+
+    @Override
+    public boolean isCollisionFree() {
+        return true;
+    }
+
+    private long nextId() {
+        lock.lock();
+        try {
+            if (next >= blockEnd) {
+                final Block block = aliasBlockDAO.reserveBlock();
+                next = block.start();
+                blockEnd = next + block.size();
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
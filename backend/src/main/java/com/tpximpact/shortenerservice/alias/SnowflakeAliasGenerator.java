@@ -0,0 +1,89 @@
+package com.tpximpact.shortenerservice.alias;
+
+import java.time.Instant;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates aliases from Snowflake style ids: 41 bits of milliseconds since a custom epoch, 10 bits
+ * of node id and a 12 bit per-millisecond counter, base 62 encoded. No database access is needed
+ * at all. Aliases never collide as long as each running instance is given its own node id via
+ * {@code alias.generator.nodeId}.
+ */
+@Component
+@ConditionalOnProperty(name = "alias.generator.strategy", havingValue = "snowflake")
+public class SnowflakeAliasGenerator implements AliasGenerator {
+
+    static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 10;
+    private static final int COUNTER_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long MAX_COUNTER = (1L << COUNTER_BITS) - 1;
+    private static final int MIN_LENGTH = 6;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    private final Lock lock = new ReentrantLock();
+
+    private long lastTimestamp = -1;
+    private long counter;
+
+    /**
+     * Creates the generator.
+     *
+     * @param nodeId id of this instance, unique across all running instances (0-1023)
+     */
+    @Autowired
+    public SnowflakeAliasGenerator(@Value("${alias.generator.nodeId}") long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeAliasGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("alias.generator.nodeId must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public String generate() {
+        return Base62.encode(nextId(), MIN_LENGTH);
+    }
+
+    @Override
+    public boolean isCollisionFree() {
+        return true;
+    }
+
+    private long nextId() {
+        lock.lock();
+        try {
+            // Never go backwards if the clock does, keep counting from the last timestamp instead
+            long timestamp = Math.max(clock.getAsLong(), lastTimestamp);
+
+            if (timestamp == lastTimestamp) {
+                counter = (counter + 1) & MAX_COUNTER;
+                if (counter == 0) {
+                    // Counter exhausted for this millisecond, borrow the next one rather than spin
+                    timestamp++;
+                }
+            } else {
+                counter = 0;
+            }
+
+            lastTimestamp = timestamp;
+            return ((timestamp - EPOCH) << (NODE_BITS + COUNTER_BITS)) | (nodeId << COUNTER_BITS) | counter;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
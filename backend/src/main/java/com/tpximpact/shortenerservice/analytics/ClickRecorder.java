@@ -0,0 +1,190 @@
+package com.tpximpact.shortenerservice.analytics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.model.ClickEvent;
+import com.tpximpact.shortenerservice.repository.ClickDAO;
+import com.tpximpact.shortenerservice.util.Murmur3;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Records redirects for analytics without slowing them down. {@link #record(String, String, String)}
+ * only puts an event into a bounded ring buffer; a background writer drains the buffer and stores
+ * the events with batch inserts every {@code alias.clicks.batchSize} events or
+ * {@code alias.clicks.flushInterval}, whichever comes first.
+ *
+ * <p>When the buffer is full (the database is slow or down) new clicks are dropped and counted in
+ * the {@code clicks.dropped} metric rather than making the redirect wait. Whatever is still
+ * buffered is written when the application shuts down, after the web server has stopped taking
+ * requests.
+ */
+@Component
+public class ClickRecorder implements SmartLifecycle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClickRecorder.class);
+
+    // Stop after the web server (which stops at DEFAULT_PHASE - 2048) so no clicks arrive after the final flush
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final int MAX_REFERRER_LENGTH = 2048;
+
+    private final boolean enabled;
+    private final MpscRingBuffer<ClickEvent> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long idleNanos;
+    private final ClickDAO clickDAO;
+
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * Creates the recorder. The writer thread is started by the application context.
+     *
+     * @param enabled whether clicks are recorded at all
+     * @param bufferSize number of clicks that can be waiting to be written (a power of two)
+     * @param batchSize number of clicks written per batch insert
+     * @param flushInterval longest a click waits in the buffer when traffic is low
+     * @param clickDAO persistence layer for clicks
+     * @param meterRegistry registry used to publish the dropped/written counts and buffer size
+     */
+    public ClickRecorder(
+            @Value("${alias.clicks.enabled}") boolean enabled,
+            @Value("${alias.clicks.bufferSize}") int bufferSize,
+            @Value("${alias.clicks.batchSize}") int batchSize,
+            @Value("${alias.clicks.flushInterval}") Duration flushInterval,
+            ClickDAO clickDAO,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.buffer = new MpscRingBuffer<>(bufferSize);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.idleNanos = Math.min(flushIntervalNanos, TimeUnit.MILLISECONDS.toNanos(10));
+        this.clickDAO = clickDAO;
+
+        this.dropped = Counter.builder("clicks.dropped")
+            .description("Clicks discarded because the buffer was full")
+            .register(meterRegistry);
+        this.written = Counter.builder("clicks.written").register(meterRegistry);
+        this.failed = Counter.builder("clicks.failed")
+            .description("Clicks lost because the batch insert failed")
+            .register(meterRegistry);
+        Gauge.builder("clicks.buffered", buffer, MpscRingBuffer::size).register(meterRegistry);
+    }
+
+    /**
+     * Records a redirect through the alias. Never blocks.
+     *
+     * @param alias the alias
+     * @param referrer the Referer header (may be null)
+     * @param userAgent the User-Agent header (may be null)
+     */
+    public void record(String alias, String referrer, String userAgent) {
+        if (!enabled) {
+            return;
+        }
+
+        final ClickEvent event = new ClickEvent(
+            alias,
+            Instant.now(),
+            referrer == null || referrer.length() <= MAX_REFERRER_LENGTH ? referrer : referrer.substring(0, MAX_REFERRER_LENGTH),
+            userAgent == null ? 0 : Murmur3.hash64(userAgent));
+
+        if (!buffer.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (enabled && !running) {
+            running = true;
+            writer = Thread.ofPlatform().name("click-writer").daemon().start(this::writeLoop);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void writeLoop() {
+        final List<ClickEvent> batch = new ArrayList<>(batchSize);
+        long batchStarted = 0;
+
+        while (running) {
+            final boolean wasEmpty = batch.isEmpty();
+            buffer.drain(batch::add, batchSize - batch.size());
+
+            final long now = System.nanoTime();
+            if (wasEmpty && !batch.isEmpty()) {
+                // Time the interval from the batch's first click, not from the last write, or the
+                // first click after a quiet spell would be written on its own
+                batchStarted = now;
+            }
+            if (batch.size() >= batchSize || (!batch.isEmpty() && now - batchStarted >= flushIntervalNanos)) {
+                write(batch);
+            } else {
+                // Producers don't wake the writer up, that would cost the redirect a syscall
+                LockSupport.parkNanos(idleNanos);
+            }
+        }
+
+        // Shutting down: write out everything that made it into the buffer
+        do {
+            write(batch);
+        } while (buffer.drain(batch::add, batchSize) > 0);
+    }
+
+    private void write(List<ClickEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            clickDAO.insertAll(batch);
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            LOGGER.warn("Failed to write {} clicks", batch.size(), e);
+        }
+        batch.clear();
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.tpximpact.shortenerservice.analytics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.tpximpact.shortenerservice.util.Murmur3;
+
+/**
+ * Thread safe, fixed size Count-Min sketch over strings. Counters are held in an
+ * {@link AtomicLongArray} so concurrent increments never block or get lost. Estimates never
+ * under count; they over count by at most {@code e / width} of the total with probability
+ * {@code 1 - e^-depth}. Row positions are derived from a single 64 bit hash using double hashing.
+ */
+class CountMinSketch {
+
+    private final AtomicLongArray counters;
+    private final int depth;
+    private final int widthMask;
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param width counters per row, must be a power of two
+     * @param depth number of rows
+     */
+    CountMinSketch(int width, int depth) {
+        if (width < 1 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width must be a power of two, got " + width);
+        }
+        this.counters = new AtomicLongArray(width * depth);
+        this.depth = depth;
+        this.widthMask = width - 1;
+    }
+
+    /**
+     * Counts one occurrence of the value.
+     *
+     * @param value the value
+     * @return the estimated count of the value including this occurrence
+     */
+    long add(String value) {
+        final long hash1 = Murmur3.hash64(value);
+        return add(hash1, secondHash(hash1));
+    }
+
+    /**
+     * Counts one occurrence of a value that has already been hashed, see {@link #secondHash(long)}.
+     *
+     * @param hash1 {@link Murmur3#hash64(String)} of the value
+     * @param hash2 second hash of the value
+     * @return the estimated count of the value including this occurrence
+     */
+    long add(long hash1, long hash2) {
+        long estimate = Long.MAX_VALUE;
+        long combined = hash1;
+        for (int row = 0; row < depth; row++) {
+            combined += hash2;
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, combined)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Estimates how many times the value has been added.
+     *
+     * @param value the value
+     * @return the estimated count, never less than the true count.
+     */
+    long estimate(String value) {
+        final long hash1 = Murmur3.hash64(value);
+        return estimate(hash1, secondHash(hash1));
+    }
+
+    /**
+     * Estimates the count of a value that has already been hashed, see {@link #secondHash(long)}.
+     *
+     * @param hash1 {@link Murmur3#hash64(String)} of the value
+     * @param hash2 second hash of the value
+     * @return the estimated count, never less than the true count.
+     */
+    long estimate(long hash1, long hash2) {
+        long estimate = Long.MAX_VALUE;
+        long combined = hash1;
+        for (int row = 0; row < depth; row++) {
+            combined += hash2;
+            estimate = Math.min(estimate, counters.get(index(row, combined)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Resets every counter to zero. Increments that race with the reset may survive it.
+     */
+    void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    /**
+     * Derives the second hash used for double hashing, so callers updating several sketches
+     * only hash the value once.
+     *
+     * @param hash1 {@link Murmur3#hash64(String)} of the value
+     * @return the second hash
+     */
+    static long secondHash(long hash1) {
+        return Murmur3.fmix64(hash1 ^ 0x9e3779b97f4a7c15L);
+    }
+
+    private int index(int row, long hash) {
+        return row * (widthMask + 1) + (int) ((hash >>> 32 ^ hash) & widthMask);
+    }
+
+}
@@ -0,0 +1,251 @@
+package com.tpximpact.shortenerservice.analytics;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.model.HotAlias;
+import com.tpximpact.shortenerservice.util.Murmur3;
+
+/**
+ * Tracks the most redirected aliases over a sliding window in fixed memory.
+ *
+ * <p>Redirects are counted in a ring of Count-Min sketches, one per slice of the window; the
+ * oldest sketch is cleared and reused as time moves on, so an estimate is the sum over the
+ * sketches still in the window. Alongside the sketches a bounded set of candidate aliases is
+ * kept: an alias joins it once its estimate beats the smallest candidate's, which is then
+ * evicted. Neither structure grows with the number of aliases.
+ *
+ * <p>Redirects only count and compare against the admission threshold. Aliases that beat it are
+ * put into a bounded buffer, and a background thread admits them and re-estimates the candidates
+ * as slices leave the window, so redirects never wait on a lock or a scan of the candidates. When
+ * the buffer is full an alias is simply offered again on its next redirect.
+ */
+@Component
+public class HotAliasTracker implements SmartLifecycle {
+
+    private static final int ADMISSION_BUFFER_SIZE = 1024;
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final boolean enabled;
+    private final long sliceMillis;
+    private final CountMinSketch[] slices;
+    private final AtomicLongArray sliceEpochs;
+    private final int maxCandidates;
+    private final LongSupplier clock;
+
+    // Candidate alias -> estimate when it was last seen
+    private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+    private final MpscRingBuffer<String> admissions = new MpscRingBuffer<>(ADMISSION_BUFFER_SIZE);
+    private volatile long admissionThreshold;
+    private volatile boolean refreshPending;
+
+    private volatile boolean running;
+    private Thread admitter;
+
+    /**
+     * Creates the tracker.
+     *
+     * @param enabled whether redirects are tracked at all
+     * @param width counters per sketch row (a power of two), more means less over counting
+     * @param depth rows per sketch
+     * @param window how far back counts go
+     * @param slices number of slices the window is split into, more means it slides more smoothly
+     * @param maxCandidates number of aliases tracked as possible heavy hitters
+     */
+    @Autowired
+    public HotAliasTracker(
+            @Value("${alias.hot.enabled}") boolean enabled,
+            @Value("${alias.hot.width}") int width,
+            @Value("${alias.hot.depth}") int depth,
+            @Value("${alias.hot.window}") Duration window,
+            @Value("${alias.hot.slices}") int slices,
+            @Value("${alias.hot.candidates}") int maxCandidates) {
+        this(enabled, width, depth, window, slices, maxCandidates, System::currentTimeMillis);
+    }
+
+    HotAliasTracker(boolean enabled, int width, int depth, Duration window, int slices, int maxCandidates,
+            LongSupplier clock) {
+        this.enabled = enabled;
+        this.sliceMillis = Math.max(1, window.toMillis() / slices);
+        this.slices = new CountMinSketch[slices];
+        this.sliceEpochs = new AtomicLongArray(slices);
+        this.maxCandidates = maxCandidates;
+        this.clock = clock;
+
+        final long epoch = clock.getAsLong() / sliceMillis;
+        for (int i = 0; i < slices; i++) {
+            this.slices[i] = new CountMinSketch(width, depth);
+            // Start every slice as if it had been rotated out already
+            this.sliceEpochs.set(i, epoch - slices);
+        }
+    }
+
+    /**
+     * Counts a redirect through the alias.
+     *
+     * @param alias the alias
+     */
+    public void record(String alias) {
+        if (!enabled) {
+            return;
+        }
+
+        final long epoch = clock.getAsLong() / sliceMillis;
+        final long hash1 = Murmur3.hash64(alias);
+        final long hash2 = CountMinSketch.secondHash(hash1);
+
+        currentSlice(epoch).add(hash1, hash2);
+        final long estimate = estimate(hash1, hash2, epoch);
+
+        if (candidates.replace(alias, estimate) == null
+                && (candidates.size() < maxCandidates || estimate > admissionThreshold)) {
+            admissions.offer(alias);
+        }
+    }
+
+    /**
+     * The most redirected aliases over the window, most redirected first.
+     *
+     * @param n maximum number of aliases to return
+     * @return the aliases with their approximate counts.
+     */
+    public List<HotAlias> top(int n) {
+        final long epoch = clock.getAsLong() / sliceMillis;
+        return candidates.keySet().stream()
+            .map(alias -> new HotAlias(alias, estimate(alias, epoch)))
+            .filter(hot -> hot.count() > 0)
+            .sorted(Comparator.comparingLong(HotAlias::count).reversed().thenComparing(HotAlias::alias))
+            .limit(n)
+            .toList();
+    }
+
+    /**
+     * @return the largest number of aliases {@link #top(int)} can return
+     */
+    public int maxCandidates() {
+        return maxCandidates;
+    }
+
+    @Override
+    public void start() {
+        if (enabled && !running) {
+            running = true;
+            admitter = Thread.ofPlatform().name("hot-alias-admitter").daemon().start(this::admitLoop);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(admitter);
+        try {
+            admitter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void admitLoop() {
+        while (running) {
+            if (admitPending() == 0) {
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Re-estimates the candidates if a slice has left the window, then admits the aliases
+     * waiting in the buffer. Only ever called by one thread at a time, the admitter's.
+     *
+     * @return number of aliases taken from the buffer
+     */
+    int admitPending() {
+        final long epoch = clock.getAsLong() / sliceMillis;
+        final boolean refresh = refreshPending;
+        if (refresh) {
+            refreshPending = false;
+            // Counts drop as slices leave the window, otherwise the threshold would stay at its
+            // old high and keep newly popular aliases out
+            candidates.replaceAll((alias, estimate) -> estimate(alias, epoch));
+            candidates.values().removeIf(estimate -> estimate == 0);
+        }
+
+        final int drained = admissions.drain(alias -> admit(alias, estimate(alias, epoch)), ADMISSION_BUFFER_SIZE);
+
+        if (refresh || drained > 0) {
+            final Map.Entry<String, Long> smallest = smallestCandidate();
+            admissionThreshold = smallest == null || candidates.size() < maxCandidates ? 0 : smallest.getValue();
+        }
+        return drained;
+    }
+
+    private CountMinSketch currentSlice(long epoch) {
+        final int index = (int) (epoch % slices.length);
+        final long sliceEpoch = sliceEpochs.get(index);
+
+        // The slice still holds counts from a full window ago; whoever moves it on clears it
+        if (sliceEpoch < epoch && sliceEpochs.compareAndSet(index, sliceEpoch, epoch)) {
+            slices[index].clear();
+            // Let aliases through until the admitter has re-estimated the candidates
+            admissionThreshold = 0;
+            refreshPending = true;
+        }
+        return slices[index];
+    }
+
+    private long estimate(String alias, long epoch) {
+        final long hash1 = Murmur3.hash64(alias);
+        return estimate(hash1, CountMinSketch.secondHash(hash1), epoch);
+    }
+
+    private long estimate(long hash1, long hash2, long epoch) {
+        long total = 0;
+        for (int i = 0; i < slices.length; i++) {
+            if (sliceEpochs.get(i) > epoch - slices.length) {
+                total += slices[i].estimate(hash1, hash2);
+            }
+        }
+        return total;
+    }
+
+    private void admit(String alias, long estimate) {
+        if (candidates.replace(alias, estimate) != null || estimate == 0) {
+            return;
+        }
+        if (candidates.size() >= maxCandidates) {
+            final Map.Entry<String, Long> smallest = smallestCandidate();
+            if (smallest == null || smallest.getValue() >= estimate) {
+                return;
+            }
+            candidates.remove(smallest.getKey());
+        }
+        candidates.put(alias, estimate);
+    }
+
+    private Map.Entry<String, Long> smallestCandidate() {
+        return candidates.entrySet().stream()
+            .min(Map.Entry.comparingByValue())
+            .orElse(null);
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.tpximpact.shortenerservice.analytics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer. Each slot carries a sequence
+ * number which tells producers whether the slot is free for the lap they are on and tells the
+ * consumer whether it has been published. Producers only contend on a single CAS to claim a
+ * position, and never wait: {@link #offer(Object)} fails straight away when the buffer is full.
+ *
+ * @param <E> element type
+ */
+final class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Only written by the consumer, volatile so size() can be read from anywhere
+    private volatile long head;
+
+    /**
+     * Creates the buffer.
+     *
+     * @param capacity number of slots, must be a power of two
+     */
+    MpscRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two, got " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds the element if there is room. Safe to call from any thread.
+     *
+     * @param element the element
+     * @return false if the buffer was full and the element was not added
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            final int index = (int) (position & mask);
+            final long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, element);
+                    // Publishes the element to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The slot still holds an element from the previous lap
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes up to {@code max} elements in order, passing each to the consumer. Must only be
+     * called from one thread at a time.
+     *
+     * @param consumer receives each element
+     * @param max maximum number of elements to remove
+     * @return the number of elements removed
+     */
+    int drain(Consumer<? super E> consumer, int max) {
+        long position = head;
+        int drained = 0;
+        while (drained < max) {
+            final int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                // Empty, or the producer that claimed this slot hasn't published yet
+                break;
+            }
+            final E element = slots.get(index);
+            slots.lazySet(index, null);
+            // Frees the slot for the producer on the next lap
+            sequences.set(index, position + mask + 1);
+            position++;
+            drained++;
+            consumer.accept(element);
+        }
+        head = position;
+        return drained;
+    }
+
+    /**
+     * @return approximate number of elements in the buffer
+     */
+    int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head, mask + 1));
+    }
+
+    /**
+     * @return the number of slots
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.tpximpact.shortenerservice.cache;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory index of every stored alias, used to answer "definitely absent" without going to the
+ * database. The filter is built at startup by streaming the alias column (of every shard) and is
+ * kept up to date as aliases are saved. Deleted aliases stay in the filter (they just cost a
+ * database lookup) until the next rebuild.
+ *
+ * <p>Until the initial build has completed, or when disabled, every alias is reported as possibly
+ * present so callers fall back to the database.
+ *
+ * <p>Aliases created on other instances are only added once their invalidation event arrives, so
+ * with the {@code loopback} channel, which never delivers them, the filter refuses to start
+ * unless {@code alias.invalidation.singleInstance} says there are no other instances.
+ */
+@Component
+public class AliasBloomFilter implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AliasBloomFilter.class);
+
+    private final boolean enabled;
+    private final long minimumExpectedInsertions;
+    private final double fpp;
+    private final ShortenedAddressDAO shortenedAddressDAO;
+    private final AliasShards aliasShards;
+    private final Executor executor;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Lock rebuildLock = new ReentrantLock();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter building;
+
+    /**
+     * Creates the filter. It is empty (and permissive) until {@link #rebuild()} completes.
+     *
+     * @param enabled whether the filter is used at all
+     * @param expectedInsertions initial capacity of the filter
+     * @param fpp target false positive probability at capacity
+     * @param singleInstance whether this is the only instance, for the loopback channel
+     * @param invalidationChannel the {@code alias.invalidation.channel} in use
+     * @param shortenedAddressDAO persistence layer used to stream existing aliases
+     * @param aliasShards the shards to stream the aliases of
+     * @param executor executor used for background rebuilds when the table outgrows the filter
+     * @param meterRegistry registry used to publish the false positive probability
+     */
+    public AliasBloomFilter(
+            @Value("${alias.bloom.enabled}") boolean enabled,
+            @Value("${alias.bloom.expectedInsertions}") long expectedInsertions,
+            @Value("${alias.bloom.fpp}") double fpp,
+            @Value("${alias.invalidation.singleInstance}") boolean singleInstance,
+            @Value("${alias.invalidation.channel}") String invalidationChannel,
+            ShortenedAddressDAO shortenedAddressDAO,
+            AliasShards aliasShards,
+            @Qualifier("applicationTaskExecutor") Executor executor,
+            MeterRegistry meterRegistry) {
+        if (enabled && "loopback".equals(invalidationChannel) && !singleInstance) {
+            throw new IllegalStateException("alias.bloom.enabled needs alias.invalidation.channel=postgres to hear of "
+                + "aliases created on other instances, or alias.invalidation.singleInstance=true if there are none");
+        }
+        this.enabled = enabled;
+        this.minimumExpectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.shortenedAddressDAO = shortenedAddressDAO;
+        this.aliasShards = aliasShards;
+        this.executor = executor;
+
+        Gauge.builder("alias.bloom.fpp", this, AliasBloomFilter::expectedFpp)
+            .description("Estimated false positive probability of the alias Bloom filter")
+            .register(meterRegistry);
+        Gauge.builder("alias.bloom.insertions", this, filter -> filter.current == null ? 0 : filter.current.insertions())
+            .register(meterRegistry);
+        Gauge.builder("alias.bloom.capacity", this, filter -> filter.current == null ? 0 : filter.current.expectedInsertions())
+            .register(meterRegistry);
+        Gauge.builder("alias.bloom.rebuilds", rebuilds, AtomicLong::get)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Builds the filter before the application starts taking traffic.
+     *
+     * @param args application arguments (unused)
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * @return whether the filter is used at all
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Checks whether the alias might be stored.
+     *
+     * @param alias the alias
+     * @return false only if the alias is definitely not stored.
+     */
+    public boolean mightContain(String alias) {
+        final BloomFilter filter = current;
+        return filter == null || filter.mightContain(alias);
+    }
+
+    /**
+     * Records a newly stored alias. Schedules a rebuild at a larger size once the filter holds
+     * more aliases than it was sized for.
+     *
+     * @param alias the alias
+     */
+    public void put(String alias) {
+        // Anything saved while a rebuild is streaming must end up in the new filter too. The
+        // rebuild publishes the new filter before clearing this field, so reading it first means
+        // the alias can't fall between the two.
+        final BloomFilter next = building;
+        if (next != null) {
+            next.put(alias);
+        }
+
+        final BloomFilter filter = current;
+        if (filter != null) {
+            filter.put(alias);
+            if (filter.insertions() > filter.expectedInsertions()) {
+                scheduleRebuild();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the database, sized at twice the number of stored aliases (or the
+     * configured capacity if larger). The current filter keeps serving until the new one is ready.
+     * A rebuild already in progress (one that ran out of capacity, say) is waited for first, as
+     * aliases saved meanwhile are only added to the one filter being built.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuildLocked();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuildLocked() {
+        final BloomFilter previous = current;
+        long expected = Math.max(minimumExpectedInsertions, previous == null ? 0 : previous.insertions() * 2);
+
+        while (true) {
+            final BloomFilter next = new BloomFilter(expected, fpp);
+            building = next;
+            try {
+                aliasShards.forEachShard(() -> shortenedAddressDAO.forEachAlias(next::put));
+
+                if (next.insertions() <= next.expectedInsertions()) {
+                    current = next;
+                    rebuilds.incrementAndGet();
+                    LOGGER.info("Built alias bloom filter with {} aliases ({} bits)", next.insertions(), next.bitSize());
+                    return;
+                }
+                // The table outgrew the filter while streaming, go again with room to grow
+                expected = next.insertions() * 2;
+            } finally {
+                building = null;
+            }
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (rebuilding.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to rebuild alias bloom filter", e);
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the estimated false positive probability of the live filter
+     */
+    public double expectedFpp() {
+        final BloomFilter filter = current;
+        return filter == null ? 1.0 : filter.expectedFpp();
+    }
+
+}
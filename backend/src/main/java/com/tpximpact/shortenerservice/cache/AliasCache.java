@@ -0,0 +1,162 @@
+package com.tpximpact.shortenerservice.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import com.tpximpact.shortenerservice.model.Redirect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded read-through cache sitting in front of the persistence layer for alias lookups. Both
+ * hits and misses are cached so that repeated requests for unknown aliases do not reach the
+ * database either. Misses are kept for a shorter time than hits so that a newly created alias
+ * on another node becomes visible quickly. A hit for an alias with an expiry is never kept past
+ * it, so the cache stops answering for the alias when the alias stops redirecting.
+ *
+ * <p>Loads run on the calling thread but outside Caffeine's locks: the entry holds a future
+ * while the loader runs, so a virtual thread waiting on the database doesn't pin its carrier, and
+ * concurrent lookups of the same alias wait on the one load. An alias invalidated while it is
+ * being loaded drops the future, so the result of the load, which may be from before the
+ * change, isn't cached.
+ */
+@Component
+public class AliasCache {
+
+    private final AsyncCache<String, Optional<Redirect>> asyncCache;
+    private final Cache<String, Optional<Redirect>> cache;
+
+    /**
+     * Creates the cache and registers its statistics with the meter registry.
+     *
+     * @param maxSize maximum number of aliases held (hits and misses combined)
+     * @param ttl how long a found alias is kept
+     * @param negativeTtl how long a missing alias is kept
+     * @param meterRegistry registry used to publish hit/miss/eviction statistics
+     */
+    public AliasCache(
+            @Value("${alias.cache.maxSize}") long maxSize,
+            @Value("${alias.cache.ttl}") Duration ttl,
+            @Value("${alias.cache.negativeTtl}") Duration negativeTtl,
+            MeterRegistry meterRegistry) {
+        this.asyncCache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(Expiry.<String, Optional<Redirect>>writing((alias, redirect) -> redirect.isPresent()
+                ? expireAfter(redirect.get(), ttl)
+                : negativeTtl))
+            .recordStats()
+            .buildAsync();
+        this.cache = asyncCache.synchronous();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "aliases");
+    }
+
+    /**
+     * Returns the cached lookup for the alias, calling the loader on a miss. The loader's
+     * result is cached whether it is empty or not.
+     *
+     * @param alias the alias
+     * @param loader function used to look the alias up on a cache miss
+     * @return an optional containing the redirect (if present).
+     */
+    public Optional<Redirect> get(String alias, Function<String, Optional<Redirect>> loader) {
+        final CompletableFuture<Optional<Redirect>> loading = new CompletableFuture<>();
+        // Only hands the future to Caffeine, the loader itself runs below once its lock is released
+        final CompletableFuture<Optional<Redirect>> cached = asyncCache.get(alias, (key, executor) -> loading);
+        if (cached == loading) {
+            try {
+                loading.complete(loader.apply(alias));
+            } catch (RuntimeException e) {
+                // Caffeine drops a failed future, so the next lookup loads again
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Returns the cached lookup for the alias without loading it. For callers that can't block
+     * on a loader, which then {@link #put(String, Optional)} the result themselves.
+     *
+     * @param alias the alias
+     * @return the cached lookup, or null if the alias is not cached.
+     */
+    public Optional<Redirect> getIfPresent(String alias) {
+        return cache.getIfPresent(alias);
+    }
+
+    /**
+     * Caches the lookup for the alias, whether it is empty or not.
+     *
+     * @param alias the alias
+     * @param redirect the redirect, or empty if the alias is not stored
+     */
+    public void put(String alias, Optional<Redirect> redirect) {
+        cache.put(alias, redirect);
+    }
+
+    /**
+     * Removes the alias from the cache so that the next lookup goes to the loader.
+     *
+     * @param alias the alias
+     */
+    public void invalidate(String alias) {
+        cache.invalidate(alias);
+    }
+
+    /**
+     * Removes each of the aliases from the cache.
+     *
+     * @param aliases the aliases
+     */
+    public void invalidateAll(Iterable<String> aliases) {
+        cache.invalidateAll(aliases);
+    }
+
+    /**
+     * Removes every alias from the cache.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static Duration expireAfter(Redirect redirect, Duration ttl) {
+        if (redirect.expiresAt() == null) {
+            return ttl;
+        }
+        final Duration untilExpiry = Duration.between(Instant.now(), redirect.expiresAt());
+        if (untilExpiry.isNegative()) {
+            return Duration.ZERO;
+        }
+        return untilExpiry.compareTo(ttl) < 0 ? untilExpiry : ttl;
+    }
+
+    /**
+     * Snapshot of the hit/miss statistics since the cache was created.
+     *
+     * @return the statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+}
@@ -0,0 +1,392 @@
+package com.tpximpact.shortenerservice.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToDoubleFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.tpximpact.shortenerservice.model.Redirect;
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+import com.tpximpact.shortenerservice.snapshot.AliasSnapshot;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Every stored alias and its redirect, held off the Java heap in an {@link OffHeapAliasTable} so
+ * that redirects can be answered without the cache or the database however many aliases there
+ * are. The table is loaded at startup by streaming every address (of every shard), and kept up
+ * to date as aliases are saved and deleted here and on other instances. Aliases it doesn't have
+ * (created on another instance since the load) are added the first time they are looked up in
+ * the database.
+ *
+ * <p>Only holding an alias is authoritative: an alias missing from the index is looked up the
+ * usual way. Until the load has completed, or when disabled, nothing is held. Deleting aliases
+ * leaves garbage in the table that is compacted in the background once a chunk is
+ * {@code alias.index.compactionThreshold} garbage.
+ *
+ * <p>Other instances' changes only reach the index through the {@code alias.invalidation}
+ * events. When events are lost the index is dropped and loaded again, and on top of that it can be
+ * loaded again every {@code alias.index.refreshInterval}, answering from the old table meanwhile.
+ * A replaced table's direct memory is freed as soon as the lookups reading it have finished. With
+ * the {@code loopback} channel other instances' changes never arrive, so the index refuses to
+ * start with it unless {@code alias.invalidation.singleInstance} says there are no other instances.
+ */
+@Component
+public class AliasIndex implements ApplicationRunner, SmartLifecycle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AliasIndex.class);
+
+    private final boolean enabled;
+    private final int chunkSize;
+    private final double compactionThreshold;
+    private final long refreshIntervalNanos;
+    private final ShortenedAddressDAO shortenedAddressDAO;
+    private final AliasShards aliasShards;
+    private final Executor executor;
+
+    private final Object loadLock = new Object();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    // Moved on by every removal, so a lookup can tell whether the alias it read was removed since
+    private final AtomicLong removals = new AtomicLong();
+    // Moved on by every reload, a load that began before it doesn't publish its table
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile OffHeapAliasTable current;
+    // Guarded by this, set while a load streams the addresses into a new table
+    private OffHeapAliasTable building;
+    private Set<String> removedWhileLoading;
+
+    private volatile boolean running;
+    private Thread refresher;
+
+    /**
+     * Creates the index. It is empty until {@link #load()} completes.
+     *
+     * @param enabled whether the index is used at all
+     * @param chunkSize size of each chunk of direct memory the entries are stored in
+     * @param compactionThreshold fraction of a chunk that must be garbage for it to be compacted
+     * @param refreshInterval how often the index is loaded again, zero to only load it at startup
+     * @param singleInstance whether this is the only instance, for the loopback channel
+     * @param invalidationChannel the {@code alias.invalidation.channel} in use
+     * @param shortenedAddressDAO persistence layer used to stream the stored addresses
+     * @param aliasShards the shards to stream the addresses of
+     * @param aliasSnapshot tells whether this instance is a read replica, which has no database
+     * @param executor executor used for background reloads and compaction
+     * @param meterRegistry registry used to publish the size and memory of the index
+     */
+    public AliasIndex(
+            @Value("${alias.index.enabled}") boolean enabled,
+            @Value("${alias.index.chunkSize}") DataSize chunkSize,
+            @Value("${alias.index.compactionThreshold}") double compactionThreshold,
+            @Value("${alias.index.refreshInterval}") Duration refreshInterval,
+            @Value("${alias.invalidation.singleInstance}") boolean singleInstance,
+            @Value("${alias.invalidation.channel}") String invalidationChannel,
+            ShortenedAddressDAO shortenedAddressDAO,
+            AliasShards aliasShards,
+            AliasSnapshot aliasSnapshot,
+            @Qualifier("applicationTaskExecutor") Executor executor,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled && !aliasSnapshot.isEnabled();
+        if (this.enabled && "loopback".equals(invalidationChannel) && !singleInstance) {
+            throw new IllegalStateException("alias.index.enabled needs alias.invalidation.channel=postgres to hear of "
+                + "other instances' changes, or alias.invalidation.singleInstance=true if there are none");
+        }
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.chunkSize = (int) Math.min(chunkSize.toBytes(), OffHeapAliasTable.MAX_CHUNK_SIZE);
+        this.compactionThreshold = compactionThreshold;
+        this.shortenedAddressDAO = shortenedAddressDAO;
+        this.aliasShards = aliasShards;
+        this.executor = executor;
+
+        gauge(meterRegistry, "alias.index.entries", null, "Aliases held in the off-heap alias index",
+            OffHeapAliasTable::size);
+        gauge(meterRegistry, "alias.index.memory.allocated", "bytes", "Direct memory held by the alias index",
+            OffHeapAliasTable::allocatedBytes);
+        gauge(meterRegistry, "alias.index.memory.used", "bytes", "Memory of the alias index taken by live aliases",
+            OffHeapAliasTable::usedBytes);
+        gauge(meterRegistry, "alias.index.memory.raw", "bytes", "Bytes of the indexed aliases and URLs themselves",
+            OffHeapAliasTable::rawBytes);
+    }
+
+    private void gauge(MeterRegistry meterRegistry, String name, String baseUnit, String description,
+            ToDoubleFunction<OffHeapAliasTable> value) {
+        Gauge.builder(name, this, index -> index.current == null ? 0 : value.applyAsDouble(index.current))
+            .description(description)
+            .baseUnit(baseUnit)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Loads the index before the application starts taking traffic.
+     *
+     * @param args application arguments (unused)
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            load();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (enabled && refreshIntervalNanos > 0 && !running) {
+            running = true;
+            refresher = Thread.ofPlatform().name("alias-index-refresher").daemon().start(this::refreshLoop);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(refresher);
+        try {
+            refresher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void refreshLoop() {
+        while (running) {
+            LockSupport.parkNanos(refreshIntervalNanos);
+            if (!running) {
+                break;
+            }
+            try {
+                load();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to refresh the alias index, retrying on the next refresh", e);
+            }
+        }
+    }
+
+    /**
+     * @return whether the index is used at all
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Looks up the redirect for an alias, without locking. Expired redirects are returned too,
+     * for the caller to treat as absent.
+     *
+     * @param alias the alias
+     * @return the redirect, or null if the alias isn't held, which doesn't mean it isn't stored
+     */
+    public Redirect lookup(String alias) {
+        while (true) {
+            final OffHeapAliasTable table = current;
+            if (table == null) {
+                return null;
+            }
+            if (table.pin()) {
+                try {
+                    return table.lookup(alias);
+                } finally {
+                    table.unpin();
+                }
+            }
+            // Replaced and freed since it was read, look in the new table
+        }
+    }
+
+    /**
+     * Marks the start of a database lookup whose result may be {@link #fill filled} in.
+     *
+     * @return the stamp to pass to {@link #fill}
+     */
+    public long stamp() {
+        return removals.get();
+    }
+
+    /**
+     * Adds an alias found in the database, unless an alias has been removed since the lookup
+     * began: the row read may be the one that was deleted.
+     *
+     * @param alias the alias
+     * @param redirect where it redirects to
+     * @param stamp {@link #stamp()} taken before the database was read
+     */
+    public synchronized void fill(String alias, Redirect redirect, long stamp) {
+        if (current != null && building == null && removals.get() == stamp) {
+            current.put(alias, redirect);
+        }
+    }
+
+    /**
+     * Adds a newly stored alias.
+     *
+     * @param alias the alias
+     * @param redirect where it redirects to
+     */
+    public synchronized void put(String alias, Redirect redirect) {
+        if (building != null) {
+            building.put(alias, redirect);
+        }
+        if (current != null) {
+            current.put(alias, redirect);
+        }
+    }
+
+    /**
+     * Removes a deleted alias, or one created on another instance that may replace an alias
+     * held here.
+     *
+     * @param alias the alias
+     */
+    public void remove(String alias) {
+        removeAll(Set.of(alias));
+    }
+
+    /**
+     * Removes each of the aliases.
+     *
+     * @param aliases the aliases
+     */
+    public void removeAll(Iterable<String> aliases) {
+        final OffHeapAliasTable table;
+        synchronized (this) {
+            table = current;
+            for (String alias : aliases) {
+                removals.incrementAndGet();
+                if (building != null) {
+                    // The load may have streamed the row before it was deleted
+                    removedWhileLoading.add(alias);
+                }
+                if (table != null) {
+                    table.remove(alias);
+                }
+            }
+        }
+        if (table != null && table.needsCompaction(compactionThreshold)) {
+            scheduleCompaction(table);
+        }
+    }
+
+    /**
+     * Loads every stored address into a new table, which replaces the current one once complete.
+     * Aliases saved while the addresses are streamed are added to the new table as well, and
+     * aliases deleted meanwhile removed from it at the end. Loads run one at a time, and a load
+     * that a {@link #reload()} overtook leaves the table to the reload's own load.
+     */
+    public void load() {
+        synchronized (loadLock) {
+            loadTable();
+        }
+    }
+
+    private void loadTable() {
+        final long start = System.nanoTime();
+        final long loadGeneration = generation.get();
+        final long expected = aliasShards.onEveryShard(shortenedAddressDAO::count).stream()
+            .mapToLong(Long::longValue)
+            .sum();
+        final OffHeapAliasTable next = new OffHeapAliasTable(expected, chunkSize);
+        synchronized (this) {
+            building = next;
+            removedWhileLoading = new HashSet<>();
+        }
+        OffHeapAliasTable replaced = next;
+        try {
+            final Instant now = Instant.now();
+            aliasShards.forEachShard(() -> shortenedAddressDAO.forEachAddress(address -> {
+                final Redirect redirect = address.toRedirect();
+                if (!redirect.isExpired(now)) {
+                    next.put(address.getAlias(), redirect);
+                }
+            }));
+            synchronized (this) {
+                if (generation.get() == loadGeneration) {
+                    removedWhileLoading.forEach(next::remove);
+                    replaced = current;
+                    current = next;
+                }
+            }
+        } finally {
+            synchronized (this) {
+                building = null;
+                removedWhileLoading = null;
+            }
+            // Either the table this load replaced, or the new one if it was overtaken or failed
+            if (replaced != null) {
+                replaced.close();
+            }
+        }
+        if (replaced == next) {
+            return;
+        }
+        LOGGER.info("Loaded {} aliases into the alias index in {} ms, {} bytes of direct memory ({} per alias, "
+                + "of which {} are the alias and URL)", next.size(), (System.nanoTime() - start) / 1_000_000,
+            next.allocatedBytes(), next.usedBytes() / Math.max(1, next.size()),
+            next.rawBytes() / Math.max(1, next.size()));
+    }
+
+    /**
+     * Drops the index and loads it again in the background, for when deletions may have been
+     * missed. Lookups go to the cache and database until the new index is loaded.
+     */
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        final OffHeapAliasTable dropped;
+        synchronized (this) {
+            dropped = current;
+            current = null;
+            generation.incrementAndGet();
+        }
+        if (dropped != null) {
+            dropped.close();
+        }
+        executor.execute(() -> {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to reload the alias index", e);
+            }
+        });
+    }
+
+    private void scheduleCompaction(OffHeapAliasTable table) {
+        if (compacting.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    final int dropped = table.compact(compactionThreshold, Instant.now());
+                    LOGGER.debug("Compacted {} chunks of the alias index", dropped);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to compact the alias index", e);
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.tpximpact.shortenerservice.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.tpximpact.shortenerservice.util.Murmur3;
+
+/**
+ * Thread safe, fixed size Bloom filter over strings. Bits are held in an {@link AtomicLongArray}
+ * so concurrent writers never lose each other's bits and readers never block. Index positions
+ * are derived from a single 64 bit hash using double hashing.
+ */
+class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+    private final long expectedInsertions;
+    private final AtomicLong bitCount = new AtomicLong();
+    private final AtomicLong insertions = new AtomicLong();
+
+    /**
+     * Creates a filter sized for the expected number of insertions at the given false positive
+     * probability.
+     *
+     * @param expectedInsertions number of values the filter is sized for
+     * @param fpp target false positive probability once that many values have been added
+     */
+    BloomFilter(long expectedInsertions, double fpp) {
+        final long n = Math.max(1, expectedInsertions);
+        final long optimalBits = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        final int wordCount = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64));
+
+        this.words = new AtomicLongArray(wordCount);
+        this.numBits = wordCount * 64L;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+        this.expectedInsertions = n;
+    }
+
+    /**
+     * Adds a value to the filter.
+     *
+     * @param value the value
+     */
+    void put(String value) {
+        final long hash1 = Murmur3.hash64(value);
+        final long hash2 = Murmur3.fmix64(hash1 ^ 0x9e3779b97f4a7c15L);
+
+        long combined = hash1;
+        for (int i = 0; i < numHashes; i++) {
+            combined += hash2;
+            final long index = (combined & Long.MAX_VALUE) % numBits;
+            final int word = (int) (index >>> 6);
+            final long mask = 1L << index;
+
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                if (words.compareAndSet(word, current, current | mask)) {
+                    bitCount.incrementAndGet();
+                    break;
+                }
+                current = words.get(word);
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * Checks whether the value might have been added. A false result is definitive.
+     *
+     * @param value the value
+     * @return false if the value was definitely never added.
+     */
+    boolean mightContain(String value) {
+        final long hash1 = Murmur3.hash64(value);
+        final long hash2 = Murmur3.fmix64(hash1 ^ 0x9e3779b97f4a7c15L);
+
+        long combined = hash1;
+        for (int i = 0; i < numHashes; i++) {
+            combined += hash2;
+            final long index = (combined & Long.MAX_VALUE) % numBits;
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Probability that {@link #mightContain(String)} returns true for a value that was never
+     * added, estimated from the proportion of bits currently set.
+     *
+     * @return the estimated false positive probability
+     */
+    double expectedFpp() {
+        return Math.pow((double) bitCount.get() / numBits, numHashes);
+    }
+
+    /**
+     * @return number of put calls made (duplicates included)
+     */
+    long insertions() {
+        return insertions.get();
+    }
+
+    /**
+     * @return number of insertions the filter was sized for
+     */
+    long expectedInsertions() {
+        return expectedInsertions;
+    }
+
+    /**
+     * @return size of the filter in bits
+     */
+    long bitSize() {
+        return numBits;
+    }
+}
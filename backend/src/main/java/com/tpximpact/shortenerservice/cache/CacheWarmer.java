@@ -0,0 +1,352 @@
+package com.tpximpact.shortenerservice.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.tpximpact.shortenerservice.analytics.HotAliasTracker;
+import com.tpximpact.shortenerservice.model.HotAlias;
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+import com.tpximpact.shortenerservice.snapshot.AliasSnapshot;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Fills the {@link AliasCache} before the application reports itself ready, so a new instance
+ * doesn't send its first wave of redirects to the database. Runners complete before Spring Boot
+ * moves the readiness state to accepting traffic, so {@code /actuator/health/readiness} stays
+ * down until the warm-up has finished.
+ *
+ * <p>Aliases come from {@code alias.warmup.source}:
+ * <ul>
+ * <li>{@code recent}: the newest aliases, read newest first in id ranges of
+ * {@code alias.warmup.chunkSize}. When sharded, the highest ids of each shard in turn</li>
+ * <li>{@code hot-keys}: the most redirected aliases, as saved to {@code alias.warmup.hotKeysPath}
+ * by the last instance to shut down, falling back to {@code recent} if there is no file</li>
+ * </ul>
+ *
+ * <p>Chunks are loaded by {@code alias.warmup.parallelism} threads. The warm-up stops at
+ * {@code alias.warmup.maxEntries} (or the cache size if smaller), when the estimated heap used by
+ * the warmed entries reaches {@code alias.warmup.memoryBudget}, or after
+ * {@code alias.warmup.timeBudget}, whichever comes first. A failure only cuts the warm-up short,
+ * it never stops the application starting.
+ *
+ * <p>Read replicas have no database and don't use the cache; they load the alias snapshot into
+ * memory instead, up to the memory budget.
+ */
+@Component
+public class CacheWarmer implements ApplicationRunner, SmartLifecycle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheWarmer.class);
+
+    /**
+     * Where the aliases to warm come from.
+     */
+    enum Source {
+        RECENT, HOT_KEYS
+    }
+
+    private final boolean enabled;
+    private final Source source;
+    private final Path hotKeysPath;
+    private final int maxEntries;
+    private final long memoryBudget;
+    private final Duration timeBudget;
+    private final int chunkSize;
+    private final int parallelism;
+    private final AliasCache aliasCache;
+    private final ShortenedAddressDAO shortenedAddressDAO;
+    private final AliasShards aliasShards;
+    private final HotAliasTracker hotAliasTracker;
+    private final AliasSnapshot aliasSnapshot;
+
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicLong loadedBytes = new AtomicLong();
+    private volatile boolean full;
+    private volatile boolean finished;
+    private volatile boolean running;
+
+    /**
+     * Creates the warmer. The warm-up itself runs as an application runner.
+     *
+     * @param enabled whether the cache is warmed at all
+     * @param source where the aliases come from ({@code recent} or {@code hot-keys})
+     * @param hotKeysPath file the most redirected aliases are saved to on shutdown
+     * @param maxEntries most aliases to warm
+     * @param cacheSize size of the alias cache, warming more than this would only evict
+     * @param memoryBudget rough heap the warmed entries may take up
+     * @param timeBudget longest the warm-up may hold up readiness
+     * @param chunkSize ids (or aliases) read per query
+     * @param parallelism number of chunks read at once
+     * @param aliasCache the cache to fill
+     * @param shortenedAddressDAO persistence layer the aliases are read from
+     * @param aliasShards the shards the aliases are read from
+     * @param hotAliasTracker popularity tracking saved for the next instance
+     * @param aliasSnapshot snapshot preloaded instead on read replicas
+     * @param meterRegistry registry used to publish the warm-up progress
+     */
+    public CacheWarmer(
+            @Value("${alias.warmup.enabled}") boolean enabled,
+            @Value("${alias.warmup.source}") String source,
+            @Value("${alias.warmup.hotKeysPath}") String hotKeysPath,
+            @Value("${alias.warmup.maxEntries}") int maxEntries,
+            @Value("${alias.cache.maxSize}") long cacheSize,
+            @Value("${alias.warmup.memoryBudget}") DataSize memoryBudget,
+            @Value("${alias.warmup.timeBudget}") Duration timeBudget,
+            @Value("${alias.warmup.chunkSize}") int chunkSize,
+            @Value("${alias.warmup.parallelism}") int parallelism,
+            AliasCache aliasCache,
+            ShortenedAddressDAO shortenedAddressDAO,
+            AliasShards aliasShards,
+            HotAliasTracker hotAliasTracker,
+            AliasSnapshot aliasSnapshot,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.source = Source.valueOf(source.toUpperCase().replace('-', '_'));
+        this.hotKeysPath = Path.of(hotKeysPath);
+        this.maxEntries = (int) Math.min(maxEntries, cacheSize);
+        this.memoryBudget = memoryBudget.toBytes();
+        this.timeBudget = timeBudget;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.aliasCache = aliasCache;
+        this.shortenedAddressDAO = shortenedAddressDAO;
+        this.aliasShards = aliasShards;
+        this.hotAliasTracker = hotAliasTracker;
+        this.aliasSnapshot = aliasSnapshot;
+
+        Gauge.builder("alias.warmup.progress", this, CacheWarmer::progress)
+            .description("Fraction of the cache warm-up done, 1 once it has finished")
+            .register(meterRegistry);
+        Gauge.builder("alias.warmup.entries", loaded, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("alias.warmup.bytes", loadedBytes, AtomicLong::get)
+            .description("Estimated memory used by the warmed entries (or the preloaded snapshot)")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Warms the cache before the application reports itself ready.
+     *
+     * @param args application arguments (unused)
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            warmUp();
+        }
+        finished = true;
+    }
+
+    /**
+     * Runs the warm-up within its budgets.
+     *
+     * @return the number of aliases warmed
+     */
+    int warmUp() {
+        final long start = System.nanoTime();
+        if (aliasSnapshot.isEnabled()) {
+            final long bytes = aliasSnapshot.preload(memoryBudget);
+            loadedBytes.set(bytes);
+            LOGGER.info("Preloaded {} bytes of the alias snapshot in {} ms", bytes, (System.nanoTime() - start) / 1_000_000);
+            return 0;
+        }
+
+        final long deadline = start + timeBudget.toNanos();
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+            Thread.ofPlatform().name("cache-warmup-", 0).daemon().factory());
+        try {
+            final Supplier<List<ShortenedAddress>> chunks = source == Source.HOT_KEYS && Files.exists(hotKeysPath)
+                ? hotKeyChunks()
+                : recentChunks();
+
+            final List<Callable<Void>> workers = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(() -> {
+                    load(chunks, deadline);
+                    return null;
+                });
+            }
+            // Anything still running at the deadline is abandoned, it stops after its current chunk
+            executor.invokeAll(workers, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cache warm-up failed, continuing with what was loaded", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOGGER.info("Warmed the alias cache with {} aliases (about {} KB) in {} ms", loaded.get(),
+            loadedBytes.get() / 1024, (System.nanoTime() - start) / 1_000_000);
+        return loaded.get();
+    }
+
+    private void load(Supplier<List<ShortenedAddress>> chunks, long deadline) {
+        try {
+            while (!full && System.nanoTime() < deadline) {
+                final List<ShortenedAddress> chunk = chunks.get();
+                if (chunk == null || !add(chunk)) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to load a chunk of aliases to warm the cache", e);
+        }
+    }
+
+    // Workers add their chunks one at a time so that the budgets are never overshot
+    private synchronized boolean add(List<ShortenedAddress> chunk) {
+        for (ShortenedAddress address : chunk) {
+            final long bytes = estimateBytes(address);
+            if (loaded.get() >= maxEntries || loadedBytes.get() + bytes > memoryBudget) {
+                full = true;
+                return false;
+            }
+            aliasCache.put(address.getAlias(), Optional.of(address.toRedirect()));
+            loaded.incrementAndGet();
+            loadedBytes.addAndGet(bytes);
+        }
+        full = loaded.get() >= maxEntries;
+        return !full;
+    }
+
+    /**
+     * Rough heap taken by a cached alias: the cache node, the key, the {@code Optional}, the
+     * {@code Redirect} and its {@code URI}, which holds on to the URL and the parts it was parsed into.
+     *
+     * @param address the address
+     * @return the estimate in bytes
+     */
+    static long estimateBytes(ShortenedAddress address) {
+        return 216 + address.getAlias().length() + 3L * address.getOriginalUrl().length();
+    }
+
+    // Newest first, in id ranges. Ids have gaps, so a range may hold fewer than chunkSize aliases
+    private Supplier<List<ShortenedAddress>> recentChunks() {
+        if (aliasShards.isSharded()) {
+            return shardedRecentChunks();
+        }
+        final long newest = shortenedAddressDAO.findTopByOrderByIdDesc().map(ShortenedAddress::getId).orElse(0L);
+        final AtomicLong next = new AtomicLong(newest);
+        return () -> {
+            final long to = next.getAndAdd(-chunkSize);
+            return to < 1 ? null : shortenedAddressDAO.findByIdBetween(Math.max(1, to - chunkSize + 1), to);
+        };
+    }
+
+    // Every shard hands out ids from its own range, so a shard's ids are too sparse to read in
+    // ranges. Each shard is read newest first by keyset instead, taking turns, and a shard is only
+    // read by one worker at a time
+    private Supplier<List<ShortenedAddress>> shardedRecentChunks() {
+        final AtomicLong[] before = new AtomicLong[aliasShards.count()];
+        for (int shard = 0; shard < before.length; shard++) {
+            before[shard] = new AtomicLong(Long.MAX_VALUE);
+        }
+        final AtomicInteger next = new AtomicInteger();
+        return () -> {
+            for (int tried = 0; tried < before.length; tried++) {
+                final int shard = Math.floorMod(next.getAndIncrement(), before.length);
+                final AtomicLong cursor = before[shard];
+                synchronized (cursor) {
+                    if (cursor.get() > 0) {
+                        final List<ShortenedAddress> chunk = aliasShards.onShard(shard,
+                            () -> shortenedAddressDAO.findByIdLessThanOrderByIdDesc(cursor.get(), Limit.of(chunkSize)));
+                        cursor.set(chunk.size() < chunkSize ? 0 : chunk.getLast().getId());
+                        if (!chunk.isEmpty()) {
+                            return chunk;
+                        }
+                    }
+                }
+            }
+            return null;
+        };
+    }
+
+    // Hottest first, as they were saved
+    private Supplier<List<ShortenedAddress>> hotKeyChunks() throws IOException {
+        final List<String> aliases;
+        try (var lines = Files.lines(hotKeysPath, StandardCharsets.UTF_8)) {
+            aliases = lines.filter(line -> !line.isBlank()).limit(maxEntries).toList();
+        }
+        final AtomicInteger next = new AtomicInteger();
+        return () -> {
+            final int from = next.getAndAdd(chunkSize);
+            return from >= aliases.size()
+                ? null
+                : aliasShards.onShardsOf(aliases.subList(from, Math.min(from + chunkSize, aliases.size())),
+                    shortenedAddressDAO::findByAliasIn);
+        };
+    }
+
+    /**
+     * Saves the most redirected aliases for the next instance to warm its cache with. Written to
+     * a temporary file and renamed so a reader never sees half a list.
+     */
+    void saveHotKeys() {
+        final List<String> aliases = hotAliasTracker.top(hotAliasTracker.maxCandidates()).stream()
+            .map(HotAlias::alias)
+            .toList();
+        if (aliases.isEmpty()) {
+            return;
+        }
+        try {
+            final Path tmp = hotKeysPath.resolveSibling(hotKeysPath.getFileName() + ".tmp");
+            Files.write(tmp, aliases, StandardCharsets.UTF_8);
+            Files.move(tmp, hotKeysPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.info("Saved {} hot aliases to {}", aliases.size(), hotKeysPath);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save the hot aliases to {}", hotKeysPath, e);
+        }
+    }
+
+    private double progress() {
+        return finished ? 1.0 : Math.min(1.0, Math.max(
+            (double) loaded.get() / Math.max(1, maxEntries),
+            (double) loadedBytes.get() / Math.max(1, memoryBudget)));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (running && enabled && source == Source.HOT_KEYS && !aliasSnapshot.isEnabled()) {
+            saveHotKeys();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+}
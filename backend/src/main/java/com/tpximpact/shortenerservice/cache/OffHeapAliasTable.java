@@ -0,0 +1,641 @@
+package com.tpximpact.shortenerservice.cache;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.tpximpact.shortenerservice.model.Redirect;
+
+/**
+ * Hash table of aliases and their redirects held in direct memory, outside the Java heap, so that
+ * tens of millions of them cost neither heap nor garbage collection time. It is an open addressing
+ * table with linear probing:
+ *
+ * <pre>
+ * slots    longs: the low 16 bits of the alias hash, then the entry's address plus one (0 for an
+ *          empty slot, -1 for a deleted one). Split into pages of 16M slots
+ * entries  appended to chunks of {@code chunkSize} bytes: alias length (unsigned byte), URL length
+ *          in bytes (unsigned short), redirect status (unsigned short, top bit set when an expiry
+ *          follows), expiry in epoch milliseconds (long, only when there is one), alias chars (one
+ *          byte each), URL bytes (UTF-8)
+ * </pre>
+ *
+ * <p>Lookups never lock. An entry is never written to again once its slot has been published
+ * (with a release store, read back with an acquire load), so a reader that finds the slot sees the
+ * whole entry. Changes are made by one writer at a time: replacing or deleting an alias leaves its
+ * old entry behind as garbage and the slot marked deleted. {@link #compact(double, Instant)}
+ * reclaims the garbage a chunk at a time by copying the chunk's live entries to the end and
+ * dropping the chunk; a reader that finds its entry's chunk gone starts again. Deleted slots are
+ * cleared whenever the slot table is rebuilt, which happens as it fills up. Chunk ids are never
+ * reused, so a reader holding a stale address can't read another entry in its place.
+ *
+ * <p>A table that has been replaced as a whole is {@link #close() closed}, which frees its direct
+ * memory straight away rather than whenever the garbage collector gets round to the small heap
+ * objects holding it. Readers {@link #pin()} the table for the length of a lookup so that it
+ * isn't freed under them.
+ */
+final class OffHeapAliasTable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapAliasTable.class);
+
+    static final int MAX_ALIAS_LENGTH = 255;
+    static final int MAX_URL_LENGTH = 65535;
+    static final int MAX_CHUNK_SIZE = 1 << 30;
+
+    private static final VarHandle SLOT = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    private static final long EMPTY = 0;
+    private static final long DELETED = -1;
+    private static final int FRAGMENT_SHIFT = 48;
+    private static final long ADDRESS_MASK = (1L << FRAGMENT_SHIFT) - 1;
+    private static final int OFFSET_BITS = 30;
+    private static final int MAX_CHUNKS = 1 << (FRAGMENT_SHIFT - OFFSET_BITS - 1);
+
+    private static final int PAGE_BITS = 24;
+    private static final long PAGE_MASK = (1L << PAGE_BITS) - 1;
+    private static final long MIN_CAPACITY = 16;
+    // Rebuilt once this full (counting deleted slots), at a size that leaves it half full
+    private static final double MAX_LOAD = 0.75;
+    private static final double REBUILT_LOAD = 0.5;
+
+    private static final int HEADER_SIZE = 5;
+    private static final int EXPIRY_FLAG = 0x8000;
+
+    private final int chunkSize;
+
+    private volatile Slots slots;
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+    // Written by the writer only, volatile so that metrics can read them
+    private volatile long size;
+    private volatile long deletedSlots;
+    private volatile long allocatedChunkBytes;
+    private volatile long liveBytes;
+    private volatile long rawBytes;
+
+    private final LongAdder readers = new LongAdder();
+    private volatile boolean closed;
+
+    private int[] chunkUsed = new int[0];
+    private int[] chunkLive = new int[0];
+    private int appendChunk = -1;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param expectedEntries number of entries the slot table is first sized for
+     * @param chunkSize size of each chunk of entries, at most 1 GB
+     */
+    OffHeapAliasTable(long expectedEntries, int chunkSize) {
+        if (chunkSize < HEADER_SIZE + Long.BYTES || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunk size must be between " + (HEADER_SIZE + Long.BYTES)
+                + " and " + MAX_CHUNK_SIZE + " bytes");
+        }
+        this.chunkSize = chunkSize;
+        this.slots = new Slots(capacityFor(expectedEntries));
+    }
+
+    /**
+     * Looks up the redirect for an alias, without locking.
+     *
+     * @param alias the alias
+     * @return the redirect, or null if the alias is not in the table
+     */
+    Redirect lookup(String alias) {
+        final long hash = hash(alias);
+        retry:
+        while (true) {
+            final Slots table = slots;
+            for (long slot = table.home(hash); ; slot = table.next(slot)) {
+                final long value = table.get(slot);
+                if (value == EMPTY) {
+                    return null;
+                }
+                if (value == DELETED || !sameFragment(value, hash)) {
+                    continue;
+                }
+                final long address = address(value);
+                final ByteBuffer chunk = chunks[chunkOf(address)];
+                if (chunk == null) {
+                    // Compacted since the slot was read, its new address has been published
+                    continue retry;
+                }
+                if (matches(chunk, offsetOf(address), alias)) {
+                    return read(chunk, offsetOf(address));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds or replaces the redirect for an alias. An alias that can't be held (not ASCII, or too
+     * long a URL) is removed instead, so the table never answers with an older redirect.
+     *
+     * @param alias the alias
+     * @param redirect where it redirects to
+     * @return whether the alias is now in the table
+     */
+    synchronized boolean put(String alias, Redirect redirect) {
+        if (closed) {
+            return false;
+        }
+        final byte[] url = redirect.location().toString().getBytes(StandardCharsets.UTF_8);
+        final boolean expires = redirect.expiresAt() != null;
+        final int length = entryLength(alias.length(), url.length, expires);
+        if (!isAscii(alias) || alias.isEmpty() || alias.length() > MAX_ALIAS_LENGTH || url.length > MAX_URL_LENGTH
+                || redirect.status() < 0 || redirect.status() >= EXPIRY_FLAG || length > chunkSize
+                || (!hasRoom(length) && chunks.length >= MAX_CHUNKS)) {
+            remove(alias);
+            return false;
+        }
+
+        if (size + deletedSlots + 1 > slots.capacity * MAX_LOAD) {
+            rebuildSlots(capacityFor(size + 1));
+        }
+
+        final long hash = hash(alias);
+        final Slots table = slots;
+        long target = -1;
+        long existing = EMPTY;
+        for (long slot = table.home(hash); ; slot = table.next(slot)) {
+            final long value = table.get(slot);
+            if (value == EMPTY) {
+                target = target < 0 ? slot : target;
+                break;
+            }
+            if (value == DELETED) {
+                target = target < 0 ? slot : target;
+            } else if (sameFragment(value, hash) && matches(value, alias)) {
+                target = slot;
+                existing = value;
+                break;
+            }
+        }
+
+        final long address = append(length);
+        final ByteBuffer chunk = chunks[chunkOf(address)];
+        int position = offsetOf(address);
+        chunk.put(position, (byte) alias.length());
+        chunk.putShort(position + 1, (short) url.length);
+        chunk.putShort(position + 3, (short) (redirect.status() | (expires ? EXPIRY_FLAG : 0)));
+        position += HEADER_SIZE;
+        if (expires) {
+            chunk.putLong(position, redirect.expiresAt().toEpochMilli());
+            position += Long.BYTES;
+        }
+        for (int i = 0; i < alias.length(); i++) {
+            chunk.put(position++, (byte) alias.charAt(i));
+        }
+        chunk.put(position, url);
+        rawBytes += alias.length() + url.length;
+
+        final long previous = table.get(target);
+        table.set(target, slotValue(hash, address));
+        if (existing != EMPTY) {
+            release(existing);
+        } else {
+            size++;
+            if (previous == DELETED) {
+                deletedSlots--;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes an alias.
+     *
+     * @param alias the alias
+     * @return whether the alias was in the table
+     */
+    synchronized boolean remove(String alias) {
+        if (closed) {
+            return false;
+        }
+        final long hash = hash(alias);
+        final Slots table = slots;
+        for (long slot = table.home(hash); ; slot = table.next(slot)) {
+            final long value = table.get(slot);
+            if (value == EMPTY) {
+                return false;
+            }
+            if (value != DELETED && sameFragment(value, hash) && matches(value, alias)) {
+                table.set(slot, DELETED);
+                release(value);
+                size--;
+                deletedSlots++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Checks whether {@link #compact(double, Instant)} would drop a chunk.
+     *
+     * @param threshold fraction of a chunk that must be garbage for it to be compacted
+     * @return whether any chunk is at least that much garbage
+     */
+    synchronized boolean needsCompaction(double threshold) {
+        for (int id = 0; id < chunks.length; id++) {
+            if (isCompactable(id, threshold)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the live entries out of every chunk that is at least {@code threshold} garbage and
+     * drops the chunk, freeing its memory once no lookup is still reading it. Entries that have
+     * expired are dropped on the way. The write lock is held for one chunk at a time, so writers
+     * wait for at most one chunk to be copied.
+     *
+     * @param threshold fraction of a chunk that must be garbage for it to be compacted
+     * @param now the current time, for dropping expired entries
+     * @return the number of chunks dropped
+     */
+    int compact(double threshold, Instant now) {
+        int dropped = 0;
+        for (int id = 0; id < chunkCount(); id++) {
+            synchronized (this) {
+                if (isCompactable(id, threshold)) {
+                    compactChunk(id, now.toEpochMilli());
+                    dropped++;
+                }
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Keeps the table from being freed until {@link #unpin()}, for a lookup.
+     *
+     * @return false if the table has been closed, and must not be read
+     */
+    boolean pin() {
+        readers.increment();
+        // Pairs with close(): either it sees this reader, or this reader sees it closed
+        if (closed) {
+            readers.decrement();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Ends a lookup started with {@link #pin()}.
+     */
+    void unpin() {
+        readers.decrement();
+    }
+
+    /**
+     * Frees the table's direct memory once the lookups still reading it have finished. Only call
+     * once the table can no longer be found by new lookups; changes to it are ignored from now on.
+     */
+    void close() {
+        closed = true;
+        while (readers.sum() != 0) {
+            Thread.yield();
+        }
+        synchronized (this) {
+            for (ByteBuffer chunk : chunks) {
+                free(chunk);
+            }
+            chunks = new ByteBuffer[0];
+            appendChunk = -1;
+            allocatedChunkBytes = 0;
+            slots.free();
+        }
+    }
+
+    /**
+     * @return the number of aliases in the table
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * @return the direct memory held by the table: the slot table and every chunk in full
+     */
+    long allocatedBytes() {
+        return closed ? 0 : slots.capacity * Long.BYTES + allocatedChunkBytes;
+    }
+
+    /**
+     * @return the memory taken by the aliases in the table: the slot table and their entries
+     */
+    long usedBytes() {
+        return slots.capacity * Long.BYTES + liveBytes;
+    }
+
+    /**
+     * @return the bytes of the aliases and URLs themselves, what the table's memory compares to
+     */
+    long rawBytes() {
+        return rawBytes;
+    }
+
+    private synchronized int chunkCount() {
+        return chunks.length;
+    }
+
+    private boolean isCompactable(int id, double threshold) {
+        return id != appendChunk && chunks[id] != null && chunkUsed[id] - chunkLive[id] >= threshold * chunkUsed[id];
+    }
+
+    private void compactChunk(int id, long nowMillis) {
+        final ByteBuffer chunk = chunks[id];
+        final Slots table = slots;
+        for (int offset = 0; offset < chunkUsed[id]; ) {
+            final int length = entryLength(chunk, offset);
+            final long address = address(id, offset);
+            final long slot = slotOf(table, hash(chunk, offset), address);
+            if (slot >= 0) {
+                final long value = table.get(slot);
+                if (expiry(chunk, offset) <= nowMillis) {
+                    table.set(slot, DELETED);
+                    release(value);
+                    size--;
+                    deletedSlots++;
+                } else {
+                    final long moved = append(length);
+                    chunks[chunkOf(moved)].put(offsetOf(moved), chunk, offset, length);
+                    table.set(slot, (value & ~ADDRESS_MASK) | (moved + 1));
+                    chunkLive[id] -= length;
+                    liveBytes -= length;
+                }
+            }
+            offset += length;
+        }
+
+        final ByteBuffer[] remaining = chunks.clone();
+        remaining[id] = null;
+        chunks = remaining;
+        allocatedChunkBytes -= chunk.capacity();
+    }
+
+    private long slotOf(Slots table, long hash, long address) {
+        for (long slot = table.home(hash); ; slot = table.next(slot)) {
+            final long value = table.get(slot);
+            if (value == EMPTY) {
+                return -1;
+            }
+            if (value != DELETED && address(value) == address) {
+                return slot;
+            }
+        }
+    }
+
+    private void rebuildSlots(long capacity) {
+        final Slots old = slots;
+        final Slots rebuilt = new Slots(capacity);
+        for (long slot = 0; slot < old.capacity; slot++) {
+            final long value = old.get(slot);
+            if (value != EMPTY && value != DELETED) {
+                final long address = address(value);
+                long target = rebuilt.home(hash(chunks[chunkOf(address)], offsetOf(address)));
+                while (rebuilt.get(target) != EMPTY) {
+                    target = rebuilt.next(target);
+                }
+                rebuilt.set(target, value);
+            }
+        }
+        slots = rebuilt;
+        deletedSlots = 0;
+    }
+
+    private boolean hasRoom(int length) {
+        return appendChunk >= 0 && chunkSize - chunkUsed[appendChunk] >= length;
+    }
+
+    private long append(int length) {
+        if (!hasRoom(length)) {
+            final int id = chunks.length;
+            chunkUsed = Arrays.copyOf(chunkUsed, id + 1);
+            chunkLive = Arrays.copyOf(chunkLive, id + 1);
+            final ByteBuffer[] grown = Arrays.copyOf(chunks, id + 1);
+            grown[id] = ByteBuffer.allocateDirect(chunkSize);
+            chunks = grown;
+            appendChunk = id;
+            allocatedChunkBytes += chunkSize;
+        }
+        final long address = address(appendChunk, chunkUsed[appendChunk]);
+        chunkUsed[appendChunk] += length;
+        chunkLive[appendChunk] += length;
+        liveBytes += length;
+        return address;
+    }
+
+    private void release(long value) {
+        final long address = address(value);
+        final ByteBuffer chunk = chunks[chunkOf(address)];
+        final int length = entryLength(chunk, offsetOf(address));
+        chunkLive[chunkOf(address)] -= length;
+        liveBytes -= length;
+        rawBytes -= (chunk.get(offsetOf(address)) & 0xff) + (chunk.getShort(offsetOf(address) + 1) & 0xffff);
+    }
+
+    private boolean matches(long value, String alias) {
+        final long address = address(value);
+        return matches(chunks[chunkOf(address)], offsetOf(address), alias);
+    }
+
+    private static boolean matches(ByteBuffer chunk, int offset, String alias) {
+        if ((chunk.get(offset) & 0xff) != alias.length()) {
+            return false;
+        }
+        for (int i = 0, position = aliasOffset(chunk, offset); i < alias.length(); i++, position++) {
+            if ((chunk.get(position) & 0xff) != alias.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Redirect read(ByteBuffer chunk, int offset) {
+        final int aliasLength = chunk.get(offset) & 0xff;
+        final byte[] url = new byte[chunk.getShort(offset + 1) & 0xffff];
+        final int status = chunk.getShort(offset + 3) & 0xffff;
+        chunk.get(aliasOffset(chunk, offset) + aliasLength, url);
+        return new Redirect(URI.create(new String(url, StandardCharsets.UTF_8)), status & ~EXPIRY_FLAG,
+            (status & EXPIRY_FLAG) == 0 ? null : Instant.ofEpochMilli(chunk.getLong(offset + HEADER_SIZE)));
+    }
+
+    private static long expiry(ByteBuffer chunk, int offset) {
+        return (chunk.getShort(offset + 3) & EXPIRY_FLAG) == 0 ? Long.MAX_VALUE : chunk.getLong(offset + HEADER_SIZE);
+    }
+
+    private static int aliasOffset(ByteBuffer chunk, int offset) {
+        return offset + HEADER_SIZE + ((chunk.getShort(offset + 3) & EXPIRY_FLAG) == 0 ? 0 : Long.BYTES);
+    }
+
+    private static int entryLength(ByteBuffer chunk, int offset) {
+        return aliasOffset(chunk, offset) - offset + (chunk.get(offset) & 0xff) + (chunk.getShort(offset + 1) & 0xffff);
+    }
+
+    private static int entryLength(int aliasLength, int urlLength, boolean expires) {
+        return HEADER_SIZE + (expires ? Long.BYTES : 0) + aliasLength + urlLength;
+    }
+
+    private static boolean isAscii(String alias) {
+        for (int i = 0; i < alias.length(); i++) {
+            if (alias.charAt(i) > 0x7f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hash of an alias, computed over its chars so that looking an alias up doesn't encode it.
+     *
+     * @param alias the alias
+     * @return the 64 bit hash
+     */
+    static long hash(String alias) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < alias.length(); i++) {
+            h = (h ^ alias.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    // The same hash over a stored alias, whose chars are one byte each
+    private static long hash(ByteBuffer chunk, int offset) {
+        long h = 0xcbf29ce484222325L;
+        final int start = aliasOffset(chunk, offset);
+        for (int position = start, end = start + (chunk.get(offset) & 0xff); position < end; position++) {
+            h = (h ^ (chunk.get(position) & 0xff)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    // FNV-1a spreads short strings poorly, finish with the MurmurHash3 finaliser
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // Direct buffers are otherwise only freed once the garbage collector finds them unreachable
+    private static MethodHandle invokeCleaner() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("Can't free direct memory explicitly, replaced alias index tables are left to the garbage "
+                + "collector", e);
+            return null;
+        }
+    }
+
+    private static void free(ByteBuffer buffer) {
+        if (buffer == null || INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact(buffer);
+        } catch (Throwable e) {
+            LOGGER.warn("Failed to free direct memory of the alias index", e);
+        }
+    }
+
+    private static long capacityFor(long entries) {
+        return Math.max(MIN_CAPACITY, (long) Math.ceil(entries / REBUILT_LOAD));
+    }
+
+    // The slot position comes from the high bits of the hash, the fragment from the low bits
+    private static long slotValue(long hash, long address) {
+        return (hash << FRAGMENT_SHIFT) | (address + 1);
+    }
+
+    private static boolean sameFragment(long value, long hash) {
+        return (value >>> FRAGMENT_SHIFT) == (hash & 0xffff);
+    }
+
+    private static long address(long value) {
+        return (value & ADDRESS_MASK) - 1;
+    }
+
+    private static long address(int chunk, int offset) {
+        return ((long) chunk << OFFSET_BITS) | offset;
+    }
+
+    private static int chunkOf(long address) {
+        return (int) (address >>> OFFSET_BITS);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) (address & ((1L << OFFSET_BITS) - 1));
+    }
+
+    /**
+     * The slot table, in pages of direct memory as one buffer can't be larger than 2 GB. Replaced
+     * as a whole when it is rebuilt, a lookup keeps probing the table it started with.
+     */
+    private static final class Slots {
+
+        private final ByteBuffer[] pages;
+        // The buffers the pages are slices of, which are the ones that can be freed
+        private final ByteBuffer[] allocated;
+        private final long capacity;
+
+        Slots(long capacity) {
+            this.capacity = capacity;
+            this.pages = new ByteBuffer[(int) ((capacity + PAGE_MASK) >>> PAGE_BITS)];
+            this.allocated = new ByteBuffer[pages.length];
+            for (int page = 0; page < pages.length; page++) {
+                final long pageSlots = Math.min(PAGE_MASK + 1, capacity - ((long) page << PAGE_BITS));
+                // Atomic access needs the longs aligned, allocate a spare long to align them in
+                allocated[page] = ByteBuffer.allocateDirect((int) (pageSlots + 1) * Long.BYTES);
+                pages[page] = allocated[page].alignedSlice(Long.BYTES);
+            }
+        }
+
+        void free() {
+            for (ByteBuffer page : allocated) {
+                OffHeapAliasTable.free(page);
+            }
+        }
+
+        long home(long hash) {
+            return Math.unsignedMultiplyHigh(hash, capacity);
+        }
+
+        long next(long slot) {
+            return slot + 1 == capacity ? 0 : slot + 1;
+        }
+
+        long get(long slot) {
+            return (long) SLOT.getAcquire(pages[(int) (slot >>> PAGE_BITS)], (int) (slot & PAGE_MASK) * Long.BYTES);
+        }
+
+        void set(long slot, long value) {
+            SLOT.setRelease(pages[(int) (slot >>> PAGE_BITS)], (int) (slot & PAGE_MASK) * Long.BYTES, value);
+        }
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.tpximpact.shortenerservice.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Turns a failure to get a database connection into a 503. The connection pool is deliberately
+ * small compared to the number of requests that can be in flight (especially with virtual threads,
+ * where there is no request thread pool to queue behind), so requests wait for a connection for
+ * at most {@code spring.datasource.hikari.connection-timeout} and are then told to come back
+ * later rather than piling up on the database.
+ */
+@ControllerAdvice
+@Profile("!reactive")
+public class ConnectionPoolGuard {
+
+    private final String retryAfterSeconds;
+
+    /**
+     * Creates the guard.
+     *
+     * @param connectionTimeoutMillis how long a request waits for a connection, used as the retry hint
+     */
+    public ConnectionPoolGuard(@Value("${spring.datasource.hikari.connection-timeout}") long connectionTimeoutMillis) {
+        this.retryAfterSeconds = String.valueOf(Math.max(1, connectionTimeoutMillis / 1000));
+    }
+
+    /**
+     * Responds with 503 Service Unavailable through the standard error handling.
+     *
+     * @param response the response
+     * @throws IOException if the error can't be sent
+     */
+    @ExceptionHandler({ CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class })
+    public void connectionUnavailable(HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "The service is busy, please retry");
+    }
+
+}
@@ -1,28 +1,40 @@
 package com.tpximpact.shortenerservice.config;
 
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.boot.web.error.ErrorAttributeOptions;
 import org.springframework.boot.web.error.ErrorAttributeOptions.Include;
 import org.springframework.boot.webmvc.error.DefaultErrorAttributes;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.WebRequest;
 
 import com.tpximpact.shortenerservice.exception.NoSuchAliasException;
 import com.tpximpact.shortenerservice.exception.ValidationFailedException;
 
+import jakarta.servlet.RequestDispatcher;
+
 /**
  * Override of the DefaultErrorAttributes. This hooks in to springs default error
  * handling and ensures that any expected client side errors have their error
  * messages returned.
  */
 @Component
+@Profile("!reactive")
 public class CustomErrorAttributes extends DefaultErrorAttributes {
 
+    // Sent without an exception (by RateLimitInterceptor and ConnectionPoolGuard), with a message
+    // meant for the client
+    private static final Set<Integer> STATUSES_WITH_MESSAGE = Set.of(
+        HttpStatus.TOO_MANY_REQUESTS.value(), HttpStatus.SERVICE_UNAVAILABLE.value());
+
     /**
      * Overrides the default error attributes. This ensures an error message is sent back to the
-     * user if validation fails or they provide an alias that doesn't exist. This will take priority
-     * over the settings set in configuration.
+     * user if validation fails or they provide an alias that doesn't exist, or when a request is
+     * turned away with 429 or 503. This will take priority over the settings set in configuration.
      * 
      * @param webRequest the web request
      * @param the default configured options.
@@ -38,6 +50,10 @@ public class CustomErrorAttributes extends DefaultErrorAttributes {
         ErrorAttributeOptions finalOptions = switch (error) {
             case ValidationFailedException e -> options.including(Include.MESSAGE);
             case NoSuchAliasException e -> options.including(Include.MESSAGE);
+            case null -> STATUSES_WITH_MESSAGE.contains(webRequest.getAttribute(
+                    RequestDispatcher.ERROR_STATUS_CODE, RequestAttributes.SCOPE_REQUEST))
+                ? options.including(Include.MESSAGE)
+                : options;
             default -> options;
         };
 
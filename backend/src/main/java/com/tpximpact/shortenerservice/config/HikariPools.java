@@ -0,0 +1,44 @@
+package com.tpximpact.shortenerservice.config;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Builds the extra connection pools used when the datasource is split over several databases
+ * (read replicas or shards). Every pool shares the {@code spring.datasource.*} credentials and
+ * {@code spring.datasource.hikari.*} settings, and publishes {@code hikaricp.*} metrics under its
+ * own pool name.
+ */
+final class HikariPools {
+
+    private HikariPools() {
+    }
+
+    /**
+     * @param properties the {@code spring.datasource.*} properties
+     * @param url JDBC URL of the database
+     * @param name pool name, as seen in the metrics
+     * @param binder binder for the {@code spring.datasource.hikari.*} settings
+     * @param meterRegistry registry the pool metrics are published to
+     * @return the pool.
+     */
+    static HikariDataSource create(DataSourceProperties properties, String url, String name, Binder binder,
+            MeterRegistry meterRegistry) {
+        final HikariDataSource pool = properties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .url(url)
+            .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        // Spring Boot only instruments pools that are beans of their own
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.tpximpact.shortenerservice.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Keeps the JDBC datasource alongside R2DBC in the reactive profile. Spring Boot only creates one
+ * of the two by default, but the schema (through Hibernate) and the background jobs (Bloom filter
+ * rebuilds, click writes, alias blocks) still use JDBC; only the request path moves to R2DBC.
+ * The datasource is configured with the usual {@code spring.datasource.*} properties.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveDataSourceConfig {
+
+    /**
+     * @return the {@code spring.datasource.*} properties
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    /**
+     * @param properties the {@code spring.datasource.*} properties
+     * @param shardUrls JDBC URLs of alias shards, which the reactive runtime doesn't support
+     * @return the pooled datasource, with {@code spring.datasource.hikari.*} applied
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties,
+            @Value("${alias.sharding.shardUrls}") List<String> shardUrls) {
+        if (shardUrls.stream().anyMatch(url -> !url.isBlank())) {
+            throw new IllegalStateException("alias.sharding.shardUrls isn't supported by the reactive runtime");
+        }
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+}
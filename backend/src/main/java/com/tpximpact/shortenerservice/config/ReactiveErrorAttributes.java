@@ -0,0 +1,33 @@
+package com.tpximpact.shortenerservice.config;
+
+import java.util.Map;
+
+import org.springframework.boot.web.error.ErrorAttributeOptions;
+import org.springframework.boot.web.error.ErrorAttributeOptions.Include;
+import org.springframework.boot.webflux.error.DefaultErrorAttributes;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+
+import com.tpximpact.shortenerservice.exception.NoSuchAliasException;
+import com.tpximpact.shortenerservice.exception.ValidationFailedException;
+
+/**
+ * WebFlux version of {@link CustomErrorAttributes}, used with the reactive profile. Ensures the
+ * error message is sent back to the user if validation fails or the alias doesn't exist.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveErrorAttributes extends DefaultErrorAttributes {
+
+    @Override
+    public Map<String, Object> getErrorAttributes(ServerRequest request, ErrorAttributeOptions options) {
+        final ErrorAttributeOptions finalOptions = switch (getError(request)) {
+            case ValidationFailedException e -> options.including(Include.MESSAGE);
+            case NoSuchAliasException e -> options.including(Include.MESSAGE);
+            default -> options;
+        };
+
+        return super.getErrorAttributes(request, finalOptions);
+    }
+}
@@ -0,0 +1,23 @@
+package com.tpximpact.shortenerservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.reactive.config.CorsRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * WebFlux version of {@link WebConfig}, used with the reactive profile. Allows requests from the
+ * frontend on localhost:3000.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    @Override
+    public void addCorsMappings(CorsRegistry registry) {
+        registry.addMapping("/**") // allow all endpoints
+                .allowedOrigins("http://localhost:3000") // allow the frontend
+                .allowedMethods("*");
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.tpximpact.shortenerservice.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import com.tpximpact.shortenerservice.routing.ReadRouting;
+import com.tpximpact.shortenerservice.routing.RoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Replaces the datasource with a {@link RoutingDataSource} when read replicas are configured
+ * ({@code alias.routing.replicaUrls}). The primary is set up from {@code spring.datasource.*} as
+ * usual, and each replica gets its own pool with the same credentials and
+ * {@code spring.datasource.hikari.*} settings. Pools are named {@code primary}, {@code replica-1}
+ * and so on in the {@code hikaricp.*} metrics. Which reads go to the replicas is decided by
+ * {@link ReadRouting}.
+ *
+ * <p>The reactive runtime serves requests through R2DBC, so its datasource is not routed. Replicas
+ * can't be combined with shards ({@link ShardingDataSourceConfig}).
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnExpression("!'${alias.routing.replicaUrls:}'.isBlank() && '${alias.sharding.shardUrls:}'.isBlank()")
+public class ReadReplicaDataSourceConfig {
+
+    /**
+     * @param properties the {@code spring.datasource.*} properties, for the primary and the replicas' credentials
+     * @param replicaUrls JDBC URLs of the read replicas
+     * @param environment source of the {@code spring.datasource.hikari.*} settings
+     * @param meterRegistry registry the pool metrics are published to
+     * @return the datasource routing reads between the primary and the replicas
+     */
+    @Bean
+    public RoutingDataSource dataSource(
+            DataSourceProperties properties,
+            @Value("${alias.routing.replicaUrls}") List<String> replicaUrls,
+            Environment environment,
+            MeterRegistry meterRegistry) {
+        final Binder binder = Binder.get(environment);
+        final HikariDataSource primary = HikariPools.create(properties, properties.determineUrl(), "primary", binder,
+            meterRegistry);
+
+        final List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (!url.isBlank()) {
+                replicas.add(HikariPools.create(properties, url.strip(), "replica-" + (replicas.size() + 1), binder,
+                    meterRegistry));
+            }
+        }
+        return new RoutingDataSource(primary, replicas);
+    }
+
+}
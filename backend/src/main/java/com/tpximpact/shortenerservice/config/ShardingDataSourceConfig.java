@@ -0,0 +1,84 @@
+package com.tpximpact.shortenerservice.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+import com.tpximpact.shortenerservice.sharding.ShardRoutingDataSource;
+import com.tpximpact.shortenerservice.sharding.ShardSchemaInitializer;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Replaces the datasource with a {@link ShardRoutingDataSource} when {@code shortened_address} is
+ * split over several databases ({@code alias.sharding.shardUrls}). Shard 0 is set up from
+ * {@code spring.datasource.*} as usual and keeps every other table, and each further shard gets
+ * its own pool with the same credentials and {@code spring.datasource.hikari.*} settings. Pools
+ * are named {@code shard-0}, {@code shard-1} and so on in the {@code hikaricp.*} metrics. Which
+ * shard an alias lives on is decided by {@link AliasShards}.
+ *
+ * <p>The reactive runtime serves requests through R2DBC and isn't sharded, and read replicas
+ * can't be combined with shards.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnExpression("!'${alias.sharding.shardUrls:}'.isBlank()")
+public class ShardingDataSourceConfig {
+
+    /**
+     * @param properties the {@code spring.datasource.*} properties, for shard 0 and the shards' credentials
+     * @param shardUrls JDBC URLs of the shards after the first
+     * @param replicaUrls JDBC URLs of read replicas, which must be empty
+     * @param environment source of the {@code spring.datasource.hikari.*} settings
+     * @param meterRegistry registry the pool metrics are published to
+     * @return the datasource routing connections to the shards
+     */
+    @Bean
+    public ShardRoutingDataSource dataSource(
+            DataSourceProperties properties,
+            @Value("${alias.sharding.shardUrls}") List<String> shardUrls,
+            @Value("${alias.routing.replicaUrls}") List<String> replicaUrls,
+            Environment environment,
+            MeterRegistry meterRegistry) {
+        if (replicaUrls.stream().anyMatch(url -> !url.isBlank())) {
+            throw new IllegalStateException("alias.routing.replicaUrls can't be used with alias.sharding.shardUrls");
+        }
+        final Binder binder = Binder.get(environment);
+
+        final List<HikariDataSource> shards = new ArrayList<>();
+        shards.add(HikariPools.create(properties, properties.determineUrl(), "shard-0", binder, meterRegistry));
+        for (String url : shardUrls) {
+            if (!url.isBlank()) {
+                shards.add(HikariPools.create(properties, url.strip(), "shard-" + shards.size(), binder,
+                    meterRegistry));
+            }
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    /**
+     * @param dataSource the shards
+     * @param entityManagerFactory shard 0's Hibernate, whose naming strategies the other shards use
+     * @param ddlAuto what to do with the schema, as for shard 0
+     * @return the initializer that sets up the schema of the shards after the first
+     */
+    @Bean
+    public ShardSchemaInitializer shardSchemaInitializer(
+            ShardRoutingDataSource dataSource,
+            EntityManagerFactory entityManagerFactory,
+            @Value("${spring.jpa.hibernate.ddl-auto:update}") String ddlAuto) {
+        return new ShardSchemaInitializer(dataSource, entityManagerFactory.getProperties(), ddlAuto);
+    }
+
+}
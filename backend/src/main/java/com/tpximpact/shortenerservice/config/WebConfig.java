@@ -2,22 +2,41 @@ package com.tpximpact.shortenerservice.config;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.tpximpact.shortenerservice.ratelimit.RateLimitInterceptor;
+
 /**
  * WebConfig Configuration which allows requests from localhost:3000. This is
  * currently where the web frontend is deployed (with docker-compose) however
  * if we were to deploy this for real, we would likely need to have this 
- * configured.
+ * configured. Also puts the per-client rate limits in front of the controller.
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    /**
+     * Creates the configuration.
+     *
+     * @param rateLimitInterceptor limits requests to the rate limited endpoints
+     */
+    public WebConfig(RateLimitInterceptor rateLimitInterceptor) {
+        this.rateLimitInterceptor = rateLimitInterceptor;
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**") // allow all endpoints
                 .allowedOrigins("http://localhost:3000") // allow the frontend
                 .allowedMethods("*");
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor);
+    }
     
 }
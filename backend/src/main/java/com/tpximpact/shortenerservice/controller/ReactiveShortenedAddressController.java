@@ -0,0 +1,194 @@
+package com.tpximpact.shortenerservice.controller;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.tpximpact.shortenerservice.analytics.ClickRecorder;
+import com.tpximpact.shortenerservice.metrics.ShortenerMetrics;
+import com.tpximpact.shortenerservice.model.BatchShortenResult;
+import com.tpximpact.shortenerservice.model.BulkDeleteResult;
+import com.tpximpact.shortenerservice.model.HotAlias;
+import com.tpximpact.shortenerservice.model.ShortenRequest;
+import com.tpximpact.shortenerservice.model.ShortenResponse;
+import com.tpximpact.shortenerservice.model.StoredAlias;
+import com.tpximpact.shortenerservice.service.CurrentURLService;
+import com.tpximpact.shortenerservice.service.ReactiveShortenedAddressService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux version of {@link ShortenedAddressController}, used with the reactive profile. Serves
+ * the same endpoints without blocking the event loop threads.
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveShortenedAddressController {
+
+    private final ReactiveShortenedAddressService shortenedAddressService;
+    private final CurrentURLService currentURLService;
+    private final ClickRecorder clickRecorder;
+    private final RedirectPolicy redirectPolicy;
+    private final ShortenerMetrics metrics;
+
+    /**
+     * Create a controller (called by spring dependency injection).
+     *
+     * @param shortenedAddressService reactive service layer
+     * @param currentURLService service for getting the requested URL
+     * @param clickRecorder records redirects for analytics
+     * @param redirectPolicy chooses the status and caching headers of redirects
+     * @param metrics counts redirect responses
+     */
+    public ReactiveShortenedAddressController(ReactiveShortenedAddressService shortenedAddressService,
+            CurrentURLService currentURLService, ClickRecorder clickRecorder, RedirectPolicy redirectPolicy,
+            ShortenerMetrics metrics) {
+        this.shortenedAddressService = shortenedAddressService;
+        this.currentURLService = currentURLService;
+        this.clickRecorder = clickRecorder;
+        this.redirectPolicy = redirectPolicy;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Shorten a URL.
+     *
+     * @param shortenRequest shorten request
+     * @param request the HTTP request, used to build the short URL
+     * @return the response if successful.
+     */
+    @PostMapping(path = "/shorten", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ShortenResponse> shortenUrl(@RequestBody ShortenRequest shortenRequest, ServerHttpRequest request) {
+        return shortenedAddressService.shorten(shortenRequest, currentURLService.getRequestedURLWithNoPath(request));
+    }
+
+    /**
+     * Shorten a batch of URLs, reporting the outcome of each request in the same order.
+     *
+     * @param shortenRequests shorten requests
+     * @param request the HTTP request, used to build the short URLs
+     * @return the outcome of each request.
+     */
+    @PostMapping(path = "/shorten/batch", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<List<BatchShortenResult>> shortenUrls(@RequestBody List<ShortenRequest> shortenRequests,
+            ServerHttpRequest request) {
+        return shortenedAddressService.shortenAll(shortenRequests, currentURLService.getRequestedURLWithNoPath(request));
+    }
+
+    /**
+     * Get a page of the stored aliases. If there are more aliases, a {@code Link} header with
+     * {@code rel="next"} points at the next page.
+     *
+     * @param limit maximum number of aliases to return
+     * @param after cursor from the previous page's next link (omit for the first page)
+     * @param request the HTTP request, used to build the short URLs
+     * @return the aliases.
+     */
+    @GetMapping(path = "/urls", params = "limit", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<StoredAlias>>> getStoredAliases(
+            @RequestParam("limit") int limit,
+            @RequestParam(name = "after", required = false) String after,
+            ServerHttpRequest request) {
+        return shortenedAddressService.getStoredURLs(limit, after, currentURLService.getRequestedURLWithNoPath(request))
+            .map(page -> {
+                final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                if (page.nextCursor() != null) {
+                    final String next = UriComponentsBuilder.fromPath("/urls")
+                        .queryParam("limit", limit)
+                        .queryParam("after", page.nextCursor())
+                        .toUriString();
+                    response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+                }
+                return response.body(page.items());
+            });
+    }
+
+    /**
+     * Get all stored aliases. The JSON array is written out as rows arrive from the database.
+     *
+     * @param request the HTTP request, used to build the short URLs
+     * @return the aliases.
+     */
+    @GetMapping(path = "/urls", params = "!limit", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<StoredAlias> streamStoredAliases(ServerHttpRequest request) {
+        return shortenedAddressService.getAllStoredURLs(currentURLService.getRequestedURLWithNoPath(request));
+    }
+
+    /**
+     * Get the most redirected aliases recently, with approximate redirect counts.
+     *
+     * @param n maximum number of aliases to return
+     * @return the aliases, most redirected first.
+     */
+    @GetMapping(path = "/urls/hot", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<HotAlias> getHotAliases(@RequestParam(name = "n", defaultValue = "10") int n) {
+        return shortenedAddressService.getHotAliases(n);
+    }
+
+    /**
+     * Redirects a request to the full URL and records the click, or responds with 404 if the
+     * alias is not stored. The status and caching headers are chosen by the {@link RedirectPolicy}.
+     *
+     * @param alias the alias (path variable)
+     * @param referrer the Referer header, if sent
+     * @param userAgent the User-Agent header, if sent
+     * @return redirect or not found request.
+     */
+    @GetMapping("/{alias:^(?!urls$)[a-zA-Z0-9_-]+$}")
+    public Mono<ResponseEntity<Object>> forwardToURL(
+            @PathVariable("alias") String alias,
+            @RequestHeader(name = HttpHeaders.REFERER, required = false) String referrer,
+            @RequestHeader(name = HttpHeaders.USER_AGENT, required = false) String userAgent) {
+        return shortenedAddressService.getRedirect(alias)
+            .map(redirect -> {
+                clickRecorder.record(alias, referrer, userAgent);
+                final ResponseEntity<Object> response = redirectPolicy.toResponse(redirect);
+                metrics.redirectResponse(response.getStatusCode().value());
+                return response;
+            })
+            .switchIfEmpty(Mono.fromSupplier(() -> {
+                metrics.redirectResponse(HttpStatus.NOT_FOUND.value());
+                return ResponseEntity.notFound().build();
+            }));
+    }
+
+    /**
+     * Removes a shortened URL based on an alias.
+     *
+     * @param alias alias.
+     * @return completes once the alias is removed.
+     */
+    @DeleteMapping("/{alias}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteAlias(@PathVariable("alias") String alias) {
+        return shortenedAddressService.deleteStoredAlias(alias);
+    }
+
+    /**
+     * Removes many shortened URLs in one request. Aliases that do not exist are listed in the
+     * response rather than failing the request.
+     *
+     * @param aliases aliases to remove
+     * @return how many aliases were removed and which ones did not exist.
+     */
+    @PostMapping(path = "/urls/delete", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<BulkDeleteResult> deleteAliases(@RequestBody List<String> aliases) {
+        return shortenedAddressService.deleteStoredAliases(aliases);
+    }
+}
@@ -0,0 +1,96 @@
+package com.tpximpact.shortenerservice.controller;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.model.Redirect;
+
+/**
+ * Builds redirect responses: the status chosen for the alias, or {@code alias.redirect.status}
+ * for aliases stored without one, and a {@code Cache-Control} header that lets browsers and CDNs
+ * answer repeat clicks themselves.
+ *
+ * <p>Permanent redirects (301, 308) are cached for {@code alias.redirect.permanentMaxAge} and
+ * temporary ones (302, 307) for {@code alias.redirect.temporaryMaxAge}. A click answered from a
+ * cache never reaches the service, so it is not recorded and deleting the alias does not stop it
+ * until the cached copy expires. A max age of zero sends {@code no-cache}, which also stops
+ * permanent redirects from being cached without limit. Redirects of an alias with an expiry are
+ * never cached past it, and once it has passed they are sent with {@code no-store}.
+ */
+@Component
+public class RedirectPolicy {
+
+    private final HttpStatus defaultStatus;
+    private final Duration permanentMaxAge;
+    private final Duration temporaryMaxAge;
+    private final CacheControl permanentCacheControl;
+    private final CacheControl temporaryCacheControl;
+
+    /**
+     * Creates the policy.
+     *
+     * @param defaultStatus status used for aliases stored without one
+     * @param permanentMaxAge how long permanent redirects may be cached
+     * @param temporaryMaxAge how long temporary redirects may be cached
+     */
+    public RedirectPolicy(
+            @Value("${alias.redirect.status}") int defaultStatus,
+            @Value("${alias.redirect.permanentMaxAge}") Duration permanentMaxAge,
+            @Value("${alias.redirect.temporaryMaxAge}") Duration temporaryMaxAge) {
+        if (!Redirect.STATUSES.contains(defaultStatus)) {
+            throw new IllegalArgumentException("alias.redirect.status must be one of " + Redirect.STATUSES
+                + ", not " + defaultStatus);
+        }
+        this.defaultStatus = HttpStatus.valueOf(defaultStatus);
+        this.permanentMaxAge = permanentMaxAge;
+        this.temporaryMaxAge = temporaryMaxAge;
+        this.permanentCacheControl = cacheControl(permanentMaxAge);
+        this.temporaryCacheControl = cacheControl(temporaryMaxAge);
+    }
+
+    /**
+     * @param redirect the redirect
+     * @return the status to redirect with.
+     */
+    public HttpStatus status(Redirect redirect) {
+        return redirect.status() == Redirect.DEFAULT_STATUS ? defaultStatus : HttpStatus.valueOf(redirect.status());
+    }
+
+    /**
+     * @param redirect the redirect
+     * @return the response redirecting the client, with its caching headers.
+     */
+    public ResponseEntity<Object> toResponse(Redirect redirect) {
+        final HttpStatus status = status(redirect);
+        final boolean permanent = status == HttpStatus.MOVED_PERMANENTLY || status == HttpStatus.PERMANENT_REDIRECT;
+        return ResponseEntity.status(status)
+            .location(redirect.location())
+            .cacheControl(redirect.expiresAt() == null
+                ? (permanent ? permanentCacheControl : temporaryCacheControl)
+                : expiringCacheControl(permanent ? permanentMaxAge : temporaryMaxAge, redirect.expiresAt()))
+            .build();
+    }
+
+    private static CacheControl expiringCacheControl(Duration maxAge, Instant expiresAt) {
+        if (maxAge.isZero()) {
+            return CacheControl.noCache();
+        }
+        // Whole seconds, rounded down so that no cache keeps the redirect past the expiry
+        final long untilExpiry = Duration.between(Instant.now(), expiresAt).toSeconds();
+        if (untilExpiry <= 0) {
+            return CacheControl.noStore();
+        }
+        return cacheControl(Duration.ofSeconds(Math.min(untilExpiry, maxAge.toSeconds())));
+    }
+
+    private static CacheControl cacheControl(Duration maxAge) {
+        return maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+}
@@ -1,7 +1,11 @@
 package com.tpximpact.shortenerservice.controller;
 
+import java.io.IOException;
 import java.util.List;
 
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -10,29 +14,66 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import com.tpximpact.shortenerservice.analytics.ClickRecorder;
+import com.tpximpact.shortenerservice.metrics.ShortenerMetrics;
+import com.tpximpact.shortenerservice.model.BatchShortenResult;
+import com.tpximpact.shortenerservice.model.BulkDeleteResult;
+import com.tpximpact.shortenerservice.model.HotAlias;
+import com.tpximpact.shortenerservice.model.ListingVersion;
 import com.tpximpact.shortenerservice.model.ShortenRequest;
 import com.tpximpact.shortenerservice.model.ShortenResponse;
+import com.tpximpact.shortenerservice.model.SnapshotExport;
 import com.tpximpact.shortenerservice.model.StoredAlias;
+import com.tpximpact.shortenerservice.model.StoredAliasPage;
+import com.tpximpact.shortenerservice.ratelimit.RateLimitCategory;
+import com.tpximpact.shortenerservice.ratelimit.RateLimited;
 import com.tpximpact.shortenerservice.service.ShortenedAddressService;
 
+import jakarta.servlet.http.HttpServletResponse;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
+
 /**
- * REST controller allowing access via HTTP to the service layer.
+ * REST controller allowing access via HTTP to the service layer. Each endpoint draws from one
+ * of the per-client {@link RateLimited rate limits}.
+ *
+ * <p>Redirects are sent with the status and caching headers chosen by the {@link RedirectPolicy}.
+ * Listing {@code /urls} sends {@code ETag} and {@code Last-Modified} validators, and a client
+ * whose copy is still current gets 304 Not Modified without the listing being read.
  */
 @RestController
+@Profile("!reactive")
 public class ShortenedAddressController {
 
     private final ShortenedAddressService shortenedAddressService;
+    private final JsonMapper jsonMapper;
+    private final ClickRecorder clickRecorder;
+    private final RedirectPolicy redirectPolicy;
+    private final ShortenerMetrics metrics;
 
     /**
      * Create a controller (called by spring dependency injection).
      *
      * @param shortenedAddressService shortenedAddressService
+     * @param jsonMapper mapper used to write streamed responses
+     * @param clickRecorder records redirects for analytics
+     * @param redirectPolicy chooses the status and caching headers of redirects
+     * @param metrics counts redirect responses
      */
-    public ShortenedAddressController(ShortenedAddressService shortenedAddressService) {
+    public ShortenedAddressController(ShortenedAddressService shortenedAddressService, JsonMapper jsonMapper,
+            ClickRecorder clickRecorder, RedirectPolicy redirectPolicy, ShortenerMetrics metrics) {
         this.shortenedAddressService = shortenedAddressService;
+        this.jsonMapper = jsonMapper;
+        this.clickRecorder = clickRecorder;
+        this.redirectPolicy = redirectPolicy;
+        this.metrics = metrics;
     }
 
     /**
@@ -42,39 +83,135 @@ public class ShortenedAddressController {
      * @param shortenRequest shorten request
      * @return the response if successful.
      */
+    @RateLimited(RateLimitCategory.WRITE)
     @PostMapping(path = "/shorten", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
     public ShortenResponse shortenUrl(@RequestBody ShortenRequest shortenRequest) {
         return shortenedAddressService.shorten(shortenRequest);
     }
+
+    /**
+     * Shorten a batch of URLs. Each request is validated and stored independently of the others,
+     * and the response reports the outcome of each one in the same order.
+     *
+     * @param shortenRequests shorten requests
+     * @return the outcome of each request.
+     */
+    @RateLimited(RateLimitCategory.WRITE)
+    @PostMapping(path = "/shorten/batch", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<BatchShortenResult> shortenUrls(@RequestBody List<ShortenRequest> shortenRequests) {
+        return shortenedAddressService.shortenAll(shortenRequests);
+    }
     
     /**
-     * Get all aliases stored in the database.
+     * Get a page of the aliases stored in the database. If there are more aliases, a {@code Link}
+     * header with {@code rel="next"} points at the next page. Nothing is read if the client's
+     * copy is still current, the response is then 304 Not Modified.
      *
+     * @param limit maximum number of aliases to return
+     * @param after cursor from the previous page's next link (omit for the first page)
+     * @param request the request, checked for {@code If-None-Match} and {@code If-Modified-Since}
      * @return the aliases.
      */
-    @GetMapping(path = "/urls", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<StoredAlias> getStoredAliases() {
-        return shortenedAddressService.getStoredURLs();
+    @RateLimited(RateLimitCategory.LISTING)
+    @GetMapping(path = "/urls", params = "limit", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<StoredAlias>> getStoredAliases(
+            @RequestParam("limit") int limit,
+            @RequestParam(name = "after", required = false) String after,
+            ServletWebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        final StoredAliasPage page = shortenedAddressService.getStoredURLs(limit, after);
+
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            final String next = UriComponentsBuilder.fromPath("/urls")
+                .queryParam("limit", limit)
+                .queryParam("after", page.nextCursor())
+                .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.items());
+    }
+
+    /**
+     * Get all aliases stored in the database. The JSON array is written out as rows are read from
+     * the database rather than being built up in memory first. Nothing is read if the client's
+     * copy is still current, the response is then 304 Not Modified.
+     *
+     * @param request the request, checked for {@code If-None-Match} and {@code If-Modified-Since}
+     * @param response the response to write to
+     * @throws IOException if the response can't be written
+     */
+    @RateLimited(RateLimitCategory.LISTING)
+    @GetMapping(path = "/urls", params = "!limit", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void streamStoredAliases(ServletWebRequest request, HttpServletResponse response) throws IOException {
+        if (notModified(request)) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        try (JsonGenerator generator = jsonMapper.createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            shortenedAddressService.forEachStoredURL(generator::writePOJO);
+            generator.writeEndArray();
+        }
     }
     
+    /**
+     * Sets the listing validators on the response and checks them against the request's
+     * conditional headers. Caches are told to revalidate every time, as the check is cheap and the
+     * freshness they would otherwise guess from {@code Last-Modified} could hide new aliases.
+     *
+     * @return true if the client's copy is current and a 304 has been set up
+     */
+    private boolean notModified(ServletWebRequest request) {
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        // Taken before the listing is read, see ShortenedAddressService#getListingVersion
+        final ListingVersion version = shortenedAddressService.getListingVersion();
+        return request.checkNotModified(version.etag(), version.lastModified().toEpochMilli());
+    }
+
+    /**
+     * Get the most redirected aliases recently, with approximate redirect counts.
+     *
+     * @param n maximum number of aliases to return
+     * @return the aliases, most redirected first.
+     */
+    @RateLimited(RateLimitCategory.LISTING)
+    @GetMapping(path = "/urls/hot", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<HotAlias> getHotAliases(@RequestParam(name = "n", defaultValue = "10") int n) {
+        return shortenedAddressService.getHotAliases(n);
+    }
+
     /**
      * Redirects a request to the full URL. Will match all paths except /urls as that's
-     * required for {@link #getStoredAliases()}. If a match is found, the user will be
-     * redirected to the full URL. If they are not found, a 404 response will be given.
+     * required for {@link #streamStoredAliases(ServletWebRequest, HttpServletResponse)}. If a match is
+     * found, the user will be redirected to the full URL and the click recorded. If they are not
+     * found, a 404 response will be given.
      *
      * @param alias the alias (path variable)
+     * @param referrer the Referer header, if sent
+     * @param userAgent the User-Agent header, if sent
      * @return redirect or not found request.
      */
-    @ResponseStatus(HttpStatus.FOUND)
+    @RateLimited(RateLimitCategory.REDIRECT)
     @GetMapping("/{alias:^(?!urls$)[a-zA-Z0-9_-]+$}")
-    public ResponseEntity<Object> forwardToURL(@PathVariable("alias") String alias) {
-        return shortenedAddressService.getForwardedURI(alias)
-            .map(url -> {
-                return ResponseEntity.status(HttpStatus.FOUND)
-                    .location(url)
-                    .build();
+    public ResponseEntity<Object> forwardToURL(
+            @PathVariable("alias") String alias,
+            @RequestHeader(name = HttpHeaders.REFERER, required = false) String referrer,
+            @RequestHeader(name = HttpHeaders.USER_AGENT, required = false) String userAgent) {
+        return shortenedAddressService.getRedirect(alias)
+            .map(redirect -> {
+                clickRecorder.record(alias, referrer, userAgent);
+                final ResponseEntity<Object> response = redirectPolicy.toResponse(redirect);
+                metrics.redirectResponse(response.getStatusCode().value());
+                return response;
             })
-            .orElse(ResponseEntity.notFound().build());
+            .orElseGet(() -> {
+                metrics.redirectResponse(HttpStatus.NOT_FOUND.value());
+                return ResponseEntity.notFound().build();
+            });
     }
 
     /**
@@ -82,9 +219,34 @@ public class ShortenedAddressController {
      *
      * @param alias alias.
      */
+    @RateLimited(RateLimitCategory.WRITE)
     @DeleteMapping("/{alias}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteAlias(@PathVariable("alias") String alias) {
         shortenedAddressService.deleteStoredAlias(alias);
     }
+
+    /**
+     * Removes many shortened URLs in one request. Aliases that do not exist are listed in the
+     * response rather than failing the request.
+     *
+     * @param aliases aliases to remove
+     * @return how many aliases were removed and which ones did not exist.
+     */
+    @RateLimited(RateLimitCategory.WRITE)
+    @PostMapping(path = "/urls/delete", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkDeleteResult deleteAliases(@RequestBody List<String> aliases) {
+        return shortenedAddressService.deleteStoredAliases(aliases);
+    }
+
+    /**
+     * Writes every stored alias to the snapshot file that read replicas serve redirects from.
+     *
+     * @return how many aliases were written and the size of the file.
+     */
+    @RateLimited(RateLimitCategory.WRITE)
+    @PostMapping(path = "/urls/snapshot", produces = MediaType.APPLICATION_JSON_VALUE)
+    public SnapshotExport exportSnapshot() {
+        return shortenedAddressService.exportSnapshot();
+    }
 }
@@ -0,0 +1,311 @@
+package com.tpximpact.shortenerservice.invalidation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.cache.AliasBloomFilter;
+import com.tpximpact.shortenerservice.cache.AliasCache;
+import com.tpximpact.shortenerservice.cache.AliasIndex;
+import com.tpximpact.shortenerservice.model.AliasEvent;
+import com.tpximpact.shortenerservice.routing.ReadRouting;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps the alias cache and Bloom filter of every instance in step when aliases are created or
+ * deleted on one of them. Events are held for {@code alias.invalidation.debounce} after the first
+ * one arrives, so that a burst (a bulk delete, a busy shorten endpoint) goes out as a few batches
+ * of at most {@code alias.invalidation.maxBatchSize} rather than one message per alias. Repeated
+ * events for the same alias within the window are collapsed into the latest.
+ *
+ * <p>Other instances drop a deleted alias from their cache, and add a created alias to their
+ * Bloom filter and drop any cached miss for it. Either way they drop the alias from their
+ * {@link AliasIndex}, which then picks a created alias up from the database. Every instance, this
+ * one included, also tells its {@link ReadRouting} so that read replicas aren't trusted about the
+ * alias until they have caught up. An instance ignores its own events, it has already applied
+ * them. When the channel reports that events may have been lost (it lost its connection) the
+ * whole cache is cleared, and the Bloom filter and alias index rebuilt from the database.
+ *
+ * <p>Delivery is best effort: a batch that fails to send is counted in
+ * {@code alias.invalidation.failures} and dropped. Other instances would otherwise keep serving
+ * deleted aliases from their index, and keep answering created ones as absent from their Bloom
+ * filter, so the bus then asks them to resync, retrying every second until the request gets
+ * through. Until it does they may serve stale entries.
+ */
+@Component
+public class InvalidationBus implements SmartLifecycle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InvalidationBus.class);
+
+    // Stop after the web server (which stops at DEFAULT_PHASE - 2048) so nothing is published after the final flush
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final long RESYNC_RETRY_MILLIS = 1000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final long debounceNanos;
+    private final int maxBatchSize;
+    private final InvalidationChannel channel;
+    private final AliasCache aliasCache;
+    private final AliasBloomFilter aliasBloomFilter;
+    private final AliasIndex aliasIndex;
+    private final ReadRouting readRouting;
+
+    private final Counter published;
+    private final Counter received;
+    private final Counter failures;
+    private final Counter resyncs;
+
+    private final Object lock = new Object();
+    private Map<String, AliasEvent.Type> pending = new LinkedHashMap<>();
+
+    private volatile boolean running;
+    private Thread publisher;
+
+    // Only used by the publisher thread
+    private boolean resyncOwed;
+
+    /**
+     * Creates the bus. Nothing is published or received until the application context starts it.
+     *
+     * @param debounce how long events are collected before they are sent
+     * @param maxBatchSize most events sent in one message
+     * @param channel transport shared by every instance
+     * @param aliasCache cache that events are applied to
+     * @param aliasBloomFilter Bloom filter that created aliases are added to
+     * @param aliasIndex off-heap alias index that events are applied to
+     * @param readRouting read routing that is told which aliases were written recently
+     * @param meterRegistry registry used to publish the event counts
+     */
+    public InvalidationBus(
+            @Value("${alias.invalidation.debounce}") Duration debounce,
+            @Value("${alias.invalidation.maxBatchSize}") int maxBatchSize,
+            InvalidationChannel channel,
+            AliasCache aliasCache,
+            AliasBloomFilter aliasBloomFilter,
+            AliasIndex aliasIndex,
+            ReadRouting readRouting,
+            MeterRegistry meterRegistry) {
+        this.debounceNanos = debounce.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.channel = channel;
+        this.aliasCache = aliasCache;
+        this.aliasBloomFilter = aliasBloomFilter;
+        this.aliasIndex = aliasIndex;
+        this.readRouting = readRouting;
+
+        this.published = Counter.builder("alias.invalidation.published").register(meterRegistry);
+        this.received = Counter.builder("alias.invalidation.received")
+            .description("Events from other instances applied to the local cache")
+            .register(meterRegistry);
+        this.failures = Counter.builder("alias.invalidation.failures")
+            .description("Events lost because the batch could not be sent")
+            .register(meterRegistry);
+        this.resyncs = Counter.builder("alias.invalidation.resyncs").register(meterRegistry);
+    }
+
+    /**
+     * Tells the other instances that an alias has been stored. Never blocks on the channel.
+     *
+     * @param alias the alias
+     */
+    public void created(String alias) {
+        readRouting.created(alias);
+        enqueue(alias, AliasEvent.Type.CREATED);
+    }
+
+    /**
+     * Tells the other instances that an alias has been deleted. Never blocks on the channel.
+     *
+     * @param alias the alias
+     */
+    public void deleted(String alias) {
+        readRouting.deleted(alias);
+        enqueue(alias, AliasEvent.Type.DELETED);
+    }
+
+    /**
+     * Tells the other instances that aliases have been deleted. Never blocks on the channel.
+     *
+     * @param aliases the aliases
+     */
+    public void deleted(Iterable<String> aliases) {
+        for (String alias : aliases) {
+            readRouting.deleted(alias);
+            enqueue(alias, AliasEvent.Type.DELETED);
+        }
+    }
+
+    private void enqueue(String alias, AliasEvent.Type type) {
+        if (!running) {
+            return;
+        }
+        synchronized (lock) {
+            // Remove first so the alias moves to the end with its latest event
+            pending.remove(alias);
+            pending.put(alias, type);
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!running) {
+            channel.subscribe(new InvalidationChannel.Subscriber() {
+                @Override
+                public void onEvents(String origin, List<AliasEvent> events) {
+                    apply(origin, events);
+                }
+
+                @Override
+                public void onResync() {
+                    resync();
+                }
+            });
+            running = true;
+            publisher = Thread.ofPlatform().name("alias-invalidation-publisher").daemon().start(this::publishLoop);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        LockSupport.unpark(publisher);
+        try {
+            publisher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void publishLoop() {
+        while (running) {
+            synchronized (lock) {
+                while (running && pending.isEmpty()) {
+                    try {
+                        if (resyncOwed) {
+                            // Try the resync request again even if nothing else comes along
+                            lock.wait(RESYNC_RETRY_MILLIS);
+                            break;
+                        }
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            // Give the rest of a burst time to arrive before sending, stop() cuts the wait short
+            LockSupport.parkNanos(debounceNanos);
+            send(takePending());
+        }
+
+        // Shutting down: send whatever arrived after the last batch
+        send(takePending());
+    }
+
+    private Map<String, AliasEvent.Type> takePending() {
+        synchronized (lock) {
+            final Map<String, AliasEvent.Type> taken = pending;
+            pending = new LinkedHashMap<>();
+            return taken;
+        }
+    }
+
+    private void send(Map<String, AliasEvent.Type> events) {
+        final List<AliasEvent> batch = new ArrayList<>(Math.min(events.size(), maxBatchSize));
+        for (Map.Entry<String, AliasEvent.Type> event : events.entrySet()) {
+            batch.add(new AliasEvent(event.getValue(), event.getKey()));
+            if (batch.size() == maxBatchSize) {
+                sendBatch(batch);
+            }
+        }
+        sendBatch(batch);
+
+        // Sent after the events, so the other instances reload everything written before them
+        if (resyncOwed) {
+            try {
+                channel.publish(nodeId, List.of(new AliasEvent(AliasEvent.Type.RESYNC, null)));
+                resyncOwed = false;
+                LOGGER.info("Asked the other instances to resync after lost alias invalidations");
+            } catch (RuntimeException e) {
+                LOGGER.debug("Failed to publish resync request, will retry", e);
+            }
+        }
+    }
+
+    private void sendBatch(List<AliasEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            channel.publish(nodeId, List.copyOf(batch));
+            published.increment(batch.size());
+        } catch (RuntimeException e) {
+            failures.increment(batch.size());
+            resyncOwed = true;
+            LOGGER.warn("Failed to publish {} alias invalidations", batch.size(), e);
+        }
+        batch.clear();
+    }
+
+    private void apply(String origin, List<AliasEvent> events) {
+        if (nodeId.equals(origin)) {
+            return;
+        }
+        for (AliasEvent event : events) {
+            if (event.type() == AliasEvent.Type.RESYNC) {
+                resync();
+                continue;
+            }
+            if (event.type() == AliasEvent.Type.CREATED) {
+                aliasBloomFilter.put(event.alias());
+                readRouting.created(event.alias());
+            } else {
+                readRouting.deleted(event.alias());
+            }
+            aliasCache.invalidate(event.alias());
+            aliasIndex.remove(event.alias());
+        }
+        received.increment(events.size());
+    }
+
+    private void resync() {
+        resyncs.increment();
+        LOGGER.info("Alias invalidations may have been missed, clearing the cache and rebuilding the bloom filter");
+        aliasCache.invalidateAll();
+        aliasIndex.reload();
+        if (aliasBloomFilter.isEnabled()) {
+            aliasBloomFilter.rebuild();
+        }
+    }
+
+}
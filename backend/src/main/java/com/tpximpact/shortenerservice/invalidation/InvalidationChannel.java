@@ -0,0 +1,48 @@
+package com.tpximpact.shortenerservice.invalidation;
+
+import java.util.List;
+
+import com.tpximpact.shortenerservice.model.AliasEvent;
+
+/**
+ * Pub/sub transport that carries alias events between instances. Every published batch is
+ * delivered to the subscribers of every instance, including the one that sent it.
+ */
+public interface InvalidationChannel {
+
+    /**
+     * Sends a batch of events to every subscriber.
+     *
+     * @param origin id of the sending instance
+     * @param events the events
+     */
+    void publish(String origin, List<AliasEvent> events);
+
+    /**
+     * Registers a subscriber for batches published from now on.
+     *
+     * @param subscriber the subscriber
+     */
+    void subscribe(Subscriber subscriber);
+
+    /**
+     * Receives batches from an {@link InvalidationChannel}.
+     */
+    interface Subscriber {
+
+        /**
+         * Called with each batch, from a single thread per channel.
+         *
+         * @param origin id of the instance that sent the batch
+         * @param events the events
+         */
+        void onEvents(String origin, List<AliasEvent> events);
+
+        /**
+         * Called after the channel has reconnected, when events may have been missed.
+         */
+        void onResync();
+
+    }
+
+}
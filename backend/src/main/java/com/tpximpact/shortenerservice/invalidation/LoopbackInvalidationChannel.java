@@ -0,0 +1,42 @@
+package com.tpximpact.shortenerservice.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.model.AliasEvent;
+
+/**
+ * In-memory channel that delivers batches straight to the subscribers in the same JVM, on the
+ * publishing thread. Used by a single instance, and by tests to connect several buses together.
+ */
+@Component
+@ConditionalOnProperty(name = "alias.invalidation.channel", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackInvalidationChannel implements InvalidationChannel {
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String origin, List<AliasEvent> events) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.onEvents(origin, events);
+        }
+    }
+
+    @Override
+    public void subscribe(Subscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Tells every subscriber to resync, as a reconnecting channel would.
+     */
+    public void resync() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.onResync();
+        }
+    }
+
+}
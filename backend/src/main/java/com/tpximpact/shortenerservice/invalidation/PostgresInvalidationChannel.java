@@ -0,0 +1,254 @@
+package com.tpximpact.shortenerservice.invalidation;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.model.AliasEvent;
+
+/**
+ * Channel over Postgres {@code LISTEN/NOTIFY}, so instances sharing a database need nothing else
+ * to talk to each other. Batches are sent with {@code pg_notify} and split to stay under the
+ * 8000 byte payload limit. Each payload is the sender id followed by one line per event: the
+ * event type ({@code C} or {@code D}) and the alias, which is safe as aliases can't contain
+ * whitespace, or {@code R} on its own for a resync request.
+ *
+ * <p>A background thread holds one connection from the pool to listen on. The connection is
+ * checked every {@code alias.invalidation.postgres.pollInterval} while it is quiet; if it fails
+ * the thread reconnects and tells subscribers to resync, as notifications sent while it was
+ * disconnected are lost.
+ */
+@Component
+@ConditionalOnProperty(name = "alias.invalidation.channel", havingValue = "postgres")
+public class PostgresInvalidationChannel implements InvalidationChannel, SmartLifecycle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PostgresInvalidationChannel.class);
+
+    // Start before and stop after the bus that publishes through it
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 8192;
+
+    // Postgres rejects payloads of 8000 bytes or more
+    static final int MAX_PAYLOAD_BYTES = 7999;
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("^[a-z_][a-z0-9_]*$");
+
+    private final String channelName;
+    private final int pollMillis;
+    private final long reconnectDelayNanos;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread listener;
+
+    /**
+     * Creates the channel. The listener thread is started by the application context.
+     *
+     * @param channelName the Postgres channel, a lower case identifier
+     * @param pollInterval longest the listener waits for notifications before checking the connection
+     * @param reconnectDelay wait between attempts to reconnect the listener
+     * @param dataSource datasource the listening connection is taken from
+     * @param jdbcTemplate jdbc template used to send notifications
+     */
+    public PostgresInvalidationChannel(
+            @Value("${alias.invalidation.postgres.channel}") String channelName,
+            @Value("${alias.invalidation.postgres.pollInterval}") Duration pollInterval,
+            @Value("${alias.invalidation.postgres.reconnectDelay}") Duration reconnectDelay,
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate) {
+        if (!CHANNEL_NAME.matcher(channelName).matches()) {
+            throw new IllegalArgumentException("alias.invalidation.postgres.channel must be a lower case identifier, got "
+                + channelName);
+        }
+        this.channelName = channelName;
+        this.pollMillis = (int) Math.max(1, pollInterval.toMillis());
+        this.reconnectDelayNanos = reconnectDelay.toNanos();
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void publish(String origin, List<AliasEvent> events) {
+        for (String payload : encode(origin, events, MAX_PAYLOAD_BYTES)) {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", (RowCallbackHandler) resultSet -> { }, channelName, payload);
+        }
+    }
+
+    @Override
+    public void subscribe(Subscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void start() {
+        if (!running) {
+            running = true;
+            listener = Thread.ofPlatform().name("alias-invalidation-listener").daemon().start(this::listenLoop);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        listener.interrupt();
+        try {
+            listener.join(TimeUnit.NANOSECONDS.toMillis(reconnectDelayNanos) + pollMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void listenLoop() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channelName);
+                }
+                // Listening again, anything sent while disconnected has been missed
+                if (connectedBefore) {
+                    LOGGER.info("Reconnected to invalidation channel {}", channelName);
+                    for (Subscriber subscriber : subscribers) {
+                        subscriber.onResync();
+                    }
+                }
+                connectedBefore = true;
+
+                while (running) {
+                    final PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+                    if (notifications == null || notifications.length == 0) {
+                        if (!connection.isValid(pollMillis / 1000 + 1)) {
+                            throw new SQLException("listening connection is no longer valid");
+                        }
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        deliver(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    LOGGER.warn("Lost invalidation channel {}, reconnecting", channelName, e);
+                    sleepBeforeReconnect();
+                }
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+        final int newline = payload.indexOf('\n');
+        final String origin = newline < 0 ? payload : payload.substring(0, newline);
+        final List<AliasEvent> events = decode(payload);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.onEvents(origin, events);
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            TimeUnit.NANOSECONDS.sleep(reconnectDelayNanos);
+        } catch (InterruptedException e) {
+            // stop() interrupts to end the wait early
+        }
+    }
+
+    /**
+     * Encodes a batch as as few payloads as fit under the size limit.
+     *
+     * @param origin id of the sending instance
+     * @param events the events
+     * @param maxBytes largest payload size in bytes
+     * @return the payloads
+     */
+    static List<String> encode(String origin, List<AliasEvent> events, int maxBytes) {
+        final List<String> payloads = new ArrayList<>();
+        final StringBuilder payload = new StringBuilder(origin);
+        int bytes = origin.getBytes(StandardCharsets.UTF_8).length;
+        final int headerBytes = bytes;
+
+        for (AliasEvent event : events) {
+            final String line = switch (event.type()) {
+                case CREATED -> "\nC" + event.alias();
+                case DELETED -> "\nD" + event.alias();
+                case RESYNC -> "\nR";
+            };
+            final int lineBytes = line.getBytes(StandardCharsets.UTF_8).length;
+            if (bytes + lineBytes > maxBytes && bytes > headerBytes) {
+                payloads.add(payload.toString());
+                payload.setLength(0);
+                payload.append(origin);
+                bytes = headerBytes;
+            }
+            payload.append(line);
+            bytes += lineBytes;
+        }
+        if (bytes > headerBytes) {
+            payloads.add(payload.toString());
+        }
+        return payloads;
+    }
+
+    /**
+     * Decodes the events in a payload written by {@link #encode(String, List, int)}. Lines that
+     * aren't events are skipped.
+     *
+     * @param payload the payload
+     * @return the events
+     */
+    static List<AliasEvent> decode(String payload) {
+        final List<AliasEvent> events = new ArrayList<>();
+        final String[] lines = payload.split("\n");
+        for (int i = 1; i < lines.length; i++) {
+            if ("R".equals(lines[i])) {
+                events.add(new AliasEvent(AliasEvent.Type.RESYNC, null));
+                continue;
+            }
+            if (lines[i].length() < 2) {
+                continue;
+            }
+            switch (lines[i].charAt(0)) {
+                case 'C' -> events.add(new AliasEvent(AliasEvent.Type.CREATED, lines[i].substring(1)));
+                case 'D' -> events.add(new AliasEvent(AliasEvent.Type.DELETED, lines[i].substring(1)));
+                default -> { }
+            }
+        }
+        return events;
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.tpximpact.shortenerservice.metrics;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.exception.ValidationFailedException;
+import com.tpximpact.shortenerservice.model.Redirect;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+/**
+ * Meters for the shortener's own operations. Every meter is registered up front so recording is
+ * just an update to an existing meter. Timers publish percentile histograms so latency
+ * percentiles can be aggregated across instances in Prometheus.
+ *
+ * <p>HTTP request timings ({@code http.server.requests}), repository call timings
+ * ({@code spring.data.repository.invocations}) and connection pool gauges ({@code hikaricp.*})
+ * are registered by Spring Boot.
+ */
+@Component
+public class ShortenerMetrics {
+
+    /**
+     * Timed service operations.
+     */
+    public enum Operation {
+        SHORTEN("shorten"),
+        SHORTEN_BATCH("shorten_batch"),
+        DELETE("delete"),
+        DELETE_BATCH("delete_batch"),
+        LIST("list");
+
+        private final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private static final int NOT_FOUND = 404;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Operation, Timer> operationTimers = new EnumMap<>(Operation.class);
+    private final Map<Operation, Counter> validationFailures = new EnumMap<>(Operation.class);
+    private final Timer redirectFound;
+    private final Timer redirectNotFound;
+    private final Map<Integer, Counter> redirectResponses = new HashMap<>();
+    private final DistributionSummary generationAttempts;
+    private final Counter deduplicated;
+
+    /**
+     * Creates and registers the meters.
+     *
+     * @param meterRegistry registry the meters are registered with
+     */
+    public ShortenerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        for (Operation operation : Operation.values()) {
+            operationTimers.put(operation, Timer.builder("shortener.operation")
+                .description("Time taken by shortener service operations")
+                .tag("operation", operation.tag)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+            validationFailures.put(operation, Counter.builder("shortener.validation.failures")
+                .description("Requests rejected by validation")
+                .tag("operation", operation.tag)
+                .register(meterRegistry));
+        }
+
+        this.redirectFound = redirectTimer("found", meterRegistry);
+        this.redirectNotFound = redirectTimer("not_found", meterRegistry);
+        for (int status : Redirect.STATUSES) {
+            redirectResponses.put(status, redirectCounter(status, meterRegistry));
+        }
+        redirectResponses.put(NOT_FOUND, redirectCounter(NOT_FOUND, meterRegistry));
+
+        this.generationAttempts = DistributionSummary.builder("alias.generation.attempts")
+            .description("Inserts needed to store a generated alias (1 means no collision)")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.deduplicated = Counter.builder("shortener.deduplicated")
+            .description("Shorten requests answered with the alias already stored for the URL")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Times the operation. If it fails validation the failure is counted too.
+     *
+     * @param <T> result type
+     * @param operation the operation
+     * @param call the operation itself
+     * @return the operation's result
+     */
+    public <T> T time(Operation operation, Supplier<T> call) {
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return call.get();
+        } catch (ValidationFailedException e) {
+            validationFailures.get(operation).increment();
+            throw e;
+        } finally {
+            sample.stop(operationTimers.get(operation));
+        }
+    }
+
+    /**
+     * Times the operation. If it fails validation the failure is counted too.
+     *
+     * @param operation the operation
+     * @param call the operation itself
+     */
+    public void time(Operation operation, Runnable call) {
+        time(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Times the operation from subscription until it completes or fails. If it fails validation
+     * the failure is counted too.
+     *
+     * @param <T> result type
+     * @param operation the operation
+     * @param call the operation itself
+     * @return the timed operation
+     */
+    public <T> Mono<T> time(Operation operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            final Timer.Sample sample = Timer.start(meterRegistry);
+            return call
+                .doOnError(ValidationFailedException.class, e -> validationFailures.get(operation).increment())
+                .doFinally(signal -> sample.stop(operationTimers.get(operation)));
+        });
+    }
+
+    /**
+     * Counts validation failures that don't fail the whole operation, like a bad item in a batch.
+     *
+     * @param operation the operation
+     * @param failures number of failures
+     */
+    public void validationFailures(Operation operation, int failures) {
+        validationFailures.get(operation).increment(failures);
+    }
+
+    /**
+     * Starts timing an alias lookup on the redirect path.
+     *
+     * @return the sample to pass to {@link #stopRedirectLookup(Timer.Sample, boolean)}
+     */
+    public Timer.Sample startRedirectLookup() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Stops timing an alias lookup.
+     *
+     * @param sample sample from {@link #startRedirectLookup()}
+     * @param found whether the alias was found
+     */
+    public void stopRedirectLookup(Timer.Sample sample, boolean found) {
+        sample.stop(found ? redirectFound : redirectNotFound);
+    }
+
+    /**
+     * Counts a redirect response.
+     *
+     * @param status the redirect status, or 404 if the alias was not found
+     */
+    public void redirectResponse(int status) {
+        redirectResponses.get(status).increment();
+    }
+
+    /**
+     * Records how many inserts it took to store a generated alias.
+     *
+     * @param attempts number of inserts, 1 if the first alias was free
+     */
+    public void aliasGenerationAttempts(int attempts) {
+        generationAttempts.record(attempts);
+    }
+
+    /**
+     * Counts a shorten request answered with an existing alias rather than a new one.
+     */
+    public void deduplicated() {
+        deduplicated.increment();
+    }
+
+    private static Timer redirectTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("shortener.redirect")
+            .description("Time taken to resolve an alias on the redirect path")
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    private static Counter redirectCounter(int status, MeterRegistry meterRegistry) {
+        return Counter.builder("shortener.redirects")
+            .description("Redirect responses by status")
+            .tag("status", String.valueOf(status))
+            .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.tpximpact.shortenerservice.model;
+
+/**
+ * A change to a stored alias that every instance has to apply to its local state.
+ *
+ * @param type whether the alias was created or deleted
+ * @param alias the alias, null for {@link Type#RESYNC}
+ */
+public record AliasEvent(Type type, String alias) {
+
+    /**
+     * What happened to the alias.
+     */
+    public enum Type {
+        CREATED,
+        DELETED,
+        /**
+         * Events from the sender have been lost, every other instance has to reload its local
+         * state from the database.
+         */
+        RESYNC
+    }
+
+}
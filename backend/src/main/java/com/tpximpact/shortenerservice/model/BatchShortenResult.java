@@ -0,0 +1,23 @@
+package com.tpximpact.shortenerservice.model;
+
+import java.net.URI;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Outcome of one request within a batch shorten. Exactly one of the fields is set.
+ *
+ * @param shortUrl the short URL if the request succeeded
+ * @param error why the request failed
+ */
+public record BatchShortenResult(@Nullable URI shortUrl, @Nullable String error) {
+
+    public static BatchShortenResult success(URI shortUrl) {
+        return new BatchShortenResult(shortUrl, null);
+    }
+
+    public static BatchShortenResult failure(String error) {
+        return new BatchShortenResult(null, error);
+    }
+
+}
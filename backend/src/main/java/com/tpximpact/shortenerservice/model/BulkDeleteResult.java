@@ -0,0 +1,13 @@
+package com.tpximpact.shortenerservice.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk delete.
+ *
+ * @param deleted number of aliases that were deleted
+ * @param notFound the requested aliases that did not exist
+ */
+public record BulkDeleteResult(int deleted, List<String> notFound) {
+
+}
@@ -0,0 +1,50 @@
+package com.tpximpact.shortenerservice.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * JPA entity describing the click table. Rows are written in batches over JDBC by
+ * {@link com.tpximpact.shortenerservice.repository.ClickDAO}, the entity is only used to
+ * define the schema.
+ */
+@Entity
+@Table(
+    indexes = {
+        @Index(columnList = "alias, clicked_at")
+    }
+)
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Click {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "alias", nullable = false)
+    private String alias;
+
+    @Column(name = "clicked_at", nullable = false)
+    private Instant clickedAt;
+
+    @Column(name = "referrer", length = 2048)
+    private String referrer;
+
+    @Column(name = "user_agent_hash", nullable = false)
+    private long userAgentHash;
+
+}
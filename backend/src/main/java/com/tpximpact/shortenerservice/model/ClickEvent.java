@@ -0,0 +1,16 @@
+package com.tpximpact.shortenerservice.model;
+
+import java.time.Instant;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * A single redirect through an alias, as recorded for analytics.
+ *
+ * @param alias the alias that was followed
+ * @param clickedAt when the redirect happened
+ * @param referrer the Referer header, if sent
+ * @param userAgentHash hash of the User-Agent header (0 if not sent)
+ */
+public record ClickEvent(String alias, Instant clickedAt, @Nullable String referrer, long userAgentHash) {
+}
@@ -0,0 +1,10 @@
+package com.tpximpact.shortenerservice.model;
+
+/**
+ * An alias with its approximate number of redirects over the tracking window.
+ *
+ * @param alias the alias
+ * @param count approximate number of redirects
+ */
+public record HotAlias(String alias, long count) {
+}
@@ -0,0 +1,21 @@
+package com.tpximpact.shortenerservice.model;
+
+import java.time.Instant;
+
+/**
+ * Validators for the stored URL listing, sent as {@code ETag} and {@code Last-Modified} so that
+ * clients and caches can ask whether their copy is still current.
+ *
+ * @param version the table version, see {@link com.tpximpact.shortenerservice.repository.TableVersionDAO}
+ * @param lastModified when this instance first saw the version
+ */
+public record ListingVersion(long version, Instant lastModified) {
+
+    /**
+     * @return the version as a strong entity tag.
+     */
+    public String etag() {
+        return "\"" + version + "\"";
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.tpximpact.shortenerservice.model;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.Set;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Where an alias redirects to, with which status and until when.
+ *
+ * @param location the original URL
+ * @param status the redirect status chosen for the alias, or {@link #DEFAULT_STATUS} to use
+ *     {@code alias.redirect.status}
+ * @param expiresAt when the alias stops redirecting (or null if it never does)
+ */
+public record Redirect(URI location, int status, @Nullable Instant expiresAt) {
+
+    /**
+     * Status stored for aliases that use the configured default.
+     */
+    public static final int DEFAULT_STATUS = 0;
+
+    /**
+     * Statuses an alias may redirect with: 301 and 308 are permanent, 302 and 307 temporary.
+     * 307 and 308 tell the client to repeat the request with the same method.
+     */
+    public static final Set<Integer> STATUSES = Set.of(301, 302, 307, 308);
+
+    /**
+     * Creates a redirect that never expires.
+     *
+     * @param location the original URL
+     * @param status the redirect status, or {@link #DEFAULT_STATUS}
+     */
+    public Redirect(URI location, int status) {
+        this(location, status, null);
+    }
+
+    /**
+     * @param location the original URL
+     * @return a redirect with the configured default status
+     */
+    public static Redirect to(URI location) {
+        return new Redirect(location, DEFAULT_STATUS);
+    }
+
+    /**
+     * @param now the current time
+     * @return true if the alias has stopped redirecting.
+     */
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+
+}
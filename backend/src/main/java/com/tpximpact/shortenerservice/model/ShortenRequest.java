@@ -1,15 +1,41 @@
 package com.tpximpact.shortenerservice.model;
 
 import java.net.URI;
+import java.time.Instant;
 
 import jakarta.annotation.Nullable;
 
 /**
- * Shorten request which includes full URL and custom alias.
+ * Shorten request which includes full URL, custom alias, redirect status and expiry.
  *
  * @param fullUrl full URL
  * @param customAlias custom alias (or null)
+ * @param redirectStatus status the alias redirects with, one of {@link Redirect#STATUSES} (or
+ *     null for {@code alias.redirect.status})
+ * @param expiresAt when the alias stops redirecting (or null to keep it until it is deleted)
  */
-public record ShortenRequest(URI fullUrl, @Nullable String customAlias) {
-    
+public record ShortenRequest(URI fullUrl, @Nullable String customAlias, @Nullable Integer redirectStatus,
+        @Nullable Instant expiresAt) {
+
+    /**
+     * Creates a request that redirects with the configured default status.
+     *
+     * @param fullUrl full URL
+     * @param customAlias custom alias (or null)
+     */
+    public ShortenRequest(URI fullUrl, @Nullable String customAlias) {
+        this(fullUrl, customAlias, null, null);
+    }
+
+    /**
+     * Creates a request for an alias that never expires.
+     *
+     * @param fullUrl full URL
+     * @param customAlias custom alias (or null)
+     * @param redirectStatus status the alias redirects with (or null for {@code alias.redirect.status})
+     */
+    public ShortenRequest(URI fullUrl, @Nullable String customAlias, @Nullable Integer redirectStatus) {
+        this(fullUrl, customAlias, redirectStatus, null);
+    }
+
 }
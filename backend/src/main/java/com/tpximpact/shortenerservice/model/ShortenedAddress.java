@@ -1,26 +1,45 @@
 package com.tpximpact.shortenerservice.model;
 
+import java.net.URI;
+import java.time.Instant;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.tpximpact.shortenerservice.util.UrlNormalizer;
+
 /**
  * JPA entity used to store the shortened addresses. Includes important details like uniqueness
- * and indices for fast lookup.
+ * and indices for fast lookup. Ids come from a pooled sequence (rather than an identity column)
+ * so that Hibernate can batch inserts.
+ *
+ * <p>The original URL is found by its {@link UrlNormalizer#hash(String) hash} rather than by the
+ * URL itself, which keeps the index small however long the URLs are. The hash is set whenever an
+ * address is saved through JPA.
+ *
+ * <p>Addresses with an expiry stop redirecting once it has passed, and are deleted in the
+ * background by {@link com.tpximpact.shortenerservice.service.ExpiredAliasSweeper}, which finds
+ * them through the index on the expiry.
  */
 @Entity
 @Table(
     indexes = {
          @Index(columnList = "alias", unique = true),
-         @Index(columnList = "original_url")
+         @Index(columnList = "original_url_hash"),
+         @Index(columnList = "expires_at")
     }
 )
 @Builder
@@ -29,14 +48,46 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class ShortenedAddress {
 
+    /**
+     * Longest URL that can be stored, in characters.
+     */
+    public static final int MAX_URL_LENGTH = 2048;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shortened_address_seq")
+    @SequenceGenerator(name = "shortened_address_seq", sequenceName = "shortened_address_seq", allocationSize = 50)
     private Long id;
    
     @Column(name = "alias", unique = true, nullable = false)
     private String alias;
 
-    @Column(name = "original_url", unique = false, nullable = false)
+    @Column(name = "original_url", unique = false, nullable = false, length = MAX_URL_LENGTH)
     private String originalUrl;
 
+    // Nullable as rows stored before the column was added are only hashed by the backfill
+    @Column(name = "original_url_hash")
+    private Long originalUrlHash;
+
+    // Null to redirect with alias.redirect.status, which can then be changed for every such alias at once
+    @Column(name = "redirect_status")
+    private Integer redirectStatus;
+
+    // Null for addresses that never expire
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
+    @PrePersist
+    @PreUpdate
+    void hashOriginalUrl() {
+        originalUrlHash = UrlNormalizer.hash(originalUrl);
+    }
+
+    /**
+     * @return where the address redirects to, with which status and until when.
+     */
+    public Redirect toRedirect() {
+        return new Redirect(URI.create(originalUrl), redirectStatus == null ? Redirect.DEFAULT_STATUS : redirectStatus,
+            expiresAt);
+    }
+
 }
@@ -0,0 +1,11 @@
+package com.tpximpact.shortenerservice.model;
+
+/**
+ * Outcome of exporting the alias snapshot.
+ *
+ * @param entries number of aliases written
+ * @param sizeBytes size of the snapshot file
+ */
+public record SnapshotExport(int entries, long sizeBytes) {
+
+}
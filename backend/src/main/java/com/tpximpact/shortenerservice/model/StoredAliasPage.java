@@ -0,0 +1,14 @@
+package com.tpximpact.shortenerservice.model;
+
+import java.util.List;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * A single page of stored aliases, ordered by when they were stored.
+ *
+ * @param items the aliases on this page
+ * @param nextCursor cursor to pass as {@code after} to get the next page (null on the last page)
+ */
+public record StoredAliasPage(List<StoredAlias> items, @Nullable String nextCursor) {
+}
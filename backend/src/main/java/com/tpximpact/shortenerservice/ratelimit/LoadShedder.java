@@ -0,0 +1,110 @@
+package com.tpximpact.shortenerservice.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Decides when the database is too busy to take on writes and listing. Every
+ * {@code alias.loadShedding.sampleInterval} the average time requests spent waiting for a pooled
+ * connection over the last interval is worked out from the Hikari metrics; while it is above
+ * {@code alias.loadShedding.poolWaitThreshold}, or any request timed out waiting, the instance is
+ * shedding. Redirects are never shed, they are what the connections are being kept for.
+ *
+ * <p>Samples are taken by whichever request asks first once the interval has passed, so there is
+ * no background thread and an idle instance does no work.
+ */
+@Component
+public class LoadShedder {
+
+    private static final String ACQUIRE_TIMER = "hikaricp.connections.acquire";
+    private static final String TIMEOUT_COUNTER = "hikaricp.connections.timeout";
+
+    private final boolean enabled;
+    private final double thresholdNanos;
+    private final long sampleIntervalNanos;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong lastSample;
+    private long lastCount;
+    private double lastTotalNanos;
+    private double lastTimeouts;
+    private volatile boolean shedding;
+
+    /**
+     * Creates the shedder.
+     *
+     * @param enabled whether load is shed at all
+     * @param poolWaitThreshold average wait for a connection above which load is shed
+     * @param sampleInterval how often the wait is measured, also the retry hint given to shed requests
+     * @param meterRegistry registry holding the connection pool metrics
+     */
+    public LoadShedder(
+            @Value("${alias.loadShedding.enabled}") boolean enabled,
+            @Value("${alias.loadShedding.poolWaitThreshold}") Duration poolWaitThreshold,
+            @Value("${alias.loadShedding.sampleInterval}") Duration sampleInterval,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.thresholdNanos = poolWaitThreshold.toNanos();
+        this.sampleIntervalNanos = sampleInterval.toNanos();
+        this.meterRegistry = meterRegistry;
+        this.lastSample = new AtomicLong(System.nanoTime());
+
+        Gauge.builder("loadshedding.active", this, shedder -> shedder.shedding ? 1 : 0)
+            .description("1 while writes and listing are being refused because the database is busy")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return whether writes and listing should be refused right now
+     */
+    public boolean isShedding() {
+        if (!enabled) {
+            return false;
+        }
+        final long now = System.nanoTime();
+        final long last = lastSample.get();
+        if (now - last >= sampleIntervalNanos && lastSample.compareAndSet(last, now)) {
+            sample();
+        }
+        return shedding;
+    }
+
+    /**
+     * @return how long a shed request should wait before retrying
+     */
+    public Duration retryAfter() {
+        return Duration.ofNanos(sampleIntervalNanos);
+    }
+
+    // Only the request that won the compare-and-set gets here, one sample at a time
+    private synchronized void sample() {
+        long count = 0;
+        double totalNanos = 0;
+        for (Timer timer : meterRegistry.find(ACQUIRE_TIMER).timers()) {
+            count += timer.count();
+            totalNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+        }
+        double timeouts = 0;
+        for (Counter counter : meterRegistry.find(TIMEOUT_COUNTER).counters()) {
+            timeouts += counter.count();
+        }
+
+        final long acquired = count - lastCount;
+        final double waited = totalNanos - lastTotalNanos;
+        shedding = timeouts > lastTimeouts || (acquired > 0 && waited / acquired > thresholdNanos);
+
+        lastCount = count;
+        lastTotalNanos = totalNanos;
+        lastTimeouts = timeouts;
+    }
+
+}
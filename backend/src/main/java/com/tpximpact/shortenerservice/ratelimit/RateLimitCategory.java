@@ -0,0 +1,18 @@
+package com.tpximpact.shortenerservice.ratelimit;
+
+/**
+ * Groups of endpoints that are limited separately, so that a client using up its allowance for
+ * one (creating aliases, say) can still use the others.
+ */
+public enum RateLimitCategory {
+
+    /** Creating, deleting and exporting aliases. */
+    WRITE,
+
+    /** Listing stored and popular aliases. */
+    LISTING,
+
+    /** Following a short URL. */
+    REDIRECT
+
+}
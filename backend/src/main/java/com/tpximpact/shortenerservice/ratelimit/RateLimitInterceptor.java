@@ -0,0 +1,100 @@
+package com.tpximpact.shortenerservice.ratelimit;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Applies the {@link RateLimiter} and {@link LoadShedder} to controller methods marked
+ * {@link RateLimited}, before the request reaches the service layer. A client over its limit
+ * gets 429 Too Many Requests, and while load is being shed writes and listing get 503 Service
+ * Unavailable; both with a {@code Retry-After} header.
+ *
+ * <p>Clients are told apart by the {@code alias.rateLimit.clientHeader} header when it is set
+ * (an API key that a gateway in front has already checked), otherwise by their address. The
+ * address is the one from {@code X-Forwarded-For} when it comes from a trusted proxy, see
+ * {@code server.forward-headers-strategy}.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+    private final LoadShedder loadShedder;
+    private final String clientHeader;
+    private final String shedRetryAfterSeconds;
+    private final Counter shed;
+
+    /**
+     * Creates the interceptor.
+     *
+     * @param rateLimiter per-client limits
+     * @param loadShedder decides when the database is too busy
+     * @param clientHeader header identifying the client, or empty to use the address
+     * @param meterRegistry registry used to count shed requests
+     */
+    public RateLimitInterceptor(RateLimiter rateLimiter, LoadShedder loadShedder,
+            @Value("${alias.rateLimit.clientHeader}") String clientHeader, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.loadShedder = loadShedder;
+        this.clientHeader = clientHeader;
+        this.shedRetryAfterSeconds = retryAfterSeconds(loadShedder.retryAfter().toNanos());
+        this.shed = Counter.builder("loadshedding.rejected")
+            .description("Requests refused with 503 because the database was busy")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        final RateLimited limit = method.getMethodAnnotation(RateLimited.class);
+        if (limit == null) {
+            return true;
+        }
+
+        if (limit.value() != RateLimitCategory.REDIRECT && loadShedder.isShedding()) {
+            shed.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, shedRetryAfterSeconds);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "The service is busy, please retry");
+            return false;
+        }
+
+        final long wait = rateLimiter.tryAcquire(limit.value(), client(request));
+        if (wait > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds(wait));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests, please slow down");
+            return false;
+        }
+        return true;
+    }
+
+    private String client(HttpServletRequest request) {
+        if (!clientHeader.isEmpty()) {
+            final String key = request.getHeader(clientHeader);
+            if (key != null && !key.isEmpty()) {
+                return "key:" + key;
+            }
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+
+    private static String retryAfterSeconds(long nanos) {
+        // Round up, waiting the rounded down number of seconds would still be too soon
+        final long second = Duration.ofSeconds(1).toNanos();
+        return String.valueOf(Math.max(1, (nanos + second - 1) / second));
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.tpximpact.shortenerservice.ratelimit;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-client token buckets, one for each {@link RateLimitCategory}. Buckets live in a bounded
+ * cache (striped internally, so clients don't contend with each other) and are dropped once a
+ * client has been idle for {@code alias.rateLimit.idleTimeout}; a client that comes back starts
+ * with a full bucket, as it would have had anyway. When more than {@code alias.rateLimit.maxClients}
+ * clients are active the least recently seen lose their buckets first.
+ */
+@Component
+public class RateLimiter {
+
+    private final boolean enabled;
+    private final Map<RateLimitCategory, Allowance> allowances = new EnumMap<>(RateLimitCategory.class);
+    private final Cache<ClientKey, TokenBucket> buckets;
+
+    /**
+     * Creates the limiter.
+     *
+     * @param enabled whether requests are limited at all
+     * @param maxClients most clients tracked at once
+     * @param idleTimeout how long an unused bucket is kept
+     * @param writeRate write requests per second allowed per client
+     * @param writeBurst write requests a client may make at once after being idle
+     * @param listingRate listing requests per second allowed per client
+     * @param listingBurst listing requests a client may make at once after being idle
+     * @param redirectRate redirects per second allowed per client
+     * @param redirectBurst redirects a client may make at once after being idle
+     * @param meterRegistry registry used to publish rejections and the number of clients
+     */
+    public RateLimiter(
+            @Value("${alias.rateLimit.enabled}") boolean enabled,
+            @Value("${alias.rateLimit.maxClients}") long maxClients,
+            @Value("${alias.rateLimit.idleTimeout}") Duration idleTimeout,
+            @Value("${alias.rateLimit.write.rate}") double writeRate,
+            @Value("${alias.rateLimit.write.burst}") int writeBurst,
+            @Value("${alias.rateLimit.listing.rate}") double listingRate,
+            @Value("${alias.rateLimit.listing.burst}") int listingBurst,
+            @Value("${alias.rateLimit.redirect.rate}") double redirectRate,
+            @Value("${alias.rateLimit.redirect.burst}") int redirectBurst,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(maxClients)
+            .expireAfterAccess(idleTimeout)
+            .build();
+
+        allowances.put(RateLimitCategory.WRITE, new Allowance(writeRate, writeBurst, meterRegistry, RateLimitCategory.WRITE));
+        allowances.put(RateLimitCategory.LISTING, new Allowance(listingRate, listingBurst, meterRegistry, RateLimitCategory.LISTING));
+        allowances.put(RateLimitCategory.REDIRECT, new Allowance(redirectRate, redirectBurst, meterRegistry, RateLimitCategory.REDIRECT));
+
+        Gauge.builder("ratelimit.clients", buckets, Cache::estimatedSize)
+            .description("Client buckets currently tracked")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Takes a request from the client's allowance.
+     *
+     * @param category the allowance
+     * @param client identifies the client (API key or address)
+     * @return 0 if the request may go ahead, otherwise how long the client should wait in nanoseconds
+     */
+    public long tryAcquire(RateLimitCategory category, String client) {
+        if (!enabled) {
+            return 0;
+        }
+        final long now = System.nanoTime();
+        final Allowance allowance = allowances.get(category);
+        final TokenBucket bucket = buckets.get(new ClientKey(category, client), key -> new TokenBucket(now));
+        final long wait = bucket.tryAcquire(now, allowance.intervalNanos(), allowance.burst());
+        if (wait > 0) {
+            allowance.rejected().increment();
+        }
+        return wait;
+    }
+
+    private record ClientKey(RateLimitCategory category, String client) {
+    }
+
+    private record Allowance(long intervalNanos, int burst, Counter rejected) {
+
+        Allowance(double rate, int burst, MeterRegistry meterRegistry, RateLimitCategory category) {
+            this((long) (Duration.ofSeconds(1).toNanos() / rate), burst, Counter.builder("ratelimit.rejected")
+                .description("Requests refused with 429 because the client was over its limit")
+                .tag("category", category.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry));
+        }
+
+    }
+
+}
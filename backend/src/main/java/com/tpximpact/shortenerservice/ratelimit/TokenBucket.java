@@ -0,0 +1,47 @@
+package com.tpximpact.shortenerservice.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Rather than a token count and a refill time, the bucket keeps the time
+ * at which it will next be full (the generic cell rate algorithm), so taking a token is one
+ * compare-and-set on a single long and nothing has to refill it in the background.
+ */
+final class TokenBucket {
+
+    private final AtomicLong fullAt;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param now the current {@link System#nanoTime()}
+     */
+    TokenBucket(long now) {
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes a token if there is one.
+     *
+     * @param now the current {@link System#nanoTime()}
+     * @param intervalNanos time for one token to be added back
+     * @param capacity most tokens the bucket holds
+     * @return 0 if a token was taken, otherwise how long until one is available in nanoseconds
+     */
+    long tryAcquire(long now, long intervalNanos, int capacity) {
+        final long burstNanos = intervalNanos * capacity;
+        while (true) {
+            final long current = fullAt.get();
+            // A bucket that filled up in the past is just full
+            final long next = Math.max(current - now, 0) + now + intervalNanos;
+            final long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.tpximpact.shortenerservice.repository;
+
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Hands out blocks of ids for the hi/lo alias generator from a database sequence. The sequence
+ * moves on by a whole block at a time and each value is the first id of a block, so the block
+ * size is stored with the sequence when it is created and every instance uses that one whatever
+ * it has been configured with. Blocks then never overlap, even while instances with different
+ * block sizes are running side by side. The sequence is created the first time a block is
+ * reserved if it does not exist yet.
+ *
+ * <p>Earlier versions numbered the blocks instead ({@code alias_block_seq}) and multiplied by the
+ * configured block size. If that sequence is found the new one starts past the blocks it has
+ * handed out, provided the block size has not been changed at the same time.
+ */
+@Repository
+public class AliasBlockDAO {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AliasBlockDAO.class);
+
+    static final String SEQUENCE_NAME = "alias_id_seq";
+    static final String LEGACY_SEQUENCE_NAME = "alias_block_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+
+    private volatile Queries queries;
+
+    /**
+     * A block of ids.
+     *
+     * @param start first id of the block
+     * @param size number of ids in the block
+     */
+    public record Block(long start, long size) {
+    }
+
+    /**
+     * Creates the DAO.
+     *
+     * @param jdbcTemplate jdbc template
+     * @param blockSize number of ids in each block, used when the sequence is created
+     */
+    public AliasBlockDAO(JdbcTemplate jdbcTemplate, @Value("${alias.generator.blockSize}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("alias.generator.blockSize must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Reserves the next block.
+     *
+     * @return the block, whose ids are unique across all callers
+     */
+    public Block reserveBlock() {
+        final Queries current = queries();
+        return new Block(jdbcTemplate.queryForObject(current.next(), Long.class), current.blockSize());
+    }
+
+    private Queries queries() {
+        Queries current = queries;
+        if (current == null) {
+            final String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                JdbcUtils.commonDatabaseName(connection.getMetaData().getDatabaseProductName()));
+            final boolean postgres = "PostgreSQL".equals(product);
+
+            if (!sequenceExists(SEQUENCE_NAME)) {
+                // Several instances may get here at once, but whichever start value wins is past
+                // every block the legacy sequence has handed out
+                final long firstBlock = sequenceExists(LEGACY_SEQUENCE_NAME)
+                    ? jdbcTemplate.queryForObject(nextValueQuery(postgres, LEGACY_SEQUENCE_NAME), Long.class)
+                    : 1;
+                jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE_NAME
+                    + " START WITH " + firstBlock * blockSize + " INCREMENT BY " + blockSize);
+            }
+
+            final long storedBlockSize = jdbcTemplate.queryForObject(postgres
+                ? "SELECT increment_by FROM pg_sequences WHERE sequencename = '" + SEQUENCE_NAME + "'"
+                : "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = '"
+                    + SEQUENCE_NAME.toUpperCase(Locale.ROOT) + "'", Long.class);
+            if (storedBlockSize != blockSize) {
+                LOGGER.warn("Using the block size of {} stored with {} rather than the configured {}",
+                    storedBlockSize, SEQUENCE_NAME, blockSize);
+            }
+
+            current = new Queries(nextValueQuery(postgres, SEQUENCE_NAME), storedBlockSize);
+            queries = current;
+        }
+        return current;
+    }
+
+    private boolean sequenceExists(String name) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SEQUENCES"
+            + " WHERE LOWER(SEQUENCE_NAME) = '" + name + "'", Long.class) > 0;
+    }
+
+    private static String nextValueQuery(boolean postgres, String sequence) {
+        return postgres ? "SELECT nextval('" + sequence + "')" : "SELECT NEXT VALUE FOR " + sequence;
+    }
+
+    private record Queries(String next, long blockSize) {
+    }
+
+}
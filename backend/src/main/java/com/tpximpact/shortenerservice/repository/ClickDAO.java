@@ -0,0 +1,58 @@
+package com.tpximpact.shortenerservice.repository;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tpximpact.shortenerservice.model.ClickEvent;
+
+/**
+ * Writes click events to the click table using JDBC batch inserts.
+ */
+@Repository
+public class ClickDAO {
+
+    private static final String INSERT =
+        "INSERT INTO click (alias, clicked_at, referrer, user_agent_hash) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates the DAO.
+     *
+     * @param jdbcTemplate jdbc template
+     */
+    public ClickDAO(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts all of the events as a single JDBC batch in one transaction.
+     *
+     * @param events the events
+     */
+    @Transactional
+    public void insertAll(List<ClickEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT, events, events.size(), (statement, event) -> {
+            statement.setString(1, event.alias());
+            statement.setObject(2, OffsetDateTime.ofInstant(event.clickedAt(), ZoneOffset.UTC));
+            statement.setString(3, event.referrer());
+            statement.setLong(4, event.userAgentHash());
+        });
+    }
+
+    /**
+     * Counts the clicks recorded for an alias.
+     *
+     * @param alias the alias
+     * @return the number of clicks
+     */
+    public long countByAlias(String alias) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM click WHERE alias = ?", Long.class, alias);
+    }
+
+}
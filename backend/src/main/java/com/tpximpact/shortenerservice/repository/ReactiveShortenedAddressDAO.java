@@ -0,0 +1,238 @@
+package com.tpximpact.shortenerservice.repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.util.UrlNormalizer;
+
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.Nullable;
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link ShortenedAddressDAO} for the reactive profile, reading and
+ * writing the same {@code shortened_address} table through R2DBC.
+ *
+ * <p>Ids come from the same pooled sequence Hibernate uses. Each value taken from the sequence
+ * stands for the block of {@value #ALLOCATION_SIZE} ids ending with it, so ids handed out here
+ * never overlap with Hibernate's.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveShortenedAddressDAO {
+
+    // Must match the allocationSize of the sequence generator on ShortenedAddress
+    static final int ALLOCATION_SIZE = 50;
+
+    private static final String COLUMNS = "id, alias, original_url, redirect_status, expires_at";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final int chunkSize;
+    private final String nextIdQuery;
+    private final String deleteQuery;
+    private final AtomicReference<IdBlock> idBlock = new AtomicReference<>(new IdBlock(1, 0));
+
+    /**
+     * Creates the DAO.
+     *
+     * @param connectionFactory R2DBC connection factory
+     * @param chunkSize largest number of aliases sent in a single IN list
+     */
+    public ReactiveShortenedAddressDAO(ConnectionFactory connectionFactory,
+            @Value("${alias.batch.lookupChunkSize}") int chunkSize) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+        // Not a bean: a second transaction manager in the context would be ambiguous for @Transactional
+        this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+        this.chunkSize = chunkSize;
+        final boolean postgres = "PostgreSQL".equals(connectionFactory.getMetadata().getName());
+        this.nextIdQuery = postgres
+            ? "SELECT nextval('shortened_address_seq')"
+            : "SELECT NEXT VALUE FOR shortened_address_seq";
+        this.deleteQuery = postgres
+            ? "DELETE FROM shortened_address WHERE alias IN (:aliases) RETURNING alias"
+            : "SELECT alias FROM OLD TABLE (DELETE FROM shortened_address WHERE alias IN (:aliases))";
+    }
+
+    /**
+     * Finds the address stored for an alias.
+     *
+     * @param alias the alias
+     * @return the address, or empty if the alias is not stored
+     */
+    public Mono<ShortenedAddress> findByAlias(String alias) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM shortened_address WHERE alias = :alias")
+            .bind("alias", alias)
+            .map(ReactiveShortenedAddressDAO::toAddress)
+            .one();
+    }
+
+    /**
+     * Finds up to {@code limit} addresses with an id above {@code id}, in id order.
+     *
+     * @param id the last id already seen (0 to start from the beginning)
+     * @param limit maximum number of addresses
+     * @return the addresses
+     */
+    public Flux<ShortenedAddress> findByIdGreaterThanOrderByIdAsc(long id, int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM shortened_address WHERE id > :id ORDER BY id LIMIT :limit")
+            .bind("id", id)
+            .bind("limit", limit)
+            .map(ReactiveShortenedAddressDAO::toAddress)
+            .all();
+    }
+
+    /**
+     * Streams every address in id order. Rows are emitted as the driver reads them, at the pace
+     * the subscriber asks for them.
+     *
+     * @return the addresses
+     */
+    public Flux<ShortenedAddress> findAllOrderByIdAsc() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM shortened_address ORDER BY id")
+            .map(ReactiveShortenedAddressDAO::toAddress)
+            .all();
+    }
+
+    /**
+     * Stores a new address. Fails with a {@link org.springframework.dao.DuplicateKeyException}
+     * if the alias is already stored.
+     *
+     * @param alias the alias
+     * @param originalUrl the URL it redirects to
+     * @param redirectStatus the status it redirects with, or null for the configured default
+     * @param expiresAt when it stops redirecting, or null if it never does
+     * @return the stored address
+     */
+    public Mono<ShortenedAddress> insert(String alias, String originalUrl, @Nullable Integer redirectStatus,
+            @Nullable Instant expiresAt) {
+        final long originalUrlHash = UrlNormalizer.hash(originalUrl);
+        return nextId().flatMap(id -> {
+            DatabaseClient.GenericExecuteSpec insert = databaseClient
+                .sql("INSERT INTO shortened_address (" + COLUMNS + ", original_url_hash)"
+                    + " VALUES (:id, :alias, :originalUrl, :redirectStatus, :expiresAt, :originalUrlHash)")
+                .bind("id", id)
+                .bind("alias", alias)
+                .bind("originalUrl", originalUrl)
+                .bind("originalUrlHash", originalUrlHash);
+            insert = redirectStatus == null
+                ? insert.bindNull("redirectStatus", Integer.class)
+                : insert.bind("redirectStatus", redirectStatus);
+            insert = expiresAt == null
+                ? insert.bindNull("expiresAt", OffsetDateTime.class)
+                : insert.bind("expiresAt", expiresAt.atOffset(ZoneOffset.UTC));
+            return insert.fetch()
+                .rowsUpdated()
+                .thenReturn(new ShortenedAddress(id, alias, originalUrl, originalUrlHash, redirectStatus, expiresAt));
+        });
+    }
+
+    /**
+     * Deletes the address stored for an alias with a single statement.
+     *
+     * @param alias the alias
+     * @return the number of addresses deleted (0 or 1)
+     */
+    public Mono<Long> deleteByAlias(String alias) {
+        return databaseClient.sql("DELETE FROM shortened_address WHERE alias = :alias")
+            .bind("alias", alias)
+            .fetch()
+            .rowsUpdated();
+    }
+
+    /**
+     * Deletes every address stored for the aliases in one transaction, sending at most
+     * {@code alias.batch.lookupChunkSize} aliases per statement.
+     *
+     * @param aliases the aliases
+     * @return the aliases that were deleted
+     */
+    public Mono<Set<String>> deleteAllByAlias(Collection<String> aliases) {
+        final List<String> toDelete = new ArrayList<>(new HashSet<>(aliases));
+        final List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < toDelete.size(); from += chunkSize) {
+            chunks.add(toDelete.subList(from, Math.min(from + chunkSize, toDelete.size())));
+        }
+
+        return Flux.fromIterable(chunks)
+            .concatMap(this::deleteChunk)
+            .collect(HashSet<String>::new, Set::add)
+            .map(deleted -> (Set<String>) deleted)
+            .as(transactionalOperator::transactional);
+    }
+
+    private Flux<String> deleteChunk(List<String> chunk) {
+        // As in ShortenedAddressDAOImpl, the statement itself reports the rows it deleted
+        return databaseClient.sql(deleteQuery)
+            .bind("aliases", chunk)
+            .map(row -> row.get("alias", String.class))
+            .all();
+    }
+
+    private Mono<Long> nextId() {
+        final long id = idBlock.get().take();
+        if (id > 0) {
+            return Mono.just(id);
+        }
+
+        // The block is used up. Whoever gets here first keeps the top of the new block for itself;
+        // if several get here at once the blocks that lose the race are simply left unused.
+        return databaseClient.sql(nextIdQuery)
+            .map(row -> row.get(0, Long.class))
+            .one()
+            .map(last -> {
+                idBlock.set(new IdBlock(Math.max(1, last - ALLOCATION_SIZE + 1), last - 1));
+                return last;
+            });
+    }
+
+    private static ShortenedAddress toAddress(Readable row) {
+        final OffsetDateTime expiresAt = row.get("expires_at", OffsetDateTime.class);
+        return ShortenedAddress.builder()
+            .id(row.get("id", Long.class))
+            .alias(row.get("alias", String.class))
+            .originalUrl(row.get("original_url", String.class))
+            .redirectStatus(row.get("redirect_status", Integer.class))
+            .expiresAt(expiresAt == null ? null : expiresAt.toInstant())
+            .build();
+    }
+
+    /**
+     * Ids {@code first} to {@code last} inclusive that have yet to be handed out.
+     */
+    private static final class IdBlock {
+
+        private final AtomicLong next;
+        private final long last;
+
+        IdBlock(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+
+        long take() {
+            final long id = next.getAndIncrement();
+            return id <= last ? id : -1;
+        }
+
+    }
+
+}
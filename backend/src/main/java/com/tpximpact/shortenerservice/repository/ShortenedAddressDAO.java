@@ -1,19 +1,49 @@
 package com.tpximpact.shortenerservice.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.tpximpact.shortenerservice.model.ShortenedAddress;
 
 /**
- * JPA repository offering {@link #findByAlias(String)} as well as the default
- * methods.
+ * JPA repository offering {@link #findByAlias(String)}, keyset pagination with
+ * {@link #findByIdGreaterThanOrderByIdAsc(long, Limit)}, id range, newest first and alias list
+ * lookups used to warm the cache, lookups by original URL hash, a single statement
+ * {@link #deleteByAlias(String)} as well as the default methods. Bulk operations that bypass the
+ * persistence context are declared in {@link ShortenedAddressDAOCustom}.
  */
 @Repository
-public interface ShortenedAddressDAO extends JpaRepository<ShortenedAddress, Long> {
+public interface ShortenedAddressDAO extends JpaRepository<ShortenedAddress, Long>, ShortenedAddressDAOCustom {
 
     Optional<ShortenedAddress> findByAlias(String alias);
-    
+
+    List<ShortenedAddress> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    Optional<ShortenedAddress> findTopByOrderByIdDesc();
+
+    List<ShortenedAddress> findByIdLessThanOrderByIdDesc(long id, Limit limit);
+
+    List<ShortenedAddress> findByIdBetween(long from, long to);
+
+    List<ShortenedAddress> findByAliasIn(Collection<String> aliases);
+
+    List<ShortenedAddress> findByOriginalUrlHashOrderByIdAsc(long originalUrlHash, Limit limit);
+
+    @Query("select s.alias from ShortenedAddress s where s.alias in :aliases")
+    List<String> findExistingAliases(@Param("aliases") Collection<String> aliases);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("delete from ShortenedAddress s where s.alias = :alias")
+    int deleteByAlias(@Param("alias") String alias);
+
 }
@@ -0,0 +1,81 @@
+package com.tpximpact.shortenerservice.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+
+/**
+ * Repository operations that are implemented directly over JDBC rather than derived by
+ * Spring Data. These are used where loading managed entities would be too expensive.
+ */
+public interface ShortenedAddressDAOCustom {
+
+    /**
+     * Streams every stored alias to the consumer using a database cursor so that memory use
+     * does not grow with the size of the table.
+     *
+     * @param consumer receives each alias
+     */
+    @Transactional(readOnly = true)
+    void forEachAlias(Consumer<String> consumer);
+
+    /**
+     * Streams every stored address, in id order, to the consumer using a database cursor so that
+     * memory use does not grow with the size of the table. The addresses are plain objects, not
+     * managed entities.
+     *
+     * @param consumer receives each address
+     */
+    @Transactional(readOnly = true)
+    void forEachAddress(Consumer<ShortenedAddress> consumer);
+
+    /**
+     * Inserts all of the addresses in a single transaction. Inserts are sent as JDBC batches and
+     * the persistence context is cleared between batches so memory use is bounded.
+     *
+     * @param addresses new addresses (without ids)
+     */
+    @Transactional
+    void insertAll(List<ShortenedAddress> addresses);
+
+    /**
+     * Deletes all of the aliases in a single transaction, using one IN statement per chunk of
+     * aliases rather than one statement each. Each statement returns the aliases it deleted
+     * ({@code RETURNING} on Postgres, {@code OLD TABLE} on H2), so only rows this call deleted
+     * are reported, whatever other transactions do meanwhile.
+     *
+     * @param aliases the aliases to delete
+     * @return the aliases that existed and were deleted.
+     */
+    @Transactional
+    Set<String> deleteAllByAlias(Collection<String> aliases);
+
+    /**
+     * Deletes up to {@code limit} addresses whose expiry has passed, soonest expired first, in one
+     * short transaction. The rows are found through the index on the expiry, so a batch costs the
+     * same however many addresses never expire.
+     *
+     * @param now the current time
+     * @param limit most rows to delete
+     * @return the aliases that were deleted, fewer than {@code limit} once none are left.
+     */
+    @Transactional
+    List<String> deleteExpired(Instant now, int limit);
+
+    /**
+     * Sets the original URL hash on up to {@code limit} rows stored before the hash column
+     * existed, with one batch update.
+     *
+     * @param limit most rows to update
+     * @return the number of rows updated, 0 once every row has a hash.
+     */
+    @Transactional
+    int hashOriginalUrls(int limit);
+
+}
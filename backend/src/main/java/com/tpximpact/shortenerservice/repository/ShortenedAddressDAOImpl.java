@@ -0,0 +1,179 @@
+package com.tpximpact.shortenerservice.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.util.UrlNormalizer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * JDBC implementation of {@link ShortenedAddressDAOCustom}. Spring Data picks this up by name and
+ * merges it into {@link ShortenedAddressDAO}.
+ */
+public class ShortenedAddressDAOImpl implements ShortenedAddressDAOCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+    private final int batchSize;
+    private final int chunkSize;
+
+    private volatile String databaseProduct;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Creates the implementation.
+     *
+     * @param jdbcTemplate jdbc template sharing the JPA datasource
+     * @param fetchSize number of rows fetched per round trip when streaming
+     * @param batchSize number of inserts sent per JDBC batch
+     * @param chunkSize maximum number of aliases bound to a single IN statement
+     */
+    public ShortenedAddressDAOImpl(
+            JdbcTemplate jdbcTemplate,
+            @Value("${alias.streaming.fetchSize}") int fetchSize,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}") int batchSize,
+            @Value("${alias.batch.lookupChunkSize}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachAlias(Consumer<String> consumer) {
+        jdbcTemplate.query(connection -> {
+            // A cursor is only used (on postgres) when a fetch size is set inside a transaction
+            final PreparedStatement statement = connection.prepareStatement("SELECT alias FROM shortened_address");
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, resultSet -> {
+            consumer.accept(resultSet.getString(1));
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachAddress(Consumer<ShortenedAddress> consumer) {
+        jdbcTemplate.query(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(
+                "SELECT id, alias, original_url, original_url_hash, redirect_status, expires_at FROM shortened_address"
+                    + " ORDER BY id");
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, resultSet -> {
+            consumer.accept(ShortenedAddress.builder()
+                .id(resultSet.getLong(1))
+                .alias(resultSet.getString(2))
+                .originalUrl(resultSet.getString(3))
+                .originalUrlHash(resultSet.getObject(4, Long.class))
+                .redirectStatus(resultSet.getObject(5, Integer.class))
+                .expiresAt(toInstant(resultSet.getTimestamp(6)))
+                .build());
+        });
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(List<ShortenedAddress> addresses) {
+        for (int i = 0; i < addresses.size(); i++) {
+            entityManager.persist(addresses.get(i));
+
+            // Hibernate sends the pending inserts as one JDBC batch on flush
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    @Transactional
+    public Set<String> deleteAllByAlias(Collection<String> aliases) {
+        final List<String> toDelete = new ArrayList<>(new HashSet<>(aliases));
+        final Set<String> deleted = new HashSet<>();
+
+        for (int from = 0; from < toDelete.size(); from += chunkSize) {
+            final List<String> chunk = toDelete.subList(from, Math.min(from + chunkSize, toDelete.size()));
+            final String in = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+
+            // The statement itself reports the rows it deleted, so a row inserted or deleted by
+            // someone else meanwhile can't be reported wrongly
+            deleted.addAll(jdbcTemplate.queryForList(
+                deleteReturningAlias("DELETE FROM shortened_address WHERE alias IN (" + in + ")"),
+                String.class, chunk.toArray()));
+        }
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    public List<String> deleteExpired(Instant now, int limit) {
+        final List<Long> ids = new ArrayList<>(limit);
+        final List<String> aliases = new ArrayList<>(limit);
+        jdbcTemplate.query(
+            "SELECT id, alias FROM shortened_address WHERE expires_at <= ? ORDER BY expires_at LIMIT ?",
+            resultSet -> {
+                ids.add(resultSet.getLong(1));
+                aliases.add(resultSet.getString(2));
+            },
+            Timestamp.from(now), limit);
+
+        if (!ids.isEmpty()) {
+            final String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            jdbcTemplate.update("DELETE FROM shortened_address WHERE id IN (" + in + ")", ids.toArray());
+        }
+        return aliases;
+    }
+
+    @Override
+    @Transactional
+    public int hashOriginalUrls(int limit) {
+        final List<Object[]> hashes = jdbcTemplate.query(
+            "SELECT id, original_url FROM shortened_address WHERE original_url_hash IS NULL ORDER BY id LIMIT ?",
+            (resultSet, row) -> new Object[] { UrlNormalizer.hash(resultSet.getString(2)), resultSet.getLong(1) },
+            limit);
+        if (!hashes.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE shortened_address SET original_url_hash = ? WHERE id = ?", hashes);
+        }
+        return hashes.size();
+    }
+
+    private String deleteReturningAlias(String delete) {
+        String product = databaseProduct;
+        if (product == null) {
+            product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                JdbcUtils.commonDatabaseName(connection.getMetaData().getDatabaseProductName()));
+            databaseProduct = product;
+        }
+        return "PostgreSQL".equals(product)
+            ? delete + " RETURNING alias"
+            : "SELECT alias FROM OLD TABLE (" + delete + ")";
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+}
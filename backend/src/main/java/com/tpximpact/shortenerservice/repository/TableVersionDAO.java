@@ -0,0 +1,98 @@
+package com.tpximpact.shortenerservice.repository;
+
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Version number for the {@code shortened_address} table, used to validate cached copies of the
+ * stored URL listing. The version lives in a database sequence that every write moves on, so all
+ * instances agree on it and reading it is a single row lookup however large the table is.
+ * Sequences sit outside transactions, so writers never queue up behind each other to bump it.
+ *
+ * <p>Writers {@link #bump()} the version after their change has committed, and readers take the
+ * {@link #current()} version before they read the table. A listing may then be labelled with a
+ * version older than its contents, which only costs the client a refetch, but never with one newer.
+ * The sequence is created the first time it is used if it does not exist yet.
+ */
+@Repository
+public class TableVersionDAO {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TableVersionDAO.class);
+
+    static final String SEQUENCE_NAME = "shortened_address_version_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Queries queries;
+
+    /**
+     * Creates the DAO.
+     *
+     * @param jdbcTemplate jdbc template
+     */
+    public TableVersionDAO(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Moves the version on. Call once a change to the table has been committed.
+     *
+     * @return the new version
+     */
+    public long bump() {
+        return jdbcTemplate.queryForObject(queries().next(), Long.class);
+    }
+
+    /**
+     * Moves the version on after a write, once the caches and other instances have been told
+     * about it. The write has already been committed by then, so a failure is logged rather than
+     * thrown: it only means clients may be told their copy of the listing is current until the
+     * next write moves the version on.
+     */
+    public void bumpAfterCommit() {
+        try {
+            bump();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to move the table version on, listings may be reported unchanged until the next write",
+                e);
+        }
+    }
+
+    /**
+     * @return the current version, which changes whenever the table has been written to
+     */
+    public long current() {
+        return jdbcTemplate.queryForObject(queries().current(), Long.class);
+    }
+
+    private Queries queries() {
+        Queries current = queries;
+        if (current == null) {
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE_NAME);
+
+            final String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                JdbcUtils.commonDatabaseName(connection.getMetaData().getDatabaseProductName()));
+
+            // Postgres reports the start value as last_value until the first nextval, so that
+            // first bump has to be told apart with is_called
+            current = "PostgreSQL".equals(product)
+                ? new Queries("SELECT nextval('" + SEQUENCE_NAME + "')",
+                    "SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM " + SEQUENCE_NAME)
+                : new Queries("SELECT NEXT VALUE FOR " + SEQUENCE_NAME,
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = '"
+                        + SEQUENCE_NAME.toUpperCase(Locale.ROOT) + "'");
+            queries = current;
+        }
+        return current;
+    }
+
+    private record Queries(String next, String current) {
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.tpximpact.shortenerservice.routing;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import com.tpximpact.shortenerservice.model.AliasEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Decides which reads go to the read replicas ({@code alias.routing.replicaUrls}). Reads wrapped
+ * in {@link #onReplica(Supplier)} take their connection from a replica through the
+ * {@link RoutingDataSource}, everything else (writes, background jobs) uses the primary.
+ *
+ * <p>Replicas lag behind the primary, so aliases created or deleted within
+ * {@code alias.routing.readYourWritesWindow}, on this instance or another one (see
+ * {@link com.tpximpact.shortenerservice.invalidation.InvalidationBus}), are looked up on the
+ * primary again when the replica disagrees: a miss for a recently created alias or a hit for a
+ * recently deleted one. The window should comfortably exceed the replicas' usual lag.
+ *
+ * <p>With no replicas configured every read runs on the primary and nothing is tracked.
+ */
+@Component
+public class ReadRouting {
+
+    private static final ThreadLocal<Boolean> ON_REPLICA = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final Duration readYourWritesWindow;
+    private final Cache<String, AliasEvent.Type> recentWrites;
+    private final Counter primaryFallbacks;
+
+    /**
+     * Creates the routing.
+     *
+     * @param replicaUrls JDBC URLs of the read replicas, reads stay on the primary if there are none
+     * @param readYourWritesWindow how long a written alias is checked on the primary when a replica disagrees
+     * @param maxRecentWrites most written aliases remembered, the oldest are forgotten first
+     * @param meterRegistry registry used to publish how often reads fall back to the primary
+     */
+    public ReadRouting(
+            @Value("${alias.routing.replicaUrls}") List<String> replicaUrls,
+            @Value("${alias.routing.readYourWritesWindow}") Duration readYourWritesWindow,
+            @Value("${alias.routing.maxRecentWrites}") long maxRecentWrites,
+            MeterRegistry meterRegistry) {
+        this.enabled = replicaUrls.stream().anyMatch(url -> !url.isBlank());
+        this.readYourWritesWindow = readYourWritesWindow;
+        this.recentWrites = Caffeine.newBuilder()
+            .maximumSize(maxRecentWrites)
+            .expireAfterWrite(readYourWritesWindow)
+            .build();
+        this.primaryFallbacks = Counter.builder("alias.routing.primaryFallbacks")
+            .description("Replica reads repeated on the primary because the alias was written recently")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return whether the current thread's reads go to a replica, checked by {@link RoutingDataSource}
+     */
+    public static boolean isOnReplica() {
+        return ON_REPLICA.get() != null;
+    }
+
+    /**
+     * Runs a read on a replica. Only reads may be passed in, and only ones that can tolerate the
+     * replica's lag. A read inside a transaction that already holds a connection stays on it.
+     *
+     * @param read the read
+     * @return what the read returned.
+     */
+    public <T> T onReplica(Supplier<T> read) {
+        if (!enabled || isOnReplica()) {
+            return read.get();
+        }
+        ON_REPLICA.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            ON_REPLICA.remove();
+        }
+    }
+
+    /**
+     * Looks an alias up on a replica, and again on the primary if the alias was written too
+     * recently for the replica's answer to be trusted.
+     *
+     * @param alias the alias being looked up
+     * @param lookup the lookup
+     * @return the lookup's result.
+     */
+    public <T> Optional<T> readAlias(String alias, Supplier<Optional<T>> lookup) {
+        if (!enabled) {
+            return lookup.get();
+        }
+        final Optional<T> found = onReplica(lookup);
+        final AliasEvent.Type written = recentWrites.getIfPresent(alias);
+        if (written != null && found.isPresent() != (written == AliasEvent.Type.CREATED)) {
+            primaryFallbacks.increment();
+            return lookup.get();
+        }
+        return found;
+    }
+
+    /**
+     * @param alias an alias
+     * @return whether the alias was created too recently for a replica to be sure to have it
+     */
+    public boolean isRecentlyCreated(String alias) {
+        return enabled && recentWrites.getIfPresent(alias) == AliasEvent.Type.CREATED;
+    }
+
+    /**
+     * @param changedAt when something changed on the primary
+     * @return whether the replicas can be expected to have caught up with the change by now
+     */
+    public boolean hasSettled(Instant changedAt) {
+        return changedAt.plus(readYourWritesWindow).isBefore(Instant.now());
+    }
+
+    /**
+     * Notes that an alias was stored on the primary.
+     *
+     * @param alias the alias
+     */
+    public void created(String alias) {
+        if (enabled) {
+            recentWrites.put(alias, AliasEvent.Type.CREATED);
+        }
+    }
+
+    /**
+     * Notes that an alias was deleted on the primary.
+     *
+     * @param alias the alias
+     */
+    public void deleted(String alias) {
+        if (enabled) {
+            recentWrites.put(alias, AliasEvent.Type.DELETED);
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.tpximpact.shortenerservice.routing;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Datasource that hands out primary connections, or replica connections while the current thread
+ * is in {@link ReadRouting#onReplica(java.util.function.Supplier)}. Replicas are used in turn.
+ * The choice is made when a connection is taken from the pool, so a transaction keeps the
+ * connection it started with.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final String PRIMARY = "primary";
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     * Creates the datasource.
+     *
+     * @param primary pool of connections to the primary, used for writes and by default
+     * @param replicas pools of connections to the read replicas, at least one
+     */
+    public RoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("at least one replica is needed");
+        }
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+
+        final Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        // Fail rather than quietly use the primary if a key is ever wrong
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!ReadRouting.isOnReplica()) {
+            return PRIMARY;
+        }
+        return Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+    }
+
+    /**
+     * Closes the primary and replica pools.
+     */
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+
+}
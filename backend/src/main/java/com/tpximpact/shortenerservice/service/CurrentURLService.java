@@ -2,26 +2,50 @@ package com.tpximpact.shortenerservice.service;
 
 import java.net.URI;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Service;
 
 import jakarta.servlet.http.HttpServletRequest;
 
 /**
- * Business logic for finding the URL that's being requested. This means that if this was 
+ * Business logic for finding the URL that's being requested. This means that if this was
  * deployed and accessed via a DNS address, the DNS address would be returned rather than
  * localhost.
+ *
+ * <p>If {@code alias.baseUrl} is set, that is always used instead. Otherwise the base URL is
+ * built from the request's scheme, host and port once per request and kept as a request
+ * attribute. {@code X-Forwarded-*} headers from trusted proxies are applied to the request
+ * before it gets here (see {@code server.forward-headers-strategy}).
+ *
+ * <p>On the reactive runtime there is no current request to look up, so the request is passed in
+ * to {@link #getRequestedURLWithNoPath(ServerHttpRequest)} instead.
  */
 @Service
 public class CurrentURLService {
 
+    private static final String BASE_URL_ATTRIBUTE = CurrentURLService.class.getName() + ".baseURL";
+
     private final HttpServletRequest currentRequest;
+    private final String canonicalBaseURL;
 
     /**
      * Creates the service.
-     * @param currentRequest threadlocal proxy to the current request
+     * @param currentRequest threadlocal proxy to the current request, unavailable on the reactive runtime
+     * @param baseURL canonical base URL for short URLs, or blank to use the requested URL
      */
-    public CurrentURLService(HttpServletRequest currentRequest) {
+    @Autowired
+    public CurrentURLService(ObjectProvider<HttpServletRequest> currentRequest, @Value("${alias.baseUrl}") String baseURL) {
+        this(currentRequest.getIfAvailable(), baseURL);
+    }
+
+    CurrentURLService(HttpServletRequest currentRequest, String baseURL) {
         this.currentRequest = currentRequest;
+        this.canonicalBaseURL = baseURL == null || baseURL.isBlank()
+            ? null
+            : stripTrailingSlash(baseURL.strip());
     }
 
     /**
@@ -31,15 +55,53 @@ public class CurrentURLService {
      * @return the requested URL.
      */
     public String getRequestedURLWithNoPath() {
-        
-        final StringBuffer requestedURL = currentRequest.getRequestURL();
+        if (canonicalBaseURL != null) {
+            return canonicalBaseURL;
+        }
 
-        final URI uri = URI.create(requestedURL.toString());
+        final Object cached = currentRequest.getAttribute(BASE_URL_ATTRIBUTE);
+        if (cached instanceof String baseURL) {
+            return baseURL;
+        }
 
-        return uri.getPort() == -1 ?
-            String.format("%s://%s", uri.getScheme(), uri.getHost())
-            : 
-            String.format("%s://%s:%s", uri.getScheme(), uri.getHost(), uri.getPort());
+        final String baseURL = buildBaseURL(currentRequest.getScheme(), currentRequest.getServerName(),
+            currentRequest.getServerPort());
+        currentRequest.setAttribute(BASE_URL_ATTRIBUTE, baseURL);
+        return baseURL;
     }
-    
+
+    /**
+     * Get the URL of the given request with no path attached. If the default port is used to
+     * access this service, no port will appear on the URL.
+     *
+     * @param request the request being handled
+     * @return the requested URL.
+     */
+    public String getRequestedURLWithNoPath(ServerHttpRequest request) {
+        if (canonicalBaseURL != null) {
+            return canonicalBaseURL;
+        }
+
+        // The URI is already parsed, so there is nothing worth keeping between calls
+        final URI uri = request.getURI();
+        return buildBaseURL(uri.getScheme(), uri.getHost(), uri.getPort());
+    }
+
+    private static String buildBaseURL(String scheme, String host, int port) {
+        // IPv6 literals need brackets in a URL
+        final String urlHost = host.indexOf(':') >= 0 && !host.startsWith("[") ? "[" + host + "]" : host;
+
+        final boolean defaultPort = port <= 0
+            || (port == 80 && "http".equalsIgnoreCase(scheme))
+            || (port == 443 && "https".equalsIgnoreCase(scheme));
+
+        return defaultPort
+            ? scheme + "://" + urlHost
+            : scheme + "://" + urlHost + ":" + port;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
 }
@@ -0,0 +1,168 @@
+package com.tpximpact.shortenerservice.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.cache.AliasIndex;
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.repository.TableVersionDAO;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+import com.tpximpact.shortenerservice.snapshot.AliasSnapshot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Deletes aliases whose expiry has passed. Every {@code alias.expiry.sweepInterval} a background
+ * thread deletes expired rows in batches of {@code alias.expiry.batchSize}, each in its own short
+ * transaction, until none are left (one shard after the other when sharded). A backlog of
+ * millions is worked through without holding locks or a transaction open for long, and a batch
+ * that fails is retried on the next sweep.
+ *
+ * <p>Expired aliases stop redirecting as soon as they expire, whether or not they have been swept,
+ * and every cache already drops them at their expiry, so deleting them is not broadcast on the
+ * {@link com.tpximpact.shortenerservice.invalidation.InvalidationBus}. Only the listing version is
+ * moved on, and the swept aliases are dropped from this instance's {@link AliasIndex} to free
+ * their memory (other instances' indexes drop them when they next compact). Several instances may
+ * sweep at once; they delete the same rows at worst. Read replicas have no database and don't sweep.
+ */
+@Component
+public class ExpiredAliasSweeper implements SmartLifecycle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpiredAliasSweeper.class);
+
+    private final boolean enabled;
+    private final long sweepIntervalNanos;
+    private final int batchSize;
+    private final ShortenedAddressDAO shortenedAddressDAO;
+    private final TableVersionDAO tableVersionDAO;
+    private final AliasShards aliasShards;
+    private final AliasIndex aliasIndex;
+
+    private final Counter swept;
+    private final Counter failures;
+
+    private volatile boolean running;
+    private Thread sweeper;
+
+    /**
+     * Creates the sweeper. The sweeping thread is started by the application context.
+     *
+     * @param enabled whether expired aliases are deleted
+     * @param sweepInterval how long to wait between sweeps
+     * @param batchSize most rows deleted per transaction
+     * @param shortenedAddressDAO the persistence layer
+     * @param tableVersionDAO version of the stored addresses, moved on after each batch
+     * @param aliasShards the shards to sweep
+     * @param aliasIndex off-heap alias index that deleted aliases are dropped from
+     * @param aliasSnapshot tells whether this instance is a read replica
+     * @param meterRegistry registry used to publish the number of aliases swept
+     */
+    public ExpiredAliasSweeper(
+            @Value("${alias.expiry.sweepEnabled}") boolean enabled,
+            @Value("${alias.expiry.sweepInterval}") Duration sweepInterval,
+            @Value("${alias.expiry.batchSize}") int batchSize,
+            ShortenedAddressDAO shortenedAddressDAO,
+            TableVersionDAO tableVersionDAO,
+            AliasShards aliasShards,
+            AliasIndex aliasIndex,
+            AliasSnapshot aliasSnapshot,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled && !aliasSnapshot.isEnabled();
+        this.sweepIntervalNanos = sweepInterval.toNanos();
+        this.batchSize = batchSize;
+        this.shortenedAddressDAO = shortenedAddressDAO;
+        this.tableVersionDAO = tableVersionDAO;
+        this.aliasShards = aliasShards;
+        this.aliasIndex = aliasIndex;
+
+        this.swept = Counter.builder("alias.expiry.swept")
+            .description("Expired aliases deleted")
+            .register(meterRegistry);
+        this.failures = Counter.builder("alias.expiry.failures")
+            .description("Sweeps that stopped because a batch could not be deleted")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Deletes every alias that has expired, a batch at a time.
+     *
+     * @return the number of aliases deleted
+     */
+    long sweep() {
+        long total = 0;
+        for (int shard = 0; shard < aliasShards.count(); shard++) {
+            total += sweep(shard);
+        }
+        return total;
+    }
+
+    private long sweep(int shard) {
+        long total = 0;
+        List<String> deleted;
+        do {
+            deleted = aliasShards.onShard(shard, () -> shortenedAddressDAO.deleteExpired(Instant.now(), batchSize));
+            if (!deleted.isEmpty()) {
+                aliasIndex.removeAll(deleted);
+                tableVersionDAO.bumpAfterCommit();
+                swept.increment(deleted.size());
+                total += deleted.size();
+            }
+        } while (deleted.size() >= batchSize && running);
+        return total;
+    }
+
+    @Override
+    public void start() {
+        if (enabled && !running) {
+            running = true;
+            sweeper = Thread.ofPlatform().name("expired-alias-sweeper").daemon().start(this::sweepLoop);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(sweeper);
+        try {
+            sweeper.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void sweepLoop() {
+        while (running) {
+            LockSupport.parkNanos(sweepIntervalNanos);
+            if (!running) {
+                break;
+            }
+            try {
+                final long deleted = sweep();
+                if (deleted > 0) {
+                    LOGGER.info("Deleted {} expired aliases", deleted);
+                }
+            } catch (RuntimeException e) {
+                failures.increment();
+                LOGGER.warn("Failed to delete expired aliases, retrying on the next sweep", e);
+            }
+        }
+    }
+
+}
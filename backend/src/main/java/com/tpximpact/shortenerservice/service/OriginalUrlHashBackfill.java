@@ -0,0 +1,83 @@
+package com.tpximpact.shortenerservice.service;
+
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+
+/**
+ * Hashes the original URL of rows stored before the hash column existed, so that deduplication
+ * can find them. Runs in the background in batches once the application has started; until it
+ * finishes, URLs in rows it hasn't reached yet are simply shortened again.
+ */
+@Component
+public class OriginalUrlHashBackfill implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OriginalUrlHashBackfill.class);
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final ShortenedAddressDAO shortenedAddressDAO;
+    private final Executor executor;
+
+    /**
+     * Creates the backfill.
+     *
+     * @param enabled whether deduplication, the only reader of the hash, is enabled
+     * @param batchSize rows hashed per transaction
+     * @param shortenedAddressDAO the persistence layer
+     * @param executor executor the backfill runs on
+     */
+    public OriginalUrlHashBackfill(
+            @Value("${alias.dedup.enabled}") boolean enabled,
+            @Value("${alias.dedup.backfillBatchSize}") int batchSize,
+            ShortenedAddressDAO shortenedAddressDAO,
+            @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.shortenedAddressDAO = shortenedAddressDAO;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts the backfill without holding up startup.
+     *
+     * @param args application arguments (unused)
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            executor.execute(() -> {
+                try {
+                    backfill();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to hash original URLs, they will be retried on the next start", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Hashes every row that doesn't have a hash yet.
+     *
+     * @return the number of rows hashed
+     */
+    long backfill() {
+        long total = 0;
+        for (int hashed; (hashed = shortenedAddressDAO.hashOriginalUrls(batchSize)) > 0; ) {
+            total += hashed;
+        }
+        if (total > 0) {
+            LOGGER.info("Hashed the original URL of {} existing aliases", total);
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,387 @@
+package com.tpximpact.shortenerservice.service;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import com.tpximpact.shortenerservice.alias.AliasGenerator;
+import com.tpximpact.shortenerservice.analytics.HotAliasTracker;
+import com.tpximpact.shortenerservice.cache.AliasBloomFilter;
+import com.tpximpact.shortenerservice.cache.AliasCache;
+import com.tpximpact.shortenerservice.exception.NoSuchAliasException;
+import com.tpximpact.shortenerservice.exception.ValidationFailedException;
+import com.tpximpact.shortenerservice.invalidation.InvalidationBus;
+import com.tpximpact.shortenerservice.metrics.ShortenerMetrics;
+import com.tpximpact.shortenerservice.metrics.ShortenerMetrics.Operation;
+import com.tpximpact.shortenerservice.model.BatchShortenResult;
+import com.tpximpact.shortenerservice.model.BulkDeleteResult;
+import com.tpximpact.shortenerservice.model.HotAlias;
+import com.tpximpact.shortenerservice.model.Redirect;
+import com.tpximpact.shortenerservice.model.ShortenRequest;
+import com.tpximpact.shortenerservice.model.ShortenResponse;
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.model.StoredAlias;
+import com.tpximpact.shortenerservice.model.StoredAliasPage;
+import com.tpximpact.shortenerservice.model.ValidationResult;
+import com.tpximpact.shortenerservice.repository.ReactiveShortenedAddressDAO;
+import com.tpximpact.shortenerservice.repository.TableVersionDAO;
+import com.tpximpact.shortenerservice.util.DuplicateKeys;
+
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking counterpart of {@link ShortenedAddressService} for the reactive profile. Nothing
+ * here waits on the database: lookups and writes go through {@link ReactiveShortenedAddressDAO}
+ * and the in-memory structures (cache, Bloom filter, hot alias tracking) are used as they are.
+ *
+ * <p>The base URL for short URLs is passed in by the caller, as there is no current request to
+ * look it up from. The one blocking call left, moving the {@link TableVersionDAO table version} on
+ * after a write, runs on the bounded elastic scheduler so that the listing validators used by
+ * servlet instances stay correct.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveShortenedAddressService {
+
+    private static final int MAX_INSERT_ATTEMPTS = 5;
+
+    // How many requests in a batch are stored at once
+    private static final int BATCH_CONCURRENCY = 16;
+
+    private final ReactiveShortenedAddressDAO shortenedAddressDAO;
+    private final TableVersionDAO tableVersionDAO;
+    private final ShortenRequestValidationService requestValidation;
+    private final AliasCache aliasCache;
+    private final AliasBloomFilter aliasBloomFilter;
+    private final AliasGenerator aliasGenerator;
+    private final HotAliasTracker hotAliasTracker;
+    private final InvalidationBus invalidationBus;
+    private final ShortenerMetrics metrics;
+    private final int maxPageSize;
+    private final int maxBatchSize;
+
+    /**
+     * Creates an instance of the service.
+     *
+     * @param shortenedAddressDAO the reactive persistence layer
+     * @param tableVersionDAO version of the stored addresses, moved on by every write
+     * @param shortenRequestValidationService validation service
+     * @param aliasCache cache of alias lookups used on the redirect path
+     * @param aliasBloomFilter index of stored aliases used to skip lookups for unknown aliases
+     * @param aliasGenerator strategy used to generate aliases when none is provided
+     * @param hotAliasTracker popularity tracking for redirected aliases
+     * @param invalidationBus tells other instances about created and deleted aliases
+     * @param metrics timings and counts for the service's operations
+     * @param maxPageSize largest page size allowed when listing stored URLs
+     * @param maxBatchSize largest number of requests allowed in a batch
+     */
+    public ReactiveShortenedAddressService(
+            ReactiveShortenedAddressDAO shortenedAddressDAO,
+            TableVersionDAO tableVersionDAO,
+            ShortenRequestValidationService shortenRequestValidationService,
+            AliasCache aliasCache,
+            AliasBloomFilter aliasBloomFilter,
+            AliasGenerator aliasGenerator,
+            HotAliasTracker hotAliasTracker,
+            InvalidationBus invalidationBus,
+            ShortenerMetrics metrics,
+            @Value("${alias.listing.maxPageSize}") int maxPageSize,
+            @Value("${alias.batch.maxSize}") int maxBatchSize) {
+        this.shortenedAddressDAO = shortenedAddressDAO;
+        this.tableVersionDAO = tableVersionDAO;
+        this.requestValidation = shortenRequestValidationService;
+        this.aliasCache = aliasCache;
+        this.aliasBloomFilter = aliasBloomFilter;
+        this.aliasGenerator = aliasGenerator;
+        this.hotAliasTracker = hotAliasTracker;
+        this.invalidationBus = invalidationBus;
+        this.metrics = metrics;
+        this.maxPageSize = maxPageSize;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Shortens a URL. Works as {@link ShortenedAddressService#shorten(ShortenRequest)} does: one
+     * optimistic insert, retried with a new alias if a generated one turns out to be taken.
+     *
+     * @param shortenRequest shorten request
+     * @param baseURL base for the short URL
+     * @return the shortened URL.
+     */
+    public Mono<ShortenResponse> shorten(ShortenRequest shortenRequest, String baseURL) {
+        return metrics.time(Operation.SHORTEN, Mono.defer(() -> {
+            final ValidationResult result = requestValidation.validate(shortenRequest);
+            if (!result.isValid()) {
+                return Mono.error(new ValidationFailedException("Request failed validation with the following errors: "
+                    + String.join(", ", result.errors())));
+            }
+
+            return store(shortenRequest, baseURL, 1)
+                .map(ShortenResponse::new)
+                .switchIfEmpty(Mono.error(() -> new ValidationFailedException(
+                    "Request failed validation with the following errors: "
+                        + requestValidation.alreadyMappedError(shortenRequest.customAlias()))));
+        }));
+    }
+
+    /**
+     * Shortens a batch of URLs, reporting the outcome of each request in the same order as the
+     * requests. Requests are stored independently of each other (several at a time), so unlike
+     * {@link ShortenedAddressService#shortenAll(List)} a failure part way through leaves the
+     * requests before it stored.
+     *
+     * @param shortenRequests the requests
+     * @param baseURL base for the short URLs
+     * @return the outcome of each request.
+     */
+    public Mono<List<BatchShortenResult>> shortenAll(List<ShortenRequest> shortenRequests, String baseURL) {
+        return metrics.time(Operation.SHORTEN_BATCH, Mono.defer(() -> {
+            if (shortenRequests == null || shortenRequests.isEmpty() || shortenRequests.size() > maxBatchSize) {
+                return Mono.error(new ValidationFailedException(
+                    "a batch must contain between 1 and " + maxBatchSize + " requests"));
+            }
+
+            return Flux.fromIterable(shortenRequests)
+                .flatMapSequential(shortenRequest -> storeBatchItem(shortenRequest, baseURL), BATCH_CONCURRENCY)
+                .collectList();
+        }));
+    }
+
+    /**
+     * Looks up the original URL for an alias, as {@link #getRedirect(String)} does.
+     *
+     * @param alias the alias
+     * @return the original URL, or empty if the alias is not stored.
+     */
+    public Mono<URI> getForwardedURI(String alias) {
+        return getRedirect(alias).map(Redirect::location);
+    }
+
+    /**
+     * Looks up the redirect for an alias, from the {@link AliasCache} where possible. Aliases
+     * that the {@link AliasBloomFilter} knows are absent never reach the cache or the database,
+     * and aliases whose expiry has passed are absent.
+     *
+     * @param alias the alias
+     * @return the original URL and the status chosen for the alias, or empty if the alias is not stored.
+     */
+    public Mono<Redirect> getRedirect(String alias) {
+        return Mono.defer(() -> {
+            final Timer.Sample sample = metrics.startRedirectLookup();
+            return lookupRedirect(alias)
+                .doOnNext(redirect -> {
+                    metrics.stopRedirectLookup(sample, redirect.isPresent());
+                    if (redirect.isPresent()) {
+                        hotAliasTracker.record(alias);
+                    }
+                })
+                .flatMap(Mono::justOrEmpty);
+        });
+    }
+
+    /**
+     * Get the most redirected aliases over the tracking window, most redirected first.
+     *
+     * @param n maximum number of aliases to return
+     * @return the aliases with their approximate redirect counts.
+     */
+    public List<HotAlias> getHotAliases(int n) {
+        if (n < 1 || n > hotAliasTracker.maxCandidates()) {
+            throw new ValidationFailedException("n must be between 1 and " + hotAliasTracker.maxCandidates());
+        }
+        return hotAliasTracker.top(n);
+    }
+
+    /**
+     * Deletes the stored alias. Fails with {@link NoSuchAliasException} if it does not exist.
+     *
+     * @param alias the alias to delete.
+     * @return completes once the alias is deleted.
+     */
+    public Mono<Void> deleteStoredAlias(String alias) {
+        return metrics.time(Operation.DELETE, shortenedAddressDAO.deleteByAlias(alias)
+            .flatMap(deleted -> {
+                // Invalidate either way, a miss may have been cached by another request in the meantime
+                aliasCache.invalidate(alias);
+                if (deleted == 0) {
+                    return Mono.error(new NoSuchAliasException("The alias " + alias + " does not exist"));
+                }
+                invalidationBus.deleted(alias);
+                return bumpVersion();
+            }));
+    }
+
+    /**
+     * Deletes many stored aliases in a single transaction. Aliases that do not exist are reported
+     * back rather than failing the whole request.
+     *
+     * @param aliases the aliases to delete
+     * @return how many aliases were deleted and which ones did not exist.
+     */
+    public Mono<BulkDeleteResult> deleteStoredAliases(List<String> aliases) {
+        return metrics.time(Operation.DELETE_BATCH, Mono.defer(() -> {
+            if (aliases == null || aliases.isEmpty() || aliases.size() > maxBatchSize) {
+                return Mono.error(new ValidationFailedException(
+                    "a batch must contain between 1 and " + maxBatchSize + " aliases"));
+            }
+
+            return shortenedAddressDAO.deleteAllByAlias(aliases).flatMap(deleted -> {
+                aliasCache.invalidateAll(aliases);
+                invalidationBus.deleted(deleted);
+                final List<String> notFound = aliases.stream()
+                    .filter(alias -> !deleted.contains(alias))
+                    .distinct()
+                    .toList();
+                return (deleted.isEmpty() ? Mono.<Void>empty() : bumpVersion())
+                    .thenReturn(new BulkDeleteResult(deleted.size(), notFound));
+            });
+        }));
+    }
+
+    /**
+     * Get a page of the stored URLs, in the order they were stored, using keyset pagination.
+     *
+     * @param limit maximum number of aliases to return
+     * @param after cursor returned with the previous page (or null for the first page)
+     * @param baseURL base for the short URLs
+     * @return the page of stored aliases.
+     */
+    public Mono<StoredAliasPage> getStoredURLs(int limit, String after, String baseURL) {
+        return metrics.time(Operation.LIST, Mono.defer(() -> {
+            if (limit < 1 || limit > maxPageSize) {
+                return Mono.error(new ValidationFailedException("limit must be between 1 and " + maxPageSize));
+            }
+
+            return shortenedAddressDAO.findByIdGreaterThanOrderByIdAsc(parseCursor(after), limit)
+                .collectList()
+                .map(addresses -> new StoredAliasPage(
+                    addresses.stream().map(address -> convertToStoredAlias(address, baseURL)).toList(),
+                    addresses.size() < limit ? null : String.valueOf(addresses.getLast().getId())));
+        }));
+    }
+
+    /**
+     * Streams every stored URL in the order they were stored. Rows are only read from the
+     * database as fast as the subscriber takes them.
+     *
+     * @param baseURL base for the short URLs
+     * @return the stored aliases.
+     */
+    public Flux<StoredAlias> getAllStoredURLs(String baseURL) {
+        return shortenedAddressDAO.findAllOrderByIdAsc()
+            .map(address -> convertToStoredAlias(address, baseURL));
+    }
+
+    private Mono<Optional<Redirect>> lookupRedirect(String alias) {
+        if (!aliasBloomFilter.mightContain(alias)) {
+            return Mono.just(Optional.empty());
+        }
+
+        final Optional<Redirect> cached = aliasCache.getIfPresent(alias);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return shortenedAddressDAO.findByAlias(alias)
+            .map(ShortenedAddress::toRedirect)
+            .filter(redirect -> !redirect.isExpired(Instant.now()))
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .doOnNext(redirect -> aliasCache.put(alias, redirect));
+    }
+
+    private Mono<Void> bumpVersion() {
+        return Mono.fromRunnable(tableVersionDAO::bumpAfterCommit)
+            .subscribeOn(Schedulers.boundedElastic())
+            .then();
+    }
+
+    private Mono<BatchShortenResult> storeBatchItem(ShortenRequest shortenRequest, String baseURL) {
+        final ValidationResult result = requestValidation.validate(shortenRequest);
+        if (!result.isValid()) {
+            metrics.validationFailures(Operation.SHORTEN_BATCH, 1);
+            return Mono.just(BatchShortenResult.failure(String.join(", ", result.errors())));
+        }
+
+        return store(shortenRequest, baseURL, 1)
+            .map(BatchShortenResult::success)
+            .switchIfEmpty(Mono.fromSupplier(() ->
+                BatchShortenResult.failure(requestValidation.alreadyMappedError(shortenRequest.customAlias()))));
+    }
+
+    /**
+     * Inserts the address, retrying with a new alias if a generated alias is taken.
+     *
+     * @return the short URL, or empty if the custom alias is taken
+     */
+    private Mono<URI> store(ShortenRequest shortenRequest, String baseURL, int attempt) {
+        final String customAlias = shortenRequest.customAlias();
+        final String alias = customAlias == null ? generateNewAlias() : customAlias;
+
+        return shortenedAddressDAO.insert(alias, shortenRequest.fullUrl().toString(), shortenRequest.redirectStatus(),
+                shortenRequest.expiresAt())
+            .flatMap(saved -> {
+                aliasBloomFilter.put(alias);
+                // Drop any cached miss for this alias so the redirect works straight away
+                aliasCache.invalidate(alias);
+                invalidationBus.created(alias);
+                if (customAlias == null) {
+                    metrics.aliasGenerationAttempts(attempt);
+                }
+                return bumpVersion().thenReturn(URI.create(baseURL + "/" + alias));
+            })
+            .onErrorResume(DuplicateKeys::isDuplicateKey, e -> {
+                // Someone else has the alias. It's now known to exist even if this node hasn't seen it
+                aliasBloomFilter.put(alias);
+                if (customAlias != null) {
+                    return Mono.empty();
+                }
+                if (attempt >= MAX_INSERT_ATTEMPTS) {
+                    metrics.aliasGenerationAttempts(attempt);
+                    return Mono.error(e);
+                }
+                return store(shortenRequest, baseURL, attempt + 1);
+            });
+    }
+
+    private String generateNewAlias() {
+        if (aliasGenerator.isCollisionFree()) {
+            return aliasGenerator.generate();
+        }
+
+        // As in ShortenedAddressService: skip anything the Bloom filter thinks might be used, for
+        // a few goes, and let the unique constraint decide
+        String generated = aliasGenerator.generate();
+        for (int i = 1; i < MAX_INSERT_ATTEMPTS && aliasBloomFilter.mightContain(generated); i++) {
+            generated = aliasGenerator.generate();
+        }
+        return generated;
+    }
+
+    private long parseCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new ValidationFailedException("after is not a valid cursor");
+        }
+    }
+
+    private StoredAlias convertToStoredAlias(ShortenedAddress shortenedAddress, String baseURL) {
+        return new StoredAlias(
+                shortenedAddress.getAlias(),
+                URI.create(shortenedAddress.getOriginalUrl()),
+                URI.create(baseURL + "/" + shortenedAddress.getAlias()));
+    }
+
+}
@@ -1,15 +1,26 @@
 package com.tpximpact.shortenerservice.service;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+
+import com.tpximpact.shortenerservice.cache.AliasBloomFilter;
+import com.tpximpact.shortenerservice.model.Redirect;
 import com.tpximpact.shortenerservice.model.ShortenRequest;
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
 import com.tpximpact.shortenerservice.model.ValidationResult;
 import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.routing.ReadRouting;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
 
 /**
  * Validation service responsible for validating {@link ShortenRequest} objects. This ensures
@@ -20,26 +31,105 @@ import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
 public class ShortenRequestValidationService {
 
     private final int maxAliasSize;
+    private final int lookupChunkSize;
     private final ShortenedAddressDAO shortenedAddressDAO;
+    private final AliasBloomFilter aliasBloomFilter;
+    private final ReadRouting readRouting;
+    private final AliasShards aliasShards;
 
     private static final Pattern ALLOWED_CHARACTERS = Pattern.compile("^[a-zA-Z0-9-_]+$");
 
-    private static final Set<String> NOT_ALLOWED_PATHS = Set.of("urls", "error"); // It's a path used by the REST API
+    private static final Set<String> NOT_ALLOWED_PATHS = Set.of("urls", "error", "actuator"); // It's a path used by the REST API
 
     public ShortenRequestValidationService(@Value("${alias.maxSize}") int maxAliasSize, 
-        ShortenedAddressDAO shortenedAddressDAO) {
+        @Value("${alias.batch.lookupChunkSize}") int lookupChunkSize,
+        ShortenedAddressDAO shortenedAddressDAO, AliasBloomFilter aliasBloomFilter, ReadRouting readRouting,
+        AliasShards aliasShards) {
         this.maxAliasSize = maxAliasSize;
+        this.lookupChunkSize = lookupChunkSize;
         this.shortenedAddressDAO = shortenedAddressDAO;
+        this.aliasBloomFilter = aliasBloomFilter;
+        this.readRouting = readRouting;
+        this.aliasShards = aliasShards;
     }
 
     /**
      * Validates a request to ensure the alias and URL is compliant. The URL has to exist. It already has to
-     * be a valid URL for the request to make it this far.
+     * be a valid URL for the request to make it this far. Whether a custom alias is already taken is not
+     * checked here; the unique constraint on the alias decides that when the address is stored.
      *
      * @param shortenRequest shorten request
      * @return the validation result.
      */
     public ValidationResult validate(final ShortenRequest shortenRequest) {
+        return new ValidationResult(checkRequest(shortenRequest));
+    }
+
+    /**
+     * Validates a batch of requests in one pass. Each request gets the same checks as
+     * {@link #validate(ShortenRequest)}, and custom aliases that are requested more than once in
+     * the batch are rejected after their first use. As one taken alias would otherwise fail the
+     * whole batch insert, existing aliases are also looked up, with a single IN query (per
+     * {@code alias.batch.lookupChunkSize} aliases) rather than one query each.
+     *
+     * @param shortenRequests the requests
+     * @return a validation result for each request, in the same order.
+     */
+    public List<ValidationResult> validateAll(final List<ShortenRequest> shortenRequests) {
+        final List<List<String>> errors = new ArrayList<>(shortenRequests.size());
+        final Set<String> seen = new HashSet<>();
+        final Map<String, Integer> toLookUp = new HashMap<>();
+
+        for (int i = 0; i < shortenRequests.size(); i++) {
+            final ShortenRequest shortenRequest = shortenRequests.get(i);
+            final List<String> requestErrors = checkRequest(shortenRequest);
+            errors.add(requestErrors);
+
+            if (requestErrors.isEmpty() && shortenRequest.customAlias() != null) {
+                final String customAlias = shortenRequest.customAlias();
+                if (!seen.add(customAlias)) {
+                    requestErrors.add("the alias " + customAlias + " is used more than once in the batch");
+                } else {
+                    toLookUp.put(customAlias, i);
+                }
+            }
+        }
+
+        for (String existing : existingAliases(toLookUp.keySet())) {
+            errors.get(toLookUp.get(existing)).add(alreadyMappedError(existing));
+        }
+
+        return errors.stream().map(ValidationResult::new).toList();
+    }
+
+    /**
+     * Finds which of the aliases are already stored. Aliases the Bloom filter knows are absent are
+     * skipped and the rest are looked up with IN queries of up to {@code alias.batch.lookupChunkSize}
+     * aliases, on a read replica if there are any, and on the shards holding them when sharded.
+     * Aliases created too recently for the replica to be sure to have them are counted as stored
+     * either way.
+     *
+     * @param aliases the aliases to check
+     * @return the aliases that are already stored.
+     */
+    public Set<String> existingAliases(Collection<String> aliases) {
+        final List<String> candidates = aliases.stream()
+            .filter(aliasBloomFilter::mightContain)
+            .toList();
+
+        final Set<String> existing = new HashSet<>();
+        for (int start = 0; start < candidates.size(); start += lookupChunkSize) {
+            final List<String> chunk = candidates.subList(start, Math.min(candidates.size(), start + lookupChunkSize));
+            existing.addAll(readRouting.onReplica(
+                () -> aliasShards.onShardsOf(chunk, shortenedAddressDAO::findExistingAliases)));
+        }
+        candidates.stream()
+            .filter(readRouting::isRecentlyCreated)
+            .forEach(existing::add);
+        return existing;
+    }
+
+    private List<String> checkRequest(final ShortenRequest shortenRequest) {
         final List<String> errors = new ArrayList<>();
         if (shortenRequest == null) {
             errors.add("request cannot be null");
@@ -60,22 +150,32 @@ public class ShortenRequestValidationService {
                 if (NOT_ALLOWED_PATHS.contains(customAlias)) {
                     errors.add("The alias " + customAlias + " is not permitted as it clashes with other paths");
                 }
-
-                // Only need to check for duplicates if custom alias is valid (and therefore could exist in DB)
-                if (errors.size() == 0 && alreadyExists(customAlias)) {
-                    errors.add("the alias " + customAlias + " is already mapped to a URL");
-                }
             }
 
             if (shortenRequest.fullUrl() == null) {
                 errors.add("full url must be provided");
+            } else if (shortenRequest.fullUrl().toString().length() > ShortenedAddress.MAX_URL_LENGTH) {
+                errors.add("the max size for any url is " + ShortenedAddress.MAX_URL_LENGTH + " characters");
+            }
+
+            if (shortenRequest.redirectStatus() != null && !Redirect.STATUSES.contains(shortenRequest.redirectStatus())) {
+                errors.add("redirect status must be one of 301, 302, 307 or 308");
             }
-        }
 
-        return new ValidationResult(errors);
+            if (shortenRequest.expiresAt() != null && !shortenRequest.expiresAt().isAfter(Instant.now())) {
+                errors.add("expiry must be in the future");
+            }
+        }
+        return errors;
     }
 
-    private boolean alreadyExists(String alias) {
-        return shortenedAddressDAO.findByAlias(alias).isPresent();
+    /**
+     * Error reported when a custom alias is already in use.
+     *
+     * @param alias the alias
+     * @return the error message
+     */
+    public String alreadyMappedError(String alias) {
+        return "the alias " + alias + " is already mapped to a URL";
     }
 }
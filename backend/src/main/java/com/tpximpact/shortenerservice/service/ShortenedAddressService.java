@@ -1,21 +1,58 @@
 package com.tpximpact.shortenerservice.service;
 
 import java.net.URI;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
-import org.apache.commons.lang3.RandomStringUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import com.tpximpact.shortenerservice.alias.AliasGenerator;
+import com.tpximpact.shortenerservice.analytics.HotAliasTracker;
+import com.tpximpact.shortenerservice.cache.AliasBloomFilter;
+import com.tpximpact.shortenerservice.cache.AliasCache;
+import com.tpximpact.shortenerservice.cache.AliasIndex;
 import com.tpximpact.shortenerservice.exception.NoSuchAliasException;
 import com.tpximpact.shortenerservice.exception.ValidationFailedException;
+import com.tpximpact.shortenerservice.invalidation.InvalidationBus;
+import com.tpximpact.shortenerservice.metrics.ShortenerMetrics;
+import com.tpximpact.shortenerservice.metrics.ShortenerMetrics.Operation;
+import com.tpximpact.shortenerservice.model.BatchShortenResult;
+import com.tpximpact.shortenerservice.model.BulkDeleteResult;
+import com.tpximpact.shortenerservice.model.HotAlias;
+import com.tpximpact.shortenerservice.model.ListingVersion;
+import com.tpximpact.shortenerservice.model.Redirect;
 import com.tpximpact.shortenerservice.model.ShortenRequest;
 import com.tpximpact.shortenerservice.model.ShortenResponse;
 import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.model.SnapshotExport;
 import com.tpximpact.shortenerservice.model.StoredAlias;
+import com.tpximpact.shortenerservice.model.StoredAliasPage;
 import com.tpximpact.shortenerservice.model.ValidationResult;
 import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.repository.TableVersionDAO;
+import com.tpximpact.shortenerservice.routing.ReadRouting;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+import com.tpximpact.shortenerservice.snapshot.AliasSnapshot;
+import com.tpximpact.shortenerservice.snapshot.AliasSnapshotWriter;
+import com.tpximpact.shortenerservice.util.DuplicateKeys;
+import com.tpximpact.shortenerservice.util.UrlNormalizer;
+
+import io.micrometer.core.instrument.Timer;
 
 /**
  * ShortenedAddressService manages storage and retrieval of shortened URL addresses.
@@ -23,54 +60,174 @@ import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
 @Service
 public class ShortenedAddressService {
 
+    private static final int MAX_INSERT_ATTEMPTS = 5;
+    // Rows checked for an existing alias, more than one only if the 64 bit hash collides
+    private static final Limit DEDUP_CANDIDATES = Limit.of(4);
+
     private final ShortenedAddressDAO shortenedAddressDAO;
+    private final TableVersionDAO tableVersionDAO;
+    private final ReadRouting readRouting;
+    private final AliasShards aliasShards;
     private final ShortenRequestValidationService requestValidation;
     private final CurrentURLService currentURLService;
-    private final Integer maxAliasSize;
+    private final AliasCache aliasCache;
+    private final AliasBloomFilter aliasBloomFilter;
+    private final AliasIndex aliasIndex;
+    private final AliasGenerator aliasGenerator;
+    private final HotAliasTracker hotAliasTracker;
+    private final AliasSnapshot aliasSnapshot;
+    private final AliasSnapshotWriter aliasSnapshotWriter;
+    private final InvalidationBus invalidationBus;
+    private final ShortenerMetrics metrics;
+    private final int maxPageSize;
+    private final int maxBatchSize;
+    private final boolean deduplicate;
+    private final AtomicReference<ListingVersion> listingVersion = new AtomicReference<>();
 
     /**
      * Creates an instance of the service.
      *
      * @param shortenedAddressDAO the persistence layer
+     * @param tableVersionDAO version of the stored addresses, moved on by every write
+     * @param readRouting sends redirect lookups and listing to the read replicas, if there are any
+     * @param aliasShards sends each alias to its shard, if the addresses are sharded
      * @param shortenRequestValidationService validation service
      * @param currentURLService service for getting the reuqested URL
-     * @param maxAliasSize max size of an alias.
+     * @param aliasCache cache of alias lookups used on the redirect path
+     * @param aliasBloomFilter index of stored aliases used to skip lookups for unknown aliases
+     * @param aliasIndex off-heap index of every alias's redirect, answering redirects when enabled
+     * @param aliasGenerator strategy used to generate aliases when none is provided
+     * @param hotAliasTracker popularity tracking for redirected aliases
+     * @param aliasSnapshot snapshot that answers redirects on read replicas
+     * @param aliasSnapshotWriter exports the snapshot read by read replicas
+     * @param invalidationBus tells other instances about created and deleted aliases
+     * @param metrics timings and counts for the service's operations
+     * @param maxPageSize largest page size allowed when listing stored URLs
+     * @param maxBatchSize largest number of requests allowed in a batch shorten
+     * @param deduplicate whether shortening a stored URL returns its existing alias
      */
     public ShortenedAddressService(
             ShortenedAddressDAO shortenedAddressDAO, 
+            TableVersionDAO tableVersionDAO,
+            ReadRouting readRouting,
+            AliasShards aliasShards,
             ShortenRequestValidationService shortenRequestValidationService,
             CurrentURLService currentURLService,
-            @Value("${alias.maxSize}") int maxAliasSize) {
+            AliasCache aliasCache,
+            AliasBloomFilter aliasBloomFilter,
+            AliasIndex aliasIndex,
+            AliasGenerator aliasGenerator,
+            HotAliasTracker hotAliasTracker,
+            AliasSnapshot aliasSnapshot,
+            AliasSnapshotWriter aliasSnapshotWriter,
+            InvalidationBus invalidationBus,
+            ShortenerMetrics metrics,
+            @Value("${alias.listing.maxPageSize}") int maxPageSize,
+            @Value("${alias.batch.maxSize}") int maxBatchSize,
+            @Value("${alias.dedup.enabled}") boolean deduplicate) {
         this.shortenedAddressDAO = shortenedAddressDAO;
+        this.tableVersionDAO = tableVersionDAO;
+        this.readRouting = readRouting;
+        this.aliasShards = aliasShards;
         this.requestValidation = shortenRequestValidationService;
         this.currentURLService = currentURLService;
-        this.maxAliasSize = maxAliasSize;
+        this.aliasCache = aliasCache;
+        this.aliasBloomFilter = aliasBloomFilter;
+        this.aliasIndex = aliasIndex;
+        this.aliasGenerator = aliasGenerator;
+        this.hotAliasTracker = hotAliasTracker;
+        this.aliasSnapshot = aliasSnapshot;
+        this.aliasSnapshotWriter = aliasSnapshotWriter;
+        this.invalidationBus = invalidationBus;
+        this.metrics = metrics;
+        this.maxPageSize = maxPageSize;
+        this.maxBatchSize = maxBatchSize;
+        this.deduplicate = deduplicate;
     }
 
     /**
      * Shortens a URL using the URL request. Hands of validation to an external service
      * before interfacing with the persistence layer. If no alias is provided, one will
-     * be generated randomly.
+     * be generated by the configured {@link AliasGenerator}.
+     *
+     * <p>The address is stored with a single optimistic insert. If the alias is already taken the
+     * unique constraint rejects it: a custom alias then fails validation, while a generated alias
+     * is replaced with a new one and the insert retried. When the addresses are sharded the
+     * address is stored on its alias's shard.
+     *
+     * <p>With deduplication enabled a request without a custom alias for a URL that is already
+     * stored returns the existing alias instead. URLs are compared in their normalized form (see
+     * {@link UrlNormalizer}), and only an alias with the same redirect status and expiry is reused.
+     * Two concurrent requests for a new URL can still both store it.
      *
      * @param shortenRequest shorten request
      * @return the shortened URL.
      */
     public ShortenResponse shorten(ShortenRequest shortenRequest) {
+        return metrics.time(Operation.SHORTEN, () -> store(shortenRequest));
+    }
+
+    private ShortenResponse store(ShortenRequest shortenRequest) {
         ValidationResult result = requestValidation.validate(shortenRequest);
 
         if (result.isValid()) {
-            
-            final String alias = shortenRequest.customAlias() == null 
-                ? generateNewAlias() 
-                : shortenRequest.customAlias();
-
-            final ShortenedAddress shortenedAddress = ShortenedAddress.builder()
-                .originalUrl(shortenRequest.fullUrl().toString())
-                .alias(alias)
-                .build();
-
-            final String savedAlias = shortenedAddressDAO.save(shortenedAddress).getAlias();
-            return new ShortenResponse(toAbsoluteURL(savedAlias));
+            final String customAlias = shortenRequest.customAlias();
+
+            if (customAlias == null && deduplicate) {
+                final Optional<String> existing = findExistingAlias(shortenRequest);
+                if (existing.isPresent()) {
+                    metrics.deduplicated();
+                    return new ShortenResponse(toAbsoluteURL(existing.get()));
+                }
+            }
+
+            for (int attempt = 1; ; attempt++) {
+                final String alias = customAlias == null 
+                    ? generateNewAlias() 
+                    : customAlias;
+
+                final ShortenedAddress shortenedAddress = ShortenedAddress.builder()
+                    .originalUrl(shortenRequest.fullUrl().toString())
+                    .alias(alias)
+                    .redirectStatus(shortenRequest.redirectStatus())
+                    .expiresAt(shortenRequest.expiresAt())
+                    .build();
+
+                try {
+                    // The unique constraint can't see an alias still on the shard it is moving from
+                    if (aliasShards.findOnPreviousShard(alias, () -> shortenedAddressDAO.findByAlias(alias))
+                            .isPresent()) {
+                        throw new DuplicateKeyException("the alias " + alias + " is on another shard");
+                    }
+                    final ShortenedAddress saved = aliasShards.onShardOf(alias,
+                        () -> shortenedAddressDAO.save(shortenedAddress));
+                    final String savedAlias = saved.getAlias();
+                    aliasBloomFilter.put(savedAlias);
+                    aliasIndex.put(savedAlias, saved.toRedirect());
+                    // Drop any cached miss for this alias so the redirect works straight away
+                    aliasCache.invalidate(savedAlias);
+                    invalidationBus.created(savedAlias);
+                    tableVersionDAO.bumpAfterCommit();
+                    if (customAlias == null) {
+                        metrics.aliasGenerationAttempts(attempt);
+                    }
+                    return new ShortenResponse(toAbsoluteURL(savedAlias));
+                } catch (DataIntegrityViolationException e) {
+                    if (!DuplicateKeys.isDuplicateKey(e)) {
+                        throw e;
+                    }
+                    // Someone else has the alias. It's now known to exist even if this node hasn't seen it
+                    aliasBloomFilter.put(alias);
+                    if (customAlias != null) {
+                        throw new ValidationFailedException("Request failed validation with the following errors: "
+                            + requestValidation.alreadyMappedError(customAlias));
+                    }
+                    if (attempt >= MAX_INSERT_ATTEMPTS) {
+                        metrics.aliasGenerationAttempts(attempt);
+                        throw e;
+                    }
+                }
+            }
         } else {
             String errorMessage = "Request failed validation with the following errors: " +
                     String.join(", ", result.errors());
@@ -79,17 +236,217 @@ public class ShortenedAddressService {
         }
     }
 
+    private Optional<String> findExistingAlias(ShortenRequest shortenRequest) {
+        final String url = shortenRequest.fullUrl().toString();
+        final String normalized = UrlNormalizer.normalize(url);
+        // The expiry has been validated to be in the future, so a candidate with the same one hasn't expired
+        final long hash = UrlNormalizer.hash(url);
+        return aliasShards.onEveryShard(
+                () -> shortenedAddressDAO.findByOriginalUrlHashOrderByIdAsc(hash, DEDUP_CANDIDATES))
+            .stream()
+            .flatMap(List::stream)
+            .sorted(Comparator.comparing(ShortenedAddress::getId))
+            .filter(candidate -> UrlNormalizer.normalize(candidate.getOriginalUrl()).equals(normalized))
+            .filter(candidate -> Objects.equals(candidate.getRedirectStatus(), shortenRequest.redirectStatus()))
+            .filter(candidate -> Objects.equals(candidate.getExpiresAt(), shortenRequest.expiresAt()))
+            .map(ShortenedAddress::getAlias)
+            .findFirst();
+    }
+
+    /**
+     * Shortens a batch of URLs. All requests are validated in one pass, and the valid ones are
+     * stored in a single transaction using JDBC batch inserts (one transaction per shard when the
+     * addresses are sharded). Invalid requests do not stop the rest of the batch from being stored.
+     *
+     * @param shortenRequests the requests
+     * @return the outcome of each request, in the same order as the requests.
+     */
+    public List<BatchShortenResult> shortenAll(List<ShortenRequest> shortenRequests) {
+        return metrics.time(Operation.SHORTEN_BATCH, () -> storeAll(shortenRequests));
+    }
+
+    private List<BatchShortenResult> storeAll(List<ShortenRequest> shortenRequests) {
+        if (shortenRequests == null || shortenRequests.isEmpty() || shortenRequests.size() > maxBatchSize) {
+            throw new ValidationFailedException("a batch must contain between 1 and " + maxBatchSize + " requests");
+        }
+
+        final List<ValidationResult> results = requestValidation.validateAll(shortenRequests);
+
+        final Set<String> customAliases = new HashSet<>();
+        int aliasesToGenerate = 0;
+        int invalid = 0;
+        for (int i = 0; i < shortenRequests.size(); i++) {
+            if (results.get(i).isValid()) {
+                if (shortenRequests.get(i).customAlias() == null) {
+                    aliasesToGenerate++;
+                } else {
+                    customAliases.add(shortenRequests.get(i).customAlias());
+                }
+            } else {
+                invalid++;
+            }
+        }
+        metrics.validationFailures(Operation.SHORTEN_BATCH, invalid);
+        final List<String> generatedAliases = generateNewAliases(aliasesToGenerate, customAliases);
+
+        final List<ShortenedAddress> addresses = new ArrayList<>();
+        for (int i = 0, generated = 0; i < shortenRequests.size(); i++) {
+            if (results.get(i).isValid()) {
+                final ShortenRequest shortenRequest = shortenRequests.get(i);
+                addresses.add(ShortenedAddress.builder()
+                    .originalUrl(shortenRequest.fullUrl().toString())
+                    .alias(shortenRequest.customAlias() == null
+                        ? generatedAliases.get(generated++)
+                        : shortenRequest.customAlias())
+                    .redirectStatus(shortenRequest.redirectStatus())
+                    .expiresAt(shortenRequest.expiresAt())
+                    .build());
+            }
+        }
+
+        try {
+            insertAll(addresses);
+        } catch (DataIntegrityViolationException e) {
+            if (!DuplicateKeys.isDuplicateKey(e)) {
+                throw e;
+            }
+            throw new ValidationFailedException(
+                "an alias in the batch was taken by another request while the batch was being stored, please retry");
+        }
+
+        for (ShortenedAddress address : addresses) {
+            aliasBloomFilter.put(address.getAlias());
+            aliasIndex.put(address.getAlias(), address.toRedirect());
+            aliasCache.invalidate(address.getAlias());
+            invalidationBus.created(address.getAlias());
+        }
+        tableVersionDAO.bumpAfterCommit();
+
+        final String baseURL = currentURLService.getRequestedURLWithNoPath();
+        final List<BatchShortenResult> batchResults = new ArrayList<>(shortenRequests.size());
+        for (int i = 0, stored = 0; i < shortenRequests.size(); i++) {
+            final ValidationResult result = results.get(i);
+            batchResults.add(result.isValid()
+                ? BatchShortenResult.success(toURI(baseURL + "/" + addresses.get(stored++).getAlias()))
+                : BatchShortenResult.failure(String.join(", ", result.errors())));
+        }
+        return batchResults;
+    }
+
+    // Each shard stores its part of the batch in its own transaction. If one fails, the parts already
+    // stored on other shards are deleted again so that the batch still fails as a whole
+    private void insertAll(List<ShortenedAddress> addresses) {
+        final Map<Integer, List<ShortenedAddress>> byShard = aliasShards.byShard(addresses, ShortenedAddress::getAlias);
+        final List<Integer> stored = new ArrayList<>(byShard.size());
+        for (Map.Entry<Integer, List<ShortenedAddress>> shard : byShard.entrySet()) {
+            try {
+                aliasShards.onShard(shard.getKey(), () -> {
+                    shortenedAddressDAO.insertAll(shard.getValue());
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                for (Integer storedShard : stored) {
+                    final List<String> aliases = byShard.get(storedShard).stream()
+                        .map(ShortenedAddress::getAlias)
+                        .toList();
+                    aliasShards.onShard(storedShard, () -> shortenedAddressDAO.deleteAllByAlias(aliases));
+                }
+                throw e;
+            }
+            stored.add(shard.getKey());
+        }
+    }
+
     /**
      * Returns an optional containing the forwarded URL for any given alias. If the alias
-     * is not found in the persistence layer, the optional will be empty.
+     * is not found in the persistence layer, the optional will be empty. Looked up as
+     * {@link #getRedirect(String)} is.
      *
      * @param alias the alias
      * @return an optional containing the original URL (if present).
      */
     public Optional<URI> getForwardedURI(String alias) {
-        return shortenedAddressDAO.findByAlias(alias)
-            .map(ShortenedAddress::getOriginalUrl)
-            .map(this::toURI);
+        return getRedirect(alias).map(Redirect::location);
+    }
+
+    /**
+     * Returns the redirect for an alias: the original URL and the status chosen for the alias.
+     * Lookups (including misses) are served from the {@link AliasCache} where possible, and
+     * aliases that the {@link AliasBloomFilter} knows are absent never reach the cache or the
+     * database. An alias whose expiry has passed is absent, whether or not the
+     * {@link ExpiredAliasSweeper} has deleted it yet; the cache keeps it no longer than its expiry.
+     *
+     * <p>When the {@link AliasIndex} is enabled, an alias it holds is answered from it without the
+     * cache or the database. Aliases found in the database are added to it.
+     *
+     * <p>Database lookups go to a read replica when there are any, and to the primary as well for
+     * an alias created or deleted too recently for the replica to have caught up (see
+     * {@link ReadRouting#readAlias(String, Supplier)}). When the addresses are sharded only the
+     * alias's shard is asked, and the shard it is moving from while shards are being added.
+     *
+     * <p>On read replicas every lookup is answered from the {@link AliasSnapshot} instead, there
+     * is no database to fall back to.
+     *
+     * @param alias the alias
+     * @return an optional containing the redirect (if present).
+     */
+    public Optional<Redirect> getRedirect(String alias) {
+        final Timer.Sample sample = metrics.startRedirectLookup();
+        final Optional<Redirect> redirect;
+        if (aliasSnapshot.isEnabled()) {
+            redirect = aliasSnapshot.lookup(alias).filter(found -> !found.isExpired(Instant.now()));
+        } else {
+            final Redirect indexed = aliasIndex.lookup(alias);
+            if (indexed != null) {
+                redirect = Optional.of(indexed).filter(found -> !found.isExpired(Instant.now()));
+            } else if (aliasBloomFilter.mightContain(alias)) {
+                redirect = aliasCache.get(alias, this::lookupRedirect);
+            } else {
+                redirect = Optional.empty();
+            }
+        }
+        metrics.stopRedirectLookup(sample, redirect.isPresent());
+
+        if (redirect.isPresent()) {
+            hotAliasTracker.record(alias);
+        }
+        return redirect;
+    }
+
+    /**
+     * Get the most redirected aliases over the tracking window, most redirected first. Counts are
+     * approximate and may be slightly over.
+     *
+     * @param n maximum number of aliases to return
+     * @return the aliases with their approximate redirect counts.
+     */
+    public List<HotAlias> getHotAliases(int n) {
+        if (n < 1 || n > hotAliasTracker.maxCandidates()) {
+            throw new ValidationFailedException("n must be between 1 and " + hotAliasTracker.maxCandidates());
+        }
+        return hotAliasTracker.top(n);
+    }
+
+    /**
+     * Writes every stored alias to the snapshot file that read replicas serve redirects from.
+     * Read replicas pick the new snapshot up on their next poll.
+     *
+     * @return the number of aliases written and the size of the file.
+     */
+    public SnapshotExport exportSnapshot() {
+        if (aliasSnapshot.isEnabled()) {
+            throw new ValidationFailedException("snapshots can't be exported from a read replica");
+        }
+        return aliasSnapshotWriter.export();
+    }
+
+    private Optional<Redirect> lookupRedirect(String alias) {
+        final long stamp = aliasIndex.stamp();
+        final Optional<Redirect> redirect = readRouting.readAlias(alias,
+                () -> aliasShards.findAlias(alias, () -> shortenedAddressDAO.findByAlias(alias)))
+            .map(ShortenedAddress::toRedirect);
+        redirect.ifPresent(found -> aliasIndex.fill(alias, found, stamp));
+        return redirect.filter(found -> !found.isExpired(Instant.now()));
     }
 
     /**
@@ -99,51 +456,227 @@ public class ShortenedAddressService {
      * @param alias the alias to delete.
      */
     public void deleteStoredAlias(String alias) {
-        final ShortenedAddress address = shortenedAddressDAO.findByAlias(alias)
-            .orElseThrow(() -> new NoSuchAliasException("The alias " + alias + " does not exist"));
+        metrics.time(Operation.DELETE, () -> delete(alias));
+    }
+
+    private void delete(String alias) {
+        final int deleted = aliasShards.onShardsOf(List.of(alias),
+                shardAliases -> List.of(shortenedAddressDAO.deleteByAlias(alias)))
+            .stream()
+            .mapToInt(Integer::intValue)
+            .sum();
+        // Invalidate either way, a miss may have been cached by another request in the meantime
+        aliasCache.invalidate(alias);
+        aliasIndex.remove(alias);
+
+        if (deleted == 0) {
+            throw new NoSuchAliasException("The alias " + alias + " does not exist");
+        }
+        invalidationBus.deleted(alias);
+        tableVersionDAO.bumpAfterCommit();
+    }
+
+    /**
+     * Deletes many stored aliases in a single transaction (per shard). Aliases that do not exist are reported
+     * back rather than failing the whole request.
+     *
+     * @param aliases the aliases to delete
+     * @return how many aliases were deleted and which ones did not exist.
+     */
+    public BulkDeleteResult deleteStoredAliases(List<String> aliases) {
+        return metrics.time(Operation.DELETE_BATCH, () -> deleteAll(aliases));
+    }
+
+    private BulkDeleteResult deleteAll(List<String> aliases) {
+        if (aliases == null || aliases.isEmpty() || aliases.size() > maxBatchSize) {
+            throw new ValidationFailedException("a batch must contain between 1 and " + maxBatchSize + " aliases");
+        }
+
+        final Set<String> deleted = new HashSet<>(
+            aliasShards.onShardsOf(aliases, shortenedAddressDAO::deleteAllByAlias));
+        aliasCache.invalidateAll(aliases);
+        aliasIndex.removeAll(aliases);
+        invalidationBus.deleted(deleted);
+        if (!deleted.isEmpty()) {
+            tableVersionDAO.bumpAfterCommit();
+        }
+
+        final List<String> notFound = aliases.stream()
+            .filter(alias -> !deleted.contains(alias))
+            .distinct()
+            .toList();
+        return new BulkDeleteResult(deleted.size(), notFound);
+    }
 
-        shortenedAddressDAO.deleteById(address.getId());
+    /**
+     * Get the validators for the stored URL listing. The version changes whenever an address is
+     * stored or deleted, and reading it costs a single row lookup, so a client whose copy is
+     * current can be answered without reading the listing. Call this before reading the listing:
+     * a write landing in between then leaves the listing labelled with the older version, which
+     * only means the client fetches it again next time.
+     *
+     * <p>The version carries no time, so the last modified time is when this instance first saw
+     * it. It can be later than the change, never earlier, and differs between instances. As it
+     * only has one second resolution, two changes in the same second can share it; the entity tag
+     * is the validator to rely on.
+     *
+     * <p>The version is always read from the primary. Listing is read from a replica only once
+     * the version is old enough for the replicas to have caught up, so a listing is never older
+     * than the version it is labelled with.
+     *
+     * @return the current version of the stored URLs.
+     */
+    public ListingVersion getListingVersion() {
+        final long version = tableVersionDAO.current();
+        final ListingVersion seen = listingVersion.get();
+        if (seen != null && seen.version() == version) {
+            return seen;
+        }
+        final ListingVersion current = new ListingVersion(version, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        // Racing requests may each see the version first; whichever is stored is as good as the other
+        listingVersion.compareAndSet(seen, current);
+        return current;
     }
 
     /**
-     * Get all the stored URLs in the system.
+     * Get a page of the stored URLs in the system, in the order they were stored. Uses keyset
+     * pagination so that every page costs the same regardless of how deep into the table it is.
      *
-     * @return the stored aliases.
+     * <p>When the addresses are sharded every shard is asked for a page after the cursor at once,
+     * and the pages are merged by id. Ids are unique across the shards, so the cursor stays a
+     * single id, but as each shard hands out ids from its own range the order is by id rather than
+     * by when the aliases were stored.
+     *
+     * @param limit maximum number of aliases to return
+     * @param after cursor returned with the previous page (or null for the first page)
+     * @return the page of stored aliases.
      */
-    public List<StoredAlias> getStoredURLs() {
-        return shortenedAddressDAO.findAll().stream()
-            .map(this::convertToStoredAlias)
+    public StoredAliasPage getStoredURLs(int limit, String after) {
+        return metrics.time(Operation.LIST, () -> page(limit, after));
+    }
+
+    private StoredAliasPage page(int limit, String after) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new ValidationFailedException("limit must be between 1 and " + maxPageSize);
+        }
+
+        final long cursor = parseCursor(after);
+        final List<ShortenedAddress> addresses = readListing(() -> aliasShards.onEveryShard(
+                () -> shortenedAddressDAO.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(limit))).stream()
+            .flatMap(List::stream)
+            .sorted(Comparator.comparing(ShortenedAddress::getId))
+            .limit(limit)
+            .toList());
+
+        final String baseURL = currentURLService.getRequestedURLWithNoPath();
+        final List<StoredAlias> items = addresses.stream()
+            .map(address -> convertToStoredAlias(address, baseURL))
             .toList();
+
+        final String nextCursor = addresses.size() < limit
+            ? null
+            : String.valueOf(addresses.getLast().getId());
+
+        return new StoredAliasPage(items, nextCursor);
+    }
+
+    /**
+     * Streams every stored URL in the system to the consumer, in the order they were stored.
+     * Rows are read through a database cursor so memory use stays flat however large the
+     * table is. Shards are streamed one after the other.
+     *
+     * @param consumer receives each stored alias
+     */
+    public void forEachStoredURL(Consumer<StoredAlias> consumer) {
+        final String baseURL = currentURLService.getRequestedURLWithNoPath();
+
+        readListing(() -> {
+            aliasShards.forEachShard(() -> shortenedAddressDAO.forEachAddress(
+                address -> consumer.accept(convertToStoredAlias(address, baseURL))));
+            return null;
+        });
     }
 
-    private StoredAlias convertToStoredAlias(ShortenedAddress shortenedAddress) {
+    // Listing is labelled with the primary's version (see getListingVersion), so it only goes to a
+    // replica once the newest version seen here is settled. The seen time is truncated to the
+    // second, hence the extra second
+    private <T> T readListing(Supplier<T> read) {
+        final ListingVersion seen = listingVersion.get();
+        return seen != null && readRouting.hasSettled(seen.lastModified().plusSeconds(1))
+            ? readRouting.onReplica(read)
+            : read.get();
+    }
+
+    private long parseCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new ValidationFailedException("after is not a valid cursor");
+        }
+    }
+
+    private StoredAlias convertToStoredAlias(ShortenedAddress shortenedAddress, String baseURL) {
         return new StoredAlias(
                 shortenedAddress.getAlias(), 
                 toURI(shortenedAddress.getOriginalUrl()), 
-                toAbsoluteURL(shortenedAddress.getAlias()));
+                toURI(baseURL + "/" + shortenedAddress.getAlias()));
     }
 
-    private URI toAbsoluteURL(String alias) {
-       return toURI(String.format("%s/%s", currentURLService.getRequestedURLWithNoPath(), alias));
+    // Package-private so ShortenedAddressServiceBenchmark can measure it directly
+    URI toAbsoluteURL(String alias) {
+       return toURI(currentURLService.getRequestedURLWithNoPath() + "/" + alias);
     }
 
     private URI toURI(String url) {
         return URI.create(url);
     }
 
-    private String generateNewAlias() {
-        // Generate new alias until one is not used
-        boolean used = true;
-        String generated = "";
+    // Package-private so ShortenedAddressServiceBenchmark can measure it directly
+    String generateNewAlias() {
+        if (aliasGenerator.isCollisionFree()) {
+            return aliasGenerator.generate();
+        }
+
+        // Skip anything the bloom filter thinks might be used. Give up after a few goes (the filter
+        // says everything might be used until it's built) and let the unique constraint decide.
+        String generated = aliasGenerator.generate();
+        for (int i = 1; i < MAX_INSERT_ATTEMPTS && aliasBloomFilter.mightContain(generated); i++) {
+            generated = aliasGenerator.generate();
+        }
 
-        while (used) {
-            generated = RandomStringUtils.secure()
-                    .nextAlphanumeric(6, maxAliasSize);
+        return generated;
+    }
 
-            used = shortenedAddressDAO.findByAlias(generated).isPresent();
+    private List<String> generateNewAliases(int count, Set<String> reserved) {
+        final List<String> generated = new ArrayList<>(count);
+        if (aliasGenerator.isCollisionFree()) {
+            while (generated.size() < count) {
+                generated.add(aliasGenerator.generate());
+            }
+            return generated;
         }
 
+        // Generate candidates for everything still needed and check them all with one lookup,
+        // repeating for any that turn out to be used
+        final Set<String> chosen = new HashSet<>(reserved);
+        while (generated.size() < count) {
+            final List<String> candidates = new ArrayList<>();
+            while (candidates.size() < count - generated.size()) {
+                final String candidate = aliasGenerator.generate();
+                if (chosen.add(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+
+            final Set<String> used = requestValidation.existingAliases(candidates);
+            candidates.stream()
+                .filter(candidate -> !used.contains(candidate))
+                .forEach(generated::add);
+        }
         return generated;
     }
-    
+
 }
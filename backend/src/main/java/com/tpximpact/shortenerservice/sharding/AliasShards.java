@@ -0,0 +1,268 @@
+package com.tpximpact.shortenerservice.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides which shard each alias is stored on when {@code shortened_address} is split across
+ * several databases ({@code alias.sharding.shardUrls}, with {@code spring.datasource} as shard 0).
+ * Work wrapped in {@link #onShard(int, Supplier)} takes its connection from that shard through the
+ * {@link ShardRoutingDataSource}; everything else, including the other tables, uses shard 0.
+ *
+ * <p>Aliases are spread with a {@link ShardRing}, so lookups, inserts and deletes of an alias go
+ * to a single shard, while listing and the background jobs visit every shard. Shards can only be
+ * added to the end of the list. While the aliases the new shards take over are moved by the
+ * {@link ShardRebalancer}, {@code alias.sharding.previousShardCount} says how many shards there
+ * were before, and an alias is looked for (and deleted) on the shard it is moving from as well.
+ *
+ * <p>With no extra shards configured everything runs on the one database as before.
+ */
+@Component
+public class AliasShards {
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private final ShardRing ring;
+    private final ShardRing previousRing;
+
+    /**
+     * Creates the shard map.
+     *
+     * @param shardUrls JDBC URLs of the shards after the first, nothing is sharded if there are none
+     * @param virtualNodes points per shard on the hash ring
+     * @param previousShardCount number of shards before the last ones were added, while their
+     *        aliases are being moved to them, 0 otherwise
+     */
+    public AliasShards(
+            @Value("${alias.sharding.shardUrls}") List<String> shardUrls,
+            @Value("${alias.sharding.virtualNodes}") int virtualNodes,
+            @Value("${alias.sharding.previousShardCount}") int previousShardCount) {
+        final int shards = 1 + (int) shardUrls.stream().filter(url -> !url.isBlank()).count();
+        if (previousShardCount < 0 || previousShardCount > shards) {
+            throw new IllegalArgumentException("alias.sharding.previousShardCount must be between 0 and " + shards
+                + ", shards can only be added");
+        }
+        this.ring = new ShardRing(shards, virtualNodes);
+        this.previousRing = previousShardCount == 0 || previousShardCount == shards
+            ? ring
+            : new ShardRing(previousShardCount, virtualNodes);
+    }
+
+    /**
+     * @return the shard the current thread's connections come from, checked by {@link ShardRoutingDataSource}
+     */
+    public static int currentShard() {
+        final Integer shard = SHARD.get();
+        return shard == null ? 0 : shard;
+    }
+
+    /**
+     * @return whether aliases are spread over more than one database
+     */
+    public boolean isSharded() {
+        return ring.shards() > 1;
+    }
+
+    /**
+     * @return the number of shards
+     */
+    public int count() {
+        return ring.shards();
+    }
+
+    /**
+     * @return the number of shards before the last ones were added, the same as {@link #count()}
+     *         unless aliases are being moved to new shards
+     */
+    public int previousCount() {
+        return previousRing.shards();
+    }
+
+    /**
+     * @return whether aliases are being moved to newly added shards
+     */
+    public boolean isRebalancing() {
+        return previousRing != ring;
+    }
+
+    /**
+     * @param alias an alias
+     * @return the shard the alias is stored on
+     */
+    public int shardOf(String alias) {
+        return ring.ownerOf(alias);
+    }
+
+    /**
+     * @param alias an alias
+     * @return the shard the alias was stored on before the last shards were added
+     */
+    public int previousShardOf(String alias) {
+        return previousRing.ownerOf(alias);
+    }
+
+    /**
+     * Runs work against one shard. A transaction keeps the connection, and so the shard, it
+     * started with, so the work should start its own transactions rather than join one.
+     *
+     * @param shard the shard
+     * @param work the work
+     * @return what the work returned.
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (!isSharded()) {
+            return work.get();
+        }
+        final Integer outer = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(outer);
+            }
+        }
+    }
+
+    /**
+     * Runs work against the shard an alias is stored on.
+     *
+     * @param alias the alias
+     * @param work the work
+     * @return what the work returned.
+     */
+    public <T> T onShardOf(String alias, Supplier<T> work) {
+        return onShard(shardOf(alias), work);
+    }
+
+    /**
+     * Looks an alias up on its shard, and on the shard it is moving from if it isn't there yet.
+     *
+     * @param alias the alias
+     * @param lookup the lookup
+     * @return the lookup's result.
+     */
+    public <T> Optional<T> findAlias(String alias, Supplier<Optional<T>> lookup) {
+        final Optional<T> found = onShardOf(alias, lookup);
+        return found.isPresent() ? found : findOnPreviousShard(alias, lookup);
+    }
+
+    /**
+     * Looks an alias up on the shard it is moving from. The unique constraint on the alias only
+     * covers one shard, so this is how a new alias is checked against one that hasn't moved yet.
+     *
+     * @param alias the alias
+     * @param lookup the lookup
+     * @return the lookup's result, or empty if the alias isn't moving.
+     */
+    public <T> Optional<T> findOnPreviousShard(String alias, Supplier<Optional<T>> lookup) {
+        final int previous = previousShardOf(alias);
+        return previous == shardOf(alias) ? Optional.empty() : onShard(previous, lookup);
+    }
+
+    /**
+     * Groups items by the shard their alias is stored on.
+     *
+     * @param items the items
+     * @param alias gives the alias of an item
+     * @return the items for each shard, in shard order, keeping the order they were given in.
+     */
+    public <T> Map<Integer, List<T>> byShard(Collection<T> items, Function<T, String> alias) {
+        final Map<Integer, List<T>> byShard = new TreeMap<>();
+        for (T item : items) {
+            byShard.computeIfAbsent(shardOf(alias.apply(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return byShard;
+    }
+
+    /**
+     * Runs work against every shard that may hold some of the aliases, passing each shard the
+     * aliases it may hold: the shard they are stored on, and while rebalancing the shard they
+     * are moving from as well. Shards are visited one after the other.
+     *
+     * @param aliases the aliases
+     * @param work the work for one shard's aliases
+     * @return everything the work returned, one shard after the other.
+     */
+    public <T> List<T> onShardsOf(Collection<String> aliases, Function<List<String>, ? extends Collection<T>> work) {
+        if (!isSharded()) {
+            return new ArrayList<>(work.apply(aliases instanceof List<String> list ? list : List.copyOf(aliases)));
+        }
+        final Map<Integer, List<String>> byShard = byShard(aliases, Function.identity());
+        if (isRebalancing()) {
+            for (String alias : aliases) {
+                final int previous = previousShardOf(alias);
+                if (previous != shardOf(alias)) {
+                    byShard.computeIfAbsent(previous, shard -> new ArrayList<>()).add(alias);
+                }
+            }
+        }
+
+        final List<T> results = new ArrayList<>();
+        byShard.forEach((shard, shardAliases) -> results.addAll(onShard(shard, () -> work.apply(shardAliases))));
+        return results;
+    }
+
+    /**
+     * Runs a read against every shard at once, each on its own virtual thread.
+     *
+     * @param read the read
+     * @return what the read returned on each shard, in shard order.
+     */
+    public <T> List<T> onEveryShard(Supplier<T> read) {
+        if (!isSharded()) {
+            return List.of(read.get());
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final List<Future<T>> reads = new ArrayList<>(count());
+            for (int shard = 0; shard < count(); shard++) {
+                final int target = shard;
+                reads.add(executor.submit(() -> onShard(target, read)));
+            }
+
+            final List<T> results = new ArrayList<>(reads.size());
+            for (Future<T> future : reads) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while reading the shards", e);
+        }
+    }
+
+    /**
+     * Runs work against every shard, one after the other.
+     *
+     * @param work the work
+     */
+    public void forEachShard(Runnable work) {
+        for (int shard = 0; shard < count(); shard++) {
+            onShard(shard, () -> {
+                work.run();
+                return null;
+            });
+        }
+    }
+
+}
@@ -0,0 +1,206 @@
+package com.tpximpact.shortenerservice.sharding;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.repository.TableVersionDAO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Moves aliases to the shards that own them after shards have been added, while the service keeps
+ * running. Adding a shard goes:
+ * <ol>
+ * <li>append its URL to {@code alias.sharding.shardUrls} and set
+ * {@code alias.sharding.previousShardCount} to the number of shards before, on every instance.
+ * New aliases then go to their new shard, and lookups and deletes also try the shard an alias is
+ * moving from</li>
+ * <li>once every instance runs with that, set {@code alias.sharding.rebalance.enabled} on one of
+ * them. On startup it walks each previous shard in id order, {@code alias.sharding.rebalance.batchSize}
+ * rows at a time, copies the rows that now belong elsewhere to their shard and deletes them where
+ * they were, repeating until a pass moves nothing</li>
+ * <li>once it logs that it has finished, set {@code previousShardCount} back to 0 and turn the
+ * rebalance off</li>
+ * </ol>
+ *
+ * <p>A row is copied before it is deleted, so it can always be found on one of the two shards, and
+ * a move that is stopped part way is picked up again on the next start. A moved row gets a new id,
+ * so a listing being paged through while rows move may show one twice or miss it. Moved rows keep
+ * their alias and URL, so no cache needs invalidating; only the listing version is moved on.
+ */
+@Component
+public class ShardRebalancer implements SmartLifecycle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final AliasShards aliasShards;
+    private final ShortenedAddressDAO shortenedAddressDAO;
+    private final TableVersionDAO tableVersionDAO;
+
+    private final Counter moved;
+
+    private volatile boolean running;
+    private volatile boolean stopping;
+    private Thread rebalancer;
+
+    /**
+     * Creates the rebalancer. The moving thread is started by the application context.
+     *
+     * @param enabled whether this instance moves aliases, only while shards are being added
+     * @param batchSize rows read from a shard at a time
+     * @param aliasShards which shard each alias belongs on, now and before the shards were added
+     * @param shortenedAddressDAO the persistence layer
+     * @param tableVersionDAO version of the stored addresses, moved on after each batch
+     * @param meterRegistry registry used to publish the number of aliases moved
+     */
+    public ShardRebalancer(
+            @Value("${alias.sharding.rebalance.enabled}") boolean enabled,
+            @Value("${alias.sharding.rebalance.batchSize}") int batchSize,
+            AliasShards aliasShards,
+            ShortenedAddressDAO shortenedAddressDAO,
+            TableVersionDAO tableVersionDAO,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled && aliasShards.isRebalancing();
+        this.batchSize = batchSize;
+        this.aliasShards = aliasShards;
+        this.shortenedAddressDAO = shortenedAddressDAO;
+        this.tableVersionDAO = tableVersionDAO;
+
+        this.moved = Counter.builder("alias.sharding.moved")
+            .description("Aliases moved to the shard that owns them after shards were added")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Makes one pass over every previous shard, moving the aliases that belong on another shard.
+     *
+     * @return the number of aliases moved
+     */
+    public long rebalance() {
+        long total = 0;
+        for (int shard = 0; shard < aliasShards.previousCount(); shard++) {
+            total += rebalance(shard);
+        }
+        return total;
+    }
+
+    private long rebalance(int shard) {
+        long total = 0;
+        long after = 0;
+        List<ShortenedAddress> rows;
+        do {
+            final long cursor = after;
+            rows = aliasShards.onShard(shard, () ->
+                shortenedAddressDAO.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(batchSize)));
+            if (!rows.isEmpty()) {
+                after = rows.getLast().getId();
+                total += move(shard, rows);
+            }
+        } while (rows.size() >= batchSize && !stopping);
+        return total;
+    }
+
+    private int move(int from, List<ShortenedAddress> rows) {
+        final List<ShortenedAddress> leaving = rows.stream()
+            .filter(row -> aliasShards.shardOf(row.getAlias()) != from)
+            .toList();
+
+        int count = 0;
+        final Map<Integer, List<ShortenedAddress>> byShard = aliasShards.byShard(leaving, ShortenedAddress::getAlias);
+        for (Map.Entry<Integer, List<ShortenedAddress>> target : byShard.entrySet()) {
+            final int to = target.getKey();
+            final List<String> aliases = target.getValue().stream().map(ShortenedAddress::getAlias).toList();
+
+            // Rows copied by a move that stopped before deleting them are already there
+            final Set<String> copied = new HashSet<>(
+                aliasShards.onShard(to, () -> shortenedAddressDAO.findExistingAliases(aliases)));
+            final List<ShortenedAddress> copies = target.getValue().stream()
+                .filter(row -> !copied.contains(row.getAlias()))
+                .map(row -> ShortenedAddress.builder()
+                    .alias(row.getAlias())
+                    .originalUrl(row.getOriginalUrl())
+                    .redirectStatus(row.getRedirectStatus())
+                    .expiresAt(row.getExpiresAt())
+                    .build())
+                .toList();
+            aliasShards.onShard(to, () -> {
+                shortenedAddressDAO.insertAll(copies);
+                return null;
+            });
+
+            final Set<String> removed = aliasShards.onShard(from,
+                () -> shortenedAddressDAO.deleteAllByAlias(aliases));
+            // Deleted by a request since they were read, so they mustn't come back on the new shard
+            final List<String> deletedMeanwhile = aliases.stream().filter(alias -> !removed.contains(alias)).toList();
+            if (!deletedMeanwhile.isEmpty()) {
+                aliasShards.onShard(to, () -> shortenedAddressDAO.deleteAllByAlias(deletedMeanwhile));
+            }
+            count += removed.size();
+        }
+
+        if (count > 0) {
+            tableVersionDAO.bumpAfterCommit();
+            moved.increment(count);
+        }
+        return count;
+    }
+
+    @Override
+    public void start() {
+        if (enabled && !running) {
+            running = true;
+            rebalancer = Thread.ofPlatform().name("shard-rebalancer").daemon().start(this::rebalanceLoop);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        stopping = true;
+        try {
+            rebalancer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void rebalanceLoop() {
+        LOGGER.info("Moving aliases from {} shards to {}", aliasShards.previousCount(), aliasShards.count());
+        long total = 0;
+        try {
+            for (long pass; !stopping && (pass = rebalance()) > 0; ) {
+                total += pass;
+                LOGGER.info("Moved {} aliases to their new shard", total);
+            }
+            if (!stopping) {
+                LOGGER.info("Finished moving aliases ({} moved), alias.sharding.previousShardCount can be set to 0",
+                    total);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to move aliases to their new shard, restart to carry on", e);
+        }
+    }
+
+}
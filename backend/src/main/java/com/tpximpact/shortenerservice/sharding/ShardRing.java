@@ -0,0 +1,72 @@
+package com.tpximpact.shortenerservice.sharding;
+
+import java.util.Arrays;
+
+import com.tpximpact.shortenerservice.util.Murmur3;
+
+/**
+ * Consistent hash ring that maps aliases to shards. Every shard is placed on the ring at
+ * {@code virtualNodes} points, and an alias belongs to the shard owning the first point at or
+ * after the alias's hash, wrapping round at the end. The points only depend on a shard's index,
+ * so adding a shard to the end of the list only moves the aliases that the new shard takes over,
+ * about {@code 1 / shards} of them, and every other alias stays where it was.
+ */
+public final class ShardRing {
+
+    private final int shards;
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * Builds the ring.
+     *
+     * @param shards number of shards, at least one
+     * @param virtualNodes points per shard, more spread the aliases more evenly
+     */
+    public ShardRing(int shards, int virtualNodes) {
+        if (shards < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("a ring needs at least one shard and one point per shard");
+        }
+        this.shards = shards;
+
+        final long[][] placed = new long[shards * virtualNodes][];
+        for (int shard = 0; shard < shards; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                final long point = Murmur3.hash64("shard-" + shard + "-" + node);
+                placed[shard * virtualNodes + node] = new long[] { point, shard };
+            }
+        }
+        // Shards break (unlikely) ties so that every instance builds exactly the same ring
+        Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        this.points = new long[placed.length];
+        this.owners = new int[placed.length];
+        for (int i = 0; i < placed.length; i++) {
+            points[i] = placed[i][0];
+            owners[i] = (int) placed[i][1];
+        }
+    }
+
+    /**
+     * @return the number of shards on the ring
+     */
+    public int shards() {
+        return shards;
+    }
+
+    /**
+     * @param alias an alias
+     * @return the index of the shard the alias is stored on
+     */
+    public int ownerOf(String alias) {
+        if (shards == 1) {
+            return 0;
+        }
+        int index = Arrays.binarySearch(points, Murmur3.hash64(alias));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+}
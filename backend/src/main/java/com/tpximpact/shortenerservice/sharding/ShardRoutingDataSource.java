@@ -0,0 +1,73 @@
+package com.tpximpact.shortenerservice.sharding;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Datasource that hands out connections to the shard chosen with
+ * {@link AliasShards#onShard(int, java.util.function.Supplier)}, or to shard 0 (the usual
+ * {@code spring.datasource}) otherwise. The choice is made when a connection is taken from the
+ * pool, so a transaction keeps the shard it started on.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final List<HikariDataSource> shards;
+
+    /**
+     * Creates the datasource.
+     *
+     * @param shards pools of connections to each shard, in shard order, at least two
+     */
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        if (shards.size() < 2) {
+            throw new IllegalArgumentException("at least two shards are needed");
+        }
+        this.shards = List.copyOf(shards);
+
+        final Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.getFirst());
+        // Fail rather than quietly use shard 0 if a key is ever wrong
+        setLenientFallback(false);
+    }
+
+    /**
+     * @return the number of shards
+     */
+    public int count() {
+        return shards.size();
+    }
+
+    /**
+     * @param shard a shard
+     * @return the pool of connections to that shard
+     */
+    public DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return AliasShards.currentShard();
+    }
+
+    /**
+     * Closes the pools of every shard.
+     */
+    @Override
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+
+}
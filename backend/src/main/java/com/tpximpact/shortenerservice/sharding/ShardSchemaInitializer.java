@@ -0,0 +1,114 @@
+package com.tpximpact.shortenerservice.sharding;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.HibernatePersistenceConfiguration;
+import org.hibernate.tool.schema.Action;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+
+import jakarta.persistence.ValidationMode;
+
+/**
+ * Gives the shards after the first their {@code shortened_address} table. Spring Boot's Hibernate
+ * only manages shard 0's schema, so each other shard gets a short-lived Hibernate of its own at
+ * startup, mapping just {@link ShortenedAddress} with the same naming strategies, that applies
+ * {@code spring.jpa.hibernate.ddl-auto} the way shard 0 does: {@code none} and {@code validate}
+ * as they are, and anything else as {@code update} so a shard is never dropped.
+ *
+ * <p>Ids come from a sequence on whichever shard an insert happens to fetch the next block of ids
+ * on, and are then used on any shard. Each shard's sequence therefore counts in its own range,
+ * starting just after {@code shard << 48}, so that ids are unique across all of the shards. Shard 0 keeps
+ * its existing sequence.
+ */
+public class ShardSchemaInitializer implements InitializingBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardSchemaInitializer.class);
+
+    // Must match the sequence generator on ShortenedAddress
+    private static final String SEQUENCE = "shortened_address_seq";
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final String[] NAMING_SETTINGS = {
+        AvailableSettings.PHYSICAL_NAMING_STRATEGY, AvailableSettings.IMPLICIT_NAMING_STRATEGY
+    };
+
+    private final ShardRoutingDataSource dataSource;
+    private final Map<String, Object> hibernateSettings;
+    private final Action action;
+
+    /**
+     * Creates the initializer.
+     *
+     * @param dataSource the shards
+     * @param hibernateSettings settings of shard 0's Hibernate, for its naming strategies
+     * @param ddlAuto the {@code spring.jpa.hibernate.ddl-auto} setting
+     */
+    public ShardSchemaInitializer(ShardRoutingDataSource dataSource, Map<String, Object> hibernateSettings,
+            String ddlAuto) {
+        this.dataSource = dataSource;
+        this.hibernateSettings = hibernateSettings;
+        this.action = switch (ddlAuto) {
+            case "none" -> Action.NONE;
+            case "validate" -> Action.VALIDATE;
+            default -> Action.UPDATE;
+        };
+    }
+
+    /**
+     * Creates, updates or validates the schema of every shard after the first.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (action == Action.NONE) {
+            return;
+        }
+        for (int shard = 1; shard < dataSource.count(); shard++) {
+            initialize(shard, dataSource.shard(shard));
+        }
+    }
+
+    private void initialize(int shard, DataSource shardDataSource) {
+        if (action == Action.UPDATE) {
+            // Created before Hibernate looks, which then leaves it as it is. Hibernate's pooled
+            // optimizer takes each sequence value as the last id of a block
+            new JdbcTemplate(shardDataSource).execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE
+                + " START WITH " + (firstId(shard) + ALLOCATION_SIZE - 1) + " INCREMENT BY " + ALLOCATION_SIZE);
+        }
+
+        final Map<String, Object> settings = new HashMap<>();
+        for (String setting : NAMING_SETTINGS) {
+            if (hibernateSettings.get(setting) != null) {
+                settings.put(setting, hibernateSettings.get(setting));
+            }
+        }
+        settings.put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, shardDataSource);
+
+        final HibernatePersistenceConfiguration configuration = new HibernatePersistenceConfiguration("shard-" + shard)
+            .managedClass(ShortenedAddress.class)
+            .validationMode(ValidationMode.NONE)
+            .schemaToolingAction(action)
+            .properties(settings);
+        try (SessionFactory ignored = configuration.createEntityManagerFactory()) {
+            LOGGER.info("Applied {} to the schema of shard {}", action.getExternalHbm2ddlName(), shard);
+        }
+    }
+
+    /**
+     * @param shard a shard
+     * @return the first id handed out by the shard's sequence
+     */
+    static long firstId(int shard) {
+        return ((long) shard << 48) + 1;
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.tpximpact.shortenerservice.snapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.model.Redirect;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Answers redirects on read replicas, which have no database, from the snapshot file written by
+ * {@link AliasSnapshotWriter}. The file is memory mapped, so loading it doesn't read it and
+ * lookups cost a few reads from the page cache.
+ *
+ * <p>A background thread checks the file every {@code alias.snapshot.pollInterval}. When a new
+ * snapshot has been moved into place it is mapped and swapped in for the next lookup; lookups
+ * already running finish against the old mapping, which is released once nothing refers to it.
+ * A file that can't be loaded is logged and skipped, leaving the current snapshot in use.
+ */
+@Component
+public class AliasSnapshot implements SmartLifecycle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AliasSnapshot.class);
+
+    private final boolean enabled;
+    private final Path path;
+    private final long pollIntervalNanos;
+
+    private final Counter loads;
+    private final Counter failures;
+
+    private volatile AliasSnapshotFile current;
+    private FileVersion loadedVersion;
+
+    private volatile boolean running;
+    private Thread watcher;
+
+    /**
+     * Creates the snapshot reader. The first snapshot is loaded when the application context starts.
+     *
+     * @param readReplica whether redirects are served from the snapshot
+     * @param path the snapshot file
+     * @param pollInterval how often to check for a new snapshot
+     * @param meterRegistry registry used to publish the snapshot size and loads
+     */
+    public AliasSnapshot(
+            @Value("${alias.snapshot.readReplica}") boolean readReplica,
+            @Value("${alias.snapshot.path}") String path,
+            @Value("${alias.snapshot.pollInterval}") Duration pollInterval,
+            MeterRegistry meterRegistry) {
+        this.enabled = readReplica;
+        this.path = Path.of(path);
+        this.pollIntervalNanos = pollInterval.toNanos();
+
+        this.loads = Counter.builder("alias.snapshot.loads").register(meterRegistry);
+        this.failures = Counter.builder("alias.snapshot.failures")
+            .description("Snapshot files that could not be loaded")
+            .register(meterRegistry);
+        Gauge.builder("alias.snapshot.entries", this, snapshot -> snapshot.current == null ? 0 : snapshot.current.entries())
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return true if this instance is a read replica serving redirects from the snapshot.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Looks up the redirect for an alias in the current snapshot.
+     *
+     * @param alias the alias
+     * @return the redirect, or empty if the alias is not in the snapshot or no snapshot has been loaded
+     */
+    public Optional<Redirect> lookup(String alias) {
+        final AliasSnapshotFile snapshot = current;
+        return snapshot == null ? Optional.empty() : Optional.ofNullable(snapshot.lookup(alias));
+    }
+
+    /**
+     * Pages the current snapshot into memory ahead of the first lookups.
+     *
+     * @param maxBytes most of the file to load
+     * @return the number of bytes loaded
+     */
+    public long preload(long maxBytes) {
+        final AliasSnapshotFile snapshot = current;
+        return snapshot == null ? 0 : snapshot.preload(maxBytes);
+    }
+
+    /**
+     * Loads the snapshot file if it has changed since it was last loaded.
+     *
+     * @return true if a new snapshot was swapped in
+     */
+    synchronized boolean refresh() {
+        final FileVersion version;
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            version = new FileVersion(attributes.fileKey(), attributes.lastModifiedTime(), attributes.size());
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to check the alias snapshot {}", path, e);
+            return false;
+        }
+        if (version.equals(loadedVersion)) {
+            return false;
+        }
+
+        // Remember the version even if it fails, so a bad file is only reported once
+        loadedVersion = version;
+        try {
+            current = AliasSnapshotFile.open(path);
+            loads.increment();
+            LOGGER.info("Loaded alias snapshot {} with {} aliases", path, current.entries());
+            return true;
+        } catch (IOException e) {
+            failures.increment();
+            LOGGER.warn("Failed to load the alias snapshot {}, keeping the previous one", path, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void start() {
+        if (enabled && !running) {
+            if (!refresh() && current == null) {
+                LOGGER.warn("No alias snapshot at {} yet, every alias will be reported as not found", path);
+            }
+            running = true;
+            watcher = Thread.ofPlatform().name("alias-snapshot-watcher").daemon().start(this::watchLoop);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(watcher);
+        try {
+            watcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void watchLoop() {
+        while (running) {
+            LockSupport.parkNanos(pollIntervalNanos);
+            if (running) {
+                refresh();
+            }
+        }
+    }
+
+    /**
+     * Identifies a version of the snapshot file. A new snapshot is renamed into place, so it is a
+     * different file (inode) even if its size and modification time happen to match.
+     */
+    private record FileVersion(Object fileKey, FileTime lastModified, long size) {
+
+    }
+
+}
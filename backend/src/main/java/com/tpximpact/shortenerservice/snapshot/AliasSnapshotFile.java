@@ -0,0 +1,174 @@
+package com.tpximpact.shortenerservice.snapshot;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+import com.tpximpact.shortenerservice.model.Redirect;
+
+/**
+ * A snapshot file mapped into memory. The file is an open addressing hash table of every alias
+ * and the URL it redirects to:
+ *
+ * <pre>
+ * header   magic (int), version (int), slot count (int), entry count (int),
+ *          data offset (long), data length (long)
+ * slots    slot count longs: the top 32 bits of the alias hash, then the entry's offset in the
+ *          data region plus one (0 for an empty slot)
+ * data     per entry: alias length in chars (unsigned short), alias chars, redirect status
+ *          (unsigned short, 0 for the configured default), expiry in epoch milliseconds (long, 0
+ *          if the alias never expires), URL length in bytes (int), URL bytes (UTF-8)
+ * </pre>
+ *
+ * <p>Opening the file only checks the header, pages are loaded by the OS as lookups touch them.
+ * Lookups read the mapping with absolute gets so the only objects they create are for the
+ * redirect that is found. The whole file is mapped as one buffer, which limits it to 2 GB.
+ */
+final class AliasSnapshotFile {
+
+    static final int MAGIC = 0x414c5331;
+    static final int VERSION = 3;
+    static final int HEADER_SIZE = 32;
+    static final int SLOT_SIZE = Long.BYTES;
+    static final long NO_EXPIRY = 0;
+
+    private final MappedByteBuffer buffer;
+    private final int slotMask;
+    private final int entries;
+    private final int dataOffset;
+
+    private AliasSnapshotFile(MappedByteBuffer buffer, int slotCount, int entries, int dataOffset) {
+        this.buffer = buffer;
+        this.slotMask = slotCount - 1;
+        this.entries = entries;
+        this.dataOffset = dataOffset;
+    }
+
+    /**
+     * Maps a snapshot file. The mapping stays valid after the file is replaced or deleted.
+     *
+     * @param path the file
+     * @return the mapped snapshot
+     * @throws IOException if the file can't be read or is not a snapshot
+     */
+    static AliasSnapshotFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is not an alias snapshot (size " + size + ")");
+            }
+
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            final int magic = buffer.getInt(0);
+            final int version = buffer.getInt(4);
+            final int slotCount = buffer.getInt(8);
+            final int entries = buffer.getInt(12);
+            final long dataOffset = buffer.getLong(16);
+            final long dataLength = buffer.getLong(24);
+
+            if (magic != MAGIC || version != VERSION) {
+                throw new IOException(path + " is not a version " + VERSION + " alias snapshot");
+            }
+            if (slotCount < 1 || Integer.bitCount(slotCount) != 1 || entries < 0 || entries >= slotCount
+                    || dataOffset != HEADER_SIZE + (long) slotCount * SLOT_SIZE || dataOffset + dataLength != size) {
+                throw new IOException(path + " has an invalid header, it may be truncated");
+            }
+            return new AliasSnapshotFile(buffer, slotCount, entries, (int) dataOffset);
+        }
+    }
+
+    /**
+     * Hash used for both writing and looking up aliases. Works on chars so that looking up an
+     * alias doesn't need to encode it first.
+     *
+     * @param alias the alias
+     * @return the 64 bit hash
+     */
+    static long hash(String alias) {
+        // FNV-1a over the chars, then the MurmurHash3 finaliser to spread the bits
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < alias.length(); i++) {
+            h = (h ^ alias.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Looks up the redirect for an alias.
+     *
+     * @param alias the alias
+     * @return the redirect, or null if the alias is not in the snapshot
+     */
+    Redirect lookup(String alias) {
+        final long hash = hash(alias);
+        final int fragment = (int) (hash >>> 32);
+
+        // At most half the slots are used so an empty slot always ends the probe
+        for (int slot = (int) hash & slotMask; ; slot = (slot + 1) & slotMask) {
+            final long value = buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE);
+            if (value == 0) {
+                return null;
+            }
+            if ((int) (value >>> 32) == fragment) {
+                final int entry = dataOffset + (int) ((value & 0xffffffffL) - 1);
+                if (matches(entry, alias)) {
+                    return readRedirect(entry + Short.BYTES + alias.length() * Character.BYTES);
+                }
+            }
+        }
+    }
+
+    /**
+     * Asks the OS to load the file into memory before lookups need it, up to a limit. The slot
+     * table comes first in the file and is loaded first.
+     *
+     * @param maxBytes most of the file to load
+     * @return the number of bytes loaded
+     */
+    long preload(long maxBytes) {
+        final int length = (int) Math.min(buffer.capacity(), maxBytes);
+        buffer.slice(0, length).load();
+        return length;
+    }
+
+    /**
+     * @return the number of aliases in the snapshot.
+     */
+    int entries() {
+        return entries;
+    }
+
+    private boolean matches(int entry, String alias) {
+        final int length = buffer.getShort(entry) & 0xffff;
+        if (length != alias.length()) {
+            return false;
+        }
+        for (int i = 0, position = entry + Short.BYTES; i < length; i++, position += Character.BYTES) {
+            if (buffer.getChar(position) != alias.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Redirect readRedirect(int position) {
+        final int status = buffer.getShort(position) & 0xffff;
+        final long expiresAt = buffer.getLong(position + Short.BYTES);
+        final int urlPosition = position + Short.BYTES + Long.BYTES;
+        final byte[] url = new byte[buffer.getInt(urlPosition)];
+        buffer.get(urlPosition + Integer.BYTES, url);
+        return new Redirect(URI.create(new String(url, StandardCharsets.UTF_8)), status,
+            expiresAt == NO_EXPIRY ? null : Instant.ofEpochMilli(expiresAt));
+    }
+
+}
@@ -0,0 +1,226 @@
+package com.tpximpact.shortenerservice.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tpximpact.shortenerservice.model.Redirect;
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.model.SnapshotExport;
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+
+/**
+ * Exports every stored alias to the snapshot file read by {@link AliasSnapshot} on read replicas
+ * (see {@link AliasSnapshotFile} for the format).
+ *
+ * <p>Rows are streamed from the database straight into the data region of a temporary file, so
+ * the only memory used per alias is its hash and offset (12 bytes) until the slot table is built.
+ * The finished file is moved over the old one in a single rename, so readers see either the old
+ * snapshot or the new one and never a partly written file. Aliases that have already expired are
+ * left out; the rest keep their expiry and stop redirecting on the replicas when it passes.
+ */
+@Component
+public class AliasSnapshotWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AliasSnapshotWriter.class);
+
+    private final ShortenedAddressDAO shortenedAddressDAO;
+    private final AliasShards aliasShards;
+    private final Path path;
+
+    /**
+     * Creates the writer.
+     *
+     * @param shortenedAddressDAO persistence layer used to stream the stored aliases
+     * @param aliasShards the shards to stream the aliases of, one after the other
+     * @param path where the snapshot is written
+     */
+    public AliasSnapshotWriter(ShortenedAddressDAO shortenedAddressDAO, AliasShards aliasShards,
+            @Value("${alias.snapshot.path}") String path) {
+        this.shortenedAddressDAO = shortenedAddressDAO;
+        this.aliasShards = aliasShards;
+        this.path = Path.of(path);
+    }
+
+    /**
+     * Writes a new snapshot of every stored alias, replacing the previous one.
+     *
+     * @return the number of aliases written and the size of the file.
+     */
+    public synchronized SnapshotExport export() {
+        try {
+            final long start = System.nanoTime();
+            final SnapshotExport export = write(path,
+                consumer -> aliasShards.forEachShard(() -> shortenedAddressDAO.forEachAddress(consumer)));
+            LOGGER.info("Wrote {} aliases to {} in {} ms", export.entries(), path,
+                (System.nanoTime() - start) / 1_000_000);
+            return export;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the alias snapshot to " + path, e);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the addresses a source produces.
+     *
+     * @param target the snapshot file, replaced atomically once the new one is complete
+     * @param source passes every address to the consumer it is given
+     * @return the number of aliases written and the size of the file.
+     * @throws IOException if the file can't be written
+     */
+    static SnapshotExport write(Path target, Consumer<Consumer<ShortenedAddress>> source) throws IOException {
+        final Path data = target.resolveSibling(target.getFileName() + ".data");
+        final Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            final EntryWriter entries = new EntryWriter(data);
+            try (entries) {
+                source.accept(entries);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            final int slotCount = slotCount(entries.count);
+            final long dataOffset = AliasSnapshotFile.HEADER_SIZE + (long) slotCount * AliasSnapshotFile.SLOT_SIZE;
+            final long size = dataOffset + entries.position;
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot of " + entries.count + " aliases would be " + size
+                    + " bytes, the limit is 2 GB");
+            }
+
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+                    FileChannel in = FileChannel.open(data, StandardOpenOption.READ)) {
+                final ByteBuffer header = ByteBuffer.allocate(AliasSnapshotFile.HEADER_SIZE)
+                    .putInt(AliasSnapshotFile.MAGIC)
+                    .putInt(AliasSnapshotFile.VERSION)
+                    .putInt(slotCount)
+                    .putInt(entries.count)
+                    .putLong(dataOffset)
+                    .putLong(entries.position)
+                    .flip();
+                writeFully(out, header);
+                writeSlots(out, entries, slotCount);
+
+                for (long copied = 0; copied < entries.position; ) {
+                    copied += out.transferFrom(in, dataOffset + copied, entries.position - copied);
+                }
+                out.force(true);
+            }
+
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return new SnapshotExport(entries.count, size);
+        } finally {
+            Files.deleteIfExists(data);
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeSlots(FileChannel out, EntryWriter entries, int slotCount) throws IOException {
+        final int mask = slotCount - 1;
+        final long[] slots = new long[slotCount];
+        for (int i = 0; i < entries.count; i++) {
+            int slot = (int) entries.hashes[i] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = (entries.hashes[i] & 0xffffffff00000000L) | (entries.offsets[i] + 1L);
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        for (long slot : slots) {
+            if (!buffer.hasRemaining()) {
+                writeFully(out, buffer.flip());
+                buffer.clear();
+            }
+            buffer.putLong(slot);
+        }
+        writeFully(out, buffer.flip());
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    // Smallest power of two that keeps the table at most half full
+    private static int slotCount(int entries) {
+        return Math.max(2, Integer.highestOneBit(Math.max(1, entries * 2 - 1)) << 1);
+    }
+
+    /**
+     * Appends entries to the data region, remembering each one's hash and offset for the slot table.
+     */
+    private static final class EntryWriter implements Consumer<ShortenedAddress>, AutoCloseable {
+
+        private final DataOutputStream out;
+        private final Instant now = Instant.now();
+        private long[] hashes = new long[1024];
+        private int[] offsets = new int[1024];
+        private int count;
+        private long position;
+
+        EntryWriter(Path path) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024));
+        }
+
+        @Override
+        public void accept(ShortenedAddress address) {
+            final Instant expiresAt = address.getExpiresAt();
+            if (expiresAt != null && !expiresAt.isAfter(now)) {
+                return;
+            }
+            final String alias = address.getAlias();
+            final byte[] url = address.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+            final Integer status = address.getRedirectStatus();
+            if (position > Integer.MAX_VALUE) {
+                throw new UncheckedIOException(new IOException("Snapshot data is over the 2 GB limit"));
+            }
+
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            hashes[count] = AliasSnapshotFile.hash(alias);
+            offsets[count] = (int) position;
+            count++;
+
+            try {
+                out.writeShort(alias.length());
+                out.writeChars(alias);
+                out.writeShort(status == null ? Redirect.DEFAULT_STATUS : status);
+                out.writeLong(expiresAt == null ? AliasSnapshotFile.NO_EXPIRY : expiresAt.toEpochMilli());
+                out.writeInt(url.length);
+                out.write(url);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            position += Short.BYTES + (long) alias.length() * Character.BYTES + Short.BYTES + Long.BYTES
+                + Integer.BYTES + url.length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.tpximpact.shortenerservice.util;
+
+import java.sql.SQLException;
+
+import org.springframework.dao.DuplicateKeyException;
+
+/**
+ * Tells unique constraint violations apart from the other integrity violations (a value too long
+ * for its column, a missing value) that Spring reports as the same
+ * {@link org.springframework.dao.DataIntegrityViolationException}. Only the former mean that an
+ * alias is taken: JDBC and R2DBC report them as a {@link DuplicateKeyException}, while JPA only
+ * leaves the SQL state on the cause.
+ */
+public final class DuplicateKeys {
+
+    // SQL state for a unique constraint violation, on Postgres and H2 alike
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private DuplicateKeys() {
+    }
+
+    /**
+     * @param e the exception
+     * @return whether it was caused by a unique constraint violation
+     */
+    public static boolean isDuplicateKey(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DuplicateKeyException
+                    || cause instanceof SQLException sqlException && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.tpximpact.shortenerservice.util;
+
+import java.net.URI;
+import java.util.Locale;
+
+/**
+ * Reduces URLs to a canonical form so that different spellings of the same URL hash and compare
+ * equal. Only rewrites that can't change where the URL leads are applied: the scheme and host are
+ * lower cased, a default port is dropped and an empty path becomes {@code /}. Everything else,
+ * including the case of the path and the query, is left alone.
+ */
+public final class UrlNormalizer {
+
+    private UrlNormalizer() {
+    }
+
+    /**
+     * Normalizes a URL.
+     *
+     * @param url the URL
+     * @return the canonical form, or the URL unchanged if it has no host
+     */
+    public static String normalize(String url) {
+        final URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            return url;
+        }
+
+        final String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        final StringBuilder normalized = new StringBuilder(url.length())
+            .append(scheme)
+            .append("://");
+        if (uri.getRawUserInfo() != null) {
+            normalized.append(uri.getRawUserInfo()).append('@');
+        }
+        normalized.append(uri.getHost().toLowerCase(Locale.ROOT));
+        if (uri.getPort() != -1 && uri.getPort() != defaultPort(scheme)) {
+            normalized.append(':').append(uri.getPort());
+        }
+        normalized.append(uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            normalized.append('?').append(uri.getRawQuery());
+        }
+        if (uri.getRawFragment() != null) {
+            normalized.append('#').append(uri.getRawFragment());
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Hashes the normalized form of a URL.
+     *
+     * @param url the URL
+     * @return the 64 bit hash
+     */
+    public static long hash(String url) {
+        return Murmur3.hash64(normalize(url));
+    }
+
+    private static int defaultPort(String scheme) {
+        return switch (scheme) {
+            case "http" -> 80;
+            case "https" -> 443;
+            default -> -1;
+        };
+    }
+
+}
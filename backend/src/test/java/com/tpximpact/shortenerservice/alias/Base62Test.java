@@ -0,0 +1,39 @@
+package com.tpximpact.shortenerservice.alias;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class Base62Test {
+
+    @Test
+    void test_encode_usesAllDigits() {
+        assertEquals("0", Base62.encode(0, 1));
+        assertEquals("z", Base62.encode(35, 1));
+        assertEquals("Z", Base62.encode(61, 1));
+        assertEquals("10", Base62.encode(62, 1));
+    }
+
+    @Test
+    void test_encode_padsToMinimumLength() {
+        assertEquals("00000a", Base62.encode(10, 6));
+    }
+
+    @Test
+    void test_encode_rejectsNegativeValues() {
+        assertThrows(IllegalArgumentException.class, () -> Base62.encode(-1, 1));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = { 0, 1, 61, 62, 3843, 1_000_000_007L, Long.MAX_VALUE })
+    void test_decode_reversesEncode(long value) {
+        String encoded = Base62.encode(value, 6);
+
+        assertEquals(value, Base62.decode(encoded));
+        assertTrue(encoded.matches("^[a-zA-Z0-9]+$"));
+    }
+}
@@ -0,0 +1,53 @@
+package com.tpximpact.shortenerservice.alias;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tpximpact.shortenerservice.repository.AliasBlockDAO;
+import com.tpximpact.shortenerservice.repository.AliasBlockDAO.Block;
+
+@ExtendWith(MockitoExtension.class)
+class SequenceAliasGeneratorTest {
+
+    @Mock
+    private AliasBlockDAO aliasBlockDAO;
+
+    @Test
+    void test_generate_handsOutIdsFromReservedBlock() {
+        when(aliasBlockDAO.reserveBlock()).thenReturn(new Block(30, 10));
+        SequenceAliasGenerator generator = new SequenceAliasGenerator(aliasBlockDAO);
+
+        assertEquals(Base62.encode(30, 6), generator.generate());
+        assertEquals(Base62.encode(31, 6), generator.generate());
+    }
+
+    @Test
+    void test_generate_onlyReservesANewBlockWhenTheCurrentOneIsUsedUp() {
+        when(aliasBlockDAO.reserveBlock()).thenReturn(new Block(5, 5), new Block(10, 5));
+        SequenceAliasGenerator generator = new SequenceAliasGenerator(aliasBlockDAO);
+
+        Set<String> aliases = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            aliases.add(generator.generate());
+        }
+
+        assertEquals(10, aliases.size());
+        verify(aliasBlockDAO, times(2)).reserveBlock();
+    }
+
+    @Test
+    void test_isCollisionFree() {
+        assertTrue(new SequenceAliasGenerator(aliasBlockDAO).isCollisionFree());
+    }
+}
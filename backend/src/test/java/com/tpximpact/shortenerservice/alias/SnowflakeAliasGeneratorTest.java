@@ -0,0 +1,66 @@
+package com.tpximpact.shortenerservice.alias;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class SnowflakeAliasGeneratorTest {
+
+    @Test
+    void test_generate_isUniqueWithinTheSameMillisecond() {
+        SnowflakeAliasGenerator generator = new SnowflakeAliasGenerator(1, () -> SnowflakeAliasGenerator.EPOCH + 1000);
+
+        Set<String> aliases = new HashSet<>();
+        // More than the 4096 ids available per millisecond
+        for (int i = 0; i < 10_000; i++) {
+            aliases.add(generator.generate());
+        }
+
+        assertEquals(10_000, aliases.size());
+    }
+
+    @Test
+    void test_generate_isUniqueWhenTheClockGoesBackwards() {
+        AtomicLong clock = new AtomicLong(SnowflakeAliasGenerator.EPOCH + 1000);
+        SnowflakeAliasGenerator generator = new SnowflakeAliasGenerator(1, clock::get);
+
+        String first = generator.generate();
+        clock.set(SnowflakeAliasGenerator.EPOCH + 10);
+        String second = generator.generate();
+
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void test_generate_differentNodesNeverCollide() {
+        SnowflakeAliasGenerator node1 = new SnowflakeAliasGenerator(1, () -> SnowflakeAliasGenerator.EPOCH + 1000);
+        SnowflakeAliasGenerator node2 = new SnowflakeAliasGenerator(2, () -> SnowflakeAliasGenerator.EPOCH + 1000);
+
+        Set<String> aliases = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            aliases.add(node1.generate());
+            aliases.add(node2.generate());
+        }
+
+        assertEquals(2000, aliases.size());
+    }
+
+    @Test
+    void test_generate_producesValidAliases() {
+        String alias = new SnowflakeAliasGenerator(1023).generate();
+
+        assertTrue(alias.matches("^[a-zA-Z0-9]{6,11}$"), alias);
+    }
+
+    @Test
+    void test_constructor_rejectsOutOfRangeNodeIds() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeAliasGenerator(1024));
+    }
+}
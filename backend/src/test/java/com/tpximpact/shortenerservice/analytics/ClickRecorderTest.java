@@ -0,0 +1,156 @@
+package com.tpximpact.shortenerservice.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tpximpact.shortenerservice.model.ClickEvent;
+import com.tpximpact.shortenerservice.repository.ClickDAO;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ClickRecorderTest {
+
+    @Mock
+    private ClickDAO clickDAO;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ClickRecorder recorder;
+    private final List<List<ClickEvent>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (recorder != null) {
+            recorder.stop();
+        }
+    }
+
+    private ClickRecorder create(int bufferSize, int batchSize, Duration flushInterval) {
+        recorder = new ClickRecorder(true, bufferSize, batchSize, flushInterval, clickDAO, meterRegistry);
+        return recorder;
+    }
+
+    private void captureBatches() {
+        doAnswer(invocation -> {
+            batches.add(List.copyOf(invocation.<List<ClickEvent>>getArgument(0)));
+            return null;
+        }).when(clickDAO).insertAll(anyList());
+    }
+
+    @Test
+    void test_record_writesFullBatchesWithoutWaitingForTheInterval() {
+        captureBatches();
+        ClickRecorder recorder = create(16, 2, Duration.ofHours(1));
+        recorder.start();
+
+        recorder.record("a", null, null);
+        recorder.record("b", null, null);
+
+        verify(clickDAO, timeout(5000)).insertAll(anyList());
+        assertEquals(List.of("a", "b"), batches.get(0).stream().map(ClickEvent::alias).toList());
+    }
+
+    @Test
+    void test_record_writesPartialBatchesAfterTheFlushInterval() {
+        captureBatches();
+        ClickRecorder recorder = create(16, 100, Duration.ofMillis(50));
+        recorder.start();
+
+        recorder.record("a", "http://referrer", "agent");
+
+        verify(clickDAO, timeout(5000)).insertAll(anyList());
+        ClickEvent event = batches.get(0).get(0);
+        assertEquals("http://referrer", event.referrer());
+        assertNotEquals(0, event.userAgentHash());
+    }
+
+    @Test
+    void test_record_batchesClicksAfterAQuietSpell() throws InterruptedException {
+        captureBatches();
+        ClickRecorder recorder = create(16, 100, Duration.ofMillis(300));
+        recorder.start();
+        Thread.sleep(400);
+
+        recorder.record("a", null, null);
+        Thread.sleep(50);
+        recorder.record("b", null, null);
+
+        verify(clickDAO, timeout(5000)).insertAll(anyList());
+        assertEquals(List.of("a", "b"), batches.get(0).stream().map(ClickEvent::alias).toList());
+    }
+
+    @Test
+    void test_record_dropsAndCountsClicksWhenTheBufferIsFull() {
+        ClickRecorder recorder = create(2, 100, Duration.ofHours(1));
+
+        recorder.record("a", null, null);
+        recorder.record("b", null, null);
+        recorder.record("c", null, null);
+
+        assertEquals(1.0, meterRegistry.get("clicks.dropped").counter().count());
+        assertEquals(2.0, meterRegistry.get("clicks.buffered").gauge().value());
+    }
+
+    @Test
+    void test_stop_flushesEverythingThatIsBuffered() {
+        captureBatches();
+        ClickRecorder recorder = create(16, 4, Duration.ofHours(1));
+        recorder.start();
+
+        for (int i = 0; i < 7; i++) {
+            recorder.record("alias" + i, null, null);
+        }
+        recorder.stop();
+
+        assertEquals(7, batches.stream().mapToInt(List::size).sum());
+        assertEquals(7.0, meterRegistry.get("clicks.written").counter().count());
+    }
+
+    @Test
+    void test_write_countsClicksLostToDatabaseFailures() {
+        doThrow(new RuntimeException("down")).when(clickDAO).insertAll(anyList());
+        ClickRecorder recorder = create(16, 1, Duration.ofHours(1));
+        recorder.start();
+
+        recorder.record("a", null, null);
+        recorder.stop();
+
+        assertEquals(1.0, meterRegistry.get("clicks.failed").counter().count());
+        assertFalse(recorder.isRunning());
+    }
+
+    @Test
+    void test_record_doesNothingWhenDisabled() {
+        recorder = new ClickRecorder(false, 16, 1, Duration.ofMillis(1), clickDAO, meterRegistry);
+        recorder.start();
+
+        recorder.record("a", null, null);
+        recorder.stop();
+
+        verify(clickDAO, never()).insertAll(anyList());
+    }
+}
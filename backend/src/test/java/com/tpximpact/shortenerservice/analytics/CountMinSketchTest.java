@@ -0,0 +1,54 @@
+package com.tpximpact.shortenerservice.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class CountMinSketchTest {
+
+    @Test
+    void test_constructor_rejectsWidthThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(1000, 4));
+    }
+
+    @Test
+    void test_add_returnsRunningEstimate() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+
+        assertEquals(1, sketch.add("a"));
+        assertEquals(2, sketch.add("a"));
+        assertEquals(2, sketch.estimate("a"));
+        assertEquals(0, sketch.estimate("never-added"));
+    }
+
+    @Test
+    void test_estimate_neverUnderCountsAndStaysCloseWhenSized() {
+        CountMinSketch sketch = new CountMinSketch(4096, 4);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add("alias" + (i % 1000));
+        }
+        for (int i = 0; i < 500; i++) {
+            sketch.add("viral");
+        }
+
+        long estimate = sketch.estimate("viral");
+        assertTrue(estimate >= 500);
+        // Error bound is e / width * total = ~7 with high probability
+        assertTrue(estimate < 520, "estimate was " + estimate);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(sketch.estimate("alias" + i) >= 10);
+        }
+    }
+
+    @Test
+    void test_clear_resetsEveryCounter() {
+        CountMinSketch sketch = new CountMinSketch(16, 2);
+        sketch.add("a");
+
+        sketch.clear();
+
+        assertEquals(0, sketch.estimate("a"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.tpximpact.shortenerservice.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.tpximpact.shortenerservice.model.HotAlias;
+
+class HotAliasTrackerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private HotAliasTracker create(int maxCandidates) {
+        // 10 second window in 10 one second slices
+        return new HotAliasTracker(true, 1024, 4, Duration.ofSeconds(10), 10, maxCandidates, now::get);
+    }
+
+    private void redirect(HotAliasTracker tracker, String alias, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(alias);
+        }
+        tracker.admitPending();
+    }
+
+    @Test
+    void test_top_returnsMostRedirectedFirst() {
+        HotAliasTracker tracker = create(10);
+        redirect(tracker, "b", 3);
+        redirect(tracker, "a", 5);
+        redirect(tracker, "c", 1);
+
+        assertEquals(List.of(new HotAlias("a", 5), new HotAlias("b", 3)), tracker.top(2));
+    }
+
+    @Test
+    void test_record_replacesTheLeastPopularCandidateWhenFull() {
+        HotAliasTracker tracker = create(2);
+        redirect(tracker, "steady", 5);
+        redirect(tracker, "once", 1);
+        redirect(tracker, "viral", 10);
+
+        assertEquals(List.of(new HotAlias("viral", 10), new HotAlias("steady", 5)), tracker.top(10));
+    }
+
+    @Test
+    void test_top_onlyCountsRedirectsWithinTheWindow() {
+        HotAliasTracker tracker = create(10);
+        redirect(tracker, "old", 5);
+
+        now.addAndGet(5_000);
+        redirect(tracker, "new", 2);
+        assertEquals(List.of(new HotAlias("old", 5), new HotAlias("new", 2)), tracker.top(10));
+
+        now.addAndGet(6_000);
+        redirect(tracker, "new", 1);
+        assertEquals(List.of(new HotAlias("new", 3)), tracker.top(10));
+    }
+
+    @Test
+    void test_record_letsNewAliasesInOnceOldCountsExpire() {
+        HotAliasTracker tracker = create(1);
+        redirect(tracker, "yesterday", 100);
+
+        now.addAndGet(20_000);
+        redirect(tracker, "today", 1);
+
+        assertEquals(List.of(new HotAlias("today", 1)), tracker.top(10));
+    }
+
+    @Test
+    void test_start_admitsCandidatesInTheBackground() throws InterruptedException {
+        HotAliasTracker tracker = create(10);
+        tracker.start();
+        try {
+            tracker.record("a");
+            tracker.record("a");
+            for (int i = 0; i < 250 && tracker.top(10).isEmpty(); i++) {
+                Thread.sleep(20);
+            }
+        } finally {
+            tracker.stop();
+        }
+
+        assertEquals(List.of(new HotAlias("a", 2)), tracker.top(10));
+        assertFalse(tracker.isRunning());
+    }
+
+    @Test
+    void test_record_doesNothingWhenDisabled() {
+        HotAliasTracker tracker = new HotAliasTracker(false, 16, 1, Duration.ofSeconds(10), 10, 10, now::get);
+        redirect(tracker, "a", 3);
+
+        assertTrue(tracker.top(10).isEmpty());
+    }
+}
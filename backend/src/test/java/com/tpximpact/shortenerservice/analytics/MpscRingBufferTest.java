@@ -0,0 +1,95 @@
+package com.tpximpact.shortenerservice.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class MpscRingBufferTest {
+
+    @Test
+    void test_constructor_rejectsCapacityThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<String>(100));
+    }
+
+    @Test
+    void test_drain_returnsElementsInOrder() {
+        MpscRingBuffer<String> buffer = new MpscRingBuffer<>(4);
+        buffer.offer("a");
+        buffer.offer("b");
+        buffer.offer("c");
+
+        List<String> drained = new ArrayList<>();
+        assertEquals(2, buffer.drain(drained::add, 2));
+        assertEquals(1, buffer.drain(drained::add, 10));
+
+        assertEquals(List.of("a", "b", "c"), drained);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void test_offer_failsWhenFullAndRecoversOnceDrained() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(2);
+
+        assertTrue(buffer.offer(1));
+        assertTrue(buffer.offer(2));
+        assertFalse(buffer.offer(3));
+
+        buffer.drain(element -> { }, 1);
+        assertTrue(buffer.offer(3));
+        assertEquals(2, buffer.size());
+    }
+
+    @Test
+    void test_offer_wrapsAroundTheBufferManyTimes() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        List<Integer> drained = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(buffer.offer(i));
+            buffer.drain(drained::add, 1);
+        }
+
+        assertEquals(100, drained.size());
+        assertEquals(99, drained.get(99));
+    }
+
+    @Test
+    void test_offer_acceptsEveryElementOnceFromConcurrentProducers() throws InterruptedException {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(1024);
+        int producers = 8;
+        int perProducer = 10_000;
+        AtomicInteger rejected = new AtomicInteger();
+        Set<Integer> received = new HashSet<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                int base = p * perProducer;
+                executor.execute(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(base + i)) {
+                            rejected.incrementAndGet();
+                            Thread.onSpinWait();
+                        }
+                    }
+                });
+            }
+            while (received.size() < producers * perProducer) {
+                buffer.drain(received::add, 256);
+            }
+        }
+
+        assertEquals(producers * perProducer, received.size());
+        assertEquals(0, buffer.size());
+    }
+}
@@ -0,0 +1,169 @@
+package com.tpximpact.shortenerservice.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class AliasBloomFilterTest {
+
+    @Mock
+    private ShortenedAddressDAO dao;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private AliasBloomFilter create(long expectedInsertions) {
+        return new AliasBloomFilter(true, expectedInsertions, 0.01, false, "postgres", dao, new AliasShards(List.of(), 128, 0), Runnable::run, meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenStoredAliases(String... aliases) {
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(0);
+            for (String alias : aliases) {
+                consumer.accept(alias);
+            }
+            return null;
+        }).when(dao).forEachAlias(any(Consumer.class));
+    }
+
+    @Test
+    void test_mightContain_isPermissiveBeforeTheFilterIsBuilt() {
+        AliasBloomFilter filter = create(100);
+
+        assertTrue(filter.mightContain("anything"));
+    }
+
+    @Test
+    void test_run_buildsFilterFromStoredAliases() {
+        givenStoredAliases("one", "two");
+        AliasBloomFilter filter = create(100);
+
+        filter.run(null);
+
+        assertTrue(filter.mightContain("one"));
+        assertTrue(filter.mightContain("two"));
+        assertFalse(filter.mightContain("three"));
+    }
+
+    @Test
+    void test_run_doesNothingWhenDisabled() {
+        AliasBloomFilter filter = new AliasBloomFilter(false, 100, 0.01, false, "loopback", dao, new AliasShards(List.of(), 128, 0), Runnable::run, meterRegistry);
+
+        filter.run(null);
+
+        assertTrue(filter.mightContain("anything"));
+    }
+
+    @Test
+    void test_constructor_refusesLoopbackChannelUnlessSingleInstance() {
+        AliasShards shards = new AliasShards(List.of(), 128, 0);
+
+        assertThrows(IllegalStateException.class,
+            () -> new AliasBloomFilter(true, 100, 0.01, false, "loopback", dao, shards, Runnable::run, meterRegistry));
+
+        assertTrue(new AliasBloomFilter(true, 100, 0.01, true, "loopback", dao, shards, Runnable::run, meterRegistry)
+            .isEnabled());
+    }
+
+    @Test
+    void test_put_addsAliasToBuiltFilter() {
+        givenStoredAliases();
+        AliasBloomFilter filter = create(100);
+        filter.run(null);
+
+        filter.put("added");
+
+        assertTrue(filter.mightContain("added"));
+    }
+
+    @Test
+    void test_put_rebuildsOnceCapacityIsExceeded() {
+        givenStoredAliases("a", "b");
+        AliasBloomFilter filter = create(2);
+        filter.run(null);
+
+        filter.put("c");
+
+        verify(dao, times(2)).forEachAlias(any());
+        assertEquals(2.0, meterRegistry.get("alias.bloom.rebuilds").gauge().value());
+        assertEquals(6.0, meterRegistry.get("alias.bloom.capacity").gauge().value());
+    }
+
+    @Test
+    void test_rebuild_growsWhenTableIsLargerThanConfiguredCapacity() {
+        givenStoredAliases("a", "b", "c", "d", "e");
+        AliasBloomFilter filter = create(2);
+
+        filter.run(null);
+
+        assertTrue(meterRegistry.get("alias.bloom.capacity").gauge().value() >= 5);
+        assertTrue(filter.mightContain("e"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_rebuild_waitsForRebuildInProgress() throws InterruptedException {
+        final CountDownLatch streaming = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger mostActive = new AtomicInteger();
+        doAnswer(invocation -> {
+            mostActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            streaming.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            active.decrementAndGet();
+            return null;
+        }).when(dao).forEachAlias(any(Consumer.class));
+        AliasBloomFilter filter = create(100);
+
+        // As if a resync arrived while a capacity rebuild was streaming
+        Thread first = Thread.ofPlatform().start(filter::rebuild);
+        assertTrue(streaming.await(5, TimeUnit.SECONDS));
+        Thread second = Thread.ofPlatform().start(filter::rebuild);
+        Thread.sleep(100);
+        release.countDown();
+        first.join();
+        second.join();
+
+        assertEquals(1, mostActive.get());
+        verify(dao, times(2)).forEachAlias(any());
+    }
+
+    @Test
+    void test_expectedFpp_isPublishedAsMetric() {
+        givenStoredAliases("a");
+        AliasBloomFilter filter = create(100);
+        filter.run(null);
+
+        assertEquals(filter.expectedFpp(), meterRegistry.get("alias.bloom.fpp").gauge().value());
+        assertTrue(filter.expectedFpp() < 0.01);
+    }
+}
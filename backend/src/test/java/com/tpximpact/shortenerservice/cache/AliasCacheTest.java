@@ -0,0 +1,155 @@
+package com.tpximpact.shortenerservice.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.tpximpact.shortenerservice.model.Redirect;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AliasCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AliasCache aliasCache;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        aliasCache = new AliasCache(10, Duration.ofMinutes(1), Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @Test
+    void test_get_onlyCallsLoaderOnceForTheSameAlias() {
+        AtomicInteger loads = new AtomicInteger();
+
+        aliasCache.get("abc", alias -> { loads.incrementAndGet(); return Optional.of(Redirect.to(URI.create("http://x"))); });
+        Optional<Redirect> result = aliasCache.get("abc", alias -> { loads.incrementAndGet(); return Optional.empty(); });
+
+        assertEquals(Optional.of(Redirect.to(URI.create("http://x"))), result);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void test_get_cachesEmptyResults() {
+        AtomicInteger loads = new AtomicInteger();
+
+        aliasCache.get("missing", alias -> { loads.incrementAndGet(); return Optional.empty(); });
+        aliasCache.get("missing", alias -> { loads.incrementAndGet(); return Optional.empty(); });
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void test_put_doesNotKeepARedirectPastItsExpiry() throws InterruptedException {
+        Redirect expiring = new Redirect(URI.create("http://x"), Redirect.DEFAULT_STATUS, Instant.now().plusMillis(200));
+        aliasCache.put("expiring", Optional.of(expiring));
+        aliasCache.put("expired", Optional.of(
+            new Redirect(URI.create("http://x"), Redirect.DEFAULT_STATUS, Instant.now().minusSeconds(1))));
+
+        assertEquals(Optional.of(expiring), aliasCache.getIfPresent("expiring"));
+        assertNull(aliasCache.getIfPresent("expired"));
+
+        Thread.sleep(300);
+
+        assertNull(aliasCache.getIfPresent("expiring"));
+    }
+
+    @Test
+    void test_invalidate_forcesTheNextLookupToLoad() {
+        aliasCache.get("abc", alias -> Optional.empty());
+
+        aliasCache.invalidate("abc");
+        Optional<Redirect> result = aliasCache.get("abc", alias -> Optional.of(Redirect.to(URI.create("http://x"))));
+
+        assertEquals(Optional.of(Redirect.to(URI.create("http://x"))), result);
+    }
+
+    @Test
+    void test_get_expiresMissesAfterNegativeTtl() throws InterruptedException {
+        aliasCache = new AliasCache(10, Duration.ofMinutes(1), Duration.ofMillis(1), meterRegistry);
+        aliasCache.get("abc", alias -> Optional.empty());
+
+        Thread.sleep(5);
+        Optional<Redirect> result = aliasCache.get("abc", alias -> Optional.of(Redirect.to(URI.create("http://x"))));
+
+        assertEquals(Optional.of(Redirect.to(URI.create("http://x"))), result);
+    }
+
+    @Test
+    void test_get_loadsWithoutBlockingOtherAliasesAndSharesTheLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, Optional<Redirect>> slowLoader = alias -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return Optional.of(Redirect.to(URI.create("http://slow")));
+        };
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Optional<Redirect>> first = executor.submit(() -> aliasCache.get("slow", slowLoader));
+            loading.await();
+            Future<Optional<Redirect>> second = executor.submit(() -> aliasCache.get("slow", slowLoader));
+
+            // Neither the cache nor other aliases wait for the load
+            assertEquals(Optional.empty(), aliasCache.get("other", alias -> Optional.empty()));
+            assertNull(aliasCache.getIfPresent("slow"));
+
+            release.countDown();
+            assertEquals(Optional.of(Redirect.to(URI.create("http://slow"))), first.get());
+            assertEquals(Optional.of(Redirect.to(URI.create("http://slow"))), second.get());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void test_get_doesNotCacheALoadOverlappingAnInvalidation() {
+        Optional<Redirect> stale = aliasCache.get("changed", alias -> {
+            aliasCache.invalidate(alias);
+            return Optional.of(Redirect.to(URI.create("http://stale")));
+        });
+
+        assertEquals(Optional.of(Redirect.to(URI.create("http://stale"))), stale);
+        assertNull(aliasCache.getIfPresent("changed"));
+    }
+
+    @Test
+    void test_get_rethrowsLoaderFailuresAndLoadsAgain() {
+        assertThrows(IllegalStateException.class, () -> aliasCache.get("failing", alias -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertEquals(Optional.empty(), aliasCache.get("failing", alias -> Optional.empty()));
+    }
+
+    @Test
+    void test_stats_recordsHitsAndMisses() {
+        aliasCache.get("abc", alias -> Optional.empty());
+        aliasCache.get("abc", alias -> Optional.empty());
+
+        assertEquals(1, aliasCache.stats().hitCount());
+        assertEquals(1, aliasCache.stats().missCount());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "aliases").tag("result", "hit").functionCounter().count());
+    }
+}
@@ -0,0 +1,236 @@
+package com.tpximpact.shortenerservice.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import com.tpximpact.shortenerservice.model.Redirect;
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+import com.tpximpact.shortenerservice.snapshot.AliasSnapshot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class AliasIndexTest {
+
+    @Mock
+    private ShortenedAddressDAO dao;
+
+    @Mock
+    private AliasSnapshot aliasSnapshot;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private AliasIndex create(boolean enabled) {
+        return create(enabled, Duration.ZERO, false, "postgres");
+    }
+
+    private AliasIndex create(boolean enabled, Duration refreshInterval, boolean singleInstance, String channel) {
+        return new AliasIndex(enabled, DataSize.ofKilobytes(64), 0.5, refreshInterval, singleInstance, channel, dao,
+            new AliasShards(List.of(), 128, 0), aliasSnapshot, Runnable::run, meterRegistry);
+    }
+
+    private static ShortenedAddress address(String alias) {
+        return ShortenedAddress.builder().alias(alias).originalUrl("https://example.com/" + alias).build();
+    }
+
+    private static Redirect redirect(String alias) {
+        return Redirect.to(URI.create("https://example.com/" + alias));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenStoredAddresses(Runnable whileStreaming, ShortenedAddress... addresses) {
+        doAnswer(invocation -> {
+            Consumer<ShortenedAddress> consumer = invocation.getArgument(0);
+            for (ShortenedAddress address : addresses) {
+                consumer.accept(address);
+            }
+            whileStreaming.run();
+            return null;
+        }).when(dao).forEachAddress(any(Consumer.class));
+    }
+
+    @Test
+    void test_run_loadsStoredAddresses() {
+        ShortenedAddress expired = address("expired");
+        expired.setExpiresAt(Instant.now().minusSeconds(1));
+        givenStoredAddresses(() -> { }, address("one"), address("two"), expired);
+        AliasIndex index = create(true);
+
+        index.run(null);
+
+        assertEquals(redirect("one"), index.lookup("one"));
+        assertEquals(redirect("two"), index.lookup("two"));
+        assertNull(index.lookup("expired"));
+        assertEquals(2, meterRegistry.get("alias.index.entries").gauge().value());
+    }
+
+    @Test
+    void test_run_doesNothingWhenDisabled() {
+        AliasIndex index = create(false);
+
+        index.run(null);
+
+        assertNull(index.lookup("anything"));
+        verify(dao, never()).forEachAddress(any());
+    }
+
+    @Test
+    void test_load_keepsChangesMadeWhileStreaming() {
+        AliasIndex index = create(true);
+        givenStoredAddresses(() -> {
+            index.remove("deleted");
+            index.put("created", redirect("created"));
+        }, address("kept"), address("deleted"));
+
+        index.load();
+
+        assertEquals(redirect("kept"), index.lookup("kept"));
+        assertEquals(redirect("created"), index.lookup("created"));
+        assertNull(index.lookup("deleted"));
+    }
+
+    @Test
+    void test_fill_ignoresLookupsOverlappingARemoval() {
+        givenStoredAddresses(() -> { });
+        AliasIndex index = create(true);
+        index.load();
+
+        final long before = index.stamp();
+        index.remove("raced");
+        index.fill("raced", redirect("raced"), before);
+        index.fill("found", redirect("found"), index.stamp());
+
+        assertNull(index.lookup("raced"));
+        assertEquals(redirect("found"), index.lookup("found"));
+    }
+
+    @Test
+    void test_reload_replacesIndexFromDatabase() {
+        givenStoredAddresses(() -> { }, address("stored"));
+        AliasIndex index = create(true);
+        index.load();
+        index.put("missed-deletion", redirect("missed-deletion"));
+
+        index.reload();
+
+        assertEquals(redirect("stored"), index.lookup("stored"));
+        assertNull(index.lookup("missed-deletion"));
+    }
+
+    @Test
+    void test_lookup_readsConsistentlyWhileTablesAreReplacedAndFreed() throws InterruptedException {
+        givenStoredAddresses(() -> { }, address("one"), address("two"));
+        AliasIndex index = create(true);
+        index.load();
+
+        final AtomicBoolean loading = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = Thread.ofPlatform().start(() -> {
+                while (loading.get()) {
+                    final Redirect found = index.lookup("one");
+                    if (!redirect("one").equals(found)) {
+                        failure.compareAndSet(null, "one was " + found);
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < 200; i++) {
+            index.load();
+        }
+        loading.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(redirect("two"), index.lookup("two"));
+    }
+
+    @Test
+    void test_removeAll_compactsOnceChunksAreMostlyGarbage() {
+        givenStoredAddresses(() -> { });
+        AliasIndex index = create(true);
+        index.load();
+        final List<String> aliases = IntStream.range(0, 10_000).mapToObj(i -> "alias-" + i).toList();
+        aliases.forEach(alias -> index.put(alias, redirect(alias)));
+        final double allocated = meterRegistry.get("alias.index.memory.allocated").gauge().value();
+
+        index.removeAll(aliases.subList(0, 9_000));
+
+        assertEquals(1_000, meterRegistry.get("alias.index.entries").gauge().value());
+        assertEquals(redirect("alias-9999"), index.lookup("alias-9999"));
+        // Compacted straight away by the executor, down to the chunks of the remaining aliases
+        assertTrue(meterRegistry.get("alias.index.memory.allocated").gauge().value() < allocated / 2);
+    }
+
+    @Test
+    void test_start_refreshesIndexPeriodically() throws InterruptedException {
+        givenStoredAddresses(() -> { }, address("stored"));
+        AliasIndex index = create(true, Duration.ofMillis(20), false, "postgres");
+        index.run(null);
+        // As if the event for another instance's deletion had been lost
+        index.put("deleted-elsewhere", redirect("deleted-elsewhere"));
+
+        index.start();
+        try {
+            for (int i = 0; i < 250 && index.lookup("deleted-elsewhere") != null; i++) {
+                Thread.sleep(20);
+            }
+        } finally {
+            index.stop();
+        }
+
+        assertNull(index.lookup("deleted-elsewhere"));
+        assertEquals(redirect("stored"), index.lookup("stored"));
+        assertFalse(index.isRunning());
+    }
+
+    @Test
+    void test_constructor_refusesLoopbackChannelUnlessSingleInstance() {
+        assertThrows(IllegalStateException.class, () -> create(true, Duration.ZERO, false, "loopback"));
+
+        assertTrue(create(true, Duration.ZERO, true, "loopback").isEnabled());
+        assertFalse(create(false, Duration.ZERO, false, "loopback").isEnabled());
+    }
+
+    @Test
+    void test_constructor_disablesIndexOnReadReplicas() {
+        when(aliasSnapshot.isEnabled()).thenReturn(true);
+
+        assertFalse(create(true).isEnabled());
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.tpximpact.shortenerservice.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.util.unit.DataSize;
+
+import com.tpximpact.shortenerservice.analytics.HotAliasTracker;
+import com.tpximpact.shortenerservice.model.HotAlias;
+import com.tpximpact.shortenerservice.model.Redirect;
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+import com.tpximpact.shortenerservice.snapshot.AliasSnapshot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmerTest {
+
+    @Mock
+    private ShortenedAddressDAO dao;
+
+    @Mock
+    private HotAliasTracker hotAliasTracker;
+
+    @Mock
+    private AliasSnapshot aliasSnapshot;
+
+    @TempDir
+    private Path directory;
+
+    private AliasCache aliasCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        aliasCache = new AliasCache(100_000, Duration.ofMinutes(1), Duration.ofMinutes(1), new SimpleMeterRegistry());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private CacheWarmer create(String source, int maxEntries, DataSize memoryBudget, Duration timeBudget) {
+        return new CacheWarmer(true, source, directory.resolve("hot.txt").toString(), maxEntries, 100_000,
+            memoryBudget, timeBudget, 1000, 2, aliasCache, dao,
+            new AliasShards(List.of(), 128, 0), hotAliasTracker, aliasSnapshot, meterRegistry);
+    }
+
+    private CacheWarmer create(int maxEntries) {
+        return create("recent", maxEntries, DataSize.ofMegabytes(32), Duration.ofSeconds(10));
+    }
+
+    private static ShortenedAddress address(long id) {
+        return ShortenedAddress.builder().id(id).alias("a" + id).originalUrl("https://example.com/" + id).build();
+    }
+
+    private void givenStoredIds(long newest) {
+        when(dao.findTopByOrderByIdDesc()).thenReturn(Optional.of(address(newest)));
+        lenient().when(dao.findByIdBetween(anyLong(), anyLong())).thenAnswer(invocation -> LongStream
+            .rangeClosed(invocation.<Long>getArgument(0), invocation.<Long>getArgument(1))
+            .mapToObj(CacheWarmerTest::address)
+            .toList());
+    }
+
+    @Test
+    void test_warmUp_loadsNewestAliasesIntoCache() {
+        givenStoredIds(2500);
+
+        assertEquals(2500, create(10_000).warmUp());
+
+        assertEquals(Optional.of(Redirect.to(URI.create("https://example.com/1"))), aliasCache.getIfPresent("a1"));
+        assertEquals(Optional.of(Redirect.to(URI.create("https://example.com/2500"))), aliasCache.getIfPresent("a2500"));
+        verify(dao).findByIdBetween(1501, 2500);
+        verify(dao).findByIdBetween(501, 1500);
+        verify(dao).findByIdBetween(1, 500);
+    }
+
+    @Test
+    void test_warmUp_stopsAtMaxEntries() {
+        givenStoredIds(10_000);
+
+        assertEquals(1500, create(1500).warmUp());
+
+        assertEquals(1500, meterRegistry.get("alias.warmup.entries").gauge().value());
+    }
+
+    @Test
+    void test_warmUp_stopsAtMemoryBudget() {
+        givenStoredIds(10_000);
+        long perEntry = CacheWarmer.estimateBytes(address(9999));
+
+        int warmed = create("recent", 10_000, DataSize.ofBytes(perEntry * 100), Duration.ofSeconds(10)).warmUp();
+
+        assertTrue(warmed >= 99 && warmed <= 100, "warmed " + warmed);
+        assertTrue(meterRegistry.get("alias.warmup.bytes").gauge().value() <= perEntry * 100);
+    }
+
+    @Test
+    void test_warmUp_stopsAtTimeBudget() {
+        when(dao.findTopByOrderByIdDesc()).thenReturn(Optional.of(address(1_000_000)));
+        when(dao.findByIdBetween(anyLong(), anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return List.of(address(invocation.<Long>getArgument(1)));
+        });
+
+        long start = System.nanoTime();
+        create("recent", 10_000, DataSize.ofMegabytes(32), Duration.ofMillis(200)).warmUp();
+
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(2).toNanos());
+    }
+
+    @Test
+    void test_warmUp_emptyTableLoadsNothing() {
+        when(dao.findTopByOrderByIdDesc()).thenReturn(Optional.empty());
+
+        assertEquals(0, create(10_000).warmUp());
+        verify(dao, never()).findByIdBetween(anyLong(), anyLong());
+    }
+
+    @Test
+    void test_warmUp_failureDoesNotStopStartup() {
+        when(dao.findTopByOrderByIdDesc()).thenThrow(new IllegalStateException("database down"));
+
+        CacheWarmer warmer = create(10_000);
+        warmer.run(new DefaultApplicationArguments());
+
+        assertEquals(1.0, meterRegistry.get("alias.warmup.progress").gauge().value());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_warmUp_loadsSavedHotKeys() throws IOException {
+        Files.write(directory.resolve("hot.txt"), List.of("a7", "a3"));
+        when(dao.findByAliasIn(anyCollection())).thenAnswer(invocation -> {
+            List<ShortenedAddress> found = new ArrayList<>();
+            for (String alias : (Collection<String>) invocation.getArgument(0)) {
+                found.add(address(Long.parseLong(alias.substring(1))));
+            }
+            return found;
+        });
+
+        assertEquals(2, create("hot-keys", 10_000, DataSize.ofMegabytes(32), Duration.ofSeconds(10)).warmUp());
+
+        assertEquals(Optional.of(Redirect.to(URI.create("https://example.com/7"))), aliasCache.getIfPresent("a7"));
+        verify(dao, never()).findTopByOrderByIdDesc();
+    }
+
+    @Test
+    void test_warmUp_fallsBackToRecentWithoutHotKeys() {
+        givenStoredIds(10);
+
+        assertEquals(10, create("hot-keys", 10_000, DataSize.ofMegabytes(32), Duration.ofSeconds(10)).warmUp());
+    }
+
+    @Test
+    void test_stop_savesHotKeysForNextInstance() throws IOException {
+        when(hotAliasTracker.maxCandidates()).thenReturn(10);
+        when(hotAliasTracker.top(10)).thenReturn(List.of(new HotAlias("a", 5), new HotAlias("b", 3)));
+        CacheWarmer warmer = create("hot-keys", 10_000, DataSize.ofMegabytes(32), Duration.ofSeconds(10));
+
+        warmer.start();
+        warmer.stop();
+
+        assertEquals(List.of("a", "b"), Files.readAllLines(directory.resolve("hot.txt")));
+    }
+
+    @Test
+    void test_stop_doesNotSaveHotKeysForRecentSource() {
+        CacheWarmer warmer = create(10_000);
+
+        warmer.start();
+        warmer.stop();
+
+        verify(hotAliasTracker, never()).top(anyInt());
+        assertTrue(Files.notExists(directory.resolve("hot.txt")));
+    }
+
+    @Test
+    void test_warmUp_onReadReplicaPreloadsSnapshot() {
+        when(aliasSnapshot.isEnabled()).thenReturn(true);
+        when(aliasSnapshot.preload(DataSize.ofMegabytes(32).toBytes())).thenReturn(4096L);
+
+        assertEquals(0, create(10_000).warmUp());
+
+        assertEquals(4096, meterRegistry.get("alias.warmup.bytes").gauge().value());
+        verify(dao, never()).findTopByOrderByIdDesc();
+        assertNull(aliasCache.getIfPresent("a1"));
+    }
+
+}
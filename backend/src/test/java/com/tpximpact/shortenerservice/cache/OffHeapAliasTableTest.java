@@ -0,0 +1,221 @@
+package com.tpximpact.shortenerservice.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import com.tpximpact.shortenerservice.model.Redirect;
+
+class OffHeapAliasTableTest {
+
+    private static Redirect redirect(String alias) {
+        return Redirect.to(URI.create("https://example.com/" + alias));
+    }
+
+    @Test
+    void test_lookup_isNullForEmptyTable() {
+        OffHeapAliasTable table = new OffHeapAliasTable(0, 4096);
+
+        assertNull(table.lookup("anything"));
+    }
+
+    @Test
+    void test_lookup_returnsStoredRedirect() {
+        OffHeapAliasTable table = new OffHeapAliasTable(0, 4096);
+        Redirect expiring = new Redirect(URI.create("https://example.com/ünïcode?q=1"), 308,
+            Instant.ofEpochMilli(1_900_000_000_000L));
+
+        assertTrue(table.put("plain", redirect("plain")));
+        assertTrue(table.put("expiring", expiring));
+
+        assertEquals(redirect("plain"), table.lookup("plain"));
+        assertEquals(expiring, table.lookup("expiring"));
+        assertNull(table.lookup("other"));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void test_put_replacesRedirect() {
+        OffHeapAliasTable table = new OffHeapAliasTable(0, 4096);
+        table.put("alias", redirect("old"));
+
+        table.put("alias", redirect("new"));
+
+        assertEquals(redirect("new"), table.lookup("alias"));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void test_put_dropsAliasesItCannotHold() {
+        OffHeapAliasTable table = new OffHeapAliasTable(0, 4096);
+        table.put("alias", redirect("old"));
+
+        assertFalse(table.put("alias", Redirect.to(URI.create("https://example.com/" + "x".repeat(5000)))));
+        assertFalse(table.put("ålias", redirect("ålias")));
+
+        assertNull(table.lookup("alias"));
+        assertNull(table.lookup("ålias"));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void test_remove_leavesOtherAliases() {
+        OffHeapAliasTable table = new OffHeapAliasTable(0, 4096);
+        for (int i = 0; i < 100; i++) {
+            table.put("alias-" + i, redirect("alias-" + i));
+        }
+
+        for (int i = 0; i < 100; i += 2) {
+            assertTrue(table.remove("alias-" + i));
+        }
+
+        assertFalse(table.remove("alias-0"));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 0 ? null : redirect("alias-" + i), table.lookup("alias-" + i));
+        }
+        assertEquals(50, table.size());
+    }
+
+    @Test
+    void test_put_growsSlotTableAndReusesDeletedSlots() {
+        OffHeapAliasTable table = new OffHeapAliasTable(0, 1 << 20);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 20_000; i++) {
+                table.put("alias-" + i, redirect("alias-" + i));
+            }
+            for (int i = 0; i < 20_000; i += 3) {
+                table.remove("alias-" + i);
+            }
+        }
+
+        for (int i = 0; i < 20_000; i++) {
+            assertEquals(i % 3 == 0 ? null : redirect("alias-" + i), table.lookup("alias-" + i));
+        }
+    }
+
+    @Test
+    void test_compact_dropsChunksOfGarbage() {
+        OffHeapAliasTable table = new OffHeapAliasTable(10_000, 4096);
+        for (int i = 0; i < 10_000; i++) {
+            table.put("alias-" + i, redirect("alias-" + i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 4 != 0) {
+                table.remove("alias-" + i);
+            }
+        }
+        final long before = table.allocatedBytes();
+
+        assertTrue(table.needsCompaction(0.5));
+        assertTrue(table.compact(0.5, Instant.now()) > 0);
+
+        assertFalse(table.needsCompaction(0.5));
+        assertTrue(table.allocatedBytes() < before / 2, table.allocatedBytes() + " of " + before);
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i % 4 == 0 ? redirect("alias-" + i) : null, table.lookup("alias-" + i));
+        }
+    }
+
+    @Test
+    void test_compact_dropsExpiredAliases() {
+        OffHeapAliasTable table = new OffHeapAliasTable(0, 256);
+        final Instant now = Instant.now();
+        table.put("expired", new Redirect(URI.create("https://example.com/a"), 302, now.minusSeconds(1)));
+        table.put("current", new Redirect(URI.create("https://example.com/b"), 302, now.plusSeconds(60)));
+        table.put("garbage", redirect("garbage"));
+        table.remove("garbage");
+        // Fill the rest of the chunk so that it is no longer the one being appended to
+        for (int i = 0; table.allocatedBytes() - 16 * Long.BYTES < 512; i++) {
+            table.put("filler-" + i, redirect("filler-" + i));
+        }
+
+        table.compact(0.0, now);
+
+        assertNull(table.lookup("expired"));
+        assertEquals(now.plusSeconds(60).toEpochMilli(), table.lookup("current").expiresAt().toEpochMilli());
+    }
+
+    @Test
+    void test_lookup_readsConsistentlyWhileWriterChurnsAndCompacts() throws Exception {
+        OffHeapAliasTable table = new OffHeapAliasTable(0, 8192);
+        for (int i = 0; i < 1000; i++) {
+            table.put("stable-" + i, redirect("stable-" + i));
+        }
+
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = Thread.ofPlatform().start(() -> {
+                while (writing.get()) {
+                    for (int i = 0; i < 1000; i++) {
+                        final Redirect found = table.lookup("stable-" + i);
+                        if (!redirect("stable-" + i).equals(found)) {
+                            failure.compareAndSet(null, "stable-" + i + " was " + found);
+                        }
+                    }
+                }
+            });
+        }
+
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 2000; i++) {
+                table.put("churn-" + i, redirect("churn-" + round));
+            }
+            for (int i = 0; i < 2000; i++) {
+                table.remove("churn-" + i);
+            }
+            table.compact(0.5, Instant.now());
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(1000, table.size());
+    }
+
+    @Test
+    void test_close_waitsForPinnedReadersThenFreesTable() throws InterruptedException {
+        OffHeapAliasTable table = new OffHeapAliasTable(0, 4096);
+        table.put("alias", redirect("alias"));
+        assertTrue(table.pin());
+
+        Thread closer = Thread.ofPlatform().start(table::close);
+        Thread.sleep(50);
+
+        // Still readable while pinned, however long the lookup takes
+        assertTrue(closer.isAlive());
+        assertEquals(redirect("alias"), table.lookup("alias"));
+        table.unpin();
+        closer.join();
+
+        assertFalse(table.pin());
+        assertFalse(table.put("other", redirect("other")));
+        assertEquals(0, table.allocatedBytes());
+    }
+
+    @Test
+    void test_usedBytes_isCloseToRawBytesPerAlias() {
+        OffHeapAliasTable table = new OffHeapAliasTable(100_000, 1 << 20);
+        for (int i = 0; i < 100_000; i++) {
+            table.put(Integer.toString(i, 36) + "xyz", redirect("some/longer/path/" + i));
+        }
+
+        final double used = (double) table.usedBytes() / table.size();
+        final double raw = (double) table.rawBytes() / table.size();
+
+        // A 5 byte header per entry, and 8 bytes per slot with the table between half and three quarters full
+        assertTrue(used - raw <= 5 + 16, "used " + used + " raw " + raw);
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.tpximpact.shortenerservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+public class ForwardedHeadersTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void test_shorten_buildsShortUrlFromForwardedHeaders() throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/shorten"))
+                .header("Content-Type", "application/json")
+                .header("X-Forwarded-Proto", "https")
+                .header("X-Forwarded-Host", "sho.rt")
+                .header("X-Forwarded-Port", "443")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"fullUrl\":\"https://example.com\",\"customAlias\":\"forwarded\"}"))
+                .build();
+
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode(), response.body());
+            assertEquals("{\"shortUrl\":\"https://sho.rt/forwarded\"}", response.body());
+        }
+    }
+}
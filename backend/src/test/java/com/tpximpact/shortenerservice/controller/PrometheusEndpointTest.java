@@ -0,0 +1,53 @@
+package com.tpximpact.shortenerservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = "management.prometheus.metrics.export.enabled=true")
+public class PrometheusEndpointTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void test_prometheus_exposesRedirectDatabaseAndPoolMetrics() throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/not-stored")).build(),
+                HttpResponse.BodyHandlers.discarding());
+
+            HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/prometheus")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            String body = response.body();
+            assertTrue(body.contains("shortener_redirects_total{status=\"404\"}"), "redirect counter");
+            assertTrue(body.contains("shortener_redirect_seconds_bucket{outcome=\"not_found\""), "redirect histogram");
+            assertTrue(body.contains("http_server_requests_seconds_bucket"), "request histogram");
+            assertTrue(body.contains("hikaricp_connections_active"), "pool gauges");
+            assertTrue(body.contains("alias_warmup_progress 1.0"), "warm-up progress");
+        }
+    }
+
+    @Test
+    void test_readiness_isUpOnceWarmUpHasFinished() throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health/readiness")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.tpximpact.shortenerservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+    "alias.rateLimit.clientHeader=X-API-Key",
+    "alias.rateLimit.write.rate=0.01",
+    "alias.rateLimit.write.burst=1"
+})
+public class RateLimitEndpointTest {
+
+    @LocalServerPort
+    private int port;
+
+    private HttpResponse<String> shorten(HttpClient client, String apiKey, String alias) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/shorten"))
+            .header("Content-Type", "application/json")
+            .header("X-API-Key", apiKey)
+            .POST(HttpRequest.BodyPublishers.ofString("{\"fullUrl\":\"https://example.com\",\"customAlias\":\"" + alias + "\"}"))
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void test_shorten_overLimitRespondsTooManyRequests() throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            assertEquals(200, shorten(client, "limited", "limited-1").statusCode());
+
+            HttpResponse<String> limited = shorten(client, "limited", "limited-2");
+            assertEquals(429, limited.statusCode(), limited.body());
+            assertTrue(Long.parseLong(limited.headers().firstValue("Retry-After").orElseThrow()) > 0);
+            assertTrue(limited.headers().firstValue("Content-Type").orElseThrow().startsWith("application/json"));
+            assertTrue(limited.body().contains("\"status\":429"), limited.body());
+            assertTrue(limited.body().contains("\"message\":\"Too many requests, please slow down\""), limited.body());
+
+            // Other clients and other endpoints are unaffected
+            assertEquals(200, shorten(client, "other", "limited-3").statusCode());
+            assertEquals(302, client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/limited-1"))
+                .header("X-API-Key", "limited").build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.tpximpact.shortenerservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.repository.ReactiveShortenedAddressDAO;
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1",
+    "spring.r2dbc.url=r2dbc:h2:mem:///reactive;DB_CLOSE_DELAY=-1",
+    "spring.r2dbc.username=sa"
+})
+@ActiveProfiles("reactive")
+public class ReactiveEndpointsTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ShortenedAddressDAO shortenedAddressDAO;
+
+    @Autowired
+    private ReactiveShortenedAddressDAO reactiveShortenedAddressDAO;
+
+    private HttpClient client;
+
+    @BeforeEach
+    void setup() {
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void test_shortenRedirectAndDelete_roundTrip() throws Exception {
+        HttpResponse<String> shortened = post("/shorten", "{\"fullUrl\":\"https://example.com/page\",\"customAlias\":\"reactive\"}");
+        assertEquals(200, shortened.statusCode(), shortened.body());
+        assertEquals("{\"shortUrl\":\"http://localhost:" + port + "/reactive\"}", shortened.body());
+
+        HttpResponse<String> redirect = get("/reactive");
+        assertEquals(302, redirect.statusCode());
+        assertEquals(Optional.of("https://example.com/page"), redirect.headers().firstValue("Location"));
+
+        HttpResponse<String> duplicate = post("/shorten", "{\"fullUrl\":\"https://example.com/other\",\"customAlias\":\"reactive\"}");
+        assertEquals(400, duplicate.statusCode());
+        assertTrue(duplicate.body().contains("the alias reactive is already mapped to a URL"), duplicate.body());
+
+        HttpResponse<String> deleted = client.send(
+            HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/reactive")).DELETE().build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(204, deleted.statusCode());
+        assertEquals(404, get("/reactive").statusCode());
+    }
+
+    @Test
+    void test_shortenBatch_reportsEachRequest() throws Exception {
+        HttpResponse<String> response = post("/shorten/batch",
+            "[{\"fullUrl\":\"https://example.com/1\"},{\"customAlias\":\"nourl\"},{\"fullUrl\":\"https://example.com/3\",\"customAlias\":\"batched\"}]");
+
+        assertEquals(200, response.statusCode(), response.body());
+        assertTrue(response.body().contains("full url must be provided"), response.body());
+        assertTrue(response.body().contains("http://localhost:" + port + "/batched"), response.body());
+        assertEquals(302, get("/batched").statusCode());
+    }
+
+    @Test
+    void test_listing_streamsEverythingAndPagesWithLinks() throws Exception {
+        post("/shorten", "{\"fullUrl\":\"https://example.com/a\",\"customAlias\":\"listed-a\"}");
+        post("/shorten", "{\"fullUrl\":\"https://example.com/b\",\"customAlias\":\"listed-b\"}");
+
+        HttpResponse<String> all = get("/urls");
+        assertEquals(200, all.statusCode());
+        assertTrue(all.body().startsWith("["), all.body());
+        assertTrue(all.body().contains("\"alias\":\"listed-a\"") && all.body().contains("\"alias\":\"listed-b\""), all.body());
+
+        HttpResponse<String> page = get("/urls?limit=1");
+        assertEquals(200, page.statusCode());
+        assertTrue(page.headers().firstValue("Link").orElseThrow().contains("rel=\"next\""));
+        assertEquals(400, get("/urls?limit=0").statusCode());
+    }
+
+    @Test
+    void test_insert_keepsExpiry() {
+        Instant expiresAt = Instant.now().plus(Duration.ofDays(1)).truncatedTo(ChronoUnit.MILLIS);
+        reactiveShortenedAddressDAO.insert("expiring-r2dbc", "https://example.com/r2dbc", null, expiresAt).block();
+
+        assertEquals(expiresAt, reactiveShortenedAddressDAO.findByAlias("expiring-r2dbc").block().getExpiresAt());
+        assertEquals(expiresAt, shortenedAddressDAO.findByAlias("expiring-r2dbc").orElseThrow().getExpiresAt());
+    }
+
+    @Test
+    void test_deleteAllByAlias_returnsOnlyDeletedAliases() {
+        reactiveShortenedAddressDAO.insert("bulk-r2dbc-1", "https://example.com/1", null, null).block();
+        reactiveShortenedAddressDAO.insert("bulk-r2dbc-2", "https://example.com/2", null, null).block();
+
+        assertEquals(Set.of("bulk-r2dbc-1", "bulk-r2dbc-2"), reactiveShortenedAddressDAO
+            .deleteAllByAlias(List.of("bulk-r2dbc-1", "bulk-r2dbc-2", "bulk-r2dbc-missing")).block());
+        assertEquals(Set.of(), reactiveShortenedAddressDAO.deleteAllByAlias(List.of("bulk-r2dbc-1")).block());
+        assertTrue(shortenedAddressDAO.findByAlias("bulk-r2dbc-2").isEmpty());
+    }
+
+    @Test
+    void test_insert_idsDoNotClashWithHibernate() {
+        ShortenedAddress jpa = shortenedAddressDAO.save(
+            ShortenedAddress.builder().alias("from-jpa").originalUrl("https://example.com/jpa").build());
+        ShortenedAddress r2dbc = reactiveShortenedAddressDAO.insert("from-r2dbc", "https://example.com/r2dbc", null, null).block();
+        ShortenedAddress jpaAgain = shortenedAddressDAO.save(
+            ShortenedAddress.builder().alias("from-jpa-2").originalUrl("https://example.com/jpa").build());
+
+        assertTrue(r2dbc.getId() != jpa.getId() && r2dbc.getId() != jpaAgain.getId(),
+            jpa.getId() + " " + r2dbc.getId() + " " + jpaAgain.getId());
+        assertEquals("https://example.com/r2dbc",
+            reactiveShortenedAddressDAO.findByAlias("from-r2dbc").block().getOriginalUrl());
+    }
+}
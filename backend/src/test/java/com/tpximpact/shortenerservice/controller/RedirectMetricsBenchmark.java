@@ -0,0 +1,105 @@
+package com.tpximpact.shortenerservice.controller;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+
+import com.tpximpact.shortenerservice.analytics.ClickRecorder;
+import com.tpximpact.shortenerservice.analytics.HotAliasTracker;
+import com.tpximpact.shortenerservice.cache.AliasBloomFilter;
+import com.tpximpact.shortenerservice.cache.AliasCache;
+import com.tpximpact.shortenerservice.cache.AliasIndex;
+import com.tpximpact.shortenerservice.metrics.ShortenerMetrics;
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.routing.ReadRouting;
+import com.tpximpact.shortenerservice.service.ShortenedAddressService;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+import com.tpximpact.shortenerservice.snapshot.AliasSnapshot;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Overhead of the redirect metrics. Runs a cached redirect through the controller with the meters
+ * registered against a registry that discards everything ({@code noop}) and against the
+ * Prometheus registry the application uses, so the difference is the cost of the instrumentation.
+ * Click recording and hot alias tracking are switched off to keep them out of the numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedirectMetricsBenchmark {
+
+    @Param({ "noop", "prometheus" })
+    public String registry;
+
+    private ShortenedAddressController controller;
+
+    @Setup
+    public void setup() {
+        final MeterRegistry meterRegistry = registry.equals("prometheus")
+            ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+            // A composite with nothing added to it hands out no-op meters
+            : new CompositeMeterRegistry();
+        final ShortenerMetrics metrics = new ShortenerMetrics(meterRegistry);
+
+        final ShortenedAddressService service = new ShortenedAddressService(storedAlias("abc"), null,
+            new ReadRouting(List.of(), Duration.ofSeconds(5), 1, meterRegistry), new AliasShards(List.of(), 128, 0), null, null,
+            new AliasCache(100, Duration.ofMinutes(10), Duration.ofMinutes(10), meterRegistry),
+            new AliasBloomFilter(false, 1, 0.01, false, "loopback", null, null, Runnable::run, meterRegistry),
+            new AliasIndex(false, DataSize.ofMegabytes(1), 0.5, Duration.ZERO, false, "loopback", null, null, null, null, meterRegistry), null, new HotAliasTracker(false, 1, 1, Duration.ofMinutes(1), 1, 1),
+            new AliasSnapshot(false, "unused", Duration.ofMinutes(1), meterRegistry), null, null, metrics, 1000, 1000, false);
+
+        controller = new ShortenedAddressController(service, JsonMapper.builder().build(),
+            new ClickRecorder(false, 2, 1, Duration.ofSeconds(1), null, meterRegistry),
+            new RedirectPolicy(302, Duration.ofDays(1), Duration.ZERO), metrics);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> redirectFound() {
+        return controller.forwardToURL("abc", null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> redirectNotFound() {
+        return controller.forwardToURL("missing", null, null);
+    }
+
+    /**
+     * Repository holding a single alias. Every lookup after the first is served by the cache.
+     */
+    private static ShortenedAddressDAO storedAlias(String alias) {
+        final ShortenedAddress address = ShortenedAddress.builder().alias(alias).originalUrl("https://example.com").build();
+        return (ShortenedAddressDAO) Proxy.newProxyInstance(ShortenedAddressDAO.class.getClassLoader(),
+            new Class<?>[] { ShortenedAddressDAO.class }, (proxy, method, args) -> {
+                if (!method.getName().equals("findByAlias")) {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+                return alias.equals(args[0]) ? Optional.of(address) : Optional.empty();
+            });
+    }
+
+}
@@ -1,34 +1,74 @@
 package com.tpximpact.shortenerservice.controller;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import com.tpximpact.shortenerservice.analytics.ClickRecorder;
+import com.tpximpact.shortenerservice.metrics.ShortenerMetrics;
+import com.tpximpact.shortenerservice.model.BatchShortenResult;
+import com.tpximpact.shortenerservice.model.BulkDeleteResult;
+import com.tpximpact.shortenerservice.model.HotAlias;
+import com.tpximpact.shortenerservice.model.ListingVersion;
+import com.tpximpact.shortenerservice.model.Redirect;
 import com.tpximpact.shortenerservice.model.ShortenRequest;
 import com.tpximpact.shortenerservice.model.ShortenResponse;
+import com.tpximpact.shortenerservice.model.SnapshotExport;
 import com.tpximpact.shortenerservice.model.StoredAlias;
+import com.tpximpact.shortenerservice.model.StoredAliasPage;
 import com.tpximpact.shortenerservice.service.ShortenedAddressService;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
 @ExtendWith(MockitoExtension.class)
 public class ShortenedAddressControllerTest {
 
     @Mock
     private ShortenedAddressService shortenedAddressService;
 
-    @InjectMocks
+    @Mock
+    private ClickRecorder clickRecorder;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private ShortenedAddressController controller;
 
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        controller = new ShortenedAddressController(shortenedAddressService, JsonMapper.builder().build(), clickRecorder,
+            new RedirectPolicy(302, Duration.ofDays(1), Duration.ZERO), new ShortenerMetrics(meterRegistry));
+        request = new MockHttpServletRequest("GET", "/urls");
+        response = new MockHttpServletResponse();
+    }
+
+    private ServletWebRequest webRequest() {
+        return new ServletWebRequest(request, response);
+    }
+
     @Test
     void test_shortenUrl_returnsShortenResponseWhenServiceReturns() {
         ShortenRequest req = new ShortenRequest(URI.create("http://example.com"), null);
@@ -42,30 +82,84 @@ public class ShortenedAddressControllerTest {
         verify(shortenedAddressService).shorten(req);
     }
 
+    @Test
+    void test_shortenUrls_returnsResultsFromService() {
+        List<ShortenRequest> reqs = List.of(new ShortenRequest(URI.create("http://example.com"), null));
+        List<BatchShortenResult> results = List.of(BatchShortenResult.success(URI.create("http://short/abc")));
+
+        when(shortenedAddressService.shortenAll(reqs)).thenReturn(results);
+
+        assertEquals(results, controller.shortenUrls(reqs));
+    }
+
+    @Test
+    void test_getHotAliases_returnsAliasesFromService() {
+        List<HotAlias> hot = List.of(new HotAlias("viral", 100));
+
+        when(shortenedAddressService.getHotAliases(5)).thenReturn(hot);
+
+        assertEquals(hot, controller.getHotAliases(5));
+    }
+
     @Test
     void test_forwardToURL_redirectsToLocationWhenAliasFound() {
         String alias = "abc";
         URI target = URI.create("http://example.com");
 
-        when(shortenedAddressService.getForwardedURI(alias)).thenReturn(Optional.of(target));
+        when(shortenedAddressService.getRedirect(alias)).thenReturn(Optional.of(Redirect.to(target)));
 
-        ResponseEntity<Object> resp = controller.forwardToURL(alias);
+        ResponseEntity<Object> resp = controller.forwardToURL(alias, "http://referrer", "agent");
 
         assertEquals(HttpStatus.FOUND, resp.getStatusCode());
         assertEquals(target, resp.getHeaders().getLocation());
-        verify(shortenedAddressService).getForwardedURI(alias);
+        assertEquals("no-cache", resp.getHeaders().getCacheControl());
+        verify(shortenedAddressService).getRedirect(alias);
+        verify(clickRecorder).record(alias, "http://referrer", "agent");
+        assertEquals(1, meterRegistry.get("shortener.redirects").tag("status", "302").counter().count());
+    }
+
+    @Test
+    void test_forwardToURL_usesStatusStoredForAliasWithItsMaxAge() {
+        URI target = URI.create("http://example.com");
+        when(shortenedAddressService.getRedirect("moved")).thenReturn(Optional.of(new Redirect(target, 301)));
+
+        ResponseEntity<Object> resp = controller.forwardToURL("moved", null, null);
+
+        assertEquals(HttpStatus.MOVED_PERMANENTLY, resp.getStatusCode());
+        assertEquals(target, resp.getHeaders().getLocation());
+        assertEquals("max-age=86400, public", resp.getHeaders().getCacheControl());
+        assertEquals(1, meterRegistry.get("shortener.redirects").tag("status", "301").counter().count());
+    }
+
+    @Test
+    void test_forwardToURL_doesNotLetExpiringPermanentRedirectsBeCachedPastTheirExpiry() {
+        URI target = URI.create("http://example.com");
+        when(shortenedAddressService.getRedirect("expiring"))
+            .thenReturn(Optional.of(new Redirect(target, 301, Instant.now().plusSeconds(600))));
+        when(shortenedAddressService.getRedirect("lasting"))
+            .thenReturn(Optional.of(new Redirect(target, 301, Instant.now().plus(Duration.ofDays(7)))));
+        when(shortenedAddressService.getRedirect("expired"))
+            .thenReturn(Optional.of(new Redirect(target, 301, Instant.now().minusSeconds(1))));
+
+        String expiring = controller.forwardToURL("expiring", null, null).getHeaders().getCacheControl();
+        assertTrue(expiring.matches("max-age=(59[0-9]|600), public"), expiring);
+        assertEquals("max-age=86400, public",
+            controller.forwardToURL("lasting", null, null).getHeaders().getCacheControl());
+        assertEquals("no-store", controller.forwardToURL("expired", null, null).getHeaders().getCacheControl());
     }
 
     @Test
     void test_forwardToURL_returnsNotFoundWhenAliasMissing() {
         String alias = "missing";
 
-        when(shortenedAddressService.getForwardedURI(alias)).thenReturn(Optional.empty());
+        when(shortenedAddressService.getRedirect(alias)).thenReturn(Optional.empty());
 
-        ResponseEntity<Object> resp = controller.forwardToURL(alias);
+        ResponseEntity<Object> resp = controller.forwardToURL(alias, null, null);
 
         assertEquals(HttpStatus.NOT_FOUND, resp.getStatusCode());
-        verify(shortenedAddressService).getForwardedURI(alias);
+        verify(shortenedAddressService).getRedirect(alias);
+        verifyNoInteractions(clickRecorder);
+        assertEquals(1, meterRegistry.get("shortener.redirects").tag("status", "404").counter().count());
     }
 
     @Test
@@ -79,15 +173,111 @@ public class ShortenedAddressControllerTest {
         verify(shortenedAddressService).deleteStoredAlias(alias);
     }
 
+    @Test
+    void test_deleteAliases_returnsResultFromService() {
+        List<String> aliases = List.of("a", "b");
+        BulkDeleteResult result = new BulkDeleteResult(1, List.of("b"));
+
+        when(shortenedAddressService.deleteStoredAliases(aliases)).thenReturn(result);
+
+        assertEquals(result, controller.deleteAliases(aliases));
+    }
+
     @Test
     void test_getStoredAliases_returnsListWhenServiceHasStoredUrls() {
         List<StoredAlias> list = List.of(new StoredAlias("a", URI.create("http://x"), URI.create("http://s/a")));
 
-        when(shortenedAddressService.getStoredURLs()).thenReturn(list);
+        when(shortenedAddressService.getListingVersion()).thenReturn(new ListingVersion(3, Instant.ofEpochSecond(1000)));
+        when(shortenedAddressService.getStoredURLs(10, null)).thenReturn(new StoredAliasPage(list, null));
+
+        ResponseEntity<List<StoredAlias>> result = controller.getStoredAliases(10, null, webRequest());
+
+        assertEquals(list, result.getBody());
+        assertNull(result.getHeaders().getFirst(HttpHeaders.LINK));
+        assertEquals("\"3\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(1_000_000, response.getDateHeader(HttpHeaders.LAST_MODIFIED));
+        assertEquals("no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        verify(shortenedAddressService).getStoredURLs(10, null);
+    }
+
+    @Test
+    void test_getStoredAliases_answersNotModifiedWithoutReadingWhenETagMatches() {
+        when(shortenedAddressService.getListingVersion()).thenReturn(new ListingVersion(3, Instant.ofEpochSecond(1000)));
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"3\"");
+
+        assertNull(controller.getStoredAliases(10, null, webRequest()));
+
+        assertEquals(304, response.getStatus());
+        verify(shortenedAddressService, never()).getStoredURLs(anyInt(), any());
+    }
+
+    @Test
+    void test_getStoredAliases_readsListingWhenETagIsStale() {
+        when(shortenedAddressService.getListingVersion()).thenReturn(new ListingVersion(4, Instant.ofEpochSecond(1000)));
+        when(shortenedAddressService.getStoredURLs(10, null)).thenReturn(new StoredAliasPage(List.of(), null));
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"3\"");
+
+        assertEquals(List.of(), controller.getStoredAliases(10, null, webRequest()).getBody());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void test_getStoredAliases_linksToNextPageWhenThereIsOne() {
+        List<StoredAlias> list = List.of(new StoredAlias("a", URI.create("http://x"), URI.create("http://s/a")));
+
+        when(shortenedAddressService.getListingVersion()).thenReturn(new ListingVersion(3, Instant.ofEpochSecond(1000)));
+        when(shortenedAddressService.getStoredURLs(1, "4")).thenReturn(new StoredAliasPage(list, "7"));
+
+        ResponseEntity<List<StoredAlias>> result = controller.getStoredAliases(1, "4", webRequest());
 
-        List<StoredAlias> result = controller.getStoredAliases();
+        assertEquals("</urls?limit=1&after=7>; rel=\"next\"", result.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_streamStoredAliases_writesJsonArray() throws Exception {
+        when(shortenedAddressService.getListingVersion()).thenReturn(new ListingVersion(3, Instant.ofEpochSecond(1000)));
+        doAnswer(invocation -> {
+            Consumer<StoredAlias> consumer = invocation.getArgument(0);
+            consumer.accept(new StoredAlias("a", URI.create("http://x"), URI.create("http://s/a")));
+            consumer.accept(new StoredAlias("b", URI.create("http://y"), URI.create("http://s/b")));
+            return null;
+        }).when(shortenedAddressService).forEachStoredURL(any(Consumer.class));
+
+        controller.streamStoredAliases(webRequest(), response);
+
+        assertEquals("application/json", response.getContentType());
+        assertEquals("\"3\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("[{\"alias\":\"a\",\"fullUrl\":\"http://x\",\"shortUrl\":\"http://s/a\"},"
+            + "{\"alias\":\"b\",\"fullUrl\":\"http://y\",\"shortUrl\":\"http://s/b\"}]",
+            response.getContentAsString());
+    }
+
+    @Test
+    void test_streamStoredAliases_writesEmptyArrayWhenNothingIsStored() throws Exception {
+        when(shortenedAddressService.getListingVersion()).thenReturn(new ListingVersion(3, Instant.ofEpochSecond(1000)));
+        controller.streamStoredAliases(webRequest(), response);
+
+        assertEquals("[]", response.getContentAsString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_streamStoredAliases_answersNotModifiedWhenUnchangedSince() throws Exception {
+        when(shortenedAddressService.getListingVersion()).thenReturn(new ListingVersion(3, Instant.ofEpochSecond(1000)));
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, 1_000_000L);
+
+        controller.streamStoredAliases(webRequest(), response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals("", response.getContentAsString());
+        verify(shortenedAddressService, never()).forEachStoredURL(any(Consumer.class));
+    }
+
+    @Test
+    void test_exportSnapshot_returnsExportFromService() {
+        when(shortenedAddressService.exportSnapshot()).thenReturn(new SnapshotExport(3, 200));
 
-        assertEquals(list, result);
-        verify(shortenedAddressService).getStoredURLs();
+        assertEquals(new SnapshotExport(3, 200), controller.exportSnapshot());
     }
 }
@@ -0,0 +1,211 @@
+package com.tpximpact.shortenerservice.invalidation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.tpximpact.shortenerservice.cache.AliasBloomFilter;
+import com.tpximpact.shortenerservice.cache.AliasCache;
+import com.tpximpact.shortenerservice.cache.AliasIndex;
+import com.tpximpact.shortenerservice.model.AliasEvent;
+import com.tpximpact.shortenerservice.model.Redirect;
+import com.tpximpact.shortenerservice.routing.ReadRouting;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Two instances connected by a loopback channel. Stopping a bus sends whatever it is holding, so
+ * the tests stop the sending bus rather than waiting for the debounce.
+ */
+class InvalidationBusTest {
+
+    private final List<List<AliasEvent>> sent = new ArrayList<>();
+
+    private LoopbackInvalidationChannel channel;
+
+    private AliasCache localCache;
+    private AliasCache remoteCache;
+    private AliasBloomFilter remoteBloomFilter;
+    private AliasIndex remoteAliasIndex;
+    private ReadRouting localReadRouting;
+    private ReadRouting remoteReadRouting;
+    private SimpleMeterRegistry remoteMeterRegistry;
+
+    private InvalidationBus local;
+    private InvalidationBus remote;
+
+    @BeforeEach
+    void setup() {
+        channel = new LoopbackInvalidationChannel() {
+            @Override
+            public void publish(String origin, List<AliasEvent> events) {
+                sent.add(events);
+                super.publish(origin, events);
+            }
+        };
+        localCache = new AliasCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), new SimpleMeterRegistry());
+        remoteCache = new AliasCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), new SimpleMeterRegistry());
+        remoteBloomFilter = mock(AliasBloomFilter.class);
+        remoteAliasIndex = mock(AliasIndex.class);
+        remoteMeterRegistry = new SimpleMeterRegistry();
+        localReadRouting = mock(ReadRouting.class);
+        remoteReadRouting = mock(ReadRouting.class);
+
+        local = new InvalidationBus(Duration.ofMinutes(1), 2, channel, localCache, mock(AliasBloomFilter.class),
+            mock(AliasIndex.class), localReadRouting, new SimpleMeterRegistry());
+        remote = new InvalidationBus(Duration.ofMinutes(1), 2, channel, remoteCache, remoteBloomFilter,
+            remoteAliasIndex, remoteReadRouting, remoteMeterRegistry);
+        local.start();
+        remote.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        local.stop();
+        remote.stop();
+    }
+
+    @Test
+    void test_deleted_evictsAliasOnOtherInstances() {
+        remoteCache.put("gone", Optional.of(Redirect.to(URI.create("https://example.com"))));
+
+        local.deleted("gone");
+        local.stop();
+
+        assertNull(remoteCache.getIfPresent("gone"));
+        verify(remoteAliasIndex).remove("gone");
+        assertEquals(1, remoteMeterRegistry.get("alias.invalidation.received").counter().count());
+    }
+
+    @Test
+    void test_created_addsAliasToBloomFilterAndDropsCachedMiss() {
+        remoteCache.put("new", Optional.empty());
+
+        local.created("new");
+        local.stop();
+
+        assertNull(remoteCache.getIfPresent("new"));
+        verify(remoteBloomFilter).put("new");
+    }
+
+    @Test
+    void test_events_tellReadRoutingOnEveryInstance() {
+        local.created("new");
+        local.deleted("old");
+        local.stop();
+
+        verify(localReadRouting).created("new");
+        verify(localReadRouting).deleted("old");
+        verify(remoteReadRouting).created("new");
+        verify(remoteReadRouting).deleted("old");
+    }
+
+    @Test
+    void test_events_areIgnoredByTheInstanceThatSentThem() {
+        localCache.put("mine", Optional.of(Redirect.to(URI.create("https://example.com"))));
+
+        local.deleted("mine");
+        local.stop();
+
+        assertEquals(Optional.of(Redirect.to(URI.create("https://example.com"))), localCache.getIfPresent("mine"));
+    }
+
+    @Test
+    void test_events_areCollapsedAndBatched() {
+        local.created("a");
+        local.deleted("a");
+        local.deleted(List.of("b", "c"));
+        local.stop();
+
+        assertEquals(List.of(
+            List.of(new AliasEvent(AliasEvent.Type.DELETED, "a"), new AliasEvent(AliasEvent.Type.DELETED, "b")),
+            List.of(new AliasEvent(AliasEvent.Type.DELETED, "c"))), sent);
+        verify(remoteBloomFilter, never()).put("a");
+    }
+
+    @Test
+    void test_events_beforeStartAreNotSent() {
+        InvalidationBus stopped = new InvalidationBus(Duration.ZERO, 10, channel, localCache,
+            mock(AliasBloomFilter.class), mock(AliasIndex.class), mock(ReadRouting.class), new SimpleMeterRegistry());
+
+        stopped.deleted("early");
+
+        assertTrue(sent.isEmpty());
+    }
+
+    @Test
+    void test_resync_clearsCacheAndRebuildsBloomFilter() {
+        remoteCache.put("stale", Optional.of(Redirect.to(URI.create("https://example.com"))));
+        when(remoteBloomFilter.isEnabled()).thenReturn(true);
+
+        channel.resync();
+
+        assertNull(remoteCache.getIfPresent("stale"));
+        verify(remoteBloomFilter).rebuild();
+        verify(remoteAliasIndex).reload();
+        assertEquals(1, remoteMeterRegistry.get("alias.invalidation.resyncs").counter().count());
+    }
+
+    @Test
+    void test_publishFailureIsCountedAndDropped() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InvalidationBus failing = new InvalidationBus(Duration.ZERO, 10, new LoopbackInvalidationChannel() {
+            @Override
+            public void publish(String origin, List<AliasEvent> events) {
+                throw new IllegalStateException("channel down");
+            }
+        }, localCache, mock(AliasBloomFilter.class), mock(AliasIndex.class), mock(ReadRouting.class), meterRegistry);
+        failing.start();
+
+        failing.deleted(List.of("a", "b"));
+        failing.stop();
+
+        assertEquals(2, meterRegistry.get("alias.invalidation.failures").counter().count());
+    }
+
+    @Test
+    void test_publishFailure_asksOtherInstancesToResyncOnceChannelRecovers() throws InterruptedException {
+        final AtomicBoolean down = new AtomicBoolean(true);
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InvalidationBus flaky = new InvalidationBus(Duration.ZERO, 10, new LoopbackInvalidationChannel() {
+            @Override
+            public void publish(String origin, List<AliasEvent> events) {
+                if (down.get()) {
+                    throw new IllegalStateException("channel down");
+                }
+                channel.publish(origin, events);
+            }
+        }, localCache, mock(AliasBloomFilter.class), mock(AliasIndex.class), mock(ReadRouting.class), meterRegistry);
+        remoteCache.put("stale", Optional.of(Redirect.to(URI.create("https://example.com"))));
+        when(remoteBloomFilter.isEnabled()).thenReturn(true);
+        flaky.start();
+
+        flaky.created("lost");
+        for (int i = 0; i < 250 && meterRegistry.get("alias.invalidation.failures").counter().count() == 0; i++) {
+            Thread.sleep(20);
+        }
+        down.set(false);
+        flaky.stop();
+
+        assertEquals(List.of(List.of(new AliasEvent(AliasEvent.Type.RESYNC, null))), sent);
+        assertNull(remoteCache.getIfPresent("stale"));
+        verify(remoteBloomFilter).rebuild();
+        verify(remoteAliasIndex).reload();
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.tpximpact.shortenerservice.invalidation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.tpximpact.shortenerservice.model.AliasEvent;
+
+class PostgresInvalidationChannelTest {
+
+    @Test
+    void test_encode_roundTripsThroughDecode() {
+        List<AliasEvent> events = List.of(
+            new AliasEvent(AliasEvent.Type.CREATED, "abc"),
+            new AliasEvent(AliasEvent.Type.DELETED, "my-alias_1"));
+
+        List<String> payloads = PostgresInvalidationChannel.encode("node", events, PostgresInvalidationChannel.MAX_PAYLOAD_BYTES);
+
+        assertEquals(List.of("node\nCabc\nDmy-alias_1"), payloads);
+        assertEquals(events, PostgresInvalidationChannel.decode(payloads.getFirst()));
+    }
+
+    @Test
+    void test_encode_splitsPayloadsOverTheSizeLimit() {
+        List<AliasEvent> events = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            events.add(new AliasEvent(AliasEvent.Type.DELETED, "alias-" + i));
+        }
+
+        List<String> payloads = PostgresInvalidationChannel.encode("node", events, 100);
+
+        List<AliasEvent> decoded = new ArrayList<>();
+        for (String payload : payloads) {
+            assertTrue(payload.getBytes(StandardCharsets.UTF_8).length <= 100, payload);
+            assertTrue(payload.startsWith("node\n"));
+            decoded.addAll(PostgresInvalidationChannel.decode(payload));
+        }
+        assertEquals(events, decoded);
+    }
+
+    @Test
+    void test_encode_resyncRoundTripsThroughDecode() {
+        List<AliasEvent> events = List.of(new AliasEvent(AliasEvent.Type.RESYNC, null));
+
+        List<String> payloads = PostgresInvalidationChannel.encode("node", events, PostgresInvalidationChannel.MAX_PAYLOAD_BYTES);
+
+        assertEquals(List.of("node\nR"), payloads);
+        assertEquals(events, PostgresInvalidationChannel.decode(payloads.getFirst()));
+    }
+
+    @Test
+    void test_encode_emptyBatchSendsNothing() {
+        assertTrue(PostgresInvalidationChannel.encode("node", List.of(), 100).isEmpty());
+    }
+
+    @Test
+    void test_decode_skipsUnknownLines() {
+        assertEquals(List.of(new AliasEvent(AliasEvent.Type.CREATED, "ok")),
+            PostgresInvalidationChannel.decode("node\nXwhat\n\nCok"));
+    }
+
+    @Test
+    void test_constructor_rejectsChannelNamesThatArentIdentifiers() {
+        assertThrows(IllegalArgumentException.class, () -> new PostgresInvalidationChannel(
+            "bad; DROP TABLE x", Duration.ofSeconds(1), Duration.ofSeconds(1), null, null));
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.tpximpact.shortenerservice.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+import com.tpximpact.shortenerservice.loadtest.WorkloadMix.Operation;
+
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Throughput and latency percentiles for each operation in a load test run, kept in HdrHistograms
+ * (microsecond values, 3 significant digits).
+ *
+ * <p>Two latencies are kept for every request. The corrected one runs from when the request was
+ * scheduled to be sent, so time a client spent stuck behind a slow response counts against the
+ * requests it should have sent meanwhile (coordinated omission). The uncorrected one runs from when
+ * it was actually sent, which is the service time alone and looks better than users see under load.
+ */
+final class LatencyReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Duration length;
+    private final Map<Operation, Totals> totals = new EnumMap<>(Operation.class);
+
+    /**
+     * Creates an empty report.
+     *
+     * @param length how long the measured run lasted, for throughput
+     */
+    LatencyReport(Duration length) {
+        this.length = length;
+        for (Operation operation : Operation.values()) {
+            totals.put(operation, new Totals());
+        }
+    }
+
+    /**
+     * Adds one client's recording to the report.
+     *
+     * @param recording what the client saw
+     */
+    synchronized void add(Recording recording) {
+        recording.totals.forEach((operation, own) -> totals.get(operation).add(own));
+    }
+
+    /**
+     * @return the number of requests sent, over all operations
+     */
+    synchronized long requests() {
+        return totals.values().stream().mapToLong(total -> total.corrected.getTotalCount()).sum();
+    }
+
+    /**
+     * @return the number of requests that failed, over all operations
+     */
+    synchronized long errors() {
+        return totals.values().stream().mapToLong(total -> total.errors).sum();
+    }
+
+    /**
+     * Formats the report as a table, one row per operation that was made and one for all of them.
+     *
+     * @param title first line of the table
+     * @return the table
+     */
+    synchronized String toText(String title) {
+        final StringBuilder text = new StringBuilder(title).append(System.lineSeparator());
+        text.append(String.format(Locale.ROOT, "%-9s %10s %9s %9s %9s %9s %9s %9s %14s %8s %8s%n",
+            "operation", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms",
+            "uncorr p99 ms", "errors", "skipped"));
+        summaries().forEach((label, summary) -> text.append(String.format(Locale.ROOT,
+            "%-9s %10d %9.0f %9.2f %9.2f %9.2f %9.2f %9.2f %14.2f %8d %8d%n",
+            label, summary.requests(), summary.throughput(),
+            summary.latencyMs().p50(), summary.latencyMs().p90(), summary.latencyMs().p99(),
+            summary.latencyMs().p999(), summary.latencyMs().max(), summary.uncorrectedLatencyMs().p99(),
+            summary.errors(), summary.skipped())));
+        return text.toString();
+    }
+
+    /**
+     * Writes {@code report.json} with the settings and the percentiles of each operation, and a
+     * {@code <operation>.hgrm} percentile distribution (in milliseconds) for each operation made,
+     * which the HdrHistogram plotter can draw.
+     *
+     * @param directory where to write, created if needed
+     * @param settings how the run was set up, written out with the results
+     * @throws IOException if the files can't be written
+     */
+    synchronized void write(Path directory, Map<String, Object> settings) throws IOException {
+        Files.createDirectories(directory);
+        JsonMapper.builder()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .build()
+            .writeValue(directory.resolve("report.json").toFile(), new Report(settings, summaries()));
+
+        for (Map.Entry<Operation, Totals> entry : totals.entrySet()) {
+            if (entry.getValue().corrected.getTotalCount() > 0) {
+                try (PrintStream out = new PrintStream(
+                        Files.newOutputStream(directory.resolve(entry.getKey().label() + ".hgrm")))) {
+                    entry.getValue().corrected.outputPercentileDistribution(out, MICROS_PER_MILLI);
+                }
+            }
+        }
+    }
+
+    private Map<String, Summary> summaries() {
+        final Map<String, Summary> summaries = new LinkedHashMap<>();
+        final Totals all = new Totals();
+        totals.forEach((operation, total) -> {
+            if (total.corrected.getTotalCount() > 0 || total.skipped > 0) {
+                summaries.put(operation.label(), total.summary(length));
+                all.add(total);
+            }
+        });
+        summaries.put("all", all.summary(length));
+        return summaries;
+    }
+
+    /**
+     * What one client saw. Not thread safe, each client keeps its own and adds it to the report
+     * when it is done.
+     */
+    static final class Recording {
+
+        private final Map<Operation, Totals> totals = new EnumMap<>(Operation.class);
+
+        Recording() {
+            for (Operation operation : Operation.values()) {
+                totals.put(operation, new Totals());
+            }
+        }
+
+        /**
+         * Records a request.
+         *
+         * @param operation the kind of request
+         * @param scheduledNanos when it should have been sent ({@link System#nanoTime()})
+         * @param sentNanos when it was sent
+         * @param completedNanos when the response arrived
+         * @param succeeded whether the response was the one expected
+         */
+        void record(Operation operation, long scheduledNanos, long sentNanos, long completedNanos, boolean succeeded) {
+            final Totals total = totals.get(operation);
+            total.corrected.recordValue(TimeUnit.NANOSECONDS.toMicros(completedNanos - scheduledNanos));
+            total.uncorrected.recordValue(TimeUnit.NANOSECONDS.toMicros(completedNanos - sentNanos));
+            if (!succeeded) {
+                total.errors++;
+            }
+        }
+
+        /**
+         * Records a request that was due but had nothing to act on, e.g. a delete before anything
+         * was created to delete.
+         *
+         * @param operation the kind of request
+         */
+        void skipped(Operation operation) {
+            totals.get(operation).skipped++;
+        }
+
+    }
+
+    private static final class Totals {
+
+        private final Histogram corrected = new Histogram(3);
+        private final Histogram uncorrected = new Histogram(3);
+        private long errors;
+        private long skipped;
+
+        void add(Totals other) {
+            corrected.add(other.corrected);
+            uncorrected.add(other.uncorrected);
+            errors += other.errors;
+            skipped += other.skipped;
+        }
+
+        Summary summary(Duration length) {
+            return new Summary(corrected.getTotalCount(), corrected.getTotalCount() / (length.toNanos() / 1e9),
+                errors, skipped, Percentiles.of(corrected), Percentiles.of(uncorrected));
+        }
+
+    }
+
+    private record Report(Map<String, Object> settings, Map<String, Summary> operations) {
+    }
+
+    private record Summary(long requests, double throughput, long errors, long skipped,
+            Percentiles latencyMs, Percentiles uncorrectedLatencyMs) {
+    }
+
+    private record Percentiles(double mean, double p50, double p90, double p99, double p999, double max) {
+
+        static Percentiles of(Histogram histogram) {
+            if (histogram.getTotalCount() == 0) {
+                return new Percentiles(0, 0, 0, 0, 0, 0);
+            }
+            return new Percentiles(
+                histogram.getMean() / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(90) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+                histogram.getMaxValue() / MICROS_PER_MILLI);
+        }
+
+    }
+
+}
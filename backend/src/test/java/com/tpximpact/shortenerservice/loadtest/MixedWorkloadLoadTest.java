@@ -0,0 +1,290 @@
+package com.tpximpact.shortenerservice.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.tpximpact.shortenerservice.ShortenerServiceApplication;
+import com.tpximpact.shortenerservice.loadtest.LatencyReport.Recording;
+import com.tpximpact.shortenerservice.loadtest.WorkloadMix.Operation;
+import com.tpximpact.shortenerservice.model.BatchShortenResult;
+import com.tpximpact.shortenerservice.model.Redirect;
+import com.tpximpact.shortenerservice.model.ShortenRequest;
+import com.tpximpact.shortenerservice.service.ShortenedAddressService;
+
+/**
+ * Drives the service with a mix of redirects, shortens, listing and deletes shaped like
+ * production traffic, and reports throughput and latency percentiles for each. Not part of the
+ * normal build, run it with {@code mvn test -Ploadtest -Dtest=MixedWorkloadLoadTest}.
+ *
+ * <p>The service is started in process against an in-memory H2 database, or against Postgres
+ * with {@code -Dloadtest.jdbcUrl=jdbc:postgresql://localhost:5432/shortener},
+ * {@code -Dloadtest.jdbcUser=} and {@code -Dloadtest.jdbcPassword=}, and
+ * {@code loadtest.aliases} aliases are stored through {@link ShortenedAddressService} first.
+ * Redirects pick an alias from a Zipf distribution ({@code loadtest.zipfExponent}) so a few are
+ * hot and most are rarely used; which aliases are hot is shuffled so they are spread through the
+ * table. Deletes remove aliases created by the run's own shortens.
+ *
+ * <p>Clients send at a fixed total rate ({@code loadtest.rate} requests per second) whatever the
+ * latency, so latency is measured from when each request was due and a stall shows up in every
+ * request it held back (see {@link LatencyReport}). The other settings are
+ * {@code loadtest.concurrency}, {@code loadtest.duration} and {@code loadtest.warmUp} (seconds),
+ * {@code loadtest.mix} (e.g. {@code redirect=90,shorten=5,list=3,delete=2}) and
+ * {@code loadtest.seed}. Any {@code -Dloadtest.app.<property>=} is passed to the service, e.g.
+ * {@code -Dloadtest.app.alias.cache.maxSize=0}. The report is printed and written to
+ * {@code loadtest.reportDir} as JSON and HdrHistogram percentile files.
+ */
+@Tag("load")
+class MixedWorkloadLoadTest {
+
+    private static final String APP_PROPERTY_PREFIX = "loadtest.app.";
+    private static final String PRELOADED_PREFIX = "z";
+    private static final int PRELOAD_BATCH_SIZE = 10_000;
+    private static final int LIST_PAGE_SIZE = 100;
+
+    private final int aliases = Integer.getInteger("loadtest.aliases", 100_000);
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 100);
+    private final int rate = Integer.getInteger("loadtest.rate", 2000);
+    private final Duration duration = Duration.ofSeconds(Integer.getInteger("loadtest.duration", 30));
+    private final Duration warmUp = Duration.ofSeconds(Integer.getInteger("loadtest.warmUp", 10));
+    private final double zipfExponent = Double.parseDouble(System.getProperty("loadtest.zipfExponent", "1.0"));
+    private final WorkloadMix mix = WorkloadMix.parse(System.getProperty("loadtest.mix", "redirect=90,shorten=5,list=3,delete=2"));
+    private final long seed = Long.getLong("loadtest.seed", 42);
+    private final String jdbcUrl = System.getProperty("loadtest.jdbcUrl", "jdbc:h2:mem:loadtest-mixed");
+    private final Path reportDir = Path.of(System.getProperty("loadtest.reportDir", "target/loadtest"));
+
+    // Shortens in different runs against the same database must not reuse each other's aliases
+    private final String runPrefix = "w" + Long.toString(System.currentTimeMillis() % (36L * 36 * 36 * 36 * 36), 36);
+
+    private final ZipfDistribution popularity = new ZipfDistribution(aliases, zipfExponent);
+    private final int[] aliasByRank = shuffledRanks();
+    private final Queue<String> created = new ConcurrentLinkedQueue<>();
+
+    @Test
+    void test_mixedWorkload_reportsLatencyPercentiles() throws Exception {
+        try (ConfigurableApplicationContext context = start();
+             HttpClient client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .version(HttpClient.Version.HTTP_1_1)
+                .build()) {
+
+            final int alreadyStored = preload(context.getBean(ShortenedAddressService.class));
+            final String baseURL = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            run(client, baseURL, warmUp, 0);
+            final LatencyReport report = run(client, baseURL, duration, 1);
+
+            final Map<String, Object> settings = settings(alreadyStored);
+            System.out.println();
+            System.out.println(report.toText(String.format(Locale.ROOT,
+                "Mixed workload: %d aliases (zipf %.2f), %s, %d clients at %d req/s for %ds",
+                aliases, zipfExponent, mix, concurrency, rate, duration.toSeconds())));
+            report.write(reportDir, settings);
+            System.out.println("Report written to " + reportDir.toAbsolutePath());
+
+            assertTrue(report.requests() > 0);
+            assertEquals(0, report.errors(), "unexpected responses, see the errors column");
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        // Passed as arguments rather than default properties so they win over application.yaml
+        final List<String> arguments = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--spring.datasource.url=" + jdbcUrl,
+            // Short URLs are built without a request while preloading
+            "--alias.baseUrl=http://loadtest",
+            "--alias.rateLimit.enabled=false",
+            "--alias.loadShedding.enabled=false",
+            "--logging.level.root=WARN"));
+        if (System.getProperty("loadtest.jdbcUser") != null) {
+            arguments.add("--spring.datasource.username=" + System.getProperty("loadtest.jdbcUser"));
+            arguments.add("--spring.datasource.password=" + System.getProperty("loadtest.jdbcPassword", ""));
+        }
+        System.getProperties().stringPropertyNames().stream()
+            .filter(name -> name.startsWith(APP_PROPERTY_PREFIX))
+            .forEach(name -> arguments.add("--" + name.substring(APP_PROPERTY_PREFIX.length()) + "=" + System.getProperty(name)));
+
+        return new SpringApplicationBuilder(ShortenerServiceApplication.class)
+            .run(arguments.toArray(String[]::new));
+    }
+
+    /**
+     * Stores the aliases the redirects are spread over, in batches.
+     *
+     * @return how many were already stored by an earlier run against the same database
+     */
+    private int preload(ShortenedAddressService service) {
+        int alreadyStored = 0;
+        for (int from = 0; from < aliases; from += PRELOAD_BATCH_SIZE) {
+            final List<ShortenRequest> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(aliases, from + PRELOAD_BATCH_SIZE); i++) {
+                batch.add(new ShortenRequest(URI.create("https://example.com/" + i), PRELOADED_PREFIX + i));
+            }
+            for (BatchShortenResult result : service.shortenAll(batch)) {
+                if (result.error() != null) {
+                    alreadyStored++;
+                }
+            }
+        }
+        return alreadyStored;
+    }
+
+    private LatencyReport run(HttpClient httpClient, String baseURL, Duration length, int phase) throws InterruptedException {
+        final LatencyReport report = new LatencyReport(length);
+        final long intervalNanos = (long) (concurrency * 1e9 / rate);
+        final long start = System.nanoTime();
+        final long deadline = start + length.toNanos();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                // Aliases the client shortens are unique to the phase as well as the client
+                final Client client = new Client(runPrefix + phase + "-" + c + "-",
+                    new SplittableRandom(seed + (long) phase * concurrency + c), httpClient, baseURL);
+                // Spread the clients' first requests over one interval so they don't arrive together
+                final long first = start + intervalNanos * c / concurrency;
+                clients.execute(() -> {
+                    for (long due = first; due < deadline; due += intervalNanos) {
+                        final long wait = due - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        client.send(due);
+                    }
+                    report.add(client.recording);
+                });
+            }
+        }
+        return report;
+    }
+
+    private int[] shuffledRanks() {
+        final int[] ranks = new int[aliases];
+        for (int i = 0; i < aliases; i++) {
+            ranks[i] = i;
+        }
+        final SplittableRandom random = new SplittableRandom(seed);
+        for (int i = aliases - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final int swap = ranks[i];
+            ranks[i] = ranks[j];
+            ranks[j] = swap;
+        }
+        return ranks;
+    }
+
+    private Map<String, Object> settings(int alreadyStored) {
+        final Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("database", jdbcUrl);
+        settings.put("aliases", aliases);
+        settings.put("alreadyStored", alreadyStored);
+        settings.put("zipfExponent", zipfExponent);
+        settings.put("mix", mix.toString());
+        settings.put("concurrency", concurrency);
+        settings.put("targetRate", rate);
+        settings.put("durationSeconds", duration.toSeconds());
+        settings.put("warmUpSeconds", warmUp.toSeconds());
+        settings.put("seed", seed);
+        System.getProperties().stringPropertyNames().stream()
+            .filter(name -> name.startsWith(APP_PROPERTY_PREFIX))
+            .sorted()
+            .forEach(name -> settings.put(name, System.getProperty(name)));
+        return settings;
+    }
+
+    /**
+     * One simulated client, used by a single thread.
+     */
+    private final class Client {
+
+        private final String aliasPrefix;
+        private final SplittableRandom random;
+        private final HttpClient httpClient;
+        private final String baseURL;
+        private final Recording recording = new Recording();
+        private int shortened;
+
+        Client(String aliasPrefix, SplittableRandom random, HttpClient httpClient, String baseURL) {
+            this.aliasPrefix = aliasPrefix;
+            this.random = random;
+            this.httpClient = httpClient;
+            this.baseURL = baseURL;
+        }
+
+        void send(long due) {
+            final Operation operation = mix.pick(random);
+            String alias = null;
+            final HttpRequest request;
+            switch (operation) {
+                case REDIRECT -> request = HttpRequest.newBuilder(URI.create(baseURL + "/" + PRELOADED_PREFIX
+                    + aliasByRank[popularity.sample(random)])).GET().build();
+                case SHORTEN -> {
+                    alias = aliasPrefix + shortened++;
+                    request = HttpRequest.newBuilder(URI.create(baseURL + "/shorten"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"fullUrl\":\"https://example.com/" + alias
+                            + "\",\"customAlias\":\"" + alias + "\"}"))
+                        .build();
+                }
+                case LIST -> request = HttpRequest.newBuilder(URI.create(baseURL + "/urls?limit=" + LIST_PAGE_SIZE
+                    + "&after=" + random.nextInt(aliases))).GET().build();
+                case DELETE -> {
+                    alias = created.poll();
+                    if (alias == null) {
+                        recording.skipped(operation);
+                        return;
+                    }
+                    request = HttpRequest.newBuilder(URI.create(baseURL + "/" + alias)).DELETE().build();
+                }
+                default -> throw new IllegalStateException("Unknown operation " + operation);
+            }
+
+            final long sent = System.nanoTime();
+            int status;
+            try {
+                status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            final boolean succeeded = switch (operation) {
+                case REDIRECT -> Redirect.STATUSES.contains(status);
+                case SHORTEN, LIST -> status == 200;
+                case DELETE -> status == 204;
+            };
+            recording.record(operation, due, sent, System.nanoTime(), succeeded);
+
+            if (operation == Operation.SHORTEN && succeeded) {
+                created.add(alias);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,223 @@
+package com.tpximpact.shortenerservice.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.tpximpact.shortenerservice.ShortenerServiceApplication;
+
+/**
+ * Compares redirect throughput and latency with request handling on platform threads and on
+ * virtual threads. Not part of the normal build, run it with {@code mvn test -Ploadtest}.
+ *
+ * <p>Each is run with the alias cache switched off, so every redirect goes to the database, and
+ * with a cache of {@code loadtest.cacheSize} aliases (a tenth of them by default), so that most
+ * redirects are cache misses loaded through the cache. Every statement is delayed by
+ * {@code loadtest.dbLatencyMs} to stand in for the round trip to Postgres. Tune with
+ * {@code -Dloadtest.concurrency=}, {@code -Dloadtest.duration=} (seconds),
+ * {@code -Dloadtest.cacheSize=} and {@code -Dloadtest.dbLatencyMs=}.
+ */
+@Tag("load")
+class RedirectLoadTest {
+
+    private static final int ALIASES = 10_000;
+
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 1000);
+    private final Duration duration = Duration.ofSeconds(Integer.getInteger("loadtest.duration", 20));
+    private final Duration warmUp = Duration.ofSeconds(Integer.getInteger("loadtest.warmUp", 5));
+    private final int cacheSize = Integer.getInteger("loadtest.cacheSize", ALIASES / 10);
+    private final long dbLatencyNanos = Duration.ofMillis(Integer.getInteger("loadtest.dbLatencyMs", 2)).toNanos();
+
+    @Test
+    void test_redirectThroughput_platformVersusVirtualThreads() throws Exception {
+        final List<Result> results = List.of(run(false, 0), run(true, 0), run(false, cacheSize), run(true, cacheSize));
+
+        System.out.printf(Locale.ROOT, "%nRedirects: %d clients, %ds, %dms simulated database latency%n",
+            concurrency, duration.toSeconds(), Duration.ofNanos(dbLatencyNanos).toMillis());
+        System.out.println(Result.HEADER);
+        results.forEach(System.out::println);
+
+        assertTrue(results.stream().allMatch(result -> result.requests() > 0));
+        assertEquals(0, results.stream().mapToLong(Result::failures).sum(), "unexpected non-302 responses");
+    }
+
+    private Result run(boolean virtualThreads, int cacheSize) throws Exception {
+        final String mode = (virtualThreads ? "virtual" : "platform") + (cacheSize > 0 ? "-cached" : "");
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ShortenerServiceApplication.class)
+                .properties(
+                    "server.port=0",
+                    "spring.threads.virtual.enabled=" + virtualThreads,
+                    "spring.datasource.url=jdbc:h2:mem:loadtest-" + mode,
+                    "alias.cache.maxSize=" + cacheSize,
+                    "alias.rateLimit.enabled=false",
+                    "alias.loadShedding.enabled=false",
+                    "logging.level.root=WARN")
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new DatabaseLatency(dbLatencyNanos)))
+                .run();
+             HttpClient client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .version(HttpClient.Version.HTTP_1_1)
+                .build()) {
+
+            final int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            final String baseURL = "http://localhost:" + port;
+            seed(client, baseURL);
+
+            load(client, baseURL, warmUp);
+            return new Result(mode, load(client, baseURL, duration));
+        }
+    }
+
+    private void seed(HttpClient client, String baseURL) throws Exception {
+        final StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < ALIASES; i++) {
+            body.append(i == 0 ? "" : ",")
+                .append("{\"fullUrl\":\"https://example.com/").append(i).append("\",\"customAlias\":\"load").append(i).append("\"}");
+        }
+        body.append(']');
+
+        final HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseURL + "/shorten/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+    }
+
+    private Samples load(HttpClient client, String baseURL, Duration length) throws InterruptedException {
+        final long deadline = System.nanoTime() + length.toNanos();
+        final List<long[]> latencies = new ArrayList<>();
+        final AtomicLong failures = new AtomicLong();
+
+        // Each client is closed-loop: it sends its next request as soon as the last one completes
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                final long[] own = new long[1 << 16];
+                final int index = latencies.size();
+                latencies.add(own);
+                clients.execute(() -> {
+                    long[] mine = own;
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        final URI uri = URI.create(baseURL + "/load" + ThreadLocalRandom.current().nextInt(ALIASES));
+                        final long start = System.nanoTime();
+                        try {
+                            final int status = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                                HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status != 302) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                        if (count == mine.length) {
+                            mine = Arrays.copyOf(mine, mine.length * 2);
+                        }
+                        mine[count++] = System.nanoTime() - start;
+                    }
+                    synchronized (latencies) {
+                        latencies.set(index, Arrays.copyOf(mine, count));
+                    }
+                });
+            }
+        }
+
+        return new Samples(latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray(),
+            failures.get(), length);
+    }
+
+    private record Samples(long[] sortedNanos, long failures, Duration length) {
+
+        double percentileMillis(double percentile) {
+            if (sortedNanos.length == 0) {
+                return 0;
+            }
+            final int index = (int) Math.ceil(percentile / 100 * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    private record Result(String mode, Samples samples) {
+
+        static final String HEADER = String.format(Locale.ROOT, "%-16s %12s %10s %10s %10s %10s %10s",
+            "threads", "requests", "req/s", "p50 ms", "p99 ms", "max ms", "failures");
+
+        long requests() {
+            return samples.sortedNanos().length;
+        }
+
+        long failures() {
+            return samples.failures();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-16s %12d %10.0f %10.2f %10.2f %10.2f %10d",
+                mode, requests(), requests() / (double) samples.length().toSeconds(),
+                samples.percentileMillis(50), samples.percentileMillis(99), samples.percentileMillis(100),
+                failures());
+        }
+    }
+
+    /**
+     * Delays every statement by a fixed amount while holding the connection, to stand in for the
+     * network round trip to a real database.
+     */
+    private record DatabaseLatency(long nanos) implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws java.sql.SQLException {
+                    return delayed(super.getConnection());
+                }
+            };
+        }
+
+        private Connection delayed(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("prepare")) {
+                        LockSupport.parkNanos(nanos);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.tpximpact.shortenerservice.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Share of each kind of request in a load test, e.g. {@code redirect=90,shorten=5,list=3,delete=2}.
+ * Weights are relative, they don't have to add up to 100.
+ */
+final class WorkloadMix {
+
+    /**
+     * The kinds of request a client makes.
+     */
+    enum Operation {
+        REDIRECT, SHORTEN, LIST, DELETE;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Map<Operation, Integer> weights;
+    private final Operation[] operations;
+    private final int[] cumulative;
+
+    private WorkloadMix(Map<Operation, Integer> weights) {
+        this.weights = weights;
+        this.operations = weights.keySet().toArray(Operation[]::new);
+        this.cumulative = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulative[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("the mix needs at least one operation with a positive weight");
+        }
+    }
+
+    /**
+     * Parses a mix such as {@code redirect=90,shorten=5,list=3,delete=2}. Operations left out
+     * are never made.
+     *
+     * @param spec comma separated {@code operation=weight} pairs
+     * @return the mix
+     */
+    static WorkloadMix parse(String spec) {
+        final Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            final String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("expected operation=weight, got '" + part + "'");
+            }
+            final int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("weights can't be negative, got '" + part + "'");
+            }
+            weights.merge(Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight, Integer::sum);
+        }
+        return new WorkloadMix(weights);
+    }
+
+    /**
+     * @param random source of randomness
+     * @return an operation, chosen with the probability its weight gives it
+     */
+    Operation pick(RandomGenerator random) {
+        final int roll = random.nextInt(cumulative[cumulative.length - 1]);
+        for (int i = 0; ; i++) {
+            if (roll < cumulative[i]) {
+                return operations[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder text = new StringBuilder();
+        weights.forEach((operation, weight) ->
+            text.append(text.isEmpty() ? "" : ",").append(operation.label()).append('=').append(weight));
+        return text.toString();
+    }
+
+}
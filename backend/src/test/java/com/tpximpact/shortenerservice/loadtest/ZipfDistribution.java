@@ -0,0 +1,84 @@
+package com.tpximpact.shortenerservice.loadtest;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Zipf distribution over ranks {@code 0} to {@code n - 1}: rank {@code k} is drawn with
+ * probability proportional to {@code 1 / (k + 1)^exponent}, so a few aliases get most of the
+ * traffic and there is a long tail of rarely used ones.
+ *
+ * <p>Samples are drawn by rejection-inversion (Hörmann and Derflinger, "Rejection-inversion to
+ * generate variates from monotone discrete distributions", 1996), which takes constant time and
+ * memory however many ranks there are, rather than a table of cumulative probabilities.
+ */
+final class ZipfDistribution {
+
+    private final int n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    /**
+     * Creates the distribution.
+     *
+     * @param n number of ranks
+     * @param exponent how skewed the popularity is, 0 for uniform (around 1 for web traffic)
+     */
+    ZipfDistribution(int n, double exponent) {
+        if (n < 1 || exponent < 0) {
+            throw new IllegalArgumentException("need at least one rank and a non-negative exponent");
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * @param random source of randomness
+     * @return a rank, 0 being the most popular
+     */
+    int sample(RandomGenerator random) {
+        while (true) {
+            final double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            final double x = hIntegralInverse(u);
+            final int k = (int) Math.max(1, Math.min(n, (long) (x + 0.5)));
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k - 1;
+            }
+        }
+    }
+
+    // h(x) = 1 / x^exponent, the unnormalised probability of rank x (counting from 1)
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    // Integral of h, (x^(1 - exponent) - 1) / (1 - exponent), written to stay accurate near exponent 1
+    private double hIntegral(double x) {
+        final double logX = Math.log(x);
+        return helper2((1 - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1 - exponent);
+        if (t < -1) {
+            // Rounding can take t just past -1, where log1p is undefined
+            t = -1;
+        }
+        return Math.exp(helper1(t) * x);
+    }
+
+    // log(1 + x) / x
+    private static double helper1(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    // (e^x - 1) / x
+    private static double helper2(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.tpximpact.shortenerservice.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class ZipfDistributionTest {
+
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    void test_sample_followsZipfsLaw() {
+        final ZipfDistribution zipf = new ZipfDistribution(1000, 1.0);
+        final SplittableRandom random = new SplittableRandom(1);
+        final int[] counts = new int[1000];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[zipf.sample(random)]++;
+        }
+
+        // The top rank gets 1 / H(1000) of the samples, about 13.4%, and twice as many as the second
+        assertEquals(0.134, counts[0] / (double) SAMPLES, 0.005);
+        assertEquals(2.0, counts[0] / (double) counts[1], 0.1);
+    }
+
+    @Test
+    void test_sample_isUniformWithExponentZero() {
+        final ZipfDistribution zipf = new ZipfDistribution(4, 0);
+        final SplittableRandom random = new SplittableRandom(1);
+        final int[] counts = new int[4];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[zipf.sample(random)]++;
+        }
+
+        for (int count : counts) {
+            assertEquals(0.25, count / (double) SAMPLES, 0.01);
+        }
+    }
+
+    @Test
+    void test_sample_staysInRange() {
+        final ZipfDistribution zipf = new ZipfDistribution(3, 2.5);
+        final SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < SAMPLES; i++) {
+            final int rank = zipf.sample(random);
+            assertTrue(rank >= 0 && rank < 3, "rank " + rank);
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.tpximpact.shortenerservice.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LoadShedderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private Timer acquire;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        acquire = Timer.builder("hikaricp.connections.acquire").tag("pool", "test").register(meterRegistry);
+    }
+
+    private LoadShedder create(boolean enabled) {
+        // Sample on every call
+        return new LoadShedder(enabled, Duration.ofMillis(100), Duration.ZERO, meterRegistry);
+    }
+
+    @Test
+    void test_isShedding_whileAverageWaitIsOverThreshold() {
+        LoadShedder shedder = create(true);
+        acquire.record(Duration.ofMillis(10));
+        assertFalse(shedder.isShedding());
+
+        acquire.record(Duration.ofMillis(500));
+        acquire.record(Duration.ofMillis(50));
+        assertTrue(shedder.isShedding());
+        assertTrue(meterRegistry.get("loadshedding.active").gauge().value() == 1);
+
+        // Only the waits since the last sample count
+        acquire.record(Duration.ofMillis(20));
+        assertFalse(shedder.isShedding());
+    }
+
+    @Test
+    void test_isShedding_whenRequestsTimedOutWaiting() {
+        LoadShedder shedder = create(true);
+        Counter timeouts = Counter.builder("hikaricp.connections.timeout").register(meterRegistry);
+        shedder.isShedding();
+
+        timeouts.increment();
+
+        assertTrue(shedder.isShedding());
+        assertFalse(shedder.isShedding());
+    }
+
+    @Test
+    void test_isShedding_withoutPoolMetricsNeverSheds() {
+        LoadShedder shedder = new LoadShedder(true, Duration.ofMillis(100), Duration.ZERO, new SimpleMeterRegistry());
+
+        assertFalse(shedder.isShedding());
+    }
+
+    @Test
+    void test_isShedding_whenDisabledNeverSheds() {
+        LoadShedder shedder = create(false);
+        acquire.record(Duration.ofSeconds(1));
+
+        assertFalse(shedder.isShedding());
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.tpximpact.shortenerservice.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitInterceptorTest {
+
+    @Mock
+    private RateLimiter rateLimiter;
+
+    @Mock
+    private LoadShedder loadShedder;
+
+    private RateLimitInterceptor interceptor;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setup() {
+        lenient().when(loadShedder.retryAfter()).thenReturn(Duration.ofSeconds(2));
+        interceptor = new RateLimitInterceptor(rateLimiter, loadShedder, "X-API-Key", new SimpleMeterRegistry());
+        request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+        response = new MockHttpServletResponse();
+    }
+
+    private static HandlerMethod handler(String method) throws NoSuchMethodException {
+        return new HandlerMethod(new Handlers(), method);
+    }
+
+    @Test
+    void test_preHandle_overLimitRespondsTooManyRequests() throws Exception {
+        when(rateLimiter.tryAcquire(RateLimitCategory.WRITE, "address:10.0.0.1")).thenReturn(Duration.ofMillis(1500).toNanos());
+
+        assertFalse(interceptor.preHandle(request, response, handler("write")));
+
+        assertEquals(429, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+    }
+
+    @Test
+    void test_preHandle_underLimitContinues() throws Exception {
+        when(rateLimiter.tryAcquire(RateLimitCategory.WRITE, "address:10.0.0.1")).thenReturn(0L);
+
+        assertTrue(interceptor.preHandle(request, response, handler("write")));
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void test_preHandle_identifiesClientByApiKey() throws Exception {
+        request.addHeader("X-API-Key", "key-1");
+
+        interceptor.preHandle(request, response, handler("write"));
+
+        verify(rateLimiter).tryAcquire(RateLimitCategory.WRITE, "key:key-1");
+    }
+
+    @Test
+    void test_preHandle_ignoresUnmarkedHandlers() throws Exception {
+        assertTrue(interceptor.preHandle(request, response, handler("unlimited")));
+        assertTrue(interceptor.preHandle(request, response, new Object()));
+        verify(rateLimiter, never()).tryAcquire(any(), anyString());
+    }
+
+    @Test
+    void test_preHandle_shedsWritesWhileBusy() throws Exception {
+        when(loadShedder.isShedding()).thenReturn(true);
+
+        assertFalse(interceptor.preHandle(request, response, handler("write")));
+
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        verify(rateLimiter, never()).tryAcquire(any(), anyString());
+    }
+
+    @Test
+    void test_preHandle_neverShedsRedirects() throws Exception {
+        when(rateLimiter.tryAcquire(RateLimitCategory.REDIRECT, "address:10.0.0.1")).thenReturn(0L);
+
+        assertTrue(interceptor.preHandle(request, response, handler("redirect")));
+        verify(loadShedder, never()).isShedding();
+    }
+
+    static class Handlers {
+
+        @RateLimited(RateLimitCategory.WRITE)
+        public void write() {
+        }
+
+        @RateLimited(RateLimitCategory.REDIRECT)
+        public void redirect() {
+        }
+
+        public void unlimited() {
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.tpximpact.shortenerservice.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RateLimiter create(boolean enabled) {
+        // One write every 10s with a burst of 3, far slower than the test runs
+        return new RateLimiter(enabled, 100, Duration.ofMinutes(1), 0.1, 3, 1, 1, 1000, 1000, meterRegistry);
+    }
+
+    @Test
+    void test_tryAcquire_allowsBurstThenAsksClientToWait() {
+        RateLimiter limiter = create(true);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire(RateLimitCategory.WRITE, "a"));
+        }
+        long wait = limiter.tryAcquire(RateLimitCategory.WRITE, "a");
+
+        assertTrue(wait > Duration.ofSeconds(9).toNanos() && wait <= Duration.ofSeconds(10).toNanos(), "wait " + wait);
+        assertEquals(1, meterRegistry.get("ratelimit.rejected").tag("category", "write").counter().count());
+    }
+
+    @Test
+    void test_tryAcquire_limitsClientsSeparately() {
+        RateLimiter limiter = create(true);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(RateLimitCategory.WRITE, "a");
+        }
+
+        assertTrue(limiter.tryAcquire(RateLimitCategory.WRITE, "a") > 0);
+        assertEquals(0, limiter.tryAcquire(RateLimitCategory.WRITE, "b"));
+    }
+
+    @Test
+    void test_tryAcquire_limitsCategoriesSeparately() {
+        RateLimiter limiter = create(true);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(RateLimitCategory.WRITE, "a");
+        }
+
+        assertTrue(limiter.tryAcquire(RateLimitCategory.WRITE, "a") > 0);
+        assertEquals(0, limiter.tryAcquire(RateLimitCategory.REDIRECT, "a"));
+    }
+
+    @Test
+    void test_tryAcquire_whenDisabledAllowsEverything() {
+        RateLimiter limiter = create(false);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, limiter.tryAcquire(RateLimitCategory.WRITE, "a"));
+        }
+    }
+
+    @Test
+    void test_tokenBucket_refillsOverTime() {
+        long second = Duration.ofSeconds(1).toNanos();
+        TokenBucket bucket = new TokenBucket(0);
+
+        assertEquals(0, bucket.tryAcquire(0, second, 2));
+        assertEquals(0, bucket.tryAcquire(0, second, 2));
+        assertEquals(second, bucket.tryAcquire(0, second, 2));
+
+        assertEquals(0, bucket.tryAcquire(second, second, 2));
+        assertTrue(bucket.tryAcquire(second, second, 2) > 0);
+
+        // Idle for a long time, the bucket holds no more than its capacity
+        assertEquals(0, bucket.tryAcquire(100 * second, second, 2));
+        assertEquals(0, bucket.tryAcquire(100 * second, second, 2));
+        assertTrue(bucket.tryAcquire(100 * second, second, 2) > 0);
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.tpximpact.shortenerservice.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.tpximpact.shortenerservice.repository.AliasBlockDAO.Block;
+
+@SpringBootTest
+public class AliasBlockDAOTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.execute("DROP SEQUENCE IF EXISTS " + AliasBlockDAO.SEQUENCE_NAME);
+        jdbcTemplate.execute("DROP SEQUENCE IF EXISTS " + AliasBlockDAO.LEGACY_SEQUENCE_NAME);
+    }
+
+    @Test
+    void test_reserveBlock_neverReturnsOverlappingBlocks() {
+        AliasBlockDAO aliasBlockDAO = new AliasBlockDAO(jdbcTemplate, 10);
+
+        Block first = aliasBlockDAO.reserveBlock();
+        Block second = aliasBlockDAO.reserveBlock();
+
+        assertEquals(10, first.size());
+        assertTrue(second.start() >= first.start() + first.size());
+    }
+
+    @Test
+    void test_reserveBlock_usesBlockSizeStoredWithSequence() {
+        Block first = new AliasBlockDAO(jdbcTemplate, 10).reserveBlock();
+
+        // As if another instance had been configured with a smaller block size
+        Block second = new AliasBlockDAO(jdbcTemplate, 3).reserveBlock();
+
+        assertEquals(10, second.size());
+        assertTrue(second.start() >= first.start() + first.size());
+    }
+
+    @Test
+    void test_reserveBlock_startsPastBlocksOfLegacySequence() {
+        jdbcTemplate.execute("CREATE SEQUENCE " + AliasBlockDAO.LEGACY_SEQUENCE_NAME + " START WITH 5");
+        // Block 5 has been handed out, covering ids 500 to 599
+        jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + AliasBlockDAO.LEGACY_SEQUENCE_NAME, Long.class);
+
+        Block block = new AliasBlockDAO(jdbcTemplate, 100).reserveBlock();
+
+        assertEquals(new Block(600, 100), block);
+    }
+}
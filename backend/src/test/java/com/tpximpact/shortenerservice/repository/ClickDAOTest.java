@@ -0,0 +1,35 @@
+package com.tpximpact.shortenerservice.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.tpximpact.shortenerservice.model.ClickEvent;
+
+@SpringBootTest
+public class ClickDAOTest {
+
+    @Autowired
+    private ClickDAO clickDAO;
+
+    @Test
+    void test_insertAll_storesEveryClick() {
+        // Given
+        List<ClickEvent> events = List.of(
+            new ClickEvent("clicked", Instant.now(), "http://referrer", 42L),
+            new ClickEvent("clicked", Instant.now(), null, 0L),
+            new ClickEvent("other", Instant.now(), null, 0L));
+
+        // When
+        clickDAO.insertAll(events);
+
+        // Then
+        assertEquals(2, clickDAO.countByAlias("clicked"));
+        assertEquals(1, clickDAO.countByAlias("other"));
+    }
+}
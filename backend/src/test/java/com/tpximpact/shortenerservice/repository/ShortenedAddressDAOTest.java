@@ -4,13 +4,22 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.util.UrlNormalizer;
 
 @SpringBootTest
 public class ShortenedAddressDAOTest {
@@ -18,6 +27,9 @@ public class ShortenedAddressDAOTest {
     @Autowired
     private ShortenedAddressDAO addressDAO;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void test_save_shouldThrowExceptionIfDuplicateAliases() {
         // Given
@@ -76,4 +88,176 @@ public class ShortenedAddressDAOTest {
         assertTrue(byAlias.isPresent());
         assertEquals(saved, byAlias.get());
     }
+
+    @Test
+    void test_forEachAlias_streamsEveryStoredAlias() {
+        // Given
+        addressDAO.save(ShortenedAddress.builder().alias("stream-1").originalUrl("https://example.com/1").build());
+        addressDAO.save(ShortenedAddress.builder().alias("stream-2").originalUrl("https://example.com/2").build());
+
+        // When
+        List<String> aliases = new ArrayList<>();
+        addressDAO.forEachAlias(aliases::add);
+
+        // Then
+        assertTrue(aliases.containsAll(List.of("stream-1", "stream-2")));
+    }
+
+    @Test
+    void test_findByIdGreaterThanOrderByIdAsc_returnsNextPageInIdOrder() {
+        // Given
+        ShortenedAddress first = addressDAO.save(ShortenedAddress.builder().alias("page-1").originalUrl("https://example.com/1").build());
+        ShortenedAddress second = addressDAO.save(ShortenedAddress.builder().alias("page-2").originalUrl("https://example.com/2").build());
+        ShortenedAddress third = addressDAO.save(ShortenedAddress.builder().alias("page-3").originalUrl("https://example.com/3").build());
+
+        // When
+        List<ShortenedAddress> page = addressDAO.findByIdGreaterThanOrderByIdAsc(first.getId(), Limit.of(2));
+
+        // Then
+        assertEquals(List.of(second, third), page);
+    }
+
+    @Test
+    void test_forEachAddress_streamsAddressesInIdOrder() {
+        // Given
+        ShortenedAddress first = addressDAO.save(ShortenedAddress.builder().alias("all-1").originalUrl("https://example.com/1").build());
+        ShortenedAddress second = addressDAO.save(ShortenedAddress.builder().alias("all-2").originalUrl("https://example.com/2").build());
+
+        // When
+        List<ShortenedAddress> addresses = new ArrayList<>();
+        addressDAO.forEachAddress(addresses::add);
+
+        // Then
+        assertTrue(addresses.indexOf(first) >= 0);
+        assertTrue(addresses.indexOf(first) < addresses.indexOf(second));
+    }
+
+    @Test
+    void test_insertAll_storesEveryAddress() {
+        // Given
+        List<ShortenedAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            addresses.add(ShortenedAddress.builder().alias("batch-" + i).originalUrl("https://example.com/" + i).build());
+        }
+
+        // When
+        addressDAO.insertAll(addresses);
+
+        // Then
+        assertTrue(addressDAO.findByAlias("batch-0").isPresent());
+        assertTrue(addressDAO.findByAlias("batch-119").isPresent());
+    }
+
+    @Test
+    void test_insertAll_rollsBackEverythingOnConflict() {
+        // Given
+        addressDAO.save(ShortenedAddress.builder().alias("batch-taken").originalUrl("https://example.com").build());
+        List<ShortenedAddress> addresses = List.of(
+            ShortenedAddress.builder().alias("batch-new").originalUrl("https://example.com/1").build(),
+            ShortenedAddress.builder().alias("batch-taken").originalUrl("https://example.com/2").build());
+
+        // When / Then
+        assertThrows(RuntimeException.class, () -> addressDAO.insertAll(addresses));
+        assertTrue(addressDAO.findByAlias("batch-new").isEmpty());
+    }
+
+    @Test
+    void test_findExistingAliases_returnsOnlyStoredAliases() {
+        // Given
+        addressDAO.save(ShortenedAddress.builder().alias("exists-1").originalUrl("https://example.com/1").build());
+
+        // When
+        List<String> existing = addressDAO.findExistingAliases(List.of("exists-1", "exists-2"));
+
+        // Then
+        assertEquals(List.of("exists-1"), existing);
+    }
+
+    @Test
+    void test_deleteByAlias_returnsNumberOfRowsDeleted() {
+        // Given
+        addressDAO.save(ShortenedAddress.builder().alias("delete-one").originalUrl("https://example.com").build());
+
+        // When / Then
+        assertEquals(1, addressDAO.deleteByAlias("delete-one"));
+        assertEquals(0, addressDAO.deleteByAlias("delete-one"));
+        assertTrue(addressDAO.findByAlias("delete-one").isEmpty());
+    }
+
+    @Test
+    void test_deleteAllByAlias_deletesAcrossChunksAndReturnsDeletedAliases() {
+        // Given
+        List<String> aliases = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            addressDAO.save(ShortenedAddress.builder().alias("bulk-delete-" + i).originalUrl("https://example.com/" + i).build());
+            aliases.add("bulk-delete-" + i);
+        }
+        aliases.add("bulk-delete-missing");
+
+        // When
+        Set<String> deleted = addressDAO.deleteAllByAlias(aliases);
+
+        // Then
+        assertEquals(Set.of("bulk-delete-0", "bulk-delete-1", "bulk-delete-2", "bulk-delete-3", "bulk-delete-4"), deleted);
+        assertTrue(addressDAO.findExistingAliases(aliases).isEmpty());
+        assertEquals(Set.of(), addressDAO.deleteAllByAlias(aliases));
+    }
+
+    @Test
+    void test_deleteExpired_deletesExpiredAddressesInBatchesSoonestFirst() {
+        // Given
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        addressDAO.save(ShortenedAddress.builder().alias("expired-2").originalUrl("https://example.com/2")
+            .expiresAt(now.minus(Duration.ofHours(2))).build());
+        addressDAO.save(ShortenedAddress.builder().alias("expired-1").originalUrl("https://example.com/1")
+            .expiresAt(now.minus(Duration.ofHours(3))).build());
+        addressDAO.save(ShortenedAddress.builder().alias("expired-3").originalUrl("https://example.com/3")
+            .expiresAt(now.minus(Duration.ofHours(1))).build());
+        ShortenedAddress later = addressDAO.save(ShortenedAddress.builder().alias("expires-later")
+            .originalUrl("https://example.com/later").expiresAt(now.plus(Duration.ofHours(1))).build());
+        addressDAO.save(ShortenedAddress.builder().alias("never-expires").originalUrl("https://example.com/never").build());
+
+        // When
+        List<String> first = addressDAO.deleteExpired(now, 2);
+        List<String> second = addressDAO.deleteExpired(now, 2);
+
+        // Then
+        assertEquals(List.of("expired-1", "expired-2"), first);
+        assertEquals(List.of("expired-3"), second);
+        assertTrue(addressDAO.findByAlias("expired-3").isEmpty());
+        assertEquals(later.getExpiresAt(), addressDAO.findByAlias("expires-later").orElseThrow().getExpiresAt());
+        assertTrue(addressDAO.findByAlias("never-expires").isPresent());
+    }
+
+    @Test
+    void test_save_setsHashOfNormalizedOriginalUrl() {
+        // Given
+        ShortenedAddress saved = addressDAO.save(
+            ShortenedAddress.builder().alias("hash-1").originalUrl("HTTPS://Hashed.example.com").build());
+
+        // When
+        List<ShortenedAddress> found = addressDAO.findByOriginalUrlHashOrderByIdAsc(
+            UrlNormalizer.hash("https://hashed.example.com/"), Limit.of(4));
+
+        // Then
+        assertEquals(List.of(saved), found);
+    }
+
+    @Test
+    void test_hashOriginalUrls_hashesRowsWithoutAHash() {
+        // Given
+        ShortenedAddress saved = addressDAO.save(
+            ShortenedAddress.builder().alias("backfill-1").originalUrl("https://backfill.example.com/").build());
+        jdbcTemplate.update("UPDATE shortened_address SET original_url_hash = NULL WHERE id = ?", saved.getId());
+        long hash = UrlNormalizer.hash("https://backfill.example.com/");
+        assertTrue(addressDAO.findByOriginalUrlHashOrderByIdAsc(hash, Limit.of(4)).isEmpty());
+
+        // When
+        int hashed = addressDAO.hashOriginalUrls(1000);
+
+        // Then
+        assertEquals(1, hashed);
+        assertEquals(0, addressDAO.hashOriginalUrls(1000));
+        assertEquals(List.of(saved), addressDAO.findByOriginalUrlHashOrderByIdAsc(hash, Limit.of(4)));
+    }
 }
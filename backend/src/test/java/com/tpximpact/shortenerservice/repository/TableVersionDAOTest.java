@@ -0,0 +1,41 @@
+package com.tpximpact.shortenerservice.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+public class TableVersionDAOTest {
+
+    @Autowired
+    private TableVersionDAO tableVersionDAO;
+
+    @Test
+    void test_current_changesOnlyWhenBumped() {
+        long before = tableVersionDAO.current();
+
+        assertEquals(before, tableVersionDAO.current());
+
+        tableVersionDAO.bump();
+        long after = tableVersionDAO.current();
+
+        assertNotEquals(before, after);
+        assertEquals(after, tableVersionDAO.current());
+    }
+
+    @Test
+    void test_bumpAfterCommit_doesNotFailTheWrite() {
+        JdbcTemplate failing = mock(JdbcTemplate.class);
+        doThrow(new DataAccessResourceFailureException("down")).when(failing).execute(anyString());
+
+        new TableVersionDAO(failing).bumpAfterCommit();
+    }
+}
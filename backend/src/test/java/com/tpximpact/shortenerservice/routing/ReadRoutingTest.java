@@ -0,0 +1,104 @@
+package com.tpximpact.shortenerservice.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReadRoutingTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReadRouting routing;
+
+    // Where each lookup ran, the replica answers from replicaRows and the primary from primaryRows
+    private final List<String> lookups = new ArrayList<>();
+    private final List<String> replicaRows = new ArrayList<>();
+    private final List<String> primaryRows = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        routing = new ReadRouting(List.of("jdbc:h2:mem:replica"), Duration.ofMinutes(1), 100, meterRegistry);
+    }
+
+    private Optional<String> lookup(String alias) {
+        final boolean onReplica = ReadRouting.isOnReplica();
+        lookups.add(onReplica ? "replica" : "primary");
+        return (onReplica ? replicaRows : primaryRows).contains(alias) ? Optional.of(alias) : Optional.empty();
+    }
+
+    @Test
+    void test_onReplica_marksOnlyTheReadItRuns() {
+        assertTrue(routing.onReplica(ReadRouting::isOnReplica));
+        assertFalse(ReadRouting.isOnReplica());
+    }
+
+    @Test
+    void test_onReplica_staysOnPrimaryWithoutReplicas() {
+        ReadRouting primaryOnly = new ReadRouting(List.of(), Duration.ofMinutes(1), 100, meterRegistry);
+
+        assertFalse(primaryOnly.onReplica(ReadRouting::isOnReplica));
+    }
+
+    @Test
+    void test_readAlias_trustsReplicaForAliasesNotWrittenRecently() {
+        primaryRows.add("a");
+
+        assertEquals(Optional.empty(), routing.readAlias("a", () -> lookup("a")));
+        assertEquals(List.of("replica"), lookups);
+    }
+
+    @Test
+    void test_readAlias_checksPrimaryWhenRecentlyCreatedAliasIsMissingOnReplica() {
+        primaryRows.add("new");
+        routing.created("new");
+
+        assertEquals(Optional.of("new"), routing.readAlias("new", () -> lookup("new")));
+        assertEquals(List.of("replica", "primary"), lookups);
+        assertEquals(1, meterRegistry.get("alias.routing.primaryFallbacks").counter().count());
+    }
+
+    @Test
+    void test_readAlias_checksPrimaryWhenRecentlyDeletedAliasIsStillOnReplica() {
+        replicaRows.add("old");
+        routing.deleted("old");
+
+        assertEquals(Optional.empty(), routing.readAlias("old", () -> lookup("old")));
+        assertEquals(List.of("replica", "primary"), lookups);
+    }
+
+    @Test
+    void test_readAlias_trustsReplicaOnceItAgreesWithRecentWrite() {
+        replicaRows.add("new");
+        routing.created("new");
+
+        assertEquals(Optional.of("new"), routing.readAlias("new", () -> lookup("new")));
+        assertEquals(List.of("replica"), lookups);
+    }
+
+    @Test
+    void test_isRecentlyCreated_forgetsDeletedAliases() {
+        routing.created("a");
+        assertTrue(routing.isRecentlyCreated("a"));
+
+        routing.deleted("a");
+        assertFalse(routing.isRecentlyCreated("a"));
+    }
+
+    @Test
+    void test_hasSettled_onceTheWindowHasPassed() {
+        assertFalse(routing.hasSettled(Instant.now().minusSeconds(30)));
+        assertTrue(routing.hasSettled(Instant.now().minusSeconds(61)));
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.tpximpact.shortenerservice.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.tpximpact.shortenerservice.cache.AliasBloomFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs the service against two H2 databases, one as the primary and one as its read replica.
+ * Nothing copies rows between them, so the replica stands in for one that is lagging: rows
+ * written through the service are only on the primary, and rows the tests put on the replica
+ * show which reads went there.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=" + RoutingDataSourceTest.PRIMARY_URL,
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "alias.routing.replicaUrls=" + RoutingDataSourceTest.REPLICA_URL,
+    "alias.rateLimit.enabled=false"
+})
+class RoutingDataSourceTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AliasBloomFilter aliasBloomFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    private HttpClient client;
+
+    @BeforeEach
+    void setup() {
+        client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build();
+
+        // A real replica gets the schema from the primary, here it is copied over once
+        final Integer tables = replica.queryForObject(
+            "SELECT COUNT(*) FROM information_schema.tables WHERE table_name = 'SHORTENED_ADDRESS'", Integer.class);
+        if (tables == 0) {
+            primary.queryForList("SCRIPT NODATA", String.class).forEach(replica::execute);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void insert(JdbcTemplate database, long id, String alias) {
+        database.update("INSERT INTO shortened_address (id, alias, original_url) VALUES (?, ?, ?)",
+            id, alias, "https://example.com/" + alias);
+    }
+
+    private static int count(JdbcTemplate database, String alias) {
+        return database.queryForObject("SELECT COUNT(*) FROM shortened_address WHERE alias = ?", Integer.class, alias);
+    }
+
+    @Test
+    void test_redirect_readsFromReplica() throws Exception {
+        insert(replica, 1_000_001, "on-replica");
+        insert(primary, 1_000_002, "on-primary");
+        aliasBloomFilter.put("on-replica");
+        aliasBloomFilter.put("on-primary");
+
+        HttpResponse<String> replicated = get("/on-replica");
+        assertEquals(302, replicated.statusCode());
+        assertEquals("https://example.com/on-replica", replicated.headers().firstValue("Location").orElseThrow());
+        // Not written through the service, so nothing says the replica might be behind
+        assertEquals(404, get("/on-primary").statusCode());
+    }
+
+    @Test
+    void test_shorten_writesToPrimaryAndRedirectsBeforeReplicaCatchesUp() throws Exception {
+        final double fallbacks = meterRegistry.get("alias.routing.primaryFallbacks").counter().count();
+
+        assertEquals(200, post("/shorten", "{\"fullUrl\":\"https://example.com/fresh\",\"customAlias\":\"fresh\"}")
+            .statusCode());
+
+        assertEquals(1, count(primary, "fresh"));
+        assertEquals(0, count(replica, "fresh"));
+        HttpResponse<String> redirect = get("/fresh");
+        assertEquals(302, redirect.statusCode());
+        assertEquals("https://example.com/fresh", redirect.headers().firstValue("Location").orElseThrow());
+        assertEquals(fallbacks + 1, meterRegistry.get("alias.routing.primaryFallbacks").counter().count());
+    }
+
+    @Test
+    void test_batchShorten_checksAliasesOnReplicaAndWritesToPrimary() throws Exception {
+        insert(replica, 1_000_003, "replica-taken");
+        aliasBloomFilter.put("replica-taken");
+
+        HttpResponse<String> response = post("/shorten/batch", "["
+            + "{\"fullUrl\":\"https://example.com/a\",\"customAlias\":\"replica-taken\"},"
+            + "{\"fullUrl\":\"https://example.com/b\",\"customAlias\":\"batch-new\"}]");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("the alias replica-taken is already mapped to a URL"), response.body());
+        assertEquals(1, count(primary, "batch-new"));
+        assertEquals(0, count(replica, "batch-new"));
+        assertEquals(0, count(primary, "replica-taken"));
+    }
+
+}
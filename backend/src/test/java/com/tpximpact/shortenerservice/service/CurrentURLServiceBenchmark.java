@@ -0,0 +1,48 @@
+package com.tpximpact.shortenerservice.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Cost of working out the base URL of the current request, which is done for every short URL
+ * that is returned.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurrentURLServiceBenchmark {
+
+    @Param({ "80", "8080" })
+    public int port;
+
+    private CurrentURLService currentURLService;
+
+    @Setup
+    public void setup() {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/shorten");
+        request.setServerName("short.example.com");
+        request.setServerPort(port);
+        currentURLService = new CurrentURLService(request, "");
+    }
+
+    @Benchmark
+    public String getRequestedURLWithNoPath() {
+        return currentURLService.getRequestedURLWithNoPath();
+    }
+
+}
@@ -1,15 +1,18 @@
 package com.tpximpact.shortenerservice.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
-import org.junit.jupiter.params.provider.ValueSource;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
 
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -19,29 +22,36 @@ public class CurrentURLServiceTest {
     @Mock
     HttpServletRequest httpServletRequest;
 
-    @InjectMocks
     CurrentURLService currentURLService;
 
+    @BeforeEach
+    void setup() {
+        currentURLService = new CurrentURLService(httpServletRequest, "");
+    }
+
+    private void givenRequest(String scheme, String host, int port) {
+        when(httpServletRequest.getScheme()).thenReturn(scheme);
+        when(httpServletRequest.getServerName()).thenReturn(host);
+        when(httpServletRequest.getServerPort()).thenReturn(port);
+    }
+
     @ParameterizedTest
-    @ValueSource(strings = { "/something", "?myquery=here", "/something?myQuery=Here", "/trailing/slash/"})
-    void shouldIgnoreQueryParametersAndPaths(String suffix) {
+    @CsvSource({ "http, 80", "https, 443" })
+    void shouldLeaveOutDefaultPorts(String scheme, int port) {
         // Given
-        String url = "http://localhost" + suffix;
-        when(httpServletRequest.getRequestURL()).thenReturn(new StringBuffer(url));
+        givenRequest(scheme, "localhost", port);
 
         // When
         String noPath = currentURLService.getRequestedURLWithNoPath();
 
         // Then
-        assertEquals("http://localhost", noPath);
-
+        assertEquals(scheme + "://localhost", noPath);
     }
 
     @Test
     void shouldWorkForIPAddresses() {
         // Given
-        String url = "http://192.168.0.2/abcd";
-        when(httpServletRequest.getRequestURL()).thenReturn(new StringBuffer(url));
+        givenRequest("http", "192.168.0.2", 80);
 
         // When
         String noPath = currentURLService.getRequestedURLWithNoPath();
@@ -50,10 +60,21 @@ public class CurrentURLServiceTest {
         assertEquals("http://192.168.0.2", noPath);
     }
 
+    @Test
+    void shouldBracketIPv6Addresses() {
+        // Given
+        givenRequest("http", "::1", 8080);
+
+        // When
+        String noPath = currentURLService.getRequestedURLWithNoPath();
+
+        // Then
+        assertEquals("http://[::1]:8080", noPath);
+    }
+
     @Test
     void shouldIncludeNonStandardPorts() {
-        String url = "http://example.com:8080";
-        when(httpServletRequest.getRequestURL()).thenReturn(new StringBuffer(url));
+        givenRequest("http", "example.com", 8080);
 
         // When
         String noPath = currentURLService.getRequestedURLWithNoPath();
@@ -64,13 +85,55 @@ public class CurrentURLServiceTest {
 
     @Test
     void shouldUseRelevantScheme() {
-        String url = "https://example.com/";
-        when(httpServletRequest.getRequestURL()).thenReturn(new StringBuffer(url));
+        givenRequest("https", "example.com", 8443);
 
         // When
         String noPath = currentURLService.getRequestedURLWithNoPath();
 
         // Then
-        assertEquals("https://example.com", noPath);
+        assertEquals("https://example.com:8443", noPath);
+    }
+
+    @Test
+    void shouldOnlyWorkOutTheURLOncePerRequest() {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setServerName("example.com");
+        CurrentURLService service = new CurrentURLService(request, "");
+
+        // When
+        String first = service.getRequestedURLWithNoPath();
+        request.setServerName("changed.example.com");
+        String second = service.getRequestedURLWithNoPath();
+
+        // Then
+        assertEquals("http://example.com", first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    void shouldPreferTheConfiguredBaseURL() {
+        // Given
+        CurrentURLService service = new CurrentURLService(httpServletRequest, "https://sho.rt/");
+
+        // When
+        String noPath = service.getRequestedURLWithNoPath();
+
+        // Then
+        assertEquals("https://sho.rt", noPath);
+        verifyNoInteractions(httpServletRequest);
+    }
+
+    @Test
+    void shouldBuildTheURLFromAReactiveRequest() {
+        // Given
+        MockServerHttpRequest request = MockServerHttpRequest.get("https://example.com:8443/shorten").build();
+
+        // When
+        String noPath = currentURLService.getRequestedURLWithNoPath(request);
+
+        // Then
+        assertEquals("https://example.com:8443", noPath);
+        verifyNoInteractions(httpServletRequest);
     }
 }
@@ -0,0 +1,111 @@
+package com.tpximpact.shortenerservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tpximpact.shortenerservice.cache.AliasIndex;
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.repository.TableVersionDAO;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+import com.tpximpact.shortenerservice.snapshot.AliasSnapshot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ExpiredAliasSweeperTest {
+
+    @Mock
+    private ShortenedAddressDAO dao;
+
+    @Mock
+    private TableVersionDAO tableVersionDAO;
+
+    @Mock
+    private AliasSnapshot aliasSnapshot;
+
+    @Mock
+    private AliasIndex aliasIndex;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExpiredAliasSweeper sweeper;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (sweeper != null) {
+            sweeper.stop();
+        }
+    }
+
+    private ExpiredAliasSweeper create(Duration sweepInterval) {
+        sweeper = new ExpiredAliasSweeper(true, sweepInterval, 2, dao, tableVersionDAO, new AliasShards(List.of(), 128, 0), aliasIndex,
+            aliasSnapshot, meterRegistry);
+        return sweeper;
+    }
+
+    @Test
+    void test_sweep_deletesBatchesUntilNoneAreLeft() {
+        when(dao.deleteExpired(any(), eq(2))).thenReturn(List.of("a", "b"))
+            .thenReturn(List.of("c", "d"))
+            .thenReturn(List.of("e"));
+        create(Duration.ofHours(1)).start();
+
+        assertEquals(5, sweeper.sweep());
+
+        verify(dao, times(3)).deleteExpired(any(), eq(2));
+        verify(tableVersionDAO, times(3)).bumpAfterCommit();
+        verify(aliasIndex).removeAll(List.of("e"));
+        assertEquals(5, meterRegistry.get("alias.expiry.swept").counter().count());
+    }
+
+    @Test
+    void test_sweep_leavesVersionAloneWhenNothingHasExpired() {
+        when(dao.deleteExpired(any(), eq(2))).thenReturn(List.of());
+        create(Duration.ofHours(1)).start();
+
+        assertEquals(0, sweeper.sweep());
+
+        verify(tableVersionDAO, never()).bumpAfterCommit();
+    }
+
+    @Test
+    void test_start_sweepsEveryInterval() {
+        when(dao.deleteExpired(any(), eq(2))).thenReturn(List.of("a"));
+        create(Duration.ofMillis(10)).start();
+
+        verify(dao, timeout(2000).atLeast(2)).deleteExpired(any(), eq(2));
+        verify(tableVersionDAO, atLeastOnce()).bumpAfterCommit();
+    }
+
+    @Test
+    void test_start_doesNothingOnReadReplicas() {
+        when(aliasSnapshot.isEnabled()).thenReturn(true);
+        create(Duration.ofMillis(10)).start();
+
+        assertFalse(sweeper.isRunning());
+        verify(dao, never()).deleteExpired(any(), eq(2));
+    }
+
+}
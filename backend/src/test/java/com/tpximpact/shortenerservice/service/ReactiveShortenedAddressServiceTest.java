@@ -0,0 +1,193 @@
+package com.tpximpact.shortenerservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import com.tpximpact.shortenerservice.alias.RandomAliasGenerator;
+import com.tpximpact.shortenerservice.analytics.HotAliasTracker;
+import com.tpximpact.shortenerservice.cache.AliasBloomFilter;
+import com.tpximpact.shortenerservice.cache.AliasCache;
+import com.tpximpact.shortenerservice.exception.NoSuchAliasException;
+import com.tpximpact.shortenerservice.exception.ValidationFailedException;
+import com.tpximpact.shortenerservice.invalidation.InvalidationBus;
+import com.tpximpact.shortenerservice.metrics.ShortenerMetrics;
+import com.tpximpact.shortenerservice.model.BatchShortenResult;
+import com.tpximpact.shortenerservice.model.BulkDeleteResult;
+import com.tpximpact.shortenerservice.model.ShortenRequest;
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.model.ValidationResult;
+import com.tpximpact.shortenerservice.repository.ReactiveShortenedAddressDAO;
+import com.tpximpact.shortenerservice.repository.TableVersionDAO;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveShortenedAddressServiceTest {
+
+    private static final String BASE_URL = "http://localhost:8080";
+
+    @Mock
+    private ReactiveShortenedAddressDAO dao;
+
+    @Mock
+    private ShortenRequestValidationService validationService;
+
+    @Mock
+    private AliasBloomFilter aliasBloomFilter;
+
+    @Mock
+    private HotAliasTracker hotAliasTracker;
+
+    @Mock
+    private InvalidationBus invalidationBus;
+
+    @Mock
+    private TableVersionDAO tableVersionDAO;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReactiveShortenedAddressService service;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(aliasBloomFilter.mightContain(any())).thenReturn(true);
+        service = new ReactiveShortenedAddressService(dao, tableVersionDAO, validationService,
+            new AliasCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), meterRegistry), aliasBloomFilter,
+            new RandomAliasGenerator(8), hotAliasTracker, invalidationBus, new ShortenerMetrics(meterRegistry), 100, 3);
+    }
+
+    private static ShortenedAddress address(String alias, String url) {
+        return ShortenedAddress.builder().id(1L).alias(alias).originalUrl(url).build();
+    }
+
+    @Test
+    void test_shorten_withCustomAliasReturnsShortUrl() {
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/page"), "my-alias");
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.insert("my-alias", "http://example.com/page", null, null)).thenReturn(Mono.just(address("my-alias", "http://example.com/page")));
+
+        assertEquals(URI.create(BASE_URL + "/my-alias"), service.shorten(req, BASE_URL).block().shortUrl());
+        verify(aliasBloomFilter).put("my-alias");
+        verify(tableVersionDAO).bumpAfterCommit();
+    }
+
+    @Test
+    void test_shorten_mapsConflictOnCustomAliasToValidationFailure() {
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/page"), "taken");
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(validationService.alreadyMappedError("taken")).thenReturn("the alias taken is already mapped to a URL");
+        when(dao.insert(eq("taken"), anyString(), isNull(), isNull())).thenReturn(Mono.error(new DuplicateKeyException("duplicate")));
+
+        ValidationFailedException e = assertThrows(ValidationFailedException.class, () -> service.shorten(req, BASE_URL).block());
+
+        assertEquals("Request failed validation with the following errors: the alias taken is already mapped to a URL",
+            e.getMessage());
+        assertEquals(1, meterRegistry.get("shortener.validation.failures").tag("operation", "shorten").counter().count());
+    }
+
+    @Test
+    void test_shorten_retriesGeneratedAliasesThatAreAlreadyUsed() {
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/page"), null);
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.insert(anyString(), anyString(), isNull(), isNull()))
+            .thenReturn(Mono.error(new DuplicateKeyException("duplicate")))
+            .thenAnswer(invocation -> Mono.just(address(invocation.getArgument(0), invocation.getArgument(1))));
+
+        service.shorten(req, BASE_URL).block();
+
+        verify(dao, times(2)).insert(anyString(), anyString(), isNull(), isNull());
+        assertEquals(2, meterRegistry.get("alias.generation.attempts").summary().max());
+    }
+
+    @Test
+    void test_shorten_doesNotRetryOtherIntegrityViolations() {
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/page"), null);
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.insert(anyString(), anyString(), isNull(), isNull()))
+            .thenReturn(Mono.error(new DataIntegrityViolationException("value too long")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.shorten(req, BASE_URL).block());
+
+        verify(dao, times(1)).insert(anyString(), anyString(), isNull(), isNull());
+    }
+
+    @Test
+    void test_getForwardedURI_cachesLookups() {
+        when(dao.findByAlias("x1")).thenReturn(Mono.just(address("x1", "http://upstream")));
+        when(dao.findByAlias("nope")).thenReturn(Mono.empty());
+
+        assertEquals(URI.create("http://upstream"), service.getForwardedURI("x1").block());
+        assertEquals(URI.create("http://upstream"), service.getForwardedURI("x1").block());
+        assertNull(service.getForwardedURI("nope").block());
+        assertNull(service.getForwardedURI("nope").block());
+
+        verify(dao, times(1)).findByAlias("x1");
+        verify(dao, times(1)).findByAlias("nope");
+        verify(hotAliasTracker, times(2)).record("x1");
+    }
+
+    @Test
+    void test_shortenAll_reportsInvalidAndTakenRequests() {
+        List<ShortenRequest> reqs = List.of(
+            new ShortenRequest(URI.create("http://example.com/1"), "free"),
+            new ShortenRequest(null, null),
+            new ShortenRequest(URI.create("http://example.com/3"), "taken"));
+        when(validationService.validate(reqs.get(0))).thenReturn(new ValidationResult());
+        when(validationService.validate(reqs.get(1))).thenReturn(new ValidationResult(List.of("full url must be provided")));
+        when(validationService.validate(reqs.get(2))).thenReturn(new ValidationResult());
+        when(validationService.alreadyMappedError("taken")).thenReturn("the alias taken is already mapped to a URL");
+        when(dao.insert(eq("free"), anyString(), isNull(), isNull())).thenReturn(Mono.just(address("free", "http://example.com/1")));
+        when(dao.insert(eq("taken"), anyString(), isNull(), isNull())).thenReturn(Mono.error(new DuplicateKeyException("duplicate")));
+
+        List<BatchShortenResult> results = service.shortenAll(reqs, BASE_URL).block();
+
+        assertEquals(URI.create(BASE_URL + "/free"), results.get(0).shortUrl());
+        assertEquals("full url must be provided", results.get(1).error());
+        assertEquals("the alias taken is already mapped to a URL", results.get(2).error());
+    }
+
+    @Test
+    void test_deleteStoredAlias_whenMissingFails() {
+        when(dao.deleteByAlias("missing")).thenReturn(Mono.just(0L));
+
+        assertThrows(NoSuchAliasException.class, () -> service.deleteStoredAlias("missing").block());
+    }
+
+    @Test
+    void test_deleteStoredAliases_reportsAliasesThatDidNotExist() {
+        when(dao.deleteAllByAlias(List.of("a", "missing", "missing"))).thenReturn(Mono.just(Set.of("a")));
+
+        BulkDeleteResult result = service.deleteStoredAliases(List.of("a", "missing", "missing")).block();
+
+        assertEquals(new BulkDeleteResult(1, List.of("missing")), result);
+    }
+
+    @Test
+    void test_getStoredURLs_rejectsOutOfRangeLimits() {
+        assertThrows(ValidationFailedException.class, () -> service.getStoredURLs(101, null, BASE_URL).block());
+    }
+}
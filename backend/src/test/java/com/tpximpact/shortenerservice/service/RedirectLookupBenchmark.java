@@ -0,0 +1,90 @@
+package com.tpximpact.shortenerservice.service;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.tpximpact.shortenerservice.ShortenerServiceApplication;
+import com.tpximpact.shortenerservice.model.ShortenRequest;
+
+/**
+ * End to end cost of resolving an alias with {@link ShortenedAddressService#getForwardedURI(String)}
+ * against the real Spring context and an in-memory H2 database, with the alias cache on and off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedirectLookupBenchmark {
+
+    private static final int ALIASES = 10_000;
+
+    @Param({ "true", "false" })
+    public boolean cached;
+
+    private ConfigurableApplicationContext context;
+    private ShortenedAddressService service;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(ShortenerServiceApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:benchmark",
+                "alias.cache.maxSize=" + (cached ? ALIASES : 0),
+                "logging.level.root=WARN")
+            .run();
+        service = context.getBean(ShortenedAddressService.class);
+
+        // Storing needs a request to build the short URLs from
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            final List<ShortenRequest> requests = new ArrayList<>(ALIASES);
+            for (int i = 0; i < ALIASES; i++) {
+                requests.add(new ShortenRequest(URI.create("https://example.com/" + i), "bench" + i));
+            }
+            service.shortenAll(requests);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<URI> getForwardedURI_hit() {
+        return service.getForwardedURI("bench" + ThreadLocalRandom.current().nextInt(ALIASES));
+    }
+
+    @Benchmark
+    public Optional<URI> getForwardedURI_miss() {
+        return service.getForwardedURI("missing" + ThreadLocalRandom.current().nextInt(ALIASES));
+    }
+
+}
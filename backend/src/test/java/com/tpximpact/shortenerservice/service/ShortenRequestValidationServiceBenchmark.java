@@ -0,0 +1,59 @@
+package com.tpximpact.shortenerservice.service;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tpximpact.shortenerservice.model.ShortenRequest;
+import com.tpximpact.shortenerservice.model.ValidationResult;
+
+/**
+ * Cost of validating a single shorten request (the alias regex, reserved path and size checks).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortenRequestValidationServiceBenchmark {
+
+    private ShortenRequestValidationService validationService;
+
+    private final ShortenRequest withCustomAlias = new ShortenRequest(URI.create("https://example.com/some/long/path?q=1"), "my-Alias_01");
+    private final ShortenRequest withoutAlias = new ShortenRequest(URI.create("https://example.com/some/long/path?q=1"), null);
+    private final ShortenRequest invalidAlias = new ShortenRequest(URI.create("https://example.com/some/long/path?q=1"), "not valid!");
+
+    @Setup
+    public void setup() {
+        // validate() never reaches the database or the bloom filter
+        validationService = new ShortenRequestValidationService(20, 10_000, null, null, null, null);
+    }
+
+    @Benchmark
+    public ValidationResult validate_customAlias() {
+        return validationService.validate(withCustomAlias);
+    }
+
+    @Benchmark
+    public ValidationResult validate_noAlias() {
+        return validationService.validate(withoutAlias);
+    }
+
+    @Benchmark
+    public ValidationResult validate_invalidAlias() {
+        return validationService.validate(invalidAlias);
+    }
+
+}
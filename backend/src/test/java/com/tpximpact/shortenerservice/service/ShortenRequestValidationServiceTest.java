@@ -5,7 +5,10 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.net.URI;
-import java.util.Optional;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,11 +18,20 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.tpximpact.shortenerservice.cache.AliasBloomFilter;
 import com.tpximpact.shortenerservice.model.ShortenRequest;
-import com.tpximpact.shortenerservice.model.ShortenedAddress;
 import com.tpximpact.shortenerservice.model.ValidationResult;
 import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.routing.ReadRouting;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,13 +40,20 @@ class ShortenRequestValidationServiceTest {
 	@Mock
 	private ShortenedAddressDAO dao;
 
+	@Mock
+	private AliasBloomFilter aliasBloomFilter;
+
+	private ReadRouting readRouting;
+
 	private ShortenRequestValidationService validationService;
 
 	private final int maxAliasSize = 5;
 
 	@BeforeEach
 	void setup() {
-		validationService = new ShortenRequestValidationService(maxAliasSize, dao);
+		readRouting = new ReadRouting(List.of(), Duration.ofSeconds(5), 100, new SimpleMeterRegistry());
+		validationService = new ShortenRequestValidationService(maxAliasSize, 2, dao, aliasBloomFilter, readRouting,
+			new AliasShards(List.of(), 128, 0));
 	}
 
 	@Test
@@ -52,6 +71,50 @@ class ShortenRequestValidationServiceTest {
 		assertTrue(result.errors().contains("full url must be provided"));
 	}
 
+	@Test
+	void test_validate_returnsErrorWhenFullUrlTooLong() {
+		ShortenRequest req = new ShortenRequest(URI.create("http://example.com/" + "a".repeat(2048)), null);
+		ValidationResult result = validationService.validate(req);
+		assertFalse(result.isValid());
+		assertTrue(result.errors().contains("the max size for any url is 2048 characters"));
+	}
+
+	@Test
+	void test_validate_isValidWithUrlOfMaxSize() {
+		ShortenRequest req = new ShortenRequest(URI.create("http://example.com/" + "a".repeat(2048 - 19)), null);
+		assertTrue(validationService.validate(req).isValid());
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 200, 303, 404 })
+	void test_validate_returnsErrorWhenRedirectStatusIsNotARedirect(int status) {
+		ShortenRequest req = new ShortenRequest(URI.create("http://example.com"), null, status);
+		ValidationResult result = validationService.validate(req);
+		assertFalse(result.isValid());
+		assertTrue(result.errors().contains("redirect status must be one of 301, 302, 307 or 308"));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 301, 302, 307, 308 })
+	void test_validate_isValidWithRedirectStatus(int status) {
+		ShortenRequest req = new ShortenRequest(URI.create("http://example.com"), null, status);
+		assertTrue(validationService.validate(req).isValid());
+	}
+
+	@Test
+	void test_validate_returnsErrorWhenExpiryHasPassed() {
+		ShortenRequest req = new ShortenRequest(URI.create("http://example.com"), null, null, Instant.now().minusSeconds(1));
+		ValidationResult result = validationService.validate(req);
+		assertFalse(result.isValid());
+		assertTrue(result.errors().contains("expiry must be in the future"));
+	}
+
+	@Test
+	void test_validate_isValidWithFutureExpiry() {
+		ShortenRequest req = new ShortenRequest(URI.create("http://example.com"), null, null, Instant.now().plusSeconds(60));
+		assertTrue(validationService.validate(req).isValid());
+	}
+
 	@Test
 	void test_validate_returnsErrorWhenAliasHasInvalidCharacters() {
 		ShortenRequest req = new ShortenRequest(URI.create("http://example.com"), "Bad!");
@@ -80,28 +143,24 @@ class ShortenRequestValidationServiceTest {
 	}
 
 	@Test
-	void test_validate_returnsErrorWhenAliasAlreadyExists() {
-		String alias = "taken";
-		ShortenRequest req = new ShortenRequest(URI.create("http://example.com"), alias);
-		when(dao.findByAlias(alias)).thenReturn(Optional.of(
-			ShortenedAddress.builder().alias(alias).originalUrl("http://original").build()
-		));
-
+	void test_validate_returnsErrorWhenCustomAliasIsBlank() {
+		ShortenRequest req = new ShortenRequest(URI.create("http://example.com"), "");
 		ValidationResult result = validationService.validate(req);
 		assertFalse(result.isValid());
-		assertTrue(result.errors().contains("the alias " + alias + " is already mapped to a URL"));
+		assertTrue(result.errors().contains("aliases cannot be blank"));
 	}
 
 	@Test
-	void test_validate_returnsErrorWhenCustomAliasIsBlank() {
-		ShortenRequest req = new ShortenRequest(URI.create("http://example.com"), "");
+	void test_validate_leavesExistingAliasCheckToTheDatabaseInsert() {
+		ShortenRequest req = new ShortenRequest(URI.create("http://example.com"), "taken");
+
 		ValidationResult result = validationService.validate(req);
-		assertFalse(result.isValid());
-		assertTrue(result.errors().contains("aliases cannot be blank"));
+		assertTrue(result.isValid());
+		verifyNoInteractions(dao, aliasBloomFilter);
 	}
 
 	@ParameterizedTest
-	@ValueSource(strings = { "error", "urls"})
+	@ValueSource(strings = { "error", "urls", "actuator"})
 	void test_validate_returnsErrorWhenUsingReservedPath(String alias) {
 		ShortenRequest req = new ShortenRequest(URI.create("http://example.com"), alias);
 
@@ -122,11 +181,67 @@ class ShortenRequestValidationServiceTest {
 	void test_validate_isValidwhenCustomAliasValidAndUnique() {
 		String alias = "o_K-4";
 		ShortenRequest req = new ShortenRequest(URI.create("http://example.com"), alias);
-		when(dao.findByAlias(alias)).thenReturn(Optional.empty());
 
 		ValidationResult result = validationService.validate(req);
 		assertTrue(result.isValid());
 		assertEquals(0, result.errors().size());
 	}
 
+	@Test
+	void test_validateAll_validatesEachRequest() {
+		List<ShortenRequest> reqs = List.of(
+			new ShortenRequest(URI.create("http://example.com"), null),
+			new ShortenRequest(null, null),
+			new ShortenRequest(URI.create("http://example.com"), "Bad!"));
+
+		List<ValidationResult> results = validationService.validateAll(reqs);
+
+		assertEquals(3, results.size());
+		assertTrue(results.get(0).isValid());
+		assertTrue(results.get(1).errors().contains("full url must be provided"));
+		assertTrue(results.get(2).errors().contains("alias must only contain lowercase letters, numbers and dashes"));
+		verifyNoInteractions(dao);
+	}
+
+	@Test
+	void test_validateAll_rejectsAliasesRepeatedWithinTheBatch() {
+		when(aliasBloomFilter.mightContain("dup")).thenReturn(false);
+		List<ShortenRequest> reqs = List.of(
+			new ShortenRequest(URI.create("http://example.com/1"), "dup"),
+			new ShortenRequest(URI.create("http://example.com/2"), "dup"));
+
+		List<ValidationResult> results = validationService.validateAll(reqs);
+
+		assertTrue(results.get(0).isValid());
+		assertTrue(results.get(1).errors().contains("the alias dup is used more than once in the batch"));
+	}
+
+	@Test
+	void test_validateAll_looksUpExistingAliasesInChunks() {
+		when(aliasBloomFilter.mightContain(anyString())).thenReturn(true);
+		when(dao.findExistingAliases(anyCollection()))
+			.thenReturn(List.of("a2"), List.of());
+		List<ShortenRequest> reqs = List.of(
+			new ShortenRequest(URI.create("http://example.com/1"), "a1"),
+			new ShortenRequest(URI.create("http://example.com/2"), "a2"),
+			new ShortenRequest(URI.create("http://example.com/3"), "a3"));
+
+		List<ValidationResult> results = validationService.validateAll(reqs);
+
+		assertTrue(results.get(0).isValid());
+		assertTrue(results.get(1).errors().contains("the alias a2 is already mapped to a URL"));
+		assertTrue(results.get(2).isValid());
+		// Chunk size is 2, so 3 aliases take 2 queries
+		verify(dao, times(2)).findExistingAliases(anyCollection());
+	}
+
+	@Test
+	void test_existingAliases_skipsAliasesTheBloomFilterRulesOut() {
+		when(aliasBloomFilter.mightContain("maybe")).thenReturn(true);
+		when(aliasBloomFilter.mightContain("never")).thenReturn(false);
+		when(dao.findExistingAliases(List.of("maybe"))).thenReturn(List.of("maybe"));
+
+		assertEquals(Set.of("maybe"), validationService.existingAliases(List.of("maybe", "never")));
+	}
+
 }
@@ -0,0 +1,113 @@
+package com.tpximpact.shortenerservice.service;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+
+import com.tpximpact.shortenerservice.alias.AliasGenerator;
+import com.tpximpact.shortenerservice.analytics.HotAliasTracker;
+import com.tpximpact.shortenerservice.cache.AliasBloomFilter;
+import com.tpximpact.shortenerservice.cache.AliasCache;
+import com.tpximpact.shortenerservice.cache.AliasIndex;
+import com.tpximpact.shortenerservice.metrics.ShortenerMetrics;
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+import com.tpximpact.shortenerservice.snapshot.AliasSnapshot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Cost of building short URLs and of generating a new alias as the alias space fills up.
+ *
+ * <p>Aliases are drawn from a space of {@value #ALIAS_SPACE} so that {@code occupancy} of it can be
+ * stored. Generation checks candidates against the real Bloom filter built from the stored
+ * aliases, so the cost grows with the number of candidates it has to throw away.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortenedAddressServiceBenchmark {
+
+    private static final int ALIAS_SPACE = 1_000_000;
+
+    @Param({ "0.0", "0.5", "0.9", "0.99" })
+    public double occupancy;
+
+    private ShortenedAddressService service;
+
+    @Setup
+    public void setup() {
+        final int stored = (int) (ALIAS_SPACE * occupancy);
+        final ShortenedAddressDAO dao = storedAliases(stored);
+
+        final AliasBloomFilter bloomFilter = new AliasBloomFilter(true, ALIAS_SPACE, 0.01, true, "loopback", dao, new AliasShards(List.of(), 128, 0), Runnable::run,
+            new SimpleMeterRegistry());
+        bloomFilter.rebuild();
+
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/shorten");
+        request.setServerName("short.example.com");
+        request.setServerPort(443);
+        request.setScheme("https");
+
+        final AliasGenerator generator = () -> Integer.toString(ThreadLocalRandom.current().nextInt(ALIAS_SPACE));
+
+        service = new ShortenedAddressService(dao, null, null, new AliasShards(List.of(), 128, 0), null,
+            new CurrentURLService(request, ""),
+            new AliasCache(1, Duration.ofMinutes(1), Duration.ofMinutes(1), new SimpleMeterRegistry()),
+            bloomFilter, new AliasIndex(false, DataSize.ofMegabytes(1), 0.5, Duration.ZERO, false, "loopback", dao, null, null, null, new SimpleMeterRegistry()),
+            generator, new HotAliasTracker(false, 1, 1, Duration.ofMinutes(1), 1, 1),
+            new AliasSnapshot(false, "unused", Duration.ofMinutes(1), new SimpleMeterRegistry()), null, null,
+            new ShortenerMetrics(new SimpleMeterRegistry()), 1000, 1000, false);
+    }
+
+    @Benchmark
+    public URI toAbsoluteURL() {
+        return service.toAbsoluteURL("my-alias");
+    }
+
+    @Benchmark
+    public String generateNewAlias() {
+        return service.generateNewAlias();
+    }
+
+    /**
+     * Repository that only knows how to stream the aliases 0 to count - 1, which is all the Bloom
+     * filter needs.
+     */
+    @SuppressWarnings("unchecked")
+    private static ShortenedAddressDAO storedAliases(int count) {
+        return (ShortenedAddressDAO) Proxy.newProxyInstance(ShortenedAddressDAO.class.getClassLoader(),
+            new Class<?>[] { ShortenedAddressDAO.class }, (proxy, method, args) -> {
+                if (!method.getName().equals("forEachAlias")) {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+                final Consumer<String> consumer = (Consumer<String>) args[0];
+                for (int i = 0; i < count; i++) {
+                    consumer.accept(Integer.toString(i));
+                }
+                return null;
+            });
+    }
+
+}
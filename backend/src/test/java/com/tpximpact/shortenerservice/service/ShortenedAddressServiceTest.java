@@ -3,30 +3,75 @@ package com.tpximpact.shortenerservice.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+
+import com.tpximpact.shortenerservice.alias.AliasGenerator;
+import com.tpximpact.shortenerservice.alias.RandomAliasGenerator;
+import com.tpximpact.shortenerservice.analytics.HotAliasTracker;
+import com.tpximpact.shortenerservice.cache.AliasBloomFilter;
+import com.tpximpact.shortenerservice.cache.AliasCache;
+import com.tpximpact.shortenerservice.cache.AliasIndex;
 import com.tpximpact.shortenerservice.exception.NoSuchAliasException;
 import com.tpximpact.shortenerservice.exception.ValidationFailedException;
+import com.tpximpact.shortenerservice.invalidation.InvalidationBus;
+import com.tpximpact.shortenerservice.metrics.ShortenerMetrics;
+import com.tpximpact.shortenerservice.model.BatchShortenResult;
+import com.tpximpact.shortenerservice.model.BulkDeleteResult;
+import com.tpximpact.shortenerservice.model.HotAlias;
+import com.tpximpact.shortenerservice.model.ListingVersion;
+import com.tpximpact.shortenerservice.model.Redirect;
 import com.tpximpact.shortenerservice.model.ShortenRequest;
 import com.tpximpact.shortenerservice.model.ShortenResponse;
 import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.model.SnapshotExport;
 import com.tpximpact.shortenerservice.model.StoredAlias;
+import com.tpximpact.shortenerservice.model.StoredAliasPage;
 import com.tpximpact.shortenerservice.model.ValidationResult;
 import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.repository.TableVersionDAO;
+import com.tpximpact.shortenerservice.routing.ReadRouting;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+import com.tpximpact.shortenerservice.snapshot.AliasSnapshot;
+import com.tpximpact.shortenerservice.snapshot.AliasSnapshotWriter;
+import com.tpximpact.shortenerservice.util.UrlNormalizer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 class ShortenedAddressServiceTest {
@@ -40,13 +85,48 @@ class ShortenedAddressServiceTest {
     @Mock
     private CurrentURLService currentURLService;
 
+    @Mock
+    private AliasBloomFilter aliasBloomFilter;
+
+    @Mock
+    private AliasIndex aliasIndex;
+
+    @Mock
+    private HotAliasTracker hotAliasTracker;
+
+    @Mock
+    private AliasSnapshot aliasSnapshot;
+
+    @Mock
+    private AliasSnapshotWriter aliasSnapshotWriter;
+
+    @Mock
+    private InvalidationBus invalidationBus;
+
+    @Mock
+    private TableVersionDAO tableVersionDAO;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ShortenerMetrics metrics;
+
+    private ReadRouting readRouting;
+    private AliasShards aliasShards;
+
     private ShortenedAddressService service;
 
     private final int maxAliasSize = 8;
 
     @BeforeEach
     void setup() {
-        service = new ShortenedAddressService(dao, validationService, currentURLService, maxAliasSize);
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new ShortenerMetrics(meterRegistry);
+        readRouting = new ReadRouting(List.of(), Duration.ofSeconds(5), 100, meterRegistry);
+        aliasShards = new AliasShards(List.of(), 128, 0);
+        AliasCache aliasCache = new AliasCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), new SimpleMeterRegistry());
+        lenient().when(aliasBloomFilter.mightContain(any())).thenReturn(true);
+        service = new ShortenedAddressService(dao, tableVersionDAO, readRouting, aliasShards, validationService, currentURLService, aliasCache, aliasBloomFilter, aliasIndex,
+            new RandomAliasGenerator(maxAliasSize), hotAliasTracker, aliasSnapshot, aliasSnapshotWriter, invalidationBus, metrics, 100, 3, false);
     }
 
     @Test
@@ -68,6 +148,39 @@ class ShortenedAddressServiceTest {
         ShortenResponse resp = service.shorten(req);
 
         assertEquals(URI.create("http://localhost:8080/my-alias"), resp.shortUrl());
+        // The version moves on last, once the write is visible everywhere
+        InOrder order = inOrder(invalidationBus, tableVersionDAO);
+        order.verify(invalidationBus).created("my-alias");
+        order.verify(tableVersionDAO).bumpAfterCommit();
+    }
+
+    @Test
+    void test_shorten_storesRequestedRedirectStatus() {
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/page"), "moved", 301);
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.save(any(ShortenedAddress.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        service.shorten(req);
+
+        ArgumentCaptor<ShortenedAddress> saved = ArgumentCaptor.forClass(ShortenedAddress.class);
+        verify(dao).save(saved.capture());
+        assertEquals(301, saved.getValue().getRedirectStatus());
+    }
+
+    @Test
+    void test_shorten_storesRequestedExpiry() {
+        Instant expiresAt = Instant.now().plus(Duration.ofDays(30));
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/page"), "campaign", null, expiresAt);
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.save(any(ShortenedAddress.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        service.shorten(req);
+
+        ArgumentCaptor<ShortenedAddress> saved = ArgumentCaptor.forClass(ShortenedAddress.class);
+        verify(dao).save(saved.capture());
+        assertEquals(expiresAt, saved.getValue().getExpiresAt());
     }
 
     @Test
@@ -76,6 +189,8 @@ class ShortenedAddressServiceTest {
         when(validationService.validate(req)).thenReturn(new ValidationResult(List.of("bad")));
 
         assertThrows(ValidationFailedException.class, () -> service.shorten(req));
+        assertEquals(1, meterRegistry.get("shortener.validation.failures").tag("operation", "shorten").counter().count());
+        assertEquals(1, meterRegistry.get("shortener.operation").tag("operation", "shorten").timer().count());
     }
 
     @Test
@@ -106,6 +221,192 @@ class ShortenedAddressServiceTest {
         assertEquals(req.fullUrl().toString(), savedArg.getOriginalUrl());
     }
 
+    @Test
+    void test_shorten_retriesGeneratedAliasesThatAreAlreadyUsed() {
+        AliasGenerator generator = mock(AliasGenerator.class);
+        when(generator.generate()).thenReturn("taken", "free");
+        service = new ShortenedAddressService(dao, tableVersionDAO, readRouting, aliasShards, validationService, currentURLService,
+            new AliasCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), new SimpleMeterRegistry()), aliasBloomFilter, aliasIndex, generator, hotAliasTracker, aliasSnapshot, aliasSnapshotWriter, invalidationBus, metrics, 100, 3, false);
+        when(aliasBloomFilter.mightContain(any())).thenReturn(false);
+
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/long"), null);
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.save(any(ShortenedAddress.class))).thenAnswer(invocation -> {
+            ShortenedAddress address = invocation.getArgument(0);
+            if (address.getAlias().equals("taken")) {
+                throw new DuplicateKeyException("duplicate alias");
+            }
+            return address;
+        });
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        ShortenResponse resp = service.shorten(req);
+
+        assertEquals(URI.create("http://localhost:8080/free"), resp.shortUrl());
+        verify(dao, times(2)).save(any(ShortenedAddress.class));
+        verify(aliasBloomFilter).put("taken");
+        verify(dao, never()).findByAlias(any());
+    }
+
+    @Test
+    void test_shorten_skipsGeneratedAliasesTheBloomFilterMightHave() {
+        AliasGenerator generator = mock(AliasGenerator.class);
+        when(generator.generate()).thenReturn("maybe", "free");
+        service = new ShortenedAddressService(dao, tableVersionDAO, readRouting, aliasShards, validationService, currentURLService,
+            new AliasCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), new SimpleMeterRegistry()), aliasBloomFilter, aliasIndex, generator, hotAliasTracker, aliasSnapshot, aliasSnapshotWriter, invalidationBus, metrics, 100, 3, false);
+        when(aliasBloomFilter.mightContain("maybe")).thenReturn(true);
+        when(aliasBloomFilter.mightContain("free")).thenReturn(false);
+
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/long"), null);
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.save(any(ShortenedAddress.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        ShortenResponse resp = service.shorten(req);
+
+        assertEquals(URI.create("http://localhost:8080/free"), resp.shortUrl());
+        verify(dao, times(1)).save(any(ShortenedAddress.class));
+    }
+
+    @Test
+    void test_shorten_givesUpAfterRepeatedConflicts() {
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/long"), null);
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.save(any(ShortenedAddress.class))).thenThrow(new DuplicateKeyException("duplicate alias"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.shorten(req));
+        verify(dao, times(5)).save(any(ShortenedAddress.class));
+        assertEquals(5, meterRegistry.get("alias.generation.attempts").summary().max());
+    }
+
+    @Test
+    void test_shorten_mapsConflictOnCustomAliasToValidationFailure() {
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/long"), "taken");
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(validationService.alreadyMappedError("taken")).thenReturn("the alias taken is already mapped to a URL");
+        when(dao.save(any(ShortenedAddress.class))).thenThrow(new DuplicateKeyException("duplicate alias"));
+
+        ValidationFailedException e = assertThrows(ValidationFailedException.class, () -> service.shorten(req));
+
+        assertEquals("Request failed validation with the following errors: the alias taken is already mapped to a URL",
+            e.getMessage());
+        verify(dao, times(1)).save(any(ShortenedAddress.class));
+        verify(dao, never()).findByAlias(any());
+    }
+
+    @Test
+    void test_shorten_doesNotMistakeOtherIntegrityViolationsForTakenAliases() {
+        ShortenRequest custom = new ShortenRequest(URI.create("http://example.com/long"), "custom");
+        ShortenRequest generated = new ShortenRequest(URI.create("http://example.com/long"), null);
+        when(validationService.validate(any())).thenReturn(new ValidationResult());
+        when(dao.save(any(ShortenedAddress.class))).thenThrow(new DataIntegrityViolationException("value too long"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.shorten(custom));
+        assertThrows(DataIntegrityViolationException.class, () -> service.shorten(generated));
+
+        verify(dao, times(2)).save(any(ShortenedAddress.class));
+        verify(aliasBloomFilter, never()).put(any());
+    }
+
+    @Test
+    void test_shorten_withCollisionFreeGeneratorDoesNotCheckForCollisions() {
+        AliasGenerator generator = mock(AliasGenerator.class);
+        when(generator.isCollisionFree()).thenReturn(true);
+        when(generator.generate()).thenReturn("000001");
+        service = new ShortenedAddressService(dao, tableVersionDAO, readRouting, aliasShards, validationService, currentURLService,
+            new AliasCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), new SimpleMeterRegistry()), aliasBloomFilter, aliasIndex, generator, hotAliasTracker, aliasSnapshot, aliasSnapshotWriter, invalidationBus, metrics, 100, 3, false);
+
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/long"), null);
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.save(any(ShortenedAddress.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        ShortenResponse resp = service.shorten(req);
+
+        assertEquals(URI.create("http://localhost:8080/000001"), resp.shortUrl());
+        verify(dao, never()).findByAlias(any());
+    }
+
+    private ShortenedAddressService deduplicatingService() {
+        return new ShortenedAddressService(dao, tableVersionDAO, readRouting, aliasShards, validationService, currentURLService,
+            new AliasCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), new SimpleMeterRegistry()), aliasBloomFilter, aliasIndex,
+            new RandomAliasGenerator(maxAliasSize), hotAliasTracker, aliasSnapshot, aliasSnapshotWriter, invalidationBus, metrics, 100, 3, true);
+    }
+
+    @Test
+    void test_shorten_withDedupReturnsExistingAliasForSameUrl() {
+        service = deduplicatingService();
+        ShortenRequest req = new ShortenRequest(URI.create("HTTPS://Example.com:443"), null);
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.findByOriginalUrlHashOrderByIdAsc(UrlNormalizer.hash("https://example.com/"), Limit.of(4)))
+            .thenReturn(List.of(ShortenedAddress.builder().id(1L).alias("old").originalUrl("https://example.com/").build()));
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        ShortenResponse resp = service.shorten(req);
+
+        assertEquals(URI.create("http://localhost:8080/old"), resp.shortUrl());
+        verify(dao, never()).save(any(ShortenedAddress.class));
+        assertEquals(1, meterRegistry.get("shortener.deduplicated").counter().count());
+    }
+
+    @Test
+    void test_shorten_withDedupIgnoresHashCollisions() {
+        service = deduplicatingService();
+        ShortenRequest req = new ShortenRequest(URI.create("https://example.com/a"), null);
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.findByOriginalUrlHashOrderByIdAsc(any(Long.class), any(Limit.class)))
+            .thenReturn(List.of(ShortenedAddress.builder().id(1L).alias("other").originalUrl("https://example.com/b").build()));
+        when(dao.save(any(ShortenedAddress.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        ShortenResponse resp = service.shorten(req);
+
+        assertFalse(resp.shortUrl().toString().endsWith("/other"));
+        verify(dao).save(any(ShortenedAddress.class));
+    }
+
+    @Test
+    void test_shorten_withDedupDoesNotReuseAliasWithAnotherRedirectStatus() {
+        service = deduplicatingService();
+        ShortenRequest req = new ShortenRequest(URI.create("https://example.com/a"), null, 308);
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.findByOriginalUrlHashOrderByIdAsc(any(Long.class), any(Limit.class)))
+            .thenReturn(List.of(ShortenedAddress.builder().id(1L).alias("temporary").originalUrl("https://example.com/a").build()));
+        when(dao.save(any(ShortenedAddress.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        ShortenResponse resp = service.shorten(req);
+
+        assertFalse(resp.shortUrl().toString().endsWith("/temporary"));
+        verify(dao).save(any(ShortenedAddress.class));
+    }
+
+    @Test
+    void test_shorten_withDedupStillStoresCustomAlias() {
+        service = deduplicatingService();
+        ShortenRequest req = new ShortenRequest(URI.create("https://example.com/a"), "mine");
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.save(any(ShortenedAddress.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        ShortenResponse resp = service.shorten(req);
+
+        assertEquals(URI.create("http://localhost:8080/mine"), resp.shortUrl());
+        verify(dao, never()).findByOriginalUrlHashOrderByIdAsc(any(Long.class), any(Limit.class));
+    }
+
+    @Test
+    void test_shorten_withoutDedupDoesNotLookUpUrl() {
+        ShortenRequest req = new ShortenRequest(URI.create("https://example.com/a"), null);
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.save(any(ShortenedAddress.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        service.shorten(req);
+
+        verify(dao, never()).findByOriginalUrlHashOrderByIdAsc(any(Long.class), any(Limit.class));
+    }
+
     @Test
     void test_getForwardedURI_whenFoundReturnsUri() {
         String alias = "x1";
@@ -118,6 +419,38 @@ class ShortenedAddressServiceTest {
         assertEquals(Optional.of(URI.create("http://upstream")), uri);
     }
 
+    @Test
+    void test_getRedirect_returnsStatusStoredForAlias() {
+        when(dao.findByAlias("moved")).thenReturn(Optional.of(
+            ShortenedAddress.builder().id(3L).alias("moved").originalUrl("http://upstream").redirectStatus(308).build()));
+        when(dao.findByAlias("plain")).thenReturn(Optional.of(
+            ShortenedAddress.builder().id(4L).alias("plain").originalUrl("http://upstream").build()));
+
+        assertEquals(Optional.of(new Redirect(URI.create("http://upstream"), 308)), service.getRedirect("moved"));
+        assertEquals(Optional.of(Redirect.to(URI.create("http://upstream"))), service.getRedirect("plain"));
+    }
+
+    @Test
+    void test_getForwardedURI_treatsExpiredAliasAsAbsent() {
+        when(dao.findByAlias("stale")).thenReturn(Optional.of(ShortenedAddress.builder().id(3L).alias("stale")
+            .originalUrl("http://upstream").expiresAt(Instant.now().minusSeconds(1)).build()));
+        when(dao.findByAlias("fresh")).thenReturn(Optional.of(ShortenedAddress.builder().id(4L).alias("fresh")
+            .originalUrl("http://upstream").expiresAt(Instant.now().plusSeconds(60)).build()));
+
+        assertEquals(Optional.empty(), service.getForwardedURI("stale"));
+        assertEquals(Optional.of(URI.create("http://upstream")), service.getForwardedURI("fresh"));
+        verify(hotAliasTracker, never()).record("stale");
+    }
+
+    @Test
+    void test_getForwardedURI_onReadReplicaTreatsExpiredAliasAsAbsent() {
+        when(aliasSnapshot.isEnabled()).thenReturn(true);
+        when(aliasSnapshot.lookup("stale")).thenReturn(Optional.of(
+            new Redirect(URI.create("http://snapshot"), Redirect.DEFAULT_STATUS, Instant.now().minusSeconds(1))));
+
+        assertEquals(Optional.empty(), service.getForwardedURI("stale"));
+    }
+
     @Test
     void test_getForwardedURI_whenNotFoundReturnsEmpty() {
         when(dao.findByAlias("nope")).thenReturn(Optional.empty());
@@ -125,21 +458,277 @@ class ShortenedAddressServiceTest {
     }
 
     @Test
-    void test_deleteStoredAlias_whenExistsDeletesById() {
-        String alias = "del-me";
+    void test_getForwardedURI_timesLookupsByOutcome() {
+        when(dao.findByAlias("x1")).thenReturn(Optional.of(
+            ShortenedAddress.builder().alias("x1").originalUrl("http://upstream").build()));
+        when(dao.findByAlias("nope")).thenReturn(Optional.empty());
+
+        service.getForwardedURI("x1");
+        service.getForwardedURI("x1");
+        service.getForwardedURI("nope");
+
+        assertEquals(2, meterRegistry.get("shortener.redirect").tag("outcome", "found").timer().count());
+        assertEquals(1, meterRegistry.get("shortener.redirect").tag("outcome", "not_found").timer().count());
+    }
+
+    @Test
+    void test_getForwardedURI_countsRedirectsForHotAliases() {
+        ShortenedAddress addr = ShortenedAddress.builder().alias("hot").originalUrl("http://x").build();
+        when(dao.findByAlias("hot")).thenReturn(Optional.of(addr));
+        when(dao.findByAlias("cold")).thenReturn(Optional.empty());
+
+        service.getForwardedURI("hot");
+        service.getForwardedURI("hot");
+        service.getForwardedURI("cold");
+
+        verify(hotAliasTracker, times(2)).record("hot");
+        verify(hotAliasTracker, never()).record("cold");
+    }
+
+    @Test
+    void test_getForwardedURI_onReadReplicaAnswersFromSnapshot() {
+        when(aliasSnapshot.isEnabled()).thenReturn(true);
+        when(aliasSnapshot.lookup("snap")).thenReturn(Optional.of(new Redirect(URI.create("http://snapshot"), 301)));
+        when(aliasSnapshot.lookup("nope")).thenReturn(Optional.empty());
+
+        assertEquals(Optional.of(URI.create("http://snapshot")), service.getForwardedURI("snap"));
+        assertEquals(Optional.empty(), service.getForwardedURI("nope"));
+        verify(dao, never()).findByAlias(any());
+        verify(aliasBloomFilter, never()).mightContain(any());
+        verify(hotAliasTracker).record("snap");
+        assertEquals(Optional.of(new Redirect(URI.create("http://snapshot"), 301)), service.getRedirect("snap"));
+    }
+
+    @Test
+    void test_exportSnapshot_writesSnapshot() {
+        when(aliasSnapshotWriter.export()).thenReturn(new SnapshotExport(2, 100));
+
+        assertEquals(new SnapshotExport(2, 100), service.exportSnapshot());
+    }
+
+    @Test
+    void test_exportSnapshot_onReadReplicaThrowsValidationFailed() {
+        when(aliasSnapshot.isEnabled()).thenReturn(true);
+
+        assertThrows(ValidationFailedException.class, () -> service.exportSnapshot());
+        verify(aliasSnapshotWriter, never()).export();
+    }
+
+    @Test
+    void test_getHotAliases_returnsTopAliasesFromTracker() {
+        when(hotAliasTracker.maxCandidates()).thenReturn(10);
+        when(hotAliasTracker.top(2)).thenReturn(List.of(new HotAlias("a", 5), new HotAlias("b", 3)));
+
+        assertEquals(List.of(new HotAlias("a", 5), new HotAlias("b", 3)), service.getHotAliases(2));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 11 })
+    void test_getHotAliases_rejectsInvalidN(int n) {
+        when(hotAliasTracker.maxCandidates()).thenReturn(10);
+
+        assertThrows(ValidationFailedException.class, () -> service.getHotAliases(n));
+    }
+
+    @Test
+    void test_getForwardedURI_skipsLookupWhenBloomFilterSaysAbsent() {
+        when(aliasBloomFilter.mightContain("scanner")).thenReturn(false);
+
+        assertEquals(Optional.empty(), service.getForwardedURI("scanner"));
+        verify(dao, never()).findByAlias("scanner");
+    }
+
+    @Test
+    void test_shorten_addsSavedAliasToBloomFilter() {
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/page"), "bloom");
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.save(any(ShortenedAddress.class))).thenReturn(
+            ShortenedAddress.builder().id(1L).alias("bloom").originalUrl("http://example.com/page").build());
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        service.shorten(req);
+
+        verify(aliasBloomFilter).put("bloom");
+    }
+
+    @Test
+    void test_shorten_addsSavedAliasToAliasIndex() {
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/page"), "indexed");
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.save(any(ShortenedAddress.class))).thenReturn(
+            ShortenedAddress.builder().id(1L).alias("indexed").originalUrl("http://example.com/page").build());
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        service.shorten(req);
+
+        verify(aliasIndex).put("indexed", Redirect.to(URI.create("http://example.com/page")));
+    }
+
+    @Test
+    void test_getForwardedURI_answersFromAliasIndex() {
+        when(aliasIndex.lookup("indexed")).thenReturn(Redirect.to(URI.create("http://upstream")));
+        when(aliasIndex.lookup("lapsed")).thenReturn(
+            new Redirect(URI.create("http://upstream"), Redirect.DEFAULT_STATUS, Instant.now().minusSeconds(1)));
+
+        assertEquals(Optional.of(URI.create("http://upstream")), service.getForwardedURI("indexed"));
+        assertEquals(Optional.empty(), service.getForwardedURI("lapsed"));
+        verify(dao, never()).findByAlias(any());
+    }
+
+    @Test
+    void test_getForwardedURI_fillsAliasIndexFromDatabase() {
+        when(aliasIndex.stamp()).thenReturn(7L);
+        when(dao.findByAlias("unindexed")).thenReturn(Optional.of(
+            ShortenedAddress.builder().id(3L).alias("unindexed").originalUrl("http://upstream").build()));
+
+        service.getForwardedURI("unindexed");
+
+        verify(aliasIndex).fill("unindexed", Redirect.to(URI.create("http://upstream")), 7L);
+    }
+
+    @Test
+    void test_deleteStoredAliases_removesAliasesFromAliasIndex() {
+        when(dao.deleteAllByAlias(List.of("a", "b"))).thenReturn(Set.of("a"));
+
+        service.deleteStoredAliases(List.of("a", "b"));
+
+        verify(aliasIndex).removeAll(List.of("a", "b"));
+    }
+
+    @Test
+    void test_getForwardedURI_servesRepeatLookupsFromCache() {
+        String alias = "cached";
+        when(dao.findByAlias(alias)).thenReturn(Optional.of(
+            ShortenedAddress.builder().id(3L).alias(alias).originalUrl("http://upstream").build()
+        ));
+
+        service.getForwardedURI(alias);
+        Optional<URI> uri = service.getForwardedURI(alias);
+
+        assertEquals(Optional.of(URI.create("http://upstream")), uri);
+        verify(dao, times(1)).findByAlias(alias);
+    }
+
+    @Test
+    void test_getForwardedURI_cachesMisses() {
+        when(dao.findByAlias("nope")).thenReturn(Optional.empty());
+
+        service.getForwardedURI("nope");
+        service.getForwardedURI("nope");
+
+        verify(dao, times(1)).findByAlias("nope");
+    }
+
+    @Test
+    void test_shorten_invalidatesCachedMissForAlias() {
+        String alias = "new-one";
+        when(dao.findByAlias(alias)).thenReturn(Optional.empty());
+        assertEquals(Optional.empty(), service.getForwardedURI(alias));
+
+        ShortenRequest req = new ShortenRequest(URI.create("http://example.com/page"), alias);
+        ShortenedAddress saved = ShortenedAddress.builder().id(1L).alias(alias).originalUrl("http://example.com/page").build();
+        when(validationService.validate(req)).thenReturn(new ValidationResult());
+        when(dao.save(any(ShortenedAddress.class))).thenReturn(saved);
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+        service.shorten(req);
+
+        when(dao.findByAlias(alias)).thenReturn(Optional.of(saved));
+        assertEquals(Optional.of(URI.create("http://example.com/page")), service.getForwardedURI(alias));
+    }
+
+    @Test
+    void test_deleteStoredAlias_invalidatesCachedLookup() {
+        String alias = "gone";
         ShortenedAddress addr = ShortenedAddress.builder().id(5L).alias(alias).originalUrl("http://x").build();
         when(dao.findByAlias(alias)).thenReturn(Optional.of(addr));
+        assertEquals(Optional.of(URI.create("http://x")), service.getForwardedURI(alias));
+
+        when(dao.deleteByAlias(alias)).thenReturn(1);
+        service.deleteStoredAlias(alias);
+
+        when(dao.findByAlias(alias)).thenReturn(Optional.empty());
+        assertEquals(Optional.empty(), service.getForwardedURI(alias));
+    }
+
+    @Test
+    void test_deleteStoredAlias_whenExistsDeletesByAliasInOneStatement() {
+        String alias = "del-me";
+        when(dao.deleteByAlias(alias)).thenReturn(1);
 
         service.deleteStoredAlias(alias);
 
-        verify(dao).deleteById(5L);
+        verify(dao).deleteByAlias(alias);
+        verify(dao, never()).findByAlias(any());
+        verify(invalidationBus).deleted(alias);
+        verify(aliasIndex).remove(alias);
     }
 
     @Test
     void test_deleteStoredAlias_whenMissingThrows() {
-        when(dao.findByAlias("missing")).thenReturn(Optional.empty());
+        when(dao.deleteByAlias("missing")).thenReturn(0);
 
         assertThrows(NoSuchAliasException.class, () -> service.deleteStoredAlias("missing"));
+        verify(invalidationBus, never()).deleted(any(String.class));
+        verify(tableVersionDAO, never()).bumpAfterCommit();
+    }
+
+    @Test
+    void test_deleteStoredAliases_reportsAliasesThatDidNotExist() {
+        List<String> aliases = List.of("a", "missing", "missing");
+        when(dao.deleteAllByAlias(aliases)).thenReturn(Set.of("a"));
+
+        BulkDeleteResult result = service.deleteStoredAliases(aliases);
+
+        assertEquals(new BulkDeleteResult(1, List.of("missing")), result);
+        verify(invalidationBus).deleted(Set.of("a"));
+        verify(tableVersionDAO).bumpAfterCommit();
+    }
+
+    @Test
+    void test_deleteStoredAliases_leavesVersionAloneWhenNothingWasDeleted() {
+        when(dao.deleteAllByAlias(List.of("missing"))).thenReturn(Set.of());
+
+        service.deleteStoredAliases(List.of("missing"));
+
+        verify(tableVersionDAO, never()).bumpAfterCommit();
+    }
+
+    @Test
+    void test_getListingVersion_keepsFirstSeenTimeUntilVersionChanges() {
+        when(tableVersionDAO.current()).thenReturn(7L);
+
+        ListingVersion first = service.getListingVersion();
+        ListingVersion again = service.getListingVersion();
+
+        assertEquals("\"7\"", first.etag());
+        assertEquals(first, again);
+
+        when(tableVersionDAO.current()).thenReturn(8L);
+
+        ListingVersion next = service.getListingVersion();
+
+        assertEquals("\"8\"", next.etag());
+        assertFalse(next.lastModified().isBefore(first.lastModified()));
+    }
+
+    @Test
+    void test_deleteStoredAliases_invalidatesCachedLookups() {
+        ShortenedAddress addr = ShortenedAddress.builder().id(5L).alias("gone").originalUrl("http://x").build();
+        when(dao.findByAlias("gone")).thenReturn(Optional.of(addr));
+        assertEquals(Optional.of(URI.create("http://x")), service.getForwardedURI("gone"));
+
+        when(dao.deleteAllByAlias(List.of("gone"))).thenReturn(Set.of("gone"));
+        service.deleteStoredAliases(List.of("gone"));
+
+        when(dao.findByAlias("gone")).thenReturn(Optional.empty());
+        assertEquals(Optional.empty(), service.getForwardedURI("gone"));
+    }
+
+    @Test
+    void test_deleteStoredAliases_rejectsBatchesThatAreTooLarge() {
+        assertThrows(ValidationFailedException.class, () -> service.deleteStoredAliases(List.of("a", "b", "c", "d")));
+        assertThrows(ValidationFailedException.class, () -> service.deleteStoredAliases(List.of()));
+        verify(dao, never()).deleteAllByAlias(anyCollection());
     }
 
     @Test
@@ -147,16 +736,171 @@ class ShortenedAddressServiceTest {
         ShortenedAddress a = ShortenedAddress.builder().id(7L).alias("a1").originalUrl("http://one").build();
         ShortenedAddress b = ShortenedAddress.builder().id(8L).alias("b2").originalUrl("http://two").build();
 
-        when(dao.findAll()).thenReturn(List.of(a, b));
+        when(dao.findByIdGreaterThanOrderByIdAsc(0, Limit.of(10))).thenReturn(List.of(a, b));
         when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
 
-        List<StoredAlias> list = service.getStoredURLs();
+        StoredAliasPage page = service.getStoredURLs(10, null);
+        List<StoredAlias> list = page.items();
 
 
         assertEquals(2, list.size());
         assertEquals("a1", list.get(0).alias());
         assertEquals(URI.create("http://one"), list.get(0).fullUrl());
         assertEquals(URI.create("http://localhost:8080/a1"), list.get(0).shortUrl());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void test_getStoredURLs_returnsCursorWhenPageIsFull() {
+        ShortenedAddress a = ShortenedAddress.builder().id(7L).alias("a1").originalUrl("http://one").build();
+        ShortenedAddress b = ShortenedAddress.builder().id(8L).alias("b2").originalUrl("http://two").build();
+
+        when(dao.findByIdGreaterThanOrderByIdAsc(3, Limit.of(2))).thenReturn(List.of(a, b));
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        StoredAliasPage page = service.getStoredURLs(2, "3");
+
+        assertEquals("8", page.nextCursor());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, -1, 101 })
+    void test_getStoredURLs_rejectsOutOfRangeLimits(int limit) {
+        assertThrows(ValidationFailedException.class, () -> service.getStoredURLs(limit, null));
+    }
+
+    @Test
+    void test_getStoredURLs_rejectsInvalidCursor() {
+        assertThrows(ValidationFailedException.class, () -> service.getStoredURLs(10, "not-a-cursor"));
+    }
+
+    private ShortenedAddressService serviceReadingThrough(ReadRouting routing) {
+        lenient().when(routing.onReplica(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        return new ShortenedAddressService(dao, tableVersionDAO, routing, aliasShards, validationService, currentURLService,
+            new AliasCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), new SimpleMeterRegistry()), aliasBloomFilter, aliasIndex,
+            new RandomAliasGenerator(maxAliasSize), hotAliasTracker, aliasSnapshot, aliasSnapshotWriter, invalidationBus, metrics, 100, 3, false);
+    }
+
+    @Test
+    void test_getStoredURLs_readsReplicaOnceListingVersionHasSettled() {
+        ReadRouting routing = mock(ReadRouting.class);
+        service = serviceReadingThrough(routing);
+        when(tableVersionDAO.current()).thenReturn(1L);
+        when(routing.hasSettled(any())).thenReturn(true);
+        when(dao.findByIdGreaterThanOrderByIdAsc(0, Limit.of(10))).thenReturn(List.of());
+
+        service.getListingVersion();
+        service.getStoredURLs(10, null);
+
+        verify(routing).onReplica(any());
+    }
+
+    @Test
+    void test_getStoredURLs_readsPrimaryWhileListingVersionIsNew() {
+        ReadRouting routing = mock(ReadRouting.class);
+        service = serviceReadingThrough(routing);
+        when(tableVersionDAO.current()).thenReturn(1L);
+        when(routing.hasSettled(any())).thenReturn(false);
+        when(dao.findByIdGreaterThanOrderByIdAsc(0, Limit.of(10))).thenReturn(List.of());
+
+        service.getListingVersion();
+        service.getStoredURLs(10, null);
+
+        verify(routing, never()).onReplica(any());
+        verify(dao).findByIdGreaterThanOrderByIdAsc(0, Limit.of(10));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_forEachStoredURL_resolvesBaseURLOnceAndMapsEveryRow() {
+        doAnswer(invocation -> {
+            Consumer<ShortenedAddress> consumer = invocation.getArgument(0);
+            consumer.accept(ShortenedAddress.builder().id(7L).alias("a1").originalUrl("http://one").build());
+            consumer.accept(ShortenedAddress.builder().id(8L).alias("b2").originalUrl("http://two").build());
+            return null;
+        }).when(dao).forEachAddress(any(Consumer.class));
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        List<StoredAlias> streamed = new ArrayList<>();
+        service.forEachStoredURL(streamed::add);
+
+        assertEquals(List.of(
+            new StoredAlias("a1", URI.create("http://one"), URI.create("http://localhost:8080/a1")),
+            new StoredAlias("b2", URI.create("http://two"), URI.create("http://localhost:8080/b2"))), streamed);
+        verify(currentURLService, times(1)).getRequestedURLWithNoPath();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_shortenAll_storesValidRequestsAndReportsInvalidOnes() {
+        List<ShortenRequest> reqs = List.of(
+            new ShortenRequest(URI.create("http://example.com/1"), "custom"),
+            new ShortenRequest(null, null),
+            new ShortenRequest(URI.create("http://example.com/3"), null));
+        when(validationService.validateAll(reqs)).thenReturn(List.of(
+            new ValidationResult(), new ValidationResult(List.of("full url must be provided")), new ValidationResult()));
+        when(validationService.existingAliases(anyCollection())).thenReturn(Set.of());
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        List<BatchShortenResult> results = service.shortenAll(reqs);
+
+        ArgumentCaptor<List<ShortenedAddress>> captor = ArgumentCaptor.forClass(List.class);
+        verify(dao).insertAll(captor.capture());
+        List<ShortenedAddress> inserted = captor.getValue();
+        assertEquals(2, inserted.size());
+        assertEquals("custom", inserted.get(0).getAlias());
+        assertEquals("http://example.com/3", inserted.get(1).getOriginalUrl());
+
+        assertEquals(3, results.size());
+        assertEquals(URI.create("http://localhost:8080/custom"), results.get(0).shortUrl());
+        assertEquals("full url must be provided", results.get(1).error());
+        assertEquals(URI.create("http://localhost:8080/" + inserted.get(1).getAlias()), results.get(2).shortUrl());
+        verify(aliasBloomFilter).put("custom");
+        assertEquals(1, meterRegistry.get("shortener.validation.failures").tag("operation", "shorten_batch").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_shortenAll_regeneratesAliasesThatAreAlreadyUsed() {
+        AliasGenerator generator = mock(AliasGenerator.class);
+        when(generator.generate()).thenReturn("taken", "free1", "free2");
+        service = new ShortenedAddressService(dao, tableVersionDAO, readRouting, aliasShards, validationService, currentURLService,
+            new AliasCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), new SimpleMeterRegistry()), aliasBloomFilter, aliasIndex, generator, hotAliasTracker, aliasSnapshot, aliasSnapshotWriter, invalidationBus, metrics, 100, 3, false);
+
+        List<ShortenRequest> reqs = List.of(
+            new ShortenRequest(URI.create("http://example.com/1"), null),
+            new ShortenRequest(URI.create("http://example.com/2"), null));
+        when(validationService.validateAll(reqs)).thenReturn(List.of(new ValidationResult(), new ValidationResult()));
+        when(validationService.existingAliases(List.of("taken", "free1"))).thenReturn(Set.of("taken"));
+        when(validationService.existingAliases(List.of("free2"))).thenReturn(Set.of());
+        when(currentURLService.getRequestedURLWithNoPath()).thenReturn("http://localhost:8080");
+
+        service.shortenAll(reqs);
+
+        ArgumentCaptor<List<ShortenedAddress>> captor = ArgumentCaptor.forClass(List.class);
+        verify(dao).insertAll(captor.capture());
+        assertEquals(List.of("free1", "free2"), captor.getValue().stream().map(ShortenedAddress::getAlias).toList());
+    }
+
+    @Test
+    void test_shortenAll_rejectsBatchesThatAreTooLarge() {
+        List<ShortenRequest> reqs = List.of(
+            new ShortenRequest(URI.create("http://example.com/1"), null),
+            new ShortenRequest(URI.create("http://example.com/2"), null),
+            new ShortenRequest(URI.create("http://example.com/3"), null),
+            new ShortenRequest(URI.create("http://example.com/4"), null));
+
+        assertThrows(ValidationFailedException.class, () -> service.shortenAll(reqs));
+        assertThrows(ValidationFailedException.class, () -> service.shortenAll(List.of()));
+    }
+
+    @Test
+    void test_shortenAll_mapsConcurrentConflictToValidationFailure() {
+        List<ShortenRequest> reqs = List.of(new ShortenRequest(URI.create("http://example.com/1"), "raced"));
+        when(validationService.validateAll(reqs)).thenReturn(List.of(new ValidationResult()));
+        doThrow(new DuplicateKeyException("duplicate")).when(dao).insertAll(anyList());
+
+        assertThrows(ValidationFailedException.class, () -> service.shortenAll(reqs));
     }
 
 }
@@ -0,0 +1,134 @@
+package com.tpximpact.shortenerservice.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class AliasShardsTest {
+
+    private static final List<String> THREE_SHARDS = List.of("jdbc:h2:mem:shard-1", "jdbc:h2:mem:shard-2");
+
+    // Which shard each alias is stored on, looked up on the current shard
+    private final Map<String, Integer> stored = new HashMap<>();
+
+    private Optional<String> lookup(String alias) {
+        return Integer.valueOf(AliasShards.currentShard()).equals(stored.get(alias)) ? Optional.of(alias) : Optional.empty();
+    }
+
+    // An alias that moves from one of the first two shards to the third when it is added
+    private static String movingAlias(AliasShards shards) {
+        return IntStream.range(0, 1000)
+            .mapToObj(i -> "alias-" + i)
+            .filter(alias -> shards.shardOf(alias) != shards.previousShardOf(alias))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    @Test
+    void test_onShard_routesOnlyTheWorkItRuns() {
+        AliasShards shards = new AliasShards(THREE_SHARDS, 128, 0);
+
+        assertEquals(2, shards.onShard(2, AliasShards::currentShard));
+        assertEquals(0, AliasShards.currentShard());
+    }
+
+    @Test
+    void test_onShard_restoresTheOuterShard() {
+        AliasShards shards = new AliasShards(THREE_SHARDS, 128, 0);
+
+        assertEquals(List.of(2, 1), shards.onShard(1, () -> List.of(
+            shards.onShard(2, AliasShards::currentShard), AliasShards.currentShard())));
+    }
+
+    @Test
+    void test_isSharded_onlyWithShardUrls() {
+        assertFalse(new AliasShards(List.of(""), 128, 0).isSharded());
+        assertTrue(new AliasShards(THREE_SHARDS, 128, 0).isSharded());
+    }
+
+    @Test
+    void test_findAlias_checksPreviousShardWhileRebalancing() {
+        AliasShards shards = new AliasShards(THREE_SHARDS, 128, 2);
+        String alias = movingAlias(shards);
+        stored.put(alias, shards.previousShardOf(alias));
+
+        assertEquals(Optional.of(alias), shards.findAlias(alias, () -> lookup(alias)));
+        assertEquals(Optional.of(alias), shards.findOnPreviousShard(alias, () -> lookup(alias)));
+    }
+
+    @Test
+    void test_findAlias_onlyChecksItsShardOnceRebalanced() {
+        AliasShards shards = new AliasShards(THREE_SHARDS, 128, 2);
+        String alias = movingAlias(shards);
+        stored.put(alias, shards.previousShardOf(alias));
+
+        AliasShards rebalanced = new AliasShards(THREE_SHARDS, 128, 0);
+        assertFalse(rebalanced.isRebalancing());
+        assertEquals(Optional.empty(), rebalanced.findAlias(alias, () -> lookup(alias)));
+    }
+
+    @Test
+    void test_onShardsOf_passesEachShardItsAliases() {
+        AliasShards shards = new AliasShards(THREE_SHARDS, 128, 0);
+        List<String> aliases = IntStream.range(0, 100).mapToObj(i -> "alias-" + i).toList();
+
+        List<String> visited = shards.onShardsOf(aliases, shardAliases -> shardAliases.stream()
+            .peek(alias -> assertEquals(shards.shardOf(alias), AliasShards.currentShard()))
+            .toList());
+
+        assertEquals(aliases.size(), visited.size());
+        assertTrue(visited.containsAll(aliases));
+    }
+
+    @Test
+    void test_onShardsOf_alsoVisitsPreviousShardWhileRebalancing() {
+        AliasShards shards = new AliasShards(THREE_SHARDS, 128, 2);
+        String alias = movingAlias(shards);
+
+        List<Integer> visited = shards.onShardsOf(List.of(alias), shardAliases -> List.of(AliasShards.currentShard()));
+
+        assertEquals(List.of(shards.previousShardOf(alias), shards.shardOf(alias)).stream().sorted().toList(), visited);
+    }
+
+    @Test
+    void test_onEveryShard_returnsEachShardsResultInOrder() {
+        AliasShards shards = new AliasShards(THREE_SHARDS, 128, 0);
+
+        assertEquals(List.of(0, 1, 2), shards.onEveryShard(AliasShards::currentShard));
+    }
+
+    @Test
+    void test_onEveryShard_rethrowsFailures() {
+        AliasShards shards = new AliasShards(THREE_SHARDS, 128, 0);
+
+        assertThrows(IllegalStateException.class, () -> shards.onEveryShard(() -> {
+            throw new IllegalStateException("shard down");
+        }));
+    }
+
+    @Test
+    void test_forEachShard_visitsShardsInTurn() {
+        AliasShards shards = new AliasShards(THREE_SHARDS, 128, 0);
+        List<Integer> visited = new ArrayList<>();
+
+        shards.forEachShard(() -> visited.add(AliasShards.currentShard()));
+
+        assertEquals(List.of(0, 1, 2), visited);
+    }
+
+    @Test
+    void test_constructor_rejectsRemovedShards() {
+        assertThrows(IllegalArgumentException.class, () -> new AliasShards(THREE_SHARDS, 128, 4));
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.tpximpact.shortenerservice.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ShardRingTest {
+
+    private static final int ALIASES = 100_000;
+
+    @Test
+    void test_ownerOf_isAlwaysZeroForOneShard() {
+        ShardRing ring = new ShardRing(1, 128);
+
+        assertEquals(0, ring.ownerOf("abc"));
+        assertEquals(0, ring.ownerOf("xyz"));
+    }
+
+    @Test
+    void test_ownerOf_isTheSameForEveryRingBuiltAlike() {
+        ShardRing ring = new ShardRing(4, 128);
+        ShardRing other = new ShardRing(4, 128);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.ownerOf("alias-" + i), other.ownerOf("alias-" + i));
+        }
+    }
+
+    @Test
+    void test_ownerOf_spreadsAliasesEvenly() {
+        ShardRing ring = new ShardRing(4, 128);
+
+        int[] counts = new int[4];
+        for (int i = 0; i < ALIASES; i++) {
+            counts[ring.ownerOf("alias-" + i)]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(Math.abs(count - ALIASES / 4) < ALIASES / 4 * 0.2, "uneven spread " + count);
+        }
+    }
+
+    @Test
+    void test_ownerOf_onlyMovesAliasesToAnAddedShard() {
+        ShardRing before = new ShardRing(3, 128);
+        ShardRing after = new ShardRing(4, 128);
+
+        int moved = 0;
+        for (int i = 0; i < ALIASES; i++) {
+            String alias = "alias-" + i;
+            if (before.ownerOf(alias) != after.ownerOf(alias)) {
+                assertEquals(3, after.ownerOf(alias));
+                moved++;
+            }
+        }
+        // About a quarter of the aliases belong on the new shard
+        assertTrue(Math.abs(moved - ALIASES / 4) < ALIASES / 4 * 0.2, "moved " + moved);
+    }
+
+    @Test
+    void test_constructor_needsAShard() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardRing(0, 128));
+    }
+
+}
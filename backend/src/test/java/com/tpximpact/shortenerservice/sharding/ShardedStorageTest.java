@@ -0,0 +1,230 @@
+package com.tpximpact.shortenerservice.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.tpximpact.shortenerservice.cache.AliasBloomFilter;
+
+/**
+ * Runs the service against three H2 databases as shards, the third of them just added: aliases
+ * that the first two shards held before it was added are still looked for there until they are
+ * moved.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=" + ShardedStorageTest.SHARD_0_URL,
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "alias.sharding.shardUrls=" + ShardedStorageTest.SHARD_1_URL + "," + ShardedStorageTest.SHARD_2_URL,
+    "alias.sharding.previousShardCount=2",
+    "alias.rateLimit.enabled=false"
+})
+class ShardedStorageTest {
+
+    static final String SHARD_0_URL = "jdbc:h2:mem:sharding-0;DB_CLOSE_DELAY=-1";
+    static final String SHARD_1_URL = "jdbc:h2:mem:sharding-1;DB_CLOSE_DELAY=-1";
+    static final String SHARD_2_URL = "jdbc:h2:mem:sharding-2;DB_CLOSE_DELAY=-1";
+
+    private static final Pattern ALIAS = Pattern.compile("\"alias\":\"([^\"]+)\"");
+    private static final Pattern NEXT = Pattern.compile("<([^>]+)>; rel=\"next\"");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AliasShards aliasShards;
+
+    @Autowired
+    private AliasBloomFilter aliasBloomFilter;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    private final List<JdbcTemplate> shards = List.of(
+        new JdbcTemplate(new DriverManagerDataSource(SHARD_0_URL, "sa", "")),
+        new JdbcTemplate(new DriverManagerDataSource(SHARD_1_URL, "sa", "")),
+        new JdbcTemplate(new DriverManagerDataSource(SHARD_2_URL, "sa", "")));
+
+    private HttpClient client;
+
+    @BeforeEach
+    void setup() {
+        client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> delete(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).DELETE().build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void shorten(String alias) throws Exception {
+        assertEquals(200, post("/shorten",
+            "{\"fullUrl\":\"https://example.com/" + alias + "\",\"customAlias\":\"" + alias + "\"}").statusCode());
+    }
+
+    private List<Integer> shardsHolding(String alias) {
+        return IntStream.range(0, shards.size())
+            .filter(shard -> shards.get(shard).queryForObject(
+                "SELECT COUNT(*) FROM shortened_address WHERE alias = ?", Integer.class, alias) > 0)
+            .boxed()
+            .toList();
+    }
+
+    private long idOf(String alias) {
+        return shards.get(aliasShards.shardOf(alias))
+            .queryForObject("SELECT id FROM shortened_address WHERE alias = ?", Long.class, alias);
+    }
+
+    // Aliases with the given prefix that belong on a different shard now the third shard is added
+    private List<String> movingAliases(String prefix, int count) {
+        return IntStream.range(0, 1000)
+            .mapToObj(i -> prefix + i)
+            .filter(alias -> aliasShards.shardOf(alias) != aliasShards.previousShardOf(alias))
+            .limit(count)
+            .toList();
+    }
+
+    @Test
+    void test_shorten_storesAliasOnItsShardOnly() throws Exception {
+        shorten("sharded");
+
+        assertEquals(List.of(aliasShards.shardOf("sharded")), shardsHolding("sharded"));
+        HttpResponse<String> redirect = get("/sharded");
+        assertEquals(302, redirect.statusCode());
+        assertEquals("https://example.com/sharded", redirect.headers().firstValue("Location").orElseThrow());
+    }
+
+    @Test
+    void test_shorten_givesIdsUniqueAcrossShards() throws Exception {
+        final Map<Integer, String> byShard = new TreeMap<>();
+        for (int i = 0; byShard.size() < shards.size(); i++) {
+            byShard.putIfAbsent(aliasShards.shardOf("unique-" + i), "unique-" + i);
+        }
+        for (String alias : byShard.values()) {
+            shorten(alias);
+        }
+
+        final List<Long> ids = shards.stream()
+            .flatMap(shard -> shard.queryForList("SELECT id FROM shortened_address", Long.class).stream())
+            .toList();
+        assertEquals(ids.size(), ids.stream().distinct().count());
+        for (int shard = 1; shard < shards.size(); shard++) {
+            final long start = shards.get(shard).queryForObject(
+                "SELECT start_value FROM information_schema.sequences WHERE sequence_name = 'SHORTENED_ADDRESS_SEQ'",
+                Long.class);
+            assertTrue(start >= ShardSchemaInitializer.firstId(shard), "start " + start);
+        }
+    }
+
+    @Test
+    void test_listing_pagesThroughEveryShardInIdOrder() throws Exception {
+        final List<String> batch = IntStream.range(0, 12).mapToObj(i -> "listed-" + i).toList();
+        assertEquals(200, post("/shorten/batch", batch.stream()
+            .map(alias -> "{\"fullUrl\":\"https://example.com/" + alias + "\",\"customAlias\":\"" + alias + "\"}")
+            .reduce((a, b) -> a + "," + b)
+            .map(json -> "[" + json + "]")
+            .orElseThrow()).statusCode());
+        assertTrue(batch.stream().map(aliasShards::shardOf).distinct().count() > 1);
+
+        final List<String> listed = new ArrayList<>();
+        String next = "/urls?limit=2";
+        while (next != null) {
+            final HttpResponse<String> page = get(next);
+            assertEquals(200, page.statusCode());
+            final Matcher alias = ALIAS.matcher(page.body());
+            while (alias.find()) {
+                listed.add(alias.group(1));
+            }
+            next = page.headers().firstValue("Link")
+                .map(NEXT::matcher)
+                .filter(Matcher::find)
+                .map(link -> link.group(1))
+                .orElse(null);
+        }
+
+        final List<String> listedBatch = listed.stream().filter(batch::contains).toList();
+        assertEquals(batch.size(), listedBatch.size());
+        assertEquals(listedBatch.stream().sorted(Comparator.comparingLong(this::idOf)).toList(), listedBatch);
+    }
+
+    @Test
+    void test_delete_removesAliasFromItsShard() throws Exception {
+        shorten("short-lived");
+
+        assertEquals(204, delete("/short-lived").statusCode());
+
+        assertEquals(List.of(), shardsHolding("short-lived"));
+        assertEquals(404, get("/short-lived").statusCode());
+    }
+
+    @Test
+    void test_rebalance_movesAliasesFromTheirPreviousShard() throws Exception {
+        final List<String> moving = movingAliases("moving-", 3);
+        long id = 1_000_000;
+        for (String alias : moving) {
+            shards.get(aliasShards.previousShardOf(alias)).update(
+                "INSERT INTO shortened_address (id, alias, original_url) VALUES (?, ?, ?)",
+                ++id, alias, "https://example.com/" + alias);
+            aliasBloomFilter.put(alias);
+        }
+
+        // Still found where they were before they are moved
+        for (String alias : moving) {
+            assertEquals(302, get("/" + alias).statusCode());
+        }
+        assertEquals(400, post("/shorten", "{\"fullUrl\":\"https://example.com/other\",\"customAlias\":\""
+            + moving.getFirst() + "\"}").statusCode());
+
+        assertEquals(moving.size(), shardRebalancer.rebalance());
+
+        for (String alias : moving) {
+            assertEquals(List.of(aliasShards.shardOf(alias)), shardsHolding(alias));
+            assertNotEquals(aliasShards.previousShardOf(alias), aliasShards.shardOf(alias));
+            HttpResponse<String> redirect = get("/" + alias);
+            assertEquals(302, redirect.statusCode());
+            assertEquals("https://example.com/" + alias, redirect.headers().firstValue("Location").orElseThrow());
+        }
+        assertEquals(0, shardRebalancer.rebalance());
+    }
+
+}
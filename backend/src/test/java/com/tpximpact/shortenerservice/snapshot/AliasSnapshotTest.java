@@ -0,0 +1,249 @@
+package com.tpximpact.shortenerservice.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tpximpact.shortenerservice.model.Redirect;
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+import com.tpximpact.shortenerservice.model.SnapshotExport;
+import com.tpximpact.shortenerservice.repository.ShortenedAddressDAO;
+import com.tpximpact.shortenerservice.sharding.AliasShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class AliasSnapshotTest {
+
+    @Mock
+    private ShortenedAddressDAO dao;
+
+    @TempDir
+    private Path directory;
+
+    private Path path;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        path = directory.resolve("aliases.bin");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private static ShortenedAddress address(String alias, String url) {
+        return ShortenedAddress.builder().alias(alias).originalUrl(url).build();
+    }
+
+    private void write(List<ShortenedAddress> addresses) throws IOException {
+        AliasSnapshotWriter.write(path, addresses::forEach);
+    }
+
+    private AliasSnapshot createReader() {
+        return new AliasSnapshot(true, path.toString(), Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @Test
+    void test_lookup_findsEveryWrittenAlias() throws IOException {
+        List<ShortenedAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            addresses.add(address("a" + i, "https://example.com/" + i));
+        }
+        write(addresses);
+
+        AliasSnapshotFile snapshot = AliasSnapshotFile.open(path);
+
+        assertEquals(5000, snapshot.entries());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(Redirect.to(URI.create("https://example.com/" + i)), snapshot.lookup("a" + i));
+        }
+        assertEquals(null, snapshot.lookup("a5000"));
+        assertEquals(null, snapshot.lookup("a"));
+        assertEquals(null, snapshot.lookup(""));
+    }
+
+    @Test
+    void test_lookup_keepsUnicodeURLs() throws IOException {
+        write(List.of(address("unicode", "https://example.com/café?q=☃")));
+
+        assertEquals(Redirect.to(URI.create("https://example.com/café?q=☃")), AliasSnapshotFile.open(path).lookup("unicode"));
+    }
+
+    @Test
+    void test_lookup_keepsRedirectStatus() throws IOException {
+        write(List.of(
+            ShortenedAddress.builder().alias("moved").originalUrl("https://example.com/new").redirectStatus(301).build(),
+            address("default", "https://example.com/default")));
+
+        AliasSnapshotFile snapshot = AliasSnapshotFile.open(path);
+
+        assertEquals(new Redirect(URI.create("https://example.com/new"), 301), snapshot.lookup("moved"));
+        assertEquals(new Redirect(URI.create("https://example.com/default"), Redirect.DEFAULT_STATUS),
+            snapshot.lookup("default"));
+    }
+
+    @Test
+    void test_write_keepsExpiryAndLeavesOutExpiredAliases() throws IOException {
+        Instant later = Instant.now().plus(Duration.ofDays(1)).truncatedTo(ChronoUnit.MILLIS);
+        write(List.of(
+            ShortenedAddress.builder().alias("campaign").originalUrl("https://example.com/c").expiresAt(later).build(),
+            ShortenedAddress.builder().alias("over").originalUrl("https://example.com/o")
+                .expiresAt(Instant.now().minusSeconds(1)).build()));
+
+        AliasSnapshotFile snapshot = AliasSnapshotFile.open(path);
+
+        assertEquals(1, snapshot.entries());
+        assertEquals(new Redirect(URI.create("https://example.com/c"), Redirect.DEFAULT_STATUS, later),
+            snapshot.lookup("campaign"));
+        assertEquals(null, snapshot.lookup("over"));
+    }
+
+    @Test
+    void test_open_emptySnapshotFindsNothing() throws IOException {
+        write(List.of());
+
+        AliasSnapshotFile snapshot = AliasSnapshotFile.open(path);
+
+        assertEquals(0, snapshot.entries());
+        assertEquals(null, snapshot.lookup("anything"));
+    }
+
+    @Test
+    void test_open_rejectsTruncatedFile() throws IOException {
+        write(List.of(address("one", "https://example.com/1")));
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertThrows(IOException.class, () -> AliasSnapshotFile.open(path));
+    }
+
+    @Test
+    void test_preload_stopsAtLimit() throws IOException {
+        write(List.of(address("one", "https://example.com/1")));
+        AliasSnapshot reader = createReader();
+
+        assertEquals(0, reader.preload(1024));
+        reader.refresh();
+
+        assertEquals(Files.size(path), reader.preload(1024 * 1024));
+        assertEquals(16, reader.preload(16));
+    }
+
+    @Test
+    void test_write_leavesNoTemporaryFiles() throws IOException {
+        write(List.of(address("one", "https://example.com/1")));
+
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(path), files.toList());
+        }
+    }
+
+    @Test
+    void test_export_writesStoredAddresses() {
+        doAnswer(invocation -> {
+            Consumer<ShortenedAddress> consumer = invocation.getArgument(0);
+            consumer.accept(address("one", "https://example.com/1"));
+            consumer.accept(address("two", "https://example.com/2"));
+            return null;
+        }).when(dao).forEachAddress(any());
+
+        SnapshotExport export = new AliasSnapshotWriter(dao, new AliasShards(List.of(), 128, 0), path.toString()).export();
+
+        assertEquals(2, export.entries());
+        assertEquals(path.toFile().length(), export.sizeBytes());
+    }
+
+    @Test
+    void test_lookup_isEmptyUntilASnapshotExists() throws IOException {
+        AliasSnapshot reader = createReader();
+
+        assertFalse(reader.refresh());
+        assertEquals(Optional.empty(), reader.lookup("one"));
+
+        write(List.of(address("one", "https://example.com/1")));
+
+        assertTrue(reader.refresh());
+        assertEquals(Optional.of(Redirect.to(URI.create("https://example.com/1"))), reader.lookup("one"));
+    }
+
+    @Test
+    void test_refresh_swapsInNewSnapshot() throws IOException {
+        write(List.of(address("one", "https://example.com/1")));
+        AliasSnapshot reader = createReader();
+        reader.refresh();
+
+        write(List.of(address("two", "https://example.com/2")));
+
+        assertTrue(reader.refresh());
+        assertEquals(Optional.empty(), reader.lookup("one"));
+        assertEquals(Optional.of(Redirect.to(URI.create("https://example.com/2"))), reader.lookup("two"));
+        assertEquals(1.0, meterRegistry.get("alias.snapshot.entries").gauge().value());
+        assertEquals(2.0, meterRegistry.get("alias.snapshot.loads").counter().count());
+    }
+
+    @Test
+    void test_refresh_skipsUnchangedSnapshot() throws IOException {
+        write(List.of(address("one", "https://example.com/1")));
+        AliasSnapshot reader = createReader();
+
+        assertTrue(reader.refresh());
+        assertFalse(reader.refresh());
+    }
+
+    @Test
+    void test_refresh_keepsCurrentSnapshotWhenNewOneIsInvalid() throws IOException {
+        write(List.of(address("one", "https://example.com/1")));
+        AliasSnapshot reader = createReader();
+        reader.refresh();
+
+        Path corrupt = directory.resolve("corrupt.bin");
+        Files.write(corrupt, new byte[64]);
+        Files.move(corrupt, path, StandardCopyOption.REPLACE_EXISTING);
+
+        assertFalse(reader.refresh());
+        assertEquals(Optional.of(Redirect.to(URI.create("https://example.com/1"))), reader.lookup("one"));
+        assertEquals(1.0, meterRegistry.get("alias.snapshot.failures").counter().count());
+    }
+
+    @Test
+    void test_start_watchesForNewSnapshots() throws Exception {
+        AliasSnapshot reader = new AliasSnapshot(true, path.toString(), Duration.ofMillis(10), meterRegistry);
+        reader.start();
+        try {
+            write(List.of(address("late", "https://example.com/late")));
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (reader.lookup("late").isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(Optional.of(Redirect.to(URI.create("https://example.com/late"))), reader.lookup("late"));
+        } finally {
+            reader.stop();
+        }
+    }
+
+}
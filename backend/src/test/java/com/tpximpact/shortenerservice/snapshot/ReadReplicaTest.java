@@ -0,0 +1,108 @@
+package com.tpximpact.shortenerservice.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.tpximpact.shortenerservice.model.ShortenedAddress;
+
+/**
+ * Starts a read replica with a datasource that can't be connected to, so every redirect has to be
+ * answered from the snapshot.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:postgresql://localhost:1/unused"
+})
+@ActiveProfiles("read-replica")
+public class ReadReplicaTest {
+
+    private static final Path SNAPSHOT = createSnapshotDirectory().resolve("aliases.bin");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AliasSnapshot aliasSnapshot;
+
+    private HttpClient client;
+
+    @DynamicPropertySource
+    static void snapshotPath(DynamicPropertyRegistry registry) throws IOException {
+        AliasSnapshotWriter.write(SNAPSHOT, List.of(
+            ShortenedAddress.builder().alias("replica").originalUrl("https://example.com/replica").build())::forEach);
+        registry.add("alias.snapshot.path", SNAPSHOT::toString);
+    }
+
+    private static Path createSnapshotDirectory() {
+        try {
+            return Files.createTempDirectory("alias-snapshot");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void test_redirect_answeredFromSnapshot() throws Exception {
+        HttpResponse<String> redirect = get("/replica");
+        assertEquals(302, redirect.statusCode());
+        assertEquals(Optional.of("https://example.com/replica"), redirect.headers().firstValue("Location"));
+
+        assertEquals(404, get("/missing").statusCode());
+    }
+
+    @Test
+    void test_redirect_usesNewSnapshotOnceItLands() throws Exception {
+        AliasSnapshotWriter.write(SNAPSHOT, List.of(
+            ShortenedAddress.builder().alias("fresh").originalUrl("https://example.com/fresh").build())::forEach);
+        aliasSnapshot.refresh();
+
+        assertEquals(302, get("/fresh").statusCode());
+        assertEquals(404, get("/replica").statusCode());
+
+        // Put the original back for the other tests sharing this context
+        AliasSnapshotWriter.write(SNAPSHOT, List.of(
+            ShortenedAddress.builder().alias("replica").originalUrl("https://example.com/replica").build())::forEach);
+        aliasSnapshot.refresh();
+    }
+
+    @Test
+    void test_health_isUpWithoutADatabase() throws Exception {
+        assertEquals(200, get("/actuator/health").statusCode());
+    }
+
+}
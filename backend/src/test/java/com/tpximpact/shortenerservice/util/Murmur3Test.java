@@ -0,0 +1,30 @@
+package com.tpximpact.shortenerservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class Murmur3Test {
+
+    @Test
+    void test_hash64_matchesReferenceImplementation() {
+        // Reference murmur3_x64_128 (seed 0) gives 6c1b07bc7bbc4be347939ac4a93c437a, of which the
+        // first 8 bytes are the little endian h1 value
+        assertEquals(0xe34bbc7bbc071b6cL, Murmur3.hash64("The quick brown fox jumps over the lazy dog"));
+    }
+
+    @Test
+    void test_hash64_ofByteRangeMatchesHashOfString() {
+        byte[] bytes = "xxabcdefxx".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(Murmur3.hash64("abcdef"), Murmur3.hash64(bytes, 2, 6));
+    }
+
+    @Test
+    void test_hash64_differsForDifferentInputs() {
+        assertNotEquals(Murmur3.hash64("abc"), Murmur3.hash64("abd"));
+    }
+}
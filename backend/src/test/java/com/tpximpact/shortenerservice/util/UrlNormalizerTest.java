@@ -0,0 +1,44 @@
+package com.tpximpact.shortenerservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+class UrlNormalizerTest {
+
+    @Test
+    void test_normalize_lowerCasesSchemeAndHost() {
+        assertEquals("https://example.com/Path", UrlNormalizer.normalize("HTTPS://Example.COM/Path"));
+    }
+
+    @Test
+    void test_normalize_dropsDefaultPortsOnly() {
+        assertEquals("http://example.com/", UrlNormalizer.normalize("http://example.com:80/"));
+        assertEquals("https://example.com/", UrlNormalizer.normalize("https://example.com:443/"));
+        assertEquals("https://example.com:8443/", UrlNormalizer.normalize("https://example.com:8443/"));
+    }
+
+    @Test
+    void test_normalize_addsEmptyPath() {
+        assertEquals("https://example.com/?q=1", UrlNormalizer.normalize("https://example.com?q=1"));
+    }
+
+    @Test
+    void test_normalize_keepsUserInfoQueryAndFragment() {
+        assertEquals("https://user@example.com/a%20b?Q=A#Top",
+            UrlNormalizer.normalize("https://user@EXAMPLE.com/a%20b?Q=A#Top"));
+    }
+
+    @Test
+    void test_normalize_leavesUrlsWithoutHostAlone() {
+        assertEquals("mailto:Someone@Example.com", UrlNormalizer.normalize("mailto:Someone@Example.com"));
+        assertEquals("not a url", UrlNormalizer.normalize("not a url"));
+    }
+
+    @Test
+    void test_hash_equalForEquivalentUrls() {
+        assertEquals(UrlNormalizer.hash("https://example.com/"), UrlNormalizer.hash("HTTPS://EXAMPLE.com:443"));
+        assertNotEquals(UrlNormalizer.hash("https://example.com/a"), UrlNormalizer.hash("https://example.com/A"));
+    }
+}